@@ -66,6 +66,7 @@ public class BatchingConstraintUpdateManager extends ConstraintUpdateManager {
         } catch (OpenJPAException ke) {
             exceps = addException(exceps, ke);
         }
+        bPsMgr.reportStatistics();
 
         return exceps;
     }
@@ -68,6 +68,7 @@ public class BatchingOperationOrderUpdateManager extends
         } catch (OpenJPAException ke) {
             exceps = addException(exceps, ke);
         }
+        bPsMgr.reportStatistics();
 
         return exceps;
     }
@@ -31,7 +31,10 @@ import org.apache.openjpa.jdbc.schema.Column;
 import org.apache.openjpa.jdbc.sql.Row;
 import org.apache.openjpa.jdbc.sql.RowImpl;
 import org.apache.openjpa.jdbc.sql.SQLExceptions;
+import org.apache.openjpa.instrumentation.InstrumentationManager;
+import org.apache.openjpa.instrumentation.InstrumentationManagerImpl;
 import org.apache.openjpa.kernel.OpenJPAStateManager;
+import org.apache.openjpa.lib.instrumentation.BatchStatistics;
 import org.apache.openjpa.lib.jdbc.ReportingSQLException;
 import org.apache.openjpa.lib.util.Localizer;
 import org.apache.openjpa.util.OptimisticException;
@@ -55,6 +58,14 @@ public class BatchingPreparedStatementManagerImpl extends
     private int _batchLimit;
     private boolean _disableBatch = false;
 
+    // batch sizes achieved by this manager, reported to the statistics
+    private final BatchStatistics _stats;
+    private int _rows = 0;
+    private int _executions = 0;
+    private int _batches = 0;
+    private int _rowsInBatches = 0;
+    private int _maxBatch = 0;
+
     /**
      * Constructor. Supply connection.
      */
@@ -62,6 +73,9 @@ public class BatchingPreparedStatementManagerImpl extends
         Connection conn, int batchLimit) {
         super(store, conn);
         _batchLimit = batchLimit;
+        InstrumentationManager im = (store == null) ? null
+            : store.getConfiguration().getInstrumentationManagerInstance();
+        _stats = InstrumentationManagerImpl.getStatistics(im, BatchStatistics.class);
         if (_log.isTraceEnabled())
             _log.trace(_loc.get("batch_limit", String.valueOf(_batchLimit)));
     }
@@ -173,6 +187,7 @@ public class BatchingPreparedStatementManagerImpl extends
                             } else {
                                 // reach the batchLimit, execute the batch
                                 int[] rtn = executeBatch(ps);
+                                executed(count);
                                 checkUpdateCount(rtn, batchedRowsBaseIndex, ps);
 
                                 batchedRowsBaseIndex += _batchLimit;
@@ -187,6 +202,7 @@ public class BatchingPreparedStatementManagerImpl extends
                     }
                     // end of the loop, execute the batch
                     int[] rtn = executeBatch(ps);
+                    executed(count);
                     checkUpdateCount(rtn, batchedRowsBaseIndex, ps);
                 }
             } catch (SQLException se) {
@@ -244,6 +260,47 @@ public class BatchingPreparedStatementManagerImpl extends
         }
     }
 
+    /**
+     * Count the execution of a single row.
+     */
+    protected int executeUpdate(PreparedStatement stmnt, String sql,
+        RowImpl row) throws SQLException {
+        int count = super.executeUpdate(stmnt, sql, row);
+        _rows++;
+        _executions++;
+        _maxBatch = Math.max(_maxBatch, 1);
+        return count;
+    }
+
+    /**
+     * Count the execution of a batch of the given size.
+     */
+    private void executed(int size) {
+        _rows += size;
+        _executions++;
+        _batches++;
+        _rowsInBatches += size;
+        _maxBatch = Math.max(_maxBatch, size);
+    }
+
+    /**
+     * Report the batch sizes achieved since the last report to the
+     * batch statistics, if they are being collected. Update managers call
+     * this at the end of each flush.
+     *
+     * @since 3.0.0
+     */
+    public void reportStatistics() {
+        if (_stats != null && _stats.isEnabled())
+            _stats.recordFlush(_rows, _executions, _batches, _rowsInBatches,
+                _maxBatch);
+        _rows = 0;
+        _executions = 0;
+        _batches = 0;
+        _rowsInBatches = 0;
+        _maxBatch = 0;
+    }
+
     /*
      * Execute an update of a single row.
      */
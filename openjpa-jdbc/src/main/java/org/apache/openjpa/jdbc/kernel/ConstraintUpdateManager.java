@@ -20,6 +20,7 @@ package org.apache.openjpa.jdbc.kernel;
 
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -57,6 +58,54 @@ public class ConstraintUpdateManager
     private static final Localizer _loc = Localizer.forPackage
         (ConstraintUpdateManager.class);
 
+    private int _pipelineThreshold = 0;
+    private boolean _groupStatements = false;
+
+    /**
+     * The minimum number of rows flushed together for their SQL to be
+     * generated on a background thread while earlier rows execute. Rows are
+     * never pipelined when they rely on auto-assigned keys. 0, the default,
+     * disables pipelining.
+     *
+     * @since 3.0.0
+     */
+    public int getPipelineThreshold() {
+        return _pipelineThreshold;
+    }
+
+    /**
+     * The minimum number of rows flushed together for their SQL to be
+     * generated on a background thread while earlier rows execute.
+     *
+     * @since 3.0.0
+     */
+    public void setPipelineThreshold(int threshold) {
+        _pipelineThreshold = threshold;
+    }
+
+    /**
+     * Whether to reorder the rows of a flush so that rows of the same table,
+     * action and SQL are flushed together, within the order required by
+     * foreign keys. Grouping lets consecutive rows share a statement batch,
+     * but changes the order in which statements on different tables run.
+     * Defaults to false.
+     *
+     * @since 3.0.0
+     */
+    public boolean getGroupStatements() {
+        return _groupStatements;
+    }
+
+    /**
+     * Whether to reorder the rows of a flush so that rows of the same table,
+     * action and SQL are flushed together.
+     *
+     * @since 3.0.0
+     */
+    public void setGroupStatements(boolean group) {
+        _groupStatements = group;
+    }
+
     public boolean orderDirty() {
         return true;
     }
@@ -93,6 +142,7 @@ public class ConstraintUpdateManager
 
         // flush insert graph, if any
         boolean autoAssign = rmimpl.hasAutoAssignConstraints();
+        boolean pipeline = _pipelineThreshold > 0 && !autoAssign;
         try {
             flushGraph(graphs[0], psMgr, autoAssign);
         } catch (SQLException se) {
@@ -103,8 +153,8 @@ public class ConstraintUpdateManager
 
         // flush the rest of the inserts and updates; inserts before updates
         // because some update fks might reference pks that have to be inserted
-        flush(inserts, psMgr);
-        flush(updates, psMgr);
+        flush(pipeline(group(inserts), pipeline), psMgr);
+        flush(pipeline(group(updates), pipeline), psMgr);
 
         // flush the delete graph, if any
         try {
@@ -117,7 +167,7 @@ public class ConstraintUpdateManager
 
         // put the remainder of the deletes after updates because some updates
         // may be nulling fks to rows that are going to be deleted
-        flush(deletes, psMgr);
+        flush(pipeline(group(deletes), pipeline), psMgr);
 
         // take care of all secondary table inserts and updates last, since
         // they may rely on previous inserts or updates, but nothing relies
@@ -346,13 +396,23 @@ public class ConstraintUpdateManager
         // flush delete updates to null fks, then all rows in order, then
         // the insert updates to set circular fk values
         Collection nodes = dfa.getSortedNodes();
-        flush(deleteUpdates, nodes, psMgr);
+        if (_groupStatements) {
+            // rows with auto-assigned keys cannot generate their SQL before
+            // the rows they depend on are flushed
+            nodes = RowManagerImpl.group(graph, (List) nodes,
+                (autoAssign) ? null : dict);
+        }
+        flush(deleteUpdates, pipeline(nodes, !autoAssign), psMgr);
         flush(insertUpdates, psMgr);
     }
 
     protected void flush(Collection deleteUpdates, Collection nodes,
     	PreparedStatementManager psMgr) {
         flush(deleteUpdates, psMgr);
+        if (nodes instanceof PipelinedRows) {
+            flushPipelined((PipelinedRows) nodes, psMgr, false);
+            return;
+        }
         for (Iterator itr = nodes.iterator(); itr.hasNext();)
             psMgr.flush((RowImpl) itr.next());
     }
@@ -536,6 +596,52 @@ public class ConstraintUpdateManager
         return new DepthFirstAnalysis(graph);
     }
 
+    /**
+     * Mark the given rows for their SQL to be generated ahead of execution
+     * if <code>pipeline</code> is set and there are enough rows. The flush
+     * hooks receive the marked rows in place of the given ones, so that
+     * subclasses overriding them see the same rows either way.
+     */
+    private Collection pipeline(Collection rows, boolean pipeline) {
+        if (!pipeline || _pipelineThreshold <= 0
+            || rows.size() < _pipelineThreshold)
+            return rows;
+        return new PipelinedRows(rows);
+    }
+
+    /**
+     * Flush the given rows in order while their SQL is generated on a
+     * background thread.
+     */
+    private void flushPipelined(List<RowImpl> rows,
+        PreparedStatementManager psMgr, boolean markFlushed) {
+        SQLPipeline sql = new SQLPipeline(rows.toArray(
+            new RowImpl[rows.size()]), dict, dict.getExecutorService());
+        sql.start();
+        try {
+            RowImpl row;
+            for (int i = 0; i < rows.size(); i++) {
+                row = sql.get(i);
+                psMgr.flush(row);
+                if (markFlushed)
+                    row.setFlushed(true);
+            }
+        } finally {
+            sql.finish();
+        }
+    }
+
+    /**
+     * Group the given rows for batching if requested. Rows are grouped just
+     * before they are flushed, once all rows they depend on are flushed and
+     * their SQL can be generated.
+     */
+    private Collection group(Collection rows) {
+        if (!_groupStatements || rows.size() < 2)
+            return rows;
+        return RowManagerImpl.group(rows, dict);
+    }
+
     /**
      * Flush the given collection of secondary rows.
      */
@@ -544,6 +650,17 @@ public class ConstraintUpdateManager
             return;
 
         RowImpl row;
+        if (rows instanceof PipelinedRows) {
+            List<RowImpl> flush = new ArrayList<RowImpl>(rows.size());
+            for (Iterator itr = rows.iterator(); itr.hasNext(); ) {
+                row = (RowImpl) itr.next();
+                if (!row.isFlushed() && row.isValid() && !row.isDependent())
+                    flush.add(row);
+            }
+            flushPipelined(flush, psMgr, true);
+            return;
+        }
+
         for (Iterator itr = rows.iterator(); itr.hasNext(); ) {
             row = (RowImpl) itr.next();
             if (!row.isFlushed() && row.isValid() && !row.isDependent()) {
@@ -552,4 +669,16 @@ public class ConstraintUpdateManager
             }
         }
     }
+
+    /**
+     * Rows of a flush stage whose SQL is generated on a background thread
+     * while earlier rows execute.
+     */
+    private static class PipelinedRows
+        extends ArrayList<RowImpl> {
+
+        public PipelinedRows(Collection rows) {
+            super(rows);
+        }
+    }
 }
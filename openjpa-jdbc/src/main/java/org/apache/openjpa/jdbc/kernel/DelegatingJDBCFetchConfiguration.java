@@ -310,4 +310,37 @@ public class DelegatingJDBCFetchConfiguration
             throw translate(re);
         }
     }
+    public boolean getSkipLocked() {
+        try {
+            return getJDBCDelegate().getSkipLocked();
+        } catch (RuntimeException re) {
+            throw translate(re);
+        }
+    }
+
+    public JDBCFetchConfiguration setSkipLocked(boolean skip) {
+        try {
+            getJDBCDelegate().setSkipLocked(skip);
+            return this;
+        } catch (RuntimeException re) {
+            throw translate(re);
+        }
+    }
+
+    public int getLRSPageSize() {
+        try {
+            return getJDBCDelegate().getLRSPageSize();
+        } catch (RuntimeException re) {
+            throw translate(re);
+        }
+    }
+
+    public JDBCFetchConfiguration setLRSPageSize(int size) {
+        try {
+            getJDBCDelegate().setLRSPageSize(size);
+            return this;
+        } catch (RuntimeException re) {
+            throw translate(re);
+        }
+    }
 }
@@ -21,11 +21,13 @@ package org.apache.openjpa.jdbc.kernel;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.openjpa.lib.util.StringUtil;
@@ -42,6 +44,13 @@ import org.apache.openjpa.lib.conf.Configuration;
 /**
  * Implementation of FinderCache for JDBC.
  * 
+ * Lookups do not lock: cached finders are held in a concurrent map, and only
+ * changes to the exclusion patterns are serialized.
+ * 
+ * The cache can also remember, for a short time, the identities for which
+ * no instance was found, so that repeated finds of absent instances do not
+ * go to the database. See {@link #setNotFoundTimeout(long)}.
+ * 
  * @author Pinaki Poddar
  * 
  * @since 2.0.0
@@ -52,18 +61,26 @@ public class FinderCacheImpl
     private static final String PATTERN_SEPARATOR = "\\;";
     private static final String EXLUDED_BY_USER = "Excluded by user";
      
-    private final Map<ClassMapping, FinderQuery<ClassMapping, SelectExecutor, Result>> _delegate;
+    private final ConcurrentMap<ClassMapping, FinderQuery<ClassMapping, SelectExecutor, Result>> _delegate;
     // Key: class name Value: Reason why excluded
     private final Map<String, String> _uncachables;
-    private List<String> _exclusionPatterns;
+    private volatile List<String> _exclusionPatterns;
     private QueryStatistics<ClassMapping> _stats;
+    private QueryStatistics<ClassMapping> _notFoundStats;
     private ReentrantLock _lock = new ReentrantLock();
     private boolean _enableStats = false;
+
+    // Key: type Value: identities not found, with their expiry times
+    private final ConcurrentMap<Class<?>, ConcurrentMap<Object, Long>> _notFound;
+    private long _notFoundTimeout = 0;
+    private int _notFoundSize = 1000;
     
     public FinderCacheImpl() {
-        _delegate = new HashMap<ClassMapping, FinderQuery<ClassMapping, SelectExecutor, Result>>();
-        _uncachables = new HashMap<String, String>();
+        _delegate = new ConcurrentHashMap<ClassMapping, FinderQuery<ClassMapping, SelectExecutor, Result>>();
+        _uncachables = new ConcurrentHashMap<String, String>();
+        _notFound = new ConcurrentHashMap<Class<?>, ConcurrentMap<Object, Long>>();
         _stats = new QueryStatistics.None<ClassMapping>();
+        _notFoundStats = new QueryStatistics.None<ClassMapping>();
     }
     
     /**
@@ -72,26 +89,34 @@ public class FinderCacheImpl
      * @return a map of the query string with class names as key. 
      */
     public Map<String, String> getMapView() {
-        lock();
-        try {
-            Map<String, String> view = new TreeMap<String, String>();
-            for (ClassMapping mapping : _delegate.keySet()) {
-                view.put(mapping.getDescribedType().getName(), 
-                    _delegate.get(mapping).getQueryString());
-            }
-            return view;
-        } finally {
-            unlock();
+        Map<String, String> view = new TreeMap<String, String>();
+        for (Map.Entry<ClassMapping, FinderQuery<ClassMapping, SelectExecutor, Result>> entry 
+            : _delegate.entrySet()) {
+            view.put(entry.getKey().getDescribedType().getName(), 
+                entry.getValue().getQueryString());
         }
+        return view;
     }
 
     /**
      * Gets basic statistics of execution and hit count of finder queries. 
+     * An execution is a hit if a cached finder was found for it.
      */
     public QueryStatistics<ClassMapping> getStatistics() {
         return _stats;
     }
 
+    /**
+     * Gets statistics of the lookups of identities that were not found.
+     * An execution is a hit if the instance was known not to exist, so that
+     * the database was not queried.
+     * 
+     * @since 3.0.0
+     */
+    public QueryStatistics<ClassMapping> getNotFoundStatistics() {
+        return _notFoundStats;
+    }
+
     /**
      * Gets the finder query for the given mapping. The get operation can be
      * controlled by FetchConfiguration hints. 
@@ -104,11 +129,7 @@ public class FinderCacheImpl
      */
     public FinderQuery<ClassMapping,SelectExecutor,Result> 
         get(ClassMapping mapping, FetchConfiguration fetch) {
-        if (fetch.getReadLockLevel() != 0) {
-            return null;
-        }
-        
-        if (!fetch.isFetchConfigurationSQLCacheAdmissible()) {
+        if (!isAdmissible(fetch)) {
             return null;
         }
         
@@ -121,9 +142,17 @@ public class FinderCacheImpl
             return null;
         }
         FinderQuery<ClassMapping, SelectExecutor, Result> result = _delegate.get(mapping);
-        _stats.recordExecution(mapping);
+        recordExecution(_stats, mapping, result != null);
         return result;
     }
+
+    /**
+     * Affirms if finders may be used under the given fetch configuration.
+     */
+    private boolean isAdmissible(FetchConfiguration fetch) {
+        return fetch.getReadLockLevel() == 0 
+            && fetch.isFetchConfigurationSQLCacheAdmissible();
+    }
     
     /**
      * Cache a Finder Query for the given mapping and select. The put operation 
@@ -144,42 +173,47 @@ public class FinderCacheImpl
      */
     public FinderQuery<ClassMapping, SelectExecutor, Result> cache
        (ClassMapping mapping, SelectExecutor select, FetchConfiguration fetch) {
-        lock();
-        try {
-            if (fetch.getReadLockLevel() != 0) {
-                return null;
-            }
-            
-            if (!fetch.isFetchConfigurationSQLCacheAdmissible()) {
-                return null;
-            }           
-            
-            boolean recache = isHinted(fetch, QueryHints.HINT_RECACHE_FINDER);
-            if (isExcluded(mapping)) {
-                return recache ? put(mapping, select) : null;
-            }
-            if (_delegate.containsKey(mapping)) {
-                return recache ? put(mapping, select) : _delegate.get(mapping);
-            }
-            return put(mapping, select);
-        } finally {
-            unlock();
+        if (!isAdmissible(fetch)) {
+            return null;
         }
+
+        boolean recache = isHinted(fetch, QueryHints.HINT_RECACHE_FINDER);
+        if (isExcluded(mapping)) {
+            return recache ? put(mapping, select, true) : null;
+        }
+        if (!recache) {
+            FinderQuery<ClassMapping, SelectExecutor, Result> finder = _delegate.get(mapping);
+            if (finder != null)
+                return finder;
+        }
+        return put(mapping, select, recache);
     }
     
     /**
      * Creates and puts a FinderQuery in the internal map indexed by the
-     * given ClassMapping.
+     * given ClassMapping, replacing any existing entry if so asked.
      * If a new FinderQuery can not be created for the given Select (because
      * some Select are not cached), then the mapping is marked invalid.
      *  
     */
-    private FinderQuery<ClassMapping, SelectExecutor, Result> put(ClassMapping mapping, SelectExecutor select) {
+    private FinderQuery<ClassMapping, SelectExecutor, Result> put(ClassMapping mapping, SelectExecutor select,
+        boolean replace) {
         FinderQuery<ClassMapping, SelectExecutor, Result> finder = FinderQueryImpl.newFinder(mapping, select);
-        if (finder != null) {
-            _delegate.put(mapping, finder);
-        } else {
+        if (finder == null) {
             invalidate(mapping);
+            return null;
+        }
+        if (replace) {
+            _delegate.put(mapping, finder);
+            return finder;
+        }
+        FinderQuery<ClassMapping, SelectExecutor, Result> existing = _delegate.putIfAbsent(mapping, finder);
+        if (existing != null)
+            return existing;
+        // an exclusion pattern may have been added since we checked
+        if (isExcluded(mapping)) {
+            _delegate.remove(mapping, finder);
+            return null;
         }
         return finder;
     }
@@ -196,7 +230,8 @@ public class FinderCacheImpl
      * any element.
      */
     private boolean isExcluded(String target) {
-        if (_exclusionPatterns != null && _exclusionPatterns.contains(target))
+        List<String> patterns = _exclusionPatterns;
+        if (patterns != null && patterns.contains(target))
             return true;
         return getMatchedExclusionPattern(target) != null;
     }
@@ -209,7 +244,7 @@ public class FinderCacheImpl
         lock();
         try {
             if (_exclusionPatterns == null)
-                _exclusionPatterns = new ArrayList<String>();
+                _exclusionPatterns = new CopyOnWriteArrayList<String>();
             _exclusionPatterns.add(pattern);
             Collection<ClassMapping> invalidMappings = getMatchedKeys(pattern, 
                     _delegate.keySet());
@@ -243,9 +278,10 @@ public class FinderCacheImpl
      * Gets the pattern that matches the given identifier.
      */
     private String getMatchedExclusionPattern(String id) {
-        if (_exclusionPatterns == null || _exclusionPatterns.isEmpty())
+        List<String> patterns = _exclusionPatterns;
+        if (patterns == null || patterns.isEmpty())
             return null;
-        for (String pattern : _exclusionPatterns)
+        for (String pattern : patterns)
             if (matches(pattern, id))
                 return pattern;
         return null;
@@ -287,12 +323,7 @@ public class FinderCacheImpl
     }
     
     public boolean invalidate(ClassMapping mapping) {
-        lock();
-        try {
-            return _delegate.remove(mapping) != null;
-        } finally {
-            unlock();
-        }
+        return _delegate.remove(mapping) != null;
     }
 
     public FinderQuery<ClassMapping, SelectExecutor, Result> markUncachable(ClassMapping mapping) {
@@ -342,7 +373,7 @@ public class FinderCacheImpl
             if (StringUtil.isEmpty(excludes))
                 return;
             if (_exclusionPatterns == null)
-                _exclusionPatterns = new ArrayList<String>();
+                _exclusionPatterns = new CopyOnWriteArrayList<String>();
             String[] patterns = excludes.split(PATTERN_SEPARATOR);
             for (String pattern : patterns)
                 addExclusionPattern(pattern);
@@ -379,12 +410,128 @@ public class FinderCacheImpl
         _enableStats = b;
         if (_enableStats) {
             _stats = new QueryStatistics.Default<ClassMapping>();
+            _notFoundStats = new QueryStatistics.Default<ClassMapping>();
         }
     }
 
     public boolean getEnableStats() {
         return _enableStats;
     }
+
+    /**
+     * Sets the number of milliseconds for which an identity that was not
+     * found is remembered as absent, so that finding it again does not query
+     * the database. Inserts of the type, or of its subclasses, through this
+     * cache's configuration forget the absent identities at once; inserts
+     * made elsewhere become visible once the timeout expires. Defaults to 0,
+     * which disables remembering absent identities.
+     * 
+     * @since 3.0.0
+     */
+    public void setNotFoundTimeout(long millis) {
+        _notFoundTimeout = millis;
+    }
+
+    /**
+     * Gets the number of milliseconds for which an identity that was not
+     * found is remembered as absent.
+     * 
+     * @since 3.0.0
+     */
+    public long getNotFoundTimeout() {
+        return _notFoundTimeout;
+    }
+
+    /**
+     * Sets the maximum number of absent identities remembered per type.
+     * Defaults to 1000.
+     * 
+     * @since 3.0.0
+     */
+    public void setNotFoundSize(int size) {
+        _notFoundSize = size;
+    }
+
+    /**
+     * Gets the maximum number of absent identities remembered per type.
+     * 
+     * @since 3.0.0
+     */
+    public int getNotFoundSize() {
+        return _notFoundSize;
+    }
+
+    /**
+     * Affirms if the instance of the given mapping with the given identity
+     * is known not to exist.
+     * 
+     * @since 3.0.0
+     */
+    public boolean isNotFound(ClassMapping mapping, Object oid, FetchConfiguration fetch) {
+        if (_notFoundTimeout <= 0 || !isAdmissible(fetch) 
+            || isHinted(fetch, QueryHints.HINT_IGNORE_FINDER))
+            return false;
+        boolean found = false;
+        Map<Object, Long> oids = _notFound.get(mapping.getDescribedType());
+        if (oids != null) {
+            Long expiry = oids.get(oid);
+            if (expiry != null) {
+                found = expiry.longValue() > System.currentTimeMillis();
+                if (!found)
+                    oids.remove(oid, expiry);
+            }
+        }
+        recordExecution(_notFoundStats, mapping, found);
+        return found;
+    }
+
+    /**
+     * Record an execution with its outcome in statistics that can count hits
+     * explicitly, and as a plain execution otherwise.
+     */
+    private static void recordExecution(QueryStatistics<ClassMapping> stats,
+        ClassMapping mapping, boolean hit) {
+        if (stats instanceof QueryStatistics.Default)
+            ((QueryStatistics.Default<ClassMapping>) stats).recordExecution(
+                mapping, hit);
+        else
+            stats.recordExecution(mapping);
+    }
+
+    /**
+     * Records that no instance of the given mapping exists with the given
+     * identity.
+     * 
+     * @since 3.0.0
+     */
+    public void recordNotFound(ClassMapping mapping, Object oid, FetchConfiguration fetch) {
+        if (_notFoundTimeout <= 0 || !isAdmissible(fetch) || oid == null)
+            return;
+        Class<?> type = mapping.getDescribedType();
+        ConcurrentMap<Object, Long> oids = _notFound.get(type);
+        if (oids == null) {
+            oids = new ConcurrentHashMap<Object, Long>();
+            ConcurrentMap<Object, Long> existing = _notFound.putIfAbsent(type, oids);
+            if (existing != null)
+                oids = existing;
+        }
+        if (oids.size() >= _notFoundSize)
+            oids.clear();
+        oids.put(oid, System.currentTimeMillis() + _notFoundTimeout);
+    }
+
+    /**
+     * Forgets the absent identities of the given type and its superclasses,
+     * as an instance of the type may now exist for any of them.
+     * 
+     * @since 3.0.0
+     */
+    public void invalidateNotFound(Class<?> type) {
+        if (_notFound.isEmpty())
+            return;
+        for (; type != null; type = type.getSuperclass())
+            _notFound.remove(type);
+    }
     // ----------------------------------------------------
     //  Configuration contract
     // ----------------------------------------------------
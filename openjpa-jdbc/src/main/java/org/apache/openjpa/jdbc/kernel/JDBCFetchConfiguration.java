@@ -261,4 +261,44 @@ public interface JDBCFetchConfiguration
      * @since 2.2.0
      */
     public void setIgnoreDfgForFkSelect(boolean b);
+
+    /**
+     * Whether locking selects skip the rows that are locked by other
+     * transactions instead of waiting for them. Rows skipped by a query are
+     * left out of its result, which allows several consumers to work off the
+     * same table. Requires a dictionary with a
+     * {@link org.apache.openjpa.jdbc.sql.DBDictionary#skipLockedClause}.
+     *
+     * @since 3.0.0
+     */
+    public boolean getSkipLocked();
+
+    /**
+     * Whether locking selects skip the rows that are locked by other
+     * transactions instead of waiting for them.
+     *
+     * @since 3.0.0
+     */
+    public JDBCFetchConfiguration setSkipLocked(boolean skip);
+
+    /**
+     * The number of elements that large result set collection fields read
+     * per query. When greater than 0, such a collection is iterated in pages
+     * ordered by the primary key of its elements, each page starting after
+     * the last key of the previous one, and the connection is released
+     * between pages. The size of large result set fields is then counted
+     * once and kept up to date from the changes made to them. Defaults to 0,
+     * which iterates over a single open result.
+     *
+     * @since 3.0.0
+     */
+    public int getLRSPageSize();
+
+    /**
+     * The number of elements that large result set collection fields read
+     * per query, or 0 to iterate over a single open result.
+     *
+     * @since 3.0.0
+     */
+    public JDBCFetchConfiguration setLRSPageSize(int size);
 }
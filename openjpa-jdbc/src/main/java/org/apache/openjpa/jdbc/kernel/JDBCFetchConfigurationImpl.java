@@ -76,6 +76,8 @@ public class JDBCFetchConfigurationImpl
         populateHintSetter(target, "LRSSize", int.class, prefixes);
         populateHintSetter(target, "setLRSSize", "LRSSizeAlgorithm", int.class, prefixes);
         populateHintSetter(target, "ResultSetType", int.class, prefixes);
+        populateHintSetter(target, "SkipLocked", boolean.class, prefixes);
+        populateHintSetter(target, "LRSPageSize", int.class, prefixes);
     }
 
     /**
@@ -92,6 +94,8 @@ public class JDBCFetchConfigurationImpl
         public Set<String> fetchInnerJoins = null;
         public int isolationLevel = -1;
         public boolean ignoreDfgForFkSelect = false;
+        public boolean skipLocked = false;
+        public int lrsPageSize = 0;
     }
 
     protected final JDBCConfigurationState _state;
@@ -136,6 +140,8 @@ public class JDBCFetchConfigurationImpl
         setJoinSyntax(jf.getJoinSyntax());
         addJoins(jf.getJoins());
         setIgnoreDfgForFkSelect(jf.getIgnoreDfgForFkSelect());
+        setSkipLocked(jf.getSkipLocked());
+        setLRSPageSize(jf.getLRSPageSize());
     }
 
     @Override
@@ -378,6 +384,24 @@ public class JDBCFetchConfigurationImpl
         return this;
     }
 
+    public boolean getSkipLocked() {
+        return _state.skipLocked;
+    }
+
+    public JDBCFetchConfiguration setSkipLocked(boolean skip) {
+        _state.skipLocked = skip;
+        return this;
+    }
+
+    public int getLRSPageSize() {
+        return _state.lrsPageSize;
+    }
+
+    public JDBCFetchConfiguration setLRSPageSize(int size) {
+        _state.lrsPageSize = Math.max(0, size);
+        return this;
+    }
+
     public int getIsolation() {
         return _state.isolationLevel;
     }
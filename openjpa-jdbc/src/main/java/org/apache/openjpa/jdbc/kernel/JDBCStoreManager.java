@@ -55,6 +55,7 @@ import org.apache.openjpa.jdbc.sql.Union;
 import org.apache.openjpa.kernel.BrokerImpl;
 import org.apache.openjpa.kernel.FetchConfiguration;
 import org.apache.openjpa.kernel.FinderCache;
+import org.apache.openjpa.kernel.LockLevels;
 import org.apache.openjpa.kernel.LockManager;
 import org.apache.openjpa.kernel.OpenJPAStateManager;
 import org.apache.openjpa.kernel.PCState;
@@ -64,6 +65,8 @@ import org.apache.openjpa.kernel.StoreContext;
 import org.apache.openjpa.kernel.StoreManager;
 import org.apache.openjpa.kernel.StoreQuery;
 import org.apache.openjpa.kernel.exps.ExpressionParser;
+import org.apache.openjpa.instrumentation.InstrumentationManagerImpl;
+import org.apache.openjpa.lib.instrumentation.LatencyStatistics;
 import org.apache.openjpa.lib.jdbc.DelegatingConnection;
 import org.apache.openjpa.lib.jdbc.DelegatingPreparedStatement;
 import org.apache.openjpa.lib.jdbc.DelegatingStatement;
@@ -104,6 +107,7 @@ public class JDBCStoreManager implements StoreManager, JDBCStore {
     private RefCountConnection _conn = null;
     private boolean _active = false;
     private Log _log = null;
+    private LatencyStatistics _latency = null;
     
     // track the pending statements so we can cancel them
     private List<Statement> _stmnts = Collections.synchronizedList(new ArrayList<Statement>());
@@ -132,6 +136,8 @@ public class JDBCStoreManager implements StoreManager, JDBCStore {
             _lm = (JDBCLockManager) lm;
 
         _ds = getDataSource(ctx);
+        _latency = InstrumentationManagerImpl.getStatistics(
+            _conf.getInstrumentationManagerInstance(), LatencyStatistics.class);
 
         if (_conf.getUpdateManagerInstance().orderDirty())
             ctx.setOrderDirtyObjects(true);
@@ -195,6 +201,7 @@ public class JDBCStoreManager implements StoreManager, JDBCStore {
         try {
             if (!_ctx.isManaged() || !_conf.isConnectionFactoryModeManaged())
                 _conn.commit();
+            invalidateNotFound();
         } catch (SQLException se) {
             try {
                 _conn.rollback();
@@ -328,6 +335,8 @@ public class JDBCStoreManager implements StoreManager, JDBCStore {
                 if (info.mapping == null)
                     info.mapping = mapping;
                 mapping = info.mapping;
+            } else if (isNotFound(mapping, oid, fetch)) {
+                return false;
             } else if (oid instanceof OpenJPAId
                 && !((OpenJPAId) oid).hasSubclasses()) {
                 Boolean custom = customLoad(sm, mapping, state, fetch);
@@ -336,10 +345,11 @@ public class JDBCStoreManager implements StoreManager, JDBCStore {
                 res = getInitializeStateResult(sm, mapping, fetch,
                     Select.SUBS_EXACT);
                 if (res == null && !selectPrimaryKey(sm, mapping, fetch))
-                    return false;
+                    return notFound(mapping, oid, fetch);
                 if (isEmptyResult(res))
-                    return false;
+                    return notFound(mapping, oid, fetch);
             } else {
+                ClassMapping requested = mapping;
                 ClassMapping[] mappings = mapping.
                     getIndependentAssignableMappings();
                 if (mappings.length == 1) {
@@ -350,12 +360,12 @@ public class JDBCStoreManager implements StoreManager, JDBCStore {
                     res = getInitializeStateResult(sm, mapping, fetch,
                         Select.SUBS_ANY_JOINABLE);
                     if (res == null && !selectPrimaryKey(sm, mapping, fetch))
-                        return false;
+                        return notFound(requested, oid, fetch);
                 } else
                     res = getInitializeStateUnionResult(sm, mapping, mappings,
                         fetch);
                 if (isEmptyResult(res))
-                    return false;
+                    return notFound(requested, oid, fetch);
             }
 
             // figure out what type of object this is; the state manager
@@ -394,7 +404,7 @@ public class JDBCStoreManager implements StoreManager, JDBCStore {
                         // setInverseRelation() when the sm owner is fully
                         // initialized.
                         int index = mappedByFieldMapping.getIndex();
-                        if (sm.getLoaded().get(index)) {
+                        if (ImplHelper.isLoaded(sm, index)) {
                             sm.setImplData(index, mappedByObject);
                         } else {
                             sm.setIntermediate(index, mappedByObject);
@@ -672,7 +682,7 @@ public class JDBCStoreManager implements StoreManager, JDBCStore {
             // now allow the fields to load themselves individually too
             FieldMapping[] fms = mapping.getFieldMappings();
             for (int i = 0; i < fms.length; i++)
-                if (fields.get(i) && (!sm.getLoaded().get(i) || sm.isDelayed(i))) {
+                if (fields.get(i) && (!ImplHelper.isLoaded(sm, i) || sm.isDelayed(i))) {
                     if (_log.isTraceEnabled()) {
                         _log.trace("load field: '"+ fms[i].getName() + "' for oid="+sm.getObjectId()
                             +" "+mapping.getDescribedType());
@@ -696,7 +706,7 @@ public class JDBCStoreManager implements StoreManager, JDBCStore {
         FieldMapping[] fms = mapping.getFieldMappings();
         for (int i = 0; i < fms.length; i++) {
             if (fields.get(i)) {
-                if (!(fms[i].isDelayCapable() && (!sm.getLoaded().get(i) || sm.isDelayed(i)))) {
+                if (!(fms[i].isDelayCapable() && (!ImplHelper.isLoaded(sm, i) || sm.isDelayed(i)))) {
                     return false;
                 }
             }
@@ -709,13 +719,38 @@ public class JDBCStoreManager implements StoreManager, JDBCStore {
      */
     private void removeLoadedFields(OpenJPAStateManager sm, BitSet fields) {
         for (int i = 0, len = fields.length(); i < len; i++)
-            if (fields.get(i) && sm.getLoaded().get(i))
+            if (fields.get(i) && ImplHelper.isLoaded(sm, i))
                 fields.clear(i);
     }
 
     public Collection loadAll(Collection sms, PCState state, int load,
         FetchConfiguration fetch, Object context) {
-        return ImplHelper.loadAll(sms, this, state, load, fetch, context);
+        Collection failed = ImplHelper.loadAll(sms, this, state, load, fetch,
+            context);
+        lockAll(sms, failed, fetch, context);
+        return failed;
+    }
+
+    /**
+     * Obtain the pessimistic locks of the given loaded instances together
+     * rather than one by one as the broker readies each instance.
+     */
+    private void lockAll(Collection sms, Collection failed,
+        FetchConfiguration fetch, Object context) {
+        int level = fetch.getReadLockLevel();
+        if (sms.size() < 2 || level == LockLevels.LOCK_NONE
+            || !_ctx.isActive() || !(_lm instanceof PessimisticLockManager))
+            return;
+
+        List<OpenJPAStateManager> lock =
+            new ArrayList<OpenJPAStateManager>(sms.size());
+        OpenJPAStateManager sm;
+        for (Iterator<?> itr = sms.iterator(); itr.hasNext();) {
+            sm = (OpenJPAStateManager) itr.next();
+            if (!failed.contains(sm.getId()))
+                lock.add(sm);
+        }
+        _lm.lockAll(lock, level, fetch.getLockTimeout(), context);
     }
 
     public void beforeStateChange(OpenJPAStateManager sm, PCState fromState,
@@ -728,6 +763,7 @@ public class JDBCStoreManager implements StoreManager, JDBCStore {
                 _conn.setReadOnly(false);
         } catch (SQLException e) {
         }
+        invalidateNotFound();
         return _conf.getUpdateManagerInstance().flush(sms, this);
     }
 
@@ -978,7 +1014,12 @@ public class JDBCStoreManager implements StoreManager, JDBCStore {
      * can be overridden.
      */
     protected RefCountConnection connectInternal() throws SQLException {
-        return new RefCountConnection(_ds.getConnection());
+        if (_latency == null || !_latency.isEnabled())
+            return new RefCountConnection(_ds.getConnection());
+        long start = System.nanoTime();
+        Connection conn = _ds.getConnection();
+        _latency.recordConnectionWait(System.nanoTime() - start);
+        return new RefCountConnection(conn);
     }
     
     public Connection getNewConnection() {
@@ -1091,7 +1132,7 @@ public class JDBCStoreManager implements StoreManager, JDBCStore {
         FieldMapping[] fms = mapping.getDefinedFieldMappings();
         Object eres, processed;
         for (int i = 0; i < fms.length; i++) {
-            if (fms[i].isPrimaryKey() || sm.getLoaded().get(fms[i].getIndex()))
+            if (fms[i].isPrimaryKey() || ImplHelper.isLoaded(sm, fms[i].getIndex()))
                 continue;
             
             // check for eager result, and if not present do standard load
@@ -1279,7 +1320,7 @@ public class JDBCStoreManager implements StoreManager, JDBCStore {
         if (fields != null)
             return fields.get(fm.getIndex());
         if (sm != null && sm.getPCState() != PCState.TRANSIENT
-            && sm.getLoaded().get(fm.getIndex()))
+            && ImplHelper.isLoaded(sm, fm.getIndex()))
             return false;
         return fetch.requiresFetch(fm) == FetchConfiguration.FETCH_LOAD;
     }
@@ -1407,7 +1448,7 @@ public class JDBCStoreManager implements StoreManager, JDBCStore {
             fetch.getIgnoreDfgForFkSelect() || 
                 !fm.isInDefaultFetchGroup() && !fm.isDefaultFetchGroupExplicit();
 
-        return dfg && (sm == null || sm.getPCState() == PCState.TRANSIENT || !sm.getLoaded().get(fm.getIndex()))
+        return dfg && (sm == null || sm.getPCState() == PCState.TRANSIENT || !ImplHelper.isLoaded(sm, fm.getIndex()))
             && fm.supportsSelect(sel, Select.TYPE_TWO_PART, sm, this, fetch) > 0;
     }
 
@@ -1540,6 +1581,43 @@ public class JDBCStoreManager implements StoreManager, JDBCStore {
         return cache != null && cache.cache(mapping, select, fetch) != null;
     }
     
+    /**
+     * Affirms if the finder cache knows that no instance exists for the
+     * given identity.
+     */
+    private boolean isNotFound(ClassMapping mapping, Object oid,
+        FetchConfiguration fetch) {
+        FinderCache cache = getFinderCache();
+        return cache instanceof FinderCacheImpl
+            && ((FinderCacheImpl) cache).isNotFound(mapping, oid, fetch);
+    }
+
+    /**
+     * Tell the finder cache that no instance exists for the given identity.
+     * Always returns false, for the caller to return.
+     */
+    private boolean notFound(ClassMapping mapping, Object oid,
+        FetchConfiguration fetch) {
+        FinderCache cache = getFinderCache();
+        if (cache instanceof FinderCacheImpl)
+            ((FinderCacheImpl) cache).recordNotFound(mapping, oid, fetch);
+        return false;
+    }
+
+    /**
+     * Make the finder cache forget absent identities of the types persisted
+     * in the current transaction.
+     */
+    private void invalidateNotFound() {
+        FinderCache cache = _conf.getFinderCacheInstance();
+        if (!(cache instanceof FinderCacheImpl)
+            || ((FinderCacheImpl) cache).getNotFoundTimeout() <= 0)
+            return;
+        Collection<Class<?>> types = _ctx.getPersistedTypes();
+        for (Class<?> type : types)
+            ((FinderCacheImpl) cache).invalidateNotFound(type);
+    }
+
     FinderCache getFinderCache() {
         return (((BrokerImpl)getContext()).getCacheFinderQuery())
              ? getConfiguration().getFinderCacheInstance() : null;
@@ -50,6 +50,7 @@ import org.apache.openjpa.jdbc.schema.Column;
 import org.apache.openjpa.jdbc.schema.Table;
 import org.apache.openjpa.jdbc.sql.DBDictionary;
 import org.apache.openjpa.jdbc.sql.PostgresDictionary;
+import org.apache.openjpa.jdbc.sql.Result;
 import org.apache.openjpa.jdbc.sql.SQLBuffer;
 import org.apache.openjpa.jdbc.sql.SQLExceptions;
 import org.apache.openjpa.jdbc.sql.Select;
@@ -57,6 +58,7 @@ import org.apache.openjpa.jdbc.sql.SelectImpl;
 import org.apache.openjpa.jdbc.sql.Union;
 import org.apache.openjpa.kernel.ExpressionStoreQuery;
 import org.apache.openjpa.kernel.Filters;
+import org.apache.openjpa.kernel.LockLevels;
 import org.apache.openjpa.kernel.OpenJPAStateManager;
 import org.apache.openjpa.kernel.OrderingMergedResultObjectProvider;
 import org.apache.openjpa.kernel.QueryHints;
@@ -103,6 +105,7 @@ public class JDBCStoreQuery
     }
 
     private final transient JDBCStore _store;
+    private transient Collection<Object> _bulkOids = null;
     private static ThreadLocalContext localContext = new ThreadLocalContext();
 
     /**
@@ -247,6 +250,13 @@ public class JDBCStoreQuery
             || start != range.start || end != range.end)
             rop = new RangeResultObjectProvider(rop, range.start, range.end);
 
+        // obtain the locks the selects could not obtain in one go
+        if (!lrs && fetch.getReadLockLevel() != LockLevels.LOCK_NONE
+            && _store.getContext().isActive()
+            && _store.getLockManager() instanceof PessimisticLockManager)
+            rop = new LockingResultObjectProvider(rop,
+                (PessimisticLockManager) _store.getLockManager(), fetch);
+
         localContext.remove();
         return rop;
     }
@@ -501,6 +511,7 @@ public class JDBCStoreQuery
     private Number executeBulkOperation(ClassMetaData[] metas,
         boolean subclasses, ExpressionFactory[] facts, QueryExpressions[] exps,
         Object[] params, Map updates) {
+        _bulkOids = null;
         Context[] ctxs = new Context[exps.length];
         for (int i = 0; i < exps.length; i++)
             ctxs[i] = exps[i].ctx();
@@ -537,10 +548,23 @@ public class JDBCStoreQuery
             state[i] = new QueryExpressionsState();
 
         SQLBuffer[] sql = new SQLBuffer[mappings.length];
+        Select[] idSels = (dict.bulkUpdateIdLimit > 0)
+            ? new Select[mappings.length] : null;
         JDBCExpressionFactory jdbcFactory;
         Select sel;
         for (int i = 0; i < mappings.length; i++) {
             jdbcFactory = (JDBCExpressionFactory) facts[i];
+
+            // the bulk statement consumes its select, so the one naming the
+            // affected rows is built separately from the same expressions
+            if (idSels != null) {
+                QueryExpressionsState idState = new QueryExpressionsState();
+                idSels[i] = jdbcFactory.getSelectConstructor().evaluate(ctx,
+                    null, null, exps[i], idState);
+                jdbcFactory.getSelectConstructor().select(idSels[i], ctx,
+                    mappings[i], subclasses, exps[i], idState,
+                    JDBCFetchConfiguration.EAGER_NONE);
+            }
             sel = jdbcFactory.getSelectConstructor().evaluate(ctx, null, null,
                 exps[i], state[i]);
             jdbcFactory.getSelectConstructor().select(sel, ctx, mappings[i], 
@@ -564,6 +588,10 @@ public class JDBCStoreQuery
         // we need to make sure we have an active store connection
         _store.getContext().beginStore();
 
+        if (idSels != null)
+            _bulkOids = selectObjectIds(idSels, mappings, subclasses, fetch,
+                dict.bulkUpdateIdLimit);
+
         Connection conn = _store.getConnection();
         long count = 0;
         try {
@@ -591,10 +619,49 @@ public class JDBCStoreQuery
             }
         }
 
+        // the identities were selected before the statement ran; if another
+        // transaction changed which rows match in between, the counts differ
+        // and the caches fall back to evicting the affected types
+        if (_bulkOids != null && _bulkOids.size() != count)
+            _bulkOids = null;
+
         localContext.remove();
         return count;
     }
 
+    /**
+     * Select the identities of the rows a bulk statement is about to change.
+     * Returns null if more than <code>limit</code> rows match.
+     */
+    private Collection<Object> selectObjectIds(Select[] sels,
+        ClassMapping[] mappings, boolean subclasses,
+        JDBCFetchConfiguration fetch, int limit) {
+        Collection<Object> oids = new ArrayList<Object>();
+        for (int i = 0; i < sels.length; i++) {
+            sels[i].setRange(0, limit - oids.size() + 1);
+            Result res = null;
+            try {
+                res = sels[i].execute(_store, fetch);
+                while (res.next()) {
+                    if (oids.size() == limit)
+                        return null;
+                    oids.add(mappings[i].getObjectId(_store, res, null,
+                        subclasses, null));
+                }
+            } catch (SQLException se) {
+                throw SQLExceptions.getStore(se, _store.getDBDictionary());
+            } finally {
+                if (res != null)
+                    res.close();
+            }
+        }
+        return oids;
+    }
+
+    public Collection<Object> getBulkObjectIds() {
+        return _bulkOids;
+    }
+
     /**
      * Whether the given mapping occupies only one table.
      */
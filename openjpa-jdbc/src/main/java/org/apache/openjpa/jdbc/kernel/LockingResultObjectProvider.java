@@ -0,0 +1,109 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.jdbc.kernel;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.openjpa.kernel.OpenJPAStateManager;
+import org.apache.openjpa.kernel.StoreContext;
+import org.apache.openjpa.lib.rop.ListResultObjectProvider;
+import org.apache.openjpa.lib.rop.ResultObjectProvider;
+import org.apache.openjpa.util.ImplHelper;
+
+/**
+ * Result object provider that reads all results of its delegate and
+ * obtains the pessimistic locks the delegate's select could not obtain
+ * together afterwards, rather than one row at a time. Results whose rows
+ * were skipped because they are locked by another transaction are left
+ * out.
+ *
+ * @since 3.0.0
+ */
+class LockingResultObjectProvider extends ListResultObjectProvider {
+
+    private final ResultObjectProvider _rop;
+    private final PessimisticLockManager _lm;
+    private final JDBCFetchConfiguration _fetch;
+
+    LockingResultObjectProvider(ResultObjectProvider rop,
+        PessimisticLockManager lm, JDBCFetchConfiguration fetch) {
+        super(new ArrayList<Object>());
+        _rop = rop;
+        _lm = lm;
+        _fetch = fetch;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void open() throws Exception {
+        List<Object> results = getDelegate();
+        boolean batch = _lm.beginLockBatch(_fetch);
+        try {
+            _rop.open();
+            while (_rop.next())
+                results.add(_rop.getResultObject());
+        } catch (Exception e) {
+            if (batch)
+                _lm.endLockBatch(false);
+            throw e;
+        }
+        if (!batch)
+            return;
+
+        Collection<OpenJPAStateManager> skipped = _lm.endLockBatch(true);
+        if (skipped.isEmpty())
+            return;
+        StoreContext ctx = _lm.getContext();
+        for (Iterator<Object> itr = results.iterator(); itr.hasNext();)
+            if (isSkipped(itr.next(), skipped, ctx))
+                itr.remove();
+    }
+
+    /**
+     * Return true if the given result is or holds an instance whose row
+     * was skipped.
+     */
+    private static boolean isSkipped(Object result,
+        Collection<OpenJPAStateManager> skipped, StoreContext ctx) {
+        if (result instanceof Object[]) {
+            for (Object o : (Object[]) result)
+                if (isSkipped(o, skipped, ctx))
+                    return true;
+            return false;
+        }
+        if (!ImplHelper.isManageable(result))
+            return false;
+        OpenJPAStateManager sm = ctx.getStateManager(result);
+        return sm != null && skipped.contains(sm);
+    }
+
+    public void close() throws Exception {
+        try {
+            super.close();
+        } finally {
+            _rop.close();
+        }
+    }
+
+    public void handleCheckedException(Exception e) {
+        _rop.handleCheckedException(e);
+    }
+}
@@ -101,6 +101,19 @@ public class MixedLockManager extends PessimisticLockManager {
         return sqls;
     }
 
+    protected boolean isBatchable(OpenJPAStateManager sm) {
+        if (!super.isBatchable(sm))
+            return false;
+        if (getStore().getDBDictionary().supportsLockingWithMultipleTables)
+            return true;
+        // secondary table rows are locked separately by getLockRows
+        FieldMapping[] fms = ((ClassMapping) sm.getMetaData()).getFieldMappings();
+        for (FieldMapping fm : fms)
+            if (!DBIdentifier.isNull(fm.getMappingInfo().getTableIdentifier()))
+                return false;
+        return true;
+    }
+
     protected void optimisticLockInternal(OpenJPAStateManager sm, int level,
         int timeout, Object sdata, boolean postLockVersionCheck) {
         super.optimisticLockInternal(sm, level, timeout, sdata,
@@ -23,6 +23,7 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.text.MessageFormat;
+import java.util.LinkedList;
 
 import org.apache.openjpa.conf.OpenJPAConfiguration;
 import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
@@ -78,6 +79,8 @@ public class NativeJDBCSeq
     private String _select = null;
     private long _nextValue = 0;
     private long _maxValue = -1;
+    // start values of blocks fetched ahead by allocate, in fetch order
+    private final LinkedList<Long> _blocks = new LinkedList<Long>();
 
     private DBIdentifier _schema = DBIdentifier.NULL;
 
@@ -200,7 +203,12 @@ public class NativeJDBCSeq
             alterIncrementBy = true;
         }
         if (_nextValue >= _maxValue) {
-            allocateInternal(0, store, mapping);
+            if (_blocks.isEmpty())
+                allocateInternal(0, store, mapping);
+            else {
+                _nextValue = _blocks.removeFirst();
+                _maxValue = _nextValue + _allocate * _increment;
+            }
         }
         long result = _nextValue;
         _nextValue += _increment;
@@ -209,13 +217,18 @@ public class NativeJDBCSeq
 
     /**
      * Allocate additional sequence values.
-     * @param additional ignored - the allocation size is fixed and determined by allocate and increment properties. 
+     * @param additional the number of values needed; the block size is fixed and determined by allocate and
+     * increment properties, so further blocks are fetched ahead until the values left in the current block and the
+     * blocks already fetched ahead cover the request
      * @param store used to obtain connection
      * @param mapping ignored
      */
     @Override
     protected synchronized void allocateInternal(int additional, JDBCStore store, ClassMapping mapping)
         throws SQLException {
+        // the current and prefetched blocks already hold the requested values
+        if (additional > 0 && alterIncrementBy && available() >= additional)
+            return;
         Connection conn = getConnection(store);
         try {
             if (!alterIncrementBy) {
@@ -245,13 +258,29 @@ public class NativeJDBCSeq
                     alreadyLoggedAlterSeqDisabled = true; 
                 }
             }
-            _nextValue = getSequence(conn);
-            _maxValue = _nextValue + _allocate * _increment;
+            if (additional <= 0 || !alterIncrementBy) {
+                _nextValue = getSequence(conn);
+                _maxValue = _nextValue + _allocate * _increment;
+                alterIncrementBy = true;
+            }
+
+            // keep the rest of the current block and fetch blocks ahead
+            while (available() < additional)
+                _blocks.add(getSequence(conn));
         } finally {
             closeConnection(conn);
         }
     }
 
+    /**
+     * The number of values left in the current block and the blocks fetched
+     * ahead.
+     */
+    private long available() {
+        return (_maxValue - _nextValue) / _increment
+            + (long) _blocks.size() * _allocate;
+    }
+
     /**
      * Creates the sequence object.
      */
@@ -23,14 +23,22 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.openjpa.jdbc.meta.ClassMapping;
 import org.apache.openjpa.jdbc.meta.FieldMapping;
 import org.apache.openjpa.jdbc.meta.Strategy;
 import org.apache.openjpa.jdbc.meta.strats.ContainerFieldStrategy;
+import org.apache.openjpa.jdbc.schema.Column;
 import org.apache.openjpa.jdbc.schema.ForeignKey;
 import org.apache.openjpa.jdbc.sql.DBDictionary;
+import org.apache.openjpa.jdbc.sql.ResultSetResult;
 import org.apache.openjpa.jdbc.sql.SQLBuffer;
 import org.apache.openjpa.jdbc.sql.SQLFactory;
 import org.apache.openjpa.jdbc.sql.Select;
@@ -60,6 +68,10 @@ public class PessimisticLockManager
 
     protected JDBCStore _store;
 
+    private int _batchLimit = 100;
+    private Map<OpenJPAStateManager, LockRequest> _batch = null;
+    private JDBCFetchConfiguration _batchFetch = null;
+
     public PessimisticLockManager() {
         setVersionCheckOnReadLock(false);
         setVersionUpdateOnWriteLock(false);
@@ -70,6 +82,13 @@ public class PessimisticLockManager
         _store = (JDBCStore) ctx.getStoreManager().getInnermostDelegate();
     }
 
+    public boolean reset() {
+        _store = null;
+        _batch = null;
+        _batchFetch = null;
+        return super.reset();
+    }
+
     public boolean selectForUpdate(Select sel, int lockLevel) {
         if (lockLevel == LOCK_NONE)
             return false;
@@ -91,6 +110,94 @@ public class PessimisticLockManager
         return true;
     }
 
+    /**
+     * The maximum number of rows locked by a single
+     * <code>SELECT ... WHERE pk IN (...) FOR UPDATE</code> statement when
+     * several instances are locked together. Defaults to 100; a value of
+     * 1 or less locks every row on its own.
+     *
+     * @since 3.0.0
+     */
+    public int getBatchLimit() {
+        return _batchLimit;
+    }
+
+    /**
+     * The maximum number of rows locked by a single
+     * <code>SELECT ... WHERE pk IN (...) FOR UPDATE</code> statement when
+     * several instances are locked together.
+     *
+     * @since 3.0.0
+     */
+    public void setBatchLimit(int limit) {
+        _batchLimit = limit;
+    }
+
+    /**
+     * Locks the rows of the given instances with as few statements as
+     * possible rather than one statement per instance.
+     */
+    public void lockAll(Collection sms, int level, int timeout,
+        Object sdata) {
+        if (!beginLockBatch(_store.getFetchConfiguration())) {
+            super.lockAll(sms, level, timeout, sdata);
+            return;
+        }
+        try {
+            super.lockAll(sms, level, timeout, sdata);
+        } catch (RuntimeException re) {
+            endLockBatch(false);
+            throw re;
+        }
+        Collection<OpenJPAStateManager> skipped = endLockBatch(true);
+        if (!skipped.isEmpty())
+            throw new LockException(skipped.iterator().next().
+                getManagedInstance(), timeout, level);
+    }
+
+    /**
+     * Start collecting the row locks that cannot be obtained from the
+     * result they are loaded from, so that they can be obtained together
+     * by {@link #endLockBatch}. Return false if a batch is already in
+     * progress or batching is disabled, in which case the caller must not
+     * end the batch.
+     *
+     * @param fetch the configuration of the locking selects
+     * @since 3.0.0
+     */
+    public boolean beginLockBatch(JDBCFetchConfiguration fetch) {
+        if (_batch != null || _batchLimit <= 1)
+            return false;
+        _batch = new LinkedHashMap<OpenJPAStateManager, LockRequest>();
+        _batchFetch = fetch;
+        return true;
+    }
+
+    /**
+     * Obtain the row locks collected since {@link #beginLockBatch}, or
+     * discard them if <code>lock</code> is false. Return the instances
+     * whose rows were skipped because they are locked by another
+     * transaction and the fetch configuration asks to skip locked rows.
+     *
+     * @since 3.0.0
+     */
+    public Collection<OpenJPAStateManager> endLockBatch(boolean lock) {
+        Map<OpenJPAStateManager, LockRequest> batch = _batch;
+        JDBCFetchConfiguration fetch = _batchFetch;
+        _batch = null;
+        _batchFetch = null;
+        if (!lock || batch == null || batch.isEmpty())
+            return Collections.emptySet();
+
+        Collection<OpenJPAStateManager> skipped = lockRows(batch.values(),
+            fetch);
+        for (LockRequest req : batch.values())
+            if (!skipped.contains(req.sm))
+                optimisticLockInternal(req.sm, req.level, req.timeout,
+                    req.sdata, req.postVersionCheck);
+        return skipped;
+    }
+
     public void loadedForUpdate(OpenJPAStateManager sm) {
         // we set a low lock level to indicate that we don't need datastore
         // locking, but we don't necessarily have a read or write lock
@@ -106,11 +213,169 @@ public class PessimisticLockManager
         
         // only need to lock if not loaded from locking result
         ConnectionInfo info = (ConnectionInfo) sdata;
-        if (info == null || info.result == null || !info.result.isLocking())
+        if (info == null || info.result == null || !info.result.isLocking()) {
+            if (_batch != null && isBatchable(sm)) {
+                // lock together with the rest of the batch
+                _batch.put(sm, new LockRequest(sm, level, timeout, sdata,
+                    postVersionCheck));
+                return;
+            }
             lockRow(sm, timeout, level);
+        }
         optimisticLockInternal(sm, level, timeout, sdata, postVersionCheck);
     }
 
+    /**
+     * Return true if the lock of the given instance consists of its primary
+     * table row only, so that it can be locked along with other rows of the
+     * same table.
+     */
+    protected boolean isBatchable(OpenJPAStateManager sm) {
+        if (sm.getLock() != null && !sm.getLock().equals(LockLevels.LOCK_NONE))
+            return false;
+        if (ctx.getFetchConfiguration().getLockScope()
+            == LockScopes.LOCKSCOPE_EXTENDED)
+            return false;
+        return getBaseMapping((ClassMapping) sm.getMetaData())
+            .getPrimaryKeyColumns().length == 1;
+    }
+
+    /**
+     * Lock the primary table rows of the given requests, issuing one
+     * "SELECT ... WHERE pk IN (...) FOR UPDATE" statement per table and
+     * {@link #getBatchLimit} rows. Return the instances whose rows were not
+     * returned when skipping locked rows.
+     */
+    private Collection<OpenJPAStateManager> lockRows(
+        Collection<LockRequest> reqs, JDBCFetchConfiguration fetch) {
+        DBDictionary dict = _store.getDBDictionary();
+        if (fetch == null)
+            fetch = _store.getFetchConfiguration();
+        if (dict.simulateLocking)
+            return Collections.emptySet();
+        dict.assertSupport(dict.supportsSelectForUpdate, "SupportsSelectForUpdate");
+
+        Map<ClassMapping, List<LockRequest>> tables =
+            new LinkedHashMap<ClassMapping, List<LockRequest>>();
+        ClassMapping base;
+        List<LockRequest> rows;
+        for (LockRequest req : reqs) {
+            base = getBaseMapping((ClassMapping) req.sm.getMetaData());
+            rows = tables.get(base);
+            if (rows == null) {
+                rows = new ArrayList<LockRequest>();
+                tables.put(base, rows);
+            }
+            rows.add(req);
+        }
+
+        int limit = _batchLimit;
+        if (dict.inClauseLimit > 0 && dict.inClauseLimit < limit)
+            limit = dict.inClauseLimit;
+        Collection<OpenJPAStateManager> skipped = null;
+        ensureStoreManagerTransaction();
+        Connection conn = _store.getConnection();
+        LockRequest failed = null;
+        try {
+            for (Map.Entry<ClassMapping, List<LockRequest>> table
+                : tables.entrySet()) {
+                rows = table.getValue();
+                for (int start = 0; start < rows.size(); start += limit) {
+                    List<LockRequest> chunk = rows.subList(start,
+                        Math.min(start + limit, rows.size()));
+                    failed = chunk.get(0);
+                    Collection<LockRequest> missing = lockRows(conn, dict,
+                        table.getKey(), chunk, fetch);
+                    if (missing.isEmpty())
+                        continue;
+                    if (!fetch.getSkipLocked()) {
+                        LockRequest req = missing.iterator().next();
+                        throw new LockException(req.sm.getManagedInstance(),
+                            req.timeout);
+                    }
+                    if (skipped == null)
+                        skipped = new HashSet<OpenJPAStateManager>();
+                    for (LockRequest req : missing)
+                        skipped.add(req.sm);
+                }
+            }
+        } catch (SQLException se) {
+            LockException e = new LockException(failed.sm.getPersistenceCapable(),
+                failed.timeout, failed.level);
+            e.setCause(se);
+            e.setFatal(dict.isFatalException(StoreException.LOCK, se)
+                || failed.level >= MixedLockLevels.LOCK_PESSIMISTIC_READ);
+            throw e;
+        } finally {
+            try { conn.close(); } catch (SQLException se) {}
+        }
+        if (skipped == null)
+            return Collections.emptySet();
+        return skipped;
+    }
+
+    /**
+     * Lock the rows of the given requests in the primary table of the given
+     * mapping. Return the requests whose rows were not returned.
+     */
+    private Collection<LockRequest> lockRows(Connection conn,
+        DBDictionary dict, ClassMapping mapping, List<LockRequest> reqs,
+        JDBCFetchConfiguration fetch) throws SQLException {
+        Column[] pks = mapping.getPrimaryKeyColumns();
+        Select select = _store.getSQLFactory().newSelect();
+        select.select(pks);
+        Map<Object, LockRequest> values = new LinkedHashMap<Object, LockRequest>();
+        SQLBuffer where = new SQLBuffer(dict);
+        where.append(select.getColumnAlias(pks[0])).append(" IN (");
+        Object val;
+        for (LockRequest req : reqs) {
+            val = mapping.toDataStoreValue(req.sm.getManagedInstance(), pks,
+                _store);
+            if (!values.isEmpty())
+                where.append(", ");
+            where.appendValue(val, pks[0]);
+            values.put(val, req);
+        }
+        where.append(")");
+        select.where(where);
+        SQLBuffer sql = select.toSelect(true, fetch);
+
+        PreparedStatement stmnt = null;
+        ResultSet rs = null;
+        try {
+            stmnt = prepareStatement(conn, sql);
+            dict.setTimeouts(stmnt, fetch, true);
+            rs = executeQuery(conn, stmnt, sql);
+            ResultSetResult res = new ResultSetResult(conn, stmnt, rs, dict);
+            int count = 0;
+            Set<Object> locked = new HashSet<Object>();
+            while (rs.next()) {
+                count++;
+                locked.add(res.getObject(Integer.valueOf(1),
+                    pks[0].getJavaType(), null));
+            }
+            if (count == reqs.size())
+                return Collections.emptySet();
+
+            Collection<LockRequest> missing = new ArrayList<LockRequest>();
+            for (Map.Entry<Object, LockRequest> entry : values.entrySet())
+                if (!locked.contains(entry.getKey()))
+                    missing.add(entry.getValue());
+            return missing;
+        } finally {
+            if (rs != null)
+                try { rs.close(); } catch (SQLException se) {}
+            if (stmnt != null)
+                try { stmnt.close(); } catch (SQLException se) {}
+        }
+    }
+
+    private static ClassMapping getBaseMapping(ClassMapping mapping) {
+        while (mapping.getJoinablePCSuperclassMapping() != null)
+            mapping = mapping.getJoinablePCSuperclassMapping();
+        return mapping;
+    }
+
     /**
      * Lock the specified instance row by issuing a "SELECT ... FOR UPDATE"
      * statement.
@@ -167,8 +432,7 @@ public class PessimisticLockManager
 
     protected List<SQLBuffer> getLockRows(DBDictionary dict, Object id, ClassMapping mapping,
             JDBCFetchConfiguration fetch, SQLFactory factory) {
-        while (mapping.getJoinablePCSuperclassMapping() != null)
-            mapping = mapping.getJoinablePCSuperclassMapping();
+        mapping = getBaseMapping(mapping);
         // select only the PK columns, since we just want to lock
         Select select = factory.newSelect();
         select.select(mapping.getPrimaryKeyColumns());
@@ -239,4 +503,24 @@ public class PessimisticLockManager
             throw new LockException(sm.getManagedInstance(), timeout);
         return;
     }
+
+    /**
+     * A row lock collected by a lock batch.
+     */
+    private static class LockRequest {
+        final OpenJPAStateManager sm;
+        final int level;
+        final int timeout;
+        final Object sdata;
+        final boolean postVersionCheck;
+
+        LockRequest(OpenJPAStateManager sm, int level, int timeout,
+            Object sdata, boolean postVersionCheck) {
+            this.sm = sm;
+            this.level = level;
+            this.timeout = timeout;
+            this.sdata = sdata;
+            this.postVersionCheck = postVersionCheck;
+        }
+    }
 }
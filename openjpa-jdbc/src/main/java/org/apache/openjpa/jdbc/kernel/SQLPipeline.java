@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.jdbc.kernel;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.openjpa.jdbc.sql.DBDictionary;
+import org.apache.openjpa.jdbc.sql.RowImpl;
+
+/**
+ * Generates the SQL of a sequence of rows on a background thread ahead of
+ * their execution, so that SQL generation for later rows overlaps with the
+ * database work for earlier ones. The rows must not rely on values that are
+ * only known once earlier rows have been executed, such as auto-assigned
+ * keys.
+ *
+ * <p>Each row is generated exactly once, either by the background thread or
+ * by the flushing thread when it catches up; the flushing thread blocks
+ * until the background thread completes a row it is working on.</p>
+ *
+ * @since 3.0.0
+ */
+class SQLPipeline
+    implements Runnable {
+
+    private final RowImpl[] _rows;
+    private final FutureTask<?>[] _tasks;
+    private final Executor _executor;
+
+    // index of the next row for the background thread to generate
+    private final AtomicInteger _next = new AtomicInteger();
+
+    public SQLPipeline(RowImpl[] rows, final DBDictionary dict,
+        Executor executor) {
+        _rows = rows;
+        _tasks = new FutureTask<?>[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            final RowImpl row = rows[i];
+            _tasks[i] = new FutureTask<Object>(new Runnable() {
+                public void run() {
+                    row.getSQL(dict);
+                }
+            }, null);
+        }
+        _executor = executor;
+    }
+
+    /**
+     * Start generating SQL in the background.
+     */
+    public void start() {
+        try {
+            _executor.execute(this);
+        } catch (RejectedExecutionException ree) {
+            // the flushing thread generates all rows itself
+        }
+    }
+
+    public void run() {
+        // a task that has already run, or is running on the flushing
+        // thread, returns immediately
+        int i;
+        while ((i = _next.getAndIncrement()) < _tasks.length)
+            _tasks[i].run();
+    }
+
+    /**
+     * Return the row at the given index, waiting if the background thread
+     * is generating its SQL. Rows must be requested in order.
+     */
+    public RowImpl get(int index) {
+        _tasks[index].run();
+        await(_tasks[index]);
+        return _rows[index];
+    }
+
+    /**
+     * Stop background generation and wait for the current row to complete.
+     */
+    public void finish() {
+        // every task the background thread claimed has run or is running
+        int claimed = Math.min(_next.getAndSet(_tasks.length), _tasks.length);
+        for (int i = 0; i < claimed; i++)
+            await(_tasks[i]);
+    }
+
+    /**
+     * Wait for the given task to complete. A failure is not reported here:
+     * the flushing thread reports it when it generates the SQL of the row
+     * again.
+     */
+    private static void await(FutureTask<?> task) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                task.get();
+                break;
+            } catch (InterruptedException ie) {
+                interrupted = true;
+            } catch (ExecutionException ee) {
+                break;
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+}
@@ -67,6 +67,7 @@ import org.apache.openjpa.meta.FetchGroup;
 import org.apache.openjpa.meta.FieldMetaData;
 import org.apache.openjpa.meta.JavaTypes;
 import org.apache.openjpa.meta.ValueMetaData;
+import org.apache.openjpa.util.ImplHelper;
 import org.apache.openjpa.util.InternalException;
 import org.apache.openjpa.util.MetaDataException;
 
@@ -223,8 +224,8 @@ public class EmbedFieldStrategy
         rm = new EmbeddedRowManager(rm, row);
         FieldMapping[] fields = field.getEmbeddedMapping().getFieldMappings();
         for (int i = 0; i < fields.length; i++)
-            if (em.getDirty().get(i)
-                && !em.getFlushed().get(i)
+            if (ImplHelper.isDirty(em, i)
+                && !ImplHelper.isFlushed(em, i)
                 && !Boolean.TRUE.equals(fields[i].isCustomUpdate(em, store)))
                 fields[i].update(em, store, rm);
 
@@ -235,7 +236,7 @@ public class EmbedFieldStrategy
     public void delete(OpenJPAStateManager sm, JDBCStore store, RowManager rm)
         throws SQLException {
         OpenJPAStateManager em = null;
-        if (sm.getLoaded().get(field.getIndex()))
+        if (ImplHelper.isLoaded(sm, field.getIndex()))
             em = store.getContext().getStateManager(sm.fetchObject
                 (field.getIndex()));
         Row row = field.getRow(sm, store, rm, Row.ACTION_DELETE);
@@ -359,8 +360,8 @@ public class EmbedFieldStrategy
             em = new NullEmbeddedStateManager(sm, field);
         FieldMapping[] fields = field.getEmbeddedMapping().getFieldMappings();
         for (int i = 0; i < fields.length; i++)
-            if (em.getDirty().get(i)
-                && !em.getFlushed().get(i)
+            if (ImplHelper.isDirty(em, i)
+                && !ImplHelper.isFlushed(em, i)
                 && !Boolean.FALSE.equals(fields[i].isCustomUpdate(em, store)))
                 fields[i].customUpdate(em, store);
     }
@@ -515,7 +516,7 @@ public class EmbedFieldStrategy
                 } else {
                     fields[i].load(em, store, fetch, res);
                 }
-                needsLoad = needsLoad || (!em.getLoaded().get(i) && 
+                needsLoad = needsLoad || (!ImplHelper.isLoaded(em, i) && 
                     fetch.requiresFetch(fields[i])
                         == FetchConfiguration.FETCH_LOAD);
             } finally {
@@ -19,7 +19,9 @@
 package org.apache.openjpa.jdbc.meta.strats;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
 
 import org.apache.openjpa.jdbc.kernel.JDBCFetchConfiguration;
@@ -127,6 +129,10 @@ public class LRSProxyCollection
         final OpenJPAStateManager sm = assertOwner();
         final JDBCStore store = getStore();
         final JDBCFetchConfiguration fetch = store.getFetchConfiguration();
+        if (fetch.getLRSPageSize() > 0 && isPageable(elems))
+            return new PageIterator(sm, store, fetch, elems[0],
+                fetch.getLRSPageSize());
+
         final Joins[] resJoins = new Joins[Math.max(1, elems.length)];
         final FieldMapping fm = _strat.getFieldMapping();
 
@@ -161,6 +167,24 @@ public class LRSProxyCollection
         }
     }
 
+    protected boolean isCountCached() {
+        return getOwner() != null
+            && getStore().getFetchConfiguration().getLRSPageSize() > 0;
+    }
+
+    /**
+     * Whether the elements can be read in pages ordered by their primary
+     * key: they must be stored in a single table with a single primary key
+     * column, and the field must not declare an order of its own.
+     */
+    private boolean isPageable(ClassMapping[] elems) {
+        FieldMapping fm = _strat.getFieldMapping();
+        return elems.length == 1
+            && elems[0].getPrimaryKeyColumns().length == 1
+            && fm.getOrderColumn() == null
+            && fm.getOrders().length == 0;
+    }
+
     private OpenJPAStateManager assertOwner() {
         OpenJPAStateManager sm = getOwner();
         if (sm == null)
@@ -174,6 +198,97 @@ public class LRSProxyCollection
             getInnermostDelegate();
     }
 
+    /**
+     * Closeable iterator that reads the elements a page at a time, each page
+     * selecting the elements whose primary key follows the last key of the
+     * previous page. The result of each page is closed once it is read, so
+     * the connection is not held between pages.
+     */
+    private class PageIterator
+        implements Iterator, Closeable {
+
+        private final OpenJPAStateManager _sm;
+        private final JDBCStore _store;
+        private final JDBCFetchConfiguration _fetch;
+        private final ClassMapping _elem;
+        private final Column _pk;
+        private final int _size;
+        private Iterator _page = null;
+        private Object _last = null;
+        private boolean _done = false;
+
+        public PageIterator(OpenJPAStateManager sm, JDBCStore store,
+            JDBCFetchConfiguration fetch, ClassMapping elem, int size) {
+            _sm = sm;
+            _store = store;
+            _fetch = fetch;
+            _elem = elem;
+            _pk = elem.getPrimaryKeyColumns()[0];
+            _size = size;
+        }
+
+        public boolean hasNext() {
+            while ((_page == null || !_page.hasNext()) && !_done)
+                _page = nextPage();
+            return _page != null && _page.hasNext();
+        }
+
+        public Object next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return _page.next();
+        }
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        public void close() {
+            _done = true;
+            _page = null;
+        }
+
+        /**
+         * Select and load the next page of elements.
+         */
+        private Iterator nextPage() {
+            FieldMapping fm = _strat.getFieldMapping();
+            Select sel = _store.getSQLFactory().newSelect();
+            sel.whereForeignKey(_strat.getJoinForeignKey(_elem),
+                _sm.getObjectId(), fm.getDefiningMapping(), _store);
+            Joins joins = _strat.joinElementRelation(sel.newJoins(), _elem);
+            if (_last != null) {
+                SQLBuffer sql = new SQLBuffer(_store.getDBDictionary());
+                sql.append(sel.getColumnAlias(_pk, joins)).append(" > ").
+                    appendValue(_last, _pk);
+                sel.where(sql, joins);
+            }
+            sel.orderBy(_pk, true, joins, true);
+            sel.setRange(0, _size);
+            _strat.selectElement(sel, _elem, _store, _fetch, _fetch.EAGER_JOIN,
+                joins);
+
+            List page = new ArrayList(_size);
+            Result res = null;
+            try {
+                res = sel.execute(_store, _fetch);
+                while (page.size() < _size && res.next()) {
+                    _last = res.getObject(_pk, null, joins);
+                    page.add(_strat.loadElement(_sm, _store, _fetch, res,
+                        joins));
+                }
+            } catch (SQLException se) {
+                throw SQLExceptions.getStore(se, _store.getDBDictionary());
+            } finally {
+                if (res != null)
+                    res.close();
+            }
+            if (page.size() < _size)
+                _done = true;
+            return page.iterator();
+        }
+    }
+
     /**
      * Closeable iterator built around a JDBC result.
      */
@@ -310,6 +310,11 @@ class LRSProxyMap
         }
     }
 
+    protected boolean isCountCached() {
+        return getOwner() != null
+            && getStore().getFetchConfiguration().getLRSPageSize() > 0;
+    }
+
     private OpenJPAStateManager assertOwner() {
         OpenJPAStateManager sm = getOwner();
         if (sm == null)
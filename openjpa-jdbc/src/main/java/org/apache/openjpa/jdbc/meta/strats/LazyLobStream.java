@@ -0,0 +1,214 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.jdbc.meta.strats;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.sql.SQLException;
+
+import org.apache.openjpa.jdbc.kernel.JDBCStore;
+import org.apache.openjpa.jdbc.schema.Column;
+import org.apache.openjpa.jdbc.sql.Result;
+import org.apache.openjpa.jdbc.sql.Select;
+import org.apache.openjpa.lib.util.Localizer;
+
+/**
+ * Handle on a LOB column value that is selected only when its stream is
+ * first read. The result stays open until the stream is exhausted or closed,
+ * so the value is streamed from the driver without being held in memory.
+ * The owning persistence context must still be open when the stream is read.
+ *
+ * @since 3.0.0
+ */
+class LazyLobStream {
+
+    private static final Localizer _loc = Localizer.forPackage
+        (LazyLobStream.class);
+
+    private final JDBCStore _store;
+    private final Select _sel;
+    private final Column _col;
+    private Result _res = null;
+    private boolean _done = false;
+
+    private LazyLobStream(JDBCStore store, Select sel, Column col) {
+        _store = store;
+        _sel = sel;
+        _col = col;
+    }
+
+    /**
+     * Return the result positioned on the row holding the LOB, or null if
+     * the stream has been exhausted or closed.
+     */
+    private Result open()
+        throws IOException {
+        if (_done || _res != null)
+            return _res;
+        try {
+            Result res = _sel.execute(_store, _store.getFetchConfiguration());
+            if (!res.next()) {
+                res.close();
+                throw new IOException(_loc.get("lazy-lob-no-row", _col)
+                    .getMessage());
+            }
+            _res = res;
+            return res;
+        } catch (SQLException se) {
+            throw new IOException(se);
+        }
+    }
+
+    private void close() {
+        _done = true;
+        if (_res != null) {
+            _res.close();
+            _res = null;
+        }
+    }
+
+    /**
+     * Binary stream over a lazily selected BLOB.
+     */
+    static class Binary
+        extends InputStream {
+
+        private final LazyLobStream _lob;
+        private InputStream _in = null;
+
+        Binary(JDBCStore store, Select sel, Column col) {
+            _lob = new LazyLobStream(store, sel, col);
+        }
+
+        private InputStream in()
+            throws IOException {
+            if (_in == null) {
+                Result res = _lob.open();
+                if (res == null)
+                    return null;
+                try {
+                    _in = res.getLOBStream(_lob._store, _lob._col);
+                } catch (SQLException se) {
+                    throw new IOException(se);
+                }
+                if (_in == null)
+                    close();
+            }
+            return _in;
+        }
+
+        public int read()
+            throws IOException {
+            InputStream in = in();
+            int b = (in == null) ? -1 : in.read();
+            if (b == -1)
+                close();
+            return b;
+        }
+
+        public int read(byte[] b, int off, int len)
+            throws IOException {
+            InputStream in = in();
+            int n = (in == null) ? -1 : in.read(b, off, len);
+            if (n == -1)
+                close();
+            return n;
+        }
+
+        public long skip(long n)
+            throws IOException {
+            InputStream in = in();
+            return (in == null) ? 0 : in.skip(n);
+        }
+
+        public int available()
+            throws IOException {
+            return (_in == null) ? 0 : _in.available();
+        }
+
+        public void close()
+            throws IOException {
+            try {
+                if (_in != null)
+                    _in.close();
+            } finally {
+                _in = null;
+                _lob.close();
+            }
+        }
+    }
+
+    /**
+     * Character stream over a lazily selected CLOB.
+     */
+    static class Character
+        extends Reader {
+
+        private final LazyLobStream _lob;
+        private Reader _in = null;
+
+        Character(JDBCStore store, Select sel, Column col) {
+            _lob = new LazyLobStream(store, sel, col);
+        }
+
+        private Reader in()
+            throws IOException {
+            if (_in == null) {
+                Result res = _lob.open();
+                if (res == null)
+                    return null;
+                try {
+                    _in = res.getCharacterStream(_lob._col);
+                } catch (SQLException se) {
+                    throw new IOException(se);
+                }
+                if (_in == null)
+                    close();
+            }
+            return _in;
+        }
+
+        public int read(char[] cbuf, int off, int len)
+            throws IOException {
+            Reader in = in();
+            int n = (in == null) ? -1 : in.read(cbuf, off, len);
+            if (n == -1)
+                close();
+            return n;
+        }
+
+        public long skip(long n)
+            throws IOException {
+            Reader in = in();
+            return (in == null) ? 0 : in.skip(n);
+        }
+
+        public void close()
+            throws IOException {
+            try {
+                if (_in != null)
+                    _in.close();
+            } finally {
+                _in = null;
+                _lob.close();
+            }
+        }
+    }
+}
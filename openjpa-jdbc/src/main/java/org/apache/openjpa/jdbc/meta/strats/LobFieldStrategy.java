@@ -18,8 +18,12 @@
  */
 package org.apache.openjpa.jdbc.meta.strats;
 
+import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.io.Reader;
+import java.io.StringReader;
+import java.sql.Blob;
+import java.sql.Clob;
 import java.sql.SQLException;
 import java.sql.Types;
 
@@ -80,7 +84,9 @@ public class LobFieldStrategy extends AbstractFieldStrategy {
     }
 
     public Boolean isCustomInsert(OpenJPAStateManager sm, JDBCStore store) {
-        return null;
+        // streams bound directly to the insert need no second pass
+        return (store.getDBDictionary().useStreamBindingForLobs)
+            ? Boolean.FALSE : null;
     }
 
     public void delete(OpenJPAStateManager sm, JDBCStore store, RowManager rm)
@@ -125,7 +131,8 @@ public class LobFieldStrategy extends AbstractFieldStrategy {
     }
     
     public Boolean isCustomUpdate(OpenJPAStateManager sm, JDBCStore store) {
-        return null;
+        return (store.getDBDictionary().useStreamBindingForLobs)
+            ? Boolean.FALSE : null;
     }
 
     public void update(OpenJPAStateManager sm, JDBCStore store, RowManager rm)
@@ -180,7 +187,12 @@ public class LobFieldStrategy extends AbstractFieldStrategy {
         JDBCFetchConfiguration fetch, Result res) throws SQLException {
         Column col = field.getColumns()[0];
         if (res.contains(col)) {
-            if (isBlob) {
+            if (fieldType != Types.INTEGER
+                && store.getDBDictionary().maxInlineStreamingLobSize >= 0) {
+                sm.storeObject(field.getIndex(), isBlob
+                    ? loadBlob(sm, store, res, col)
+                    : loadClob(sm, store, res, col));
+            } else if (isBlob) {
                 sm.storeObject(field.getIndex(), res.getLOBStream(store, col));
             } else {
                 sm.storeObject(field.getIndex(), res.getCharacterStream(col));
@@ -188,6 +200,43 @@ public class LobFieldStrategy extends AbstractFieldStrategy {
         }
     }
 
+    /**
+     * Return a stream over the BLOB in the given result. Values no longer than
+     * the dictionary's <code>maxInlineStreamingLobSize</code> are read into
+     * memory; longer values are selected again when the stream is first read.
+     */
+    private InputStream loadBlob(OpenJPAStateManager sm, JDBCStore store,
+        Result res, Column col)
+        throws SQLException {
+        Blob blob = res.getBlob(col);
+        if (blob == null)
+            return null;
+        long len = blob.length();
+        if (len <= store.getDBDictionary().maxInlineStreamingLobSize)
+            return new ByteArrayInputStream((len == 0) ? new byte[0]
+                : blob.getBytes(1, (int) len));
+        return new LazyLobStream.Binary(store, createSelect(sm, store), col);
+    }
+
+    /**
+     * Return a reader over the CLOB in the given result. Values no longer than
+     * the dictionary's <code>maxInlineStreamingLobSize</code> are read into
+     * memory; longer values are selected again when the reader is first read.
+     */
+    private Reader loadClob(OpenJPAStateManager sm, JDBCStore store,
+        Result res, Column col)
+        throws SQLException {
+        Clob clob = res.getClob(col);
+        if (clob == null)
+            return null;
+        long len = clob.length();
+        if (len <= store.getDBDictionary().maxInlineStreamingLobSize)
+            return new StringReader((len == 0) ? ""
+                : clob.getSubString(1, (int) len));
+        return new LazyLobStream.Character(store, createSelect(sm, store),
+            col);
+    }
+
     protected void assertNotMappedBy() {
         if (field != null && field.getMappedBy() != null)
             throw new UnsupportedOperationException();
@@ -405,7 +405,7 @@ public class RelationFieldStrategy
             return;
 
         if (field.getJoinDirection() == field.JOIN_INVERSE) {
-            if (sm.getLoaded().get(field.getIndex())) {
+            if (ImplHelper.isLoaded(sm, field.getIndex())) {
                 OpenJPAStateManager rel = RelationStrategies.getStateManager(sm.
                     fetchObjectField(field.getIndex()), store.getContext());
                 updateInverse(sm, rel, store, rm);
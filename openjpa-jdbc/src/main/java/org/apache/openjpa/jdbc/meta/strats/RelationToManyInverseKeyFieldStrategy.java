@@ -45,6 +45,7 @@ import org.apache.openjpa.lib.util.Localizer;
 import org.apache.openjpa.meta.FieldMetaData;
 import org.apache.openjpa.meta.JavaTypes;
 import org.apache.openjpa.util.ChangeTracker;
+import org.apache.openjpa.util.ImplHelper;
 import org.apache.openjpa.util.InternalException;
 import org.apache.openjpa.util.MetaDataException;
 import org.apache.openjpa.util.Proxies;
@@ -285,7 +286,7 @@ public abstract class RelationToManyInverseKeyFieldStrategy
             return;
         }
 
-        if (!sm.getLoaded().get(field.getIndex()))
+        if (!ImplHelper.isLoaded(sm, field.getIndex()))
             return;
 
         // update fk on each field value row
@@ -35,6 +35,7 @@ import org.apache.openjpa.kernel.OpenJPAStateManager;
 import org.apache.openjpa.kernel.StoreManager;
 import org.apache.openjpa.lib.util.Localizer;
 import org.apache.openjpa.util.ArrayStateImage;
+import org.apache.openjpa.util.ImplHelper;
 import org.apache.openjpa.util.InternalException;
 import org.apache.openjpa.util.MetaDataException;
 
@@ -111,7 +112,7 @@ public class StateComparisonVersionStrategy
                     continue;
 
                 // update our next state image with the new field value
-                if (sm.getDirty().get(i) && !sm.getFlushed().get(i))
+                if (ImplHelper.isDirty(sm, i) && !ImplHelper.isFlushed(sm, i))
                     nextState[i] = sm.fetch(fields[i].getIndex());
 
                 // fetch the row for this field; if no row exists, then we can't
@@ -170,7 +171,7 @@ public class StateComparisonVersionStrategy
             if (!loaded.get(i))
                 continue;
 
-            if (record && sm.getDirty().get(i) && !sm.getFlushed().get(i))
+            if (record && ImplHelper.isDirty(sm, i) && !ImplHelper.isFlushed(sm, i))
                 nextState[i] = sm.fetch(fields[i].getIndex());
             if (fields[i].getTable() == table)
                 fields[i].where(sm, store, custom, state[i]);
@@ -193,9 +194,9 @@ public class StateComparisonVersionStrategy
         for (int i = 0; i < fields.length; i++) {
             if (!fields[i].isPrimaryKey()
                 && fields[i].isVersionable()
-                && sm.getLoaded().get(fields[i].getIndex())
+                && ImplHelper.isLoaded(sm, fields[i].getIndex())
                 && !loaded.get(i)
-                && !sm.getDirty().get(fields[i].getIndex())) {
+                && !ImplHelper.isDirty(sm, fields[i].getIndex())) {
                 loaded.set(i);
                 state[i] = sm.fetch(fields[i].getIndex());
             }
@@ -33,12 +33,18 @@ import org.apache.openjpa.lib.util.StringUtil;
 import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
 import org.apache.openjpa.jdbc.sql.DBDictionary;
 import org.apache.openjpa.lib.conf.Configurations;
+import org.apache.openjpa.instrumentation.InstrumentationManager;
+import org.apache.openjpa.instrumentation.InstrumentationManagerImpl;
+import org.apache.openjpa.lib.instrumentation.FetchSizeStatistics;
+import org.apache.openjpa.lib.instrumentation.LatencyStatistics;
+import org.apache.openjpa.lib.jdbc.AdaptiveFetchSizeDecorator;
 import org.apache.openjpa.lib.jdbc.ConfiguringConnectionDecorator;
 import org.apache.openjpa.lib.jdbc.ConnectionDecorator;
 import org.apache.openjpa.lib.jdbc.DecoratingDataSource;
 import org.apache.openjpa.lib.jdbc.DelegatingDataSource;
 import org.apache.openjpa.lib.jdbc.JDBCEventConnectionDecorator;
 import org.apache.openjpa.lib.jdbc.JDBCListener;
+import org.apache.openjpa.lib.jdbc.LatencyConnectionDecorator;
 import org.apache.openjpa.lib.jdbc.LoggingConnectionDecorator;
 import org.apache.openjpa.lib.log.Log;
 import org.apache.openjpa.lib.util.J2DoPrivHelper;
@@ -161,6 +167,22 @@ public class DataSourceFactory {
                     decorators.addAll(decs);
             }
 
+            // latency decorator; only decorates while latency collection is
+            // enabled by an instrument
+            InstrumentationManager im = conf.getInstrumentationManagerInstance();
+            LatencyStatistics latency = InstrumentationManagerImpl.
+                getStatistics(im, LatencyStatistics.class);
+            if (latency != null)
+                decorators.add(new LatencyConnectionDecorator(latency));
+
+            // adaptive fetch size decorator; only decorates when enabled
+            // through the connection factory properties
+            AdaptiveFetchSizeDecorator afd = new AdaptiveFetchSizeDecorator(
+                InstrumentationManagerImpl.getStatistics(im,
+                FetchSizeStatistics.class));
+            Configurations.configureInstance(afd, conf, opts);
+            decorators.add(afd);
+
             // logging decorator
             LoggingConnectionDecorator lcd =
                 new LoggingConnectionDecorator();
@@ -19,8 +19,6 @@
 package org.apache.openjpa.jdbc.sql;
 
 import java.io.ByteArrayInputStream;
-import java.io.InputStream;
-import java.io.Reader;
 import java.lang.reflect.Method;
 import java.sql.Blob;
 import java.sql.Connection;
@@ -39,7 +37,6 @@ import javax.sql.DataSource;
 
 import org.apache.openjpa.jdbc.identifier.DBIdentifier;
 import org.apache.openjpa.jdbc.kernel.JDBCFetchConfiguration;
-import org.apache.openjpa.jdbc.kernel.JDBCStore;
 import org.apache.openjpa.jdbc.kernel.exps.FilterValue;
 import org.apache.openjpa.jdbc.kernel.exps.Lit;
 import org.apache.openjpa.jdbc.kernel.exps.Param;
@@ -107,6 +104,7 @@ public class DB2Dictionary
         platform = "DB2";
         validationSQL = "SELECT DISTINCT(CURRENT TIMESTAMP) FROM SYSIBM.SYSTABLES";
         supportsSelectEndIndex = true;
+        useStreamBindingForLobs = true;
 
         nextSequenceQuery = "VALUES NEXTVAL FOR {0}";
 
@@ -1065,38 +1063,6 @@ public class DB2Dictionary
         return colSize;
     }
 
-    @Override
-    public void insertBlobForStreamingLoad(Row row, Column col, 
-            JDBCStore store, Object ob, Select sel) throws SQLException {
-        if (ob != null) {
-            row.setBinaryStream(col, (InputStream)ob, -1);
-        } else {
-            row.setNull(col);
-        }
-    }
-
-    @Override
-    public void insertClobForStreamingLoad(Row row, Column col, Object ob)
-    throws SQLException {
-        if (ob != null) {
-            row.setCharacterStream(col, (Reader)ob, -1);
-        } else {
-            row.setNull(col);
-        }
-    }
-
-    @Override
-    public void updateBlob(Select sel, JDBCStore store, InputStream is)
-        throws SQLException {
-        //NO-OP
-    }
-
-    @Override
-    public void updateClob(Select sel, JDBCStore store, Reader reader)
-        throws SQLException {
-        //NO-OP
-    }
-
     /**
      * Set the given date value as a parameter to the statement.
      */
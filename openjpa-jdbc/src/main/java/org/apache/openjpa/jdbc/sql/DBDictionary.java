@@ -61,6 +61,11 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
 
@@ -106,6 +111,7 @@ import org.apache.openjpa.lib.identifier.IdentifierUtil;
 import org.apache.openjpa.lib.jdbc.ConnectionDecorator;
 import org.apache.openjpa.lib.jdbc.LoggingConnectionDecorator;
 import org.apache.openjpa.lib.log.Log;
+import org.apache.openjpa.lib.util.Closeable;
 import org.apache.openjpa.lib.util.Localizer;
 import org.apache.openjpa.lib.util.Localizer.Message;
 import org.apache.openjpa.lib.util.StringUtil;
@@ -136,7 +142,8 @@ import org.apache.openjpa.util.UserException;
  */
 public class DBDictionary
     implements Configurable, ConnectionDecorator, JoinSyntaxes,
-    LoggingConnectionDecorator.SQLWarningHandler, IdentifierConfiguration {
+    LoggingConnectionDecorator.SQLWarningHandler, IdentifierConfiguration,
+    Closeable {
 
     public static final String VENDOR_OTHER      = "other";
     public static final String VENDOR_DATADIRECT = "datadirect";
@@ -233,6 +240,8 @@ public class DBDictionary
     public boolean requiresConditionForCrossJoin = false;
     public String forUpdateClause = "FOR UPDATE";
     public String tableForUpdateClause = null;
+    public String skipLockedClause = null;
+    public int parallelUnionThreshold = 0;
     public String distinctCountColumnSeparator = null;
     public boolean supportsSelectForUpdate = true;
     public boolean supportsLockingWithDistinctClause = true;
@@ -253,6 +262,7 @@ public class DBDictionary
     public boolean requiresAliasForSubselect = false;
     public boolean requiresTargetForDelete = false;
     public boolean allowsAliasInBulkClause = true;
+    public int bulkUpdateIdLimit = 0;
     public boolean supportsMultipleNontransactionalResultSets = true;
     public boolean requiresSearchStringEscapeForLike = false;
     public String searchStringEscape = "\\";
@@ -302,6 +312,8 @@ public class DBDictionary
     public boolean useJDBC4SetBinaryStream = true;//OPENJPA-2067
     public int maxEmbeddedBlobSize = -1;
     public int maxEmbeddedClobSize = -1;
+    public boolean useStreamBindingForLobs = false;
+    public int maxInlineStreamingLobSize = -1;
     public int inClauseLimit = -1;
     public int datePrecision = MILLI;
        
@@ -466,6 +478,11 @@ public class DBDictionary
         new HashMap<Integer, Set<String>>();
                    
     protected ProxyManager _proxyManager;
+
+    // threads that run SQL work in parallel for this dictionary's
+    // configuration; created on first use and shut down on close
+    private ExecutorService _executor = null;
+    private boolean _closed = false;
     
     public DBDictionary() {
         fixedSizeTypeNameSet.addAll(Arrays.asList(new String[]{
@@ -1029,7 +1046,7 @@ public class DBDictionary
     	
     	//OPENJPA-2067: If the user has set the 'useJDBC4SetBinaryStream' property
     	//then lets use the JDBC 4.0 version of the setBinaryStream method.
-		if (useJDBC4SetBinaryStream) {
+		if (useJDBC4SetBinaryStream || length < 0) {
 			if (isJDBC4){
 				stmnt.setBinaryStream(idx, val);
 				return;
@@ -1107,7 +1124,11 @@ public class DBDictionary
     public void setCharacterStream(PreparedStatement stmnt, int idx,
         Reader val, int length, Column col)
         throws SQLException {
-        stmnt.setCharacterStream(idx, val, length);
+        // a negative length marks a stream of unknown length
+        if (length < 0 && isJDBC4)
+            stmnt.setCharacterStream(idx, val);
+        else
+            stmnt.setCharacterStream(idx, val, length);
     }
 
     /**
@@ -2656,6 +2677,11 @@ public class DBDictionary
                 "isolation-level-config-not-supported", getClass().getName()));
         } else if (isForUpdate && !simulateLocking) {
             assertSupport(supportsSelectForUpdate, "SupportsSelectForUpdate");
+            if (fetch != null && fetch.getSkipLocked()) {
+                assertSupport(skipLockedClause != null, "SkipLockedClause");
+                return (forUpdateClause == null) ? skipLockedClause
+                    : forUpdateClause + " " + skipLockedClause;
+            }
             return forUpdateClause;
         } else {
             return null;
@@ -5091,6 +5117,47 @@ public class DBDictionary
         DataSourceFactory.closeDataSource(dataSource);
     }
 
+    /**
+     * Return the executor used to run SQL work, such as the selects of a
+     * parallel union or pipelined SQL generation, on background threads.
+     * The executor has at most one thread per available processor and
+     * does not queue work: callers must be prepared to perform the work
+     * themselves when a task is rejected, which is also the case once this
+     * dictionary has been closed.
+     *
+     * @since 3.0.0
+     */
+    public synchronized ExecutorService getExecutorService() {
+        if (_executor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(0,
+                Runtime.getRuntime().availableProcessors(), 60,
+                TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread t = new Thread(r, "OpenJPA SQL Executor");
+                        t.setDaemon(true);
+                        return t;
+                    }
+                });
+            if (_closed)
+                executor.shutdown();
+            _executor = executor;
+        }
+        return _executor;
+    }
+
+    /**
+     * Shut down the threads of the {@link #getExecutorService executor}.
+     * Invoked when the owning configuration is closed.
+     *
+     * @since 3.0.0
+     */
+    public synchronized void close() {
+        _closed = true;
+        if (_executor != null)
+            _executor.shutdown();
+    }
+
     /**
      * Used by some mappings to represent data that has already been
      * serialized so that we don't have to serialize multiple times.
@@ -5117,28 +5184,46 @@ public class DBDictionary
         return column.getIdentifier();
     }
     
+    /**
+     * Set the value of a streaming LOB field in the given row. If
+     * {@link #useStreamBindingForLobs} is set, the field's stream is bound
+     * directly; otherwise an empty LOB is inserted and the value is written
+     * later by {@link #updateBlob}.
+     */
     public void insertBlobForStreamingLoad(Row row, Column col, 
         JDBCStore store, Object ob, Select sel) throws SQLException {
-        if (ob != null) {
+        if (ob == null) {
+            row.setNull(col);
+        } else if (useStreamBindingForLobs) {
+            row.setBinaryStream(col, (InputStream) ob, -1);
+        } else {
             row.setBinaryStream(col, 
                 new ByteArrayInputStream(new byte[0]), 0);
-        } else {
-            row.setNull(col);
         }
     }
     
+    /**
+     * Set the value of a streaming character LOB field in the given row. If
+     * {@link #useStreamBindingForLobs} is set, the field's reader is bound
+     * directly; otherwise an empty LOB is inserted and the value is written
+     * later by {@link #updateClob}.
+     */
     public void insertClobForStreamingLoad(Row row, Column col, Object ob)
     throws SQLException {
-        if (ob != null) {
-        row.setCharacterStream(col,
-                new CharArrayReader(new char[0]), 0);
-        } else {
+        if (ob == null) {
             row.setNull(col);
+        } else if (useStreamBindingForLobs) {
+            row.setCharacterStream(col, (Reader) ob, -1);
+        } else {
+            row.setCharacterStream(col,
+                new CharArrayReader(new char[0]), 0);
         }
     }
     
     public void updateBlob(Select sel, JDBCStore store, InputStream is)
         throws SQLException {
+        if (useStreamBindingForLobs)
+            return;
         SQLBuffer sql = sel.toSelect(true, store.getFetchConfiguration());
         ResultSet res = null;
         Connection conn = store.getConnection();
@@ -5173,6 +5258,8 @@ public class DBDictionary
     
     public void updateClob(Select sel, JDBCStore store, Reader reader)
         throws SQLException {
+        if (useStreamBindingForLobs)
+            return;
         SQLBuffer sql = sel.toSelect(true, store.getFetchConfiguration());
         ResultSet res = null;
         Connection conn = store.getConnection();
@@ -56,6 +56,8 @@ public class DerbyDictionary
 
         useGetBytesForBlobs = true;
         useSetBytesForBlobs = true;
+        useStreamBindingForLobs = true;
+        maxInlineStreamingLobSize = 64 * 1024;
 
         allowsAliasInBulkClause = false;
         supportsDeferredConstraints = false;
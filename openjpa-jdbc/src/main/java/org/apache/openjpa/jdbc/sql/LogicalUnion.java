@@ -18,25 +18,37 @@
  */
 package org.apache.openjpa.jdbc.sql;
 
+import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
 import org.apache.openjpa.jdbc.kernel.JDBCFetchConfiguration;
+import org.apache.openjpa.jdbc.kernel.JDBCLockManager;
 import org.apache.openjpa.jdbc.kernel.JDBCStore;
+import org.apache.openjpa.kernel.LockLevels;
+import org.apache.openjpa.kernel.StoreContext;
 import org.apache.openjpa.kernel.exps.Value;
 import org.apache.openjpa.kernel.exps.Context;
 import org.apache.openjpa.jdbc.meta.ClassMapping;
 import org.apache.openjpa.jdbc.meta.FieldMapping;
+import org.apache.openjpa.jdbc.meta.ValueMapping;
 import org.apache.openjpa.jdbc.schema.Column;
 import org.apache.openjpa.jdbc.schema.ForeignKey;
 import org.apache.openjpa.jdbc.schema.Table;
 import org.apache.openjpa.lib.util.Localizer;
+import org.apache.openjpa.util.Id;
 import org.apache.openjpa.util.InternalException;
 import org.apache.openjpa.util.UnsupportedException;
 import org.apache.openjpa.util.UserException;
@@ -262,27 +274,34 @@ public class LogicalUnion
 
         // create a single result from each select in our fake union, merging
         // them as needed
-        AbstractResult[] res = new AbstractResult[sels.length];
+        AbstractResult[] res;
+        if (isParallel(store, lockLevel))
+            res = executeParallel(store, fetch, lockLevel);
+        else {
+            res = new AbstractResult[sels.length];
+            try {
+                for (int i = 0; i < res.length; i++)
+                    res[i] = (AbstractResult) sels[i].execute(store, fetch,
+                        lockLevel);
+            } catch (SQLException se) {
+                for (int i = 0; res[i] != null; i++)
+                    res[i].close();
+                throw se;
+            }
+        }
+
         List[] orderIdxs = null;
-        try {
-            List l;
-            for (int i = 0; i < res.length; i++) {
-                res[i] = (AbstractResult) sels[i].execute(store, fetch,
-                    lockLevel);
-                res[i].setBaseMapping(mappings[i]);
-                res[i].setIndexOf(i);
-
-                l = sels[i].getSelectedOrderIndexes();
-                if (l != null) {
-                    if (orderIdxs == null)
-                        orderIdxs = new List[sels.length];
-                    orderIdxs[i] = l;
-                }
+        List l;
+        for (int i = 0; i < res.length; i++) {
+            res[i].setBaseMapping(mappings[i]);
+            res[i].setIndexOf(i);
+
+            l = sels[i].getSelectedOrderIndexes();
+            if (l != null) {
+                if (orderIdxs == null)
+                    orderIdxs = new List[sels.length];
+                orderIdxs[i] = l;
             }
-        } catch (SQLException se) {
-            for (int i = 0; res[i] != null; i++)
-                res[i].close();
-            throw se;
         }
 
         // if multiple selects have ordering, use a comparator to collate
@@ -292,6 +311,107 @@ public class LogicalUnion
         return new MergedResult(res, comp);
     }
 
+    /**
+     * Whether to execute our selects concurrently on separate connections.
+     * This requires that the dictionary's
+     * {@link DBDictionary#parallelUnionThreshold} is met, that no datastore
+     * transaction is active, since other connections cannot see its changes,
+     * and that the selects do not lock rows.
+     */
+    protected boolean isParallel(JDBCStore store, int lockLevel) {
+        if (dict.parallelUnionThreshold <= 0
+            || sels.length < dict.parallelUnionThreshold)
+            return false;
+        if (store.getContext().isStoreActive())
+            return false;
+        if (lockLevel == LockLevels.LOCK_NONE)
+            return true;
+        JDBCLockManager lm = store.getLockManager();
+        return lm == null || !lm.selectForUpdate(sels[0], lockLevel);
+    }
+
+    /**
+     * Execute our selects concurrently, each on its own connection, using
+     * the executor of the dictionary. The first select runs on the calling
+     * thread, as do any selects the executor has no free thread for.
+     */
+    private AbstractResult[] executeParallel(JDBCStore store,
+        final JDBCFetchConfiguration fetch, final int lockLevel)
+        throws SQLException {
+        final SeparateConnectionStore sep = new SeparateConnectionStore(store);
+        final AbstractResult[] res = new AbstractResult[sels.length];
+        Callable[] tasks = new Callable[sels.length];
+        for (int i = 0; i < sels.length; i++) {
+            final int idx = i;
+            tasks[i] = new Callable() {
+                public Object call()
+                    throws SQLException {
+                    res[idx] = (AbstractResult) sels[idx].execute(sep, fetch,
+                        lockLevel);
+                    return null;
+                }
+            };
+        }
+
+        // selects that the executor has no thread for run on this thread
+        ExecutorService executor = dict.getExecutorService();
+        Future[] futures = new Future[sels.length];
+        List<Callable> inline = new ArrayList<Callable>();
+        inline.add(tasks[0]);
+        for (int i = 1; i < tasks.length; i++) {
+            try {
+                futures[i] = executor.submit(tasks[i]);
+            } catch (RejectedExecutionException ree) {
+                inline.add(tasks[i]);
+            }
+        }
+
+        // wait for every select, even after a failure, so that we can close
+        // all the results that were opened
+        Throwable err = null;
+        for (Callable task : inline) {
+            try {
+                task.call();
+            } catch (Throwable t) {
+                if (err == null)
+                    err = t;
+            }
+        }
+        boolean interrupted = false;
+        for (int i = 1; i < futures.length; i++) {
+            if (futures[i] == null)
+                continue;
+            while (true) {
+                try {
+                    futures[i].get();
+                    break;
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                } catch (ExecutionException ee) {
+                    if (err == null)
+                        err = ee.getCause();
+                    break;
+                }
+            }
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+        sep.release();
+
+        if (err == null)
+            return res;
+        for (int i = 0; i < res.length; i++)
+            if (res[i] != null)
+                res[i].close();
+        if (err instanceof SQLException)
+            throw (SQLException) err;
+        if (err instanceof RuntimeException)
+            throw (RuntimeException) err;
+        if (err instanceof Error)
+            throw (Error) err;
+        throw new InternalException(err);
+    }
+
     public void select(Union.Selector selector) {
         for (int i = 0; i < sels.length; i++)
             selector.select(sels[i], i);
@@ -933,6 +1053,74 @@ public class LogicalUnion
         }
     }
 
+    /**
+     * Store that hands out a new connection whenever one is requested, so
+     * that selects executed concurrently do not share a connection. Once
+     * released, it uses the connection of the store it delegates to, as do
+     * the results that keep a reference to it.
+     */
+    private static class SeparateConnectionStore
+        implements JDBCStore {
+
+        private final JDBCStore _store;
+        private volatile boolean _released = false;
+
+        public SeparateConnectionStore(JDBCStore store) {
+            _store = store;
+        }
+
+        public void release() {
+            _released = true;
+        }
+
+        public StoreContext getContext() {
+            return _store.getContext();
+        }
+
+        public JDBCConfiguration getConfiguration() {
+            return _store.getConfiguration();
+        }
+
+        public DBDictionary getDBDictionary() {
+            return _store.getDBDictionary();
+        }
+
+        public SQLFactory getSQLFactory() {
+            return _store.getSQLFactory();
+        }
+
+        public JDBCLockManager getLockManager() {
+            return _store.getLockManager();
+        }
+
+        public Connection getConnection() {
+            return (_released) ? _store.getConnection()
+                : _store.getNewConnection();
+        }
+
+        public Connection getNewConnection() {
+            return _store.getNewConnection();
+        }
+
+        public JDBCFetchConfiguration getFetchConfiguration() {
+            return _store.getFetchConfiguration();
+        }
+
+        public Id newDataStoreId(long id, ClassMapping mapping,
+            boolean subs) {
+            return _store.newDataStoreId(id, mapping, subs);
+        }
+
+        public Object find(Object oid, ValueMapping vm,
+            JDBCFetchConfiguration fetch) {
+            return _store.find(oid, vm, fetch);
+        }
+
+        public void loadSubclasses(ClassMapping mapping) {
+            _store.loadSubclasses(mapping);
+        }
+    }
+
     /**
      * Comparator for collating ordered results when faking a union.
      */
@@ -193,6 +193,8 @@ public class MySQLDictionary
         }
         if (maj > 5 || (maj == 5 && min >= 1))
             supportsXMLColumn = true;
+        if (maj >= 8 && skipLockedClause == null)
+            skipLockedClause = "SKIP LOCKED";
 
         if (metaData.getDriverMajorVersion() < 5)
             driverDeserializesBlobs = true;
@@ -167,6 +167,7 @@ public class OracleDictionary
         maxEmbeddedBlobSize = 4000;
         maxEmbeddedClobSize = 4000;
         inClauseLimit = 1000;
+        skipLockedClause = "SKIP LOCKED";
 
         supportsDeferredConstraints = true;
         supportsLockingWithDistinctClause = false;
@@ -738,6 +738,8 @@ public class PostgresDictionary
         if ((maj >= 9 || (maj == 8 && min >= 3))) {
             supportsXMLColumn = true;
         }
+        if ((maj > 9 || (maj == 9 && min >= 5)) && skipLockedClause == null)
+            skipLockedClause = "SKIP LOCKED";
         // Old PostgreSQL requires double-escape for strings.
         if ((maj <= 8 || (maj == 9 && min == 0))) {
             requiresSearchStringEscapeForLike = true;
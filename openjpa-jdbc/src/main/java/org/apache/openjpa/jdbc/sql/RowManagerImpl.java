@@ -22,12 +22,17 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.openjpa.jdbc.schema.Table;
 import org.apache.openjpa.kernel.OpenJPAStateManager;
+import org.apache.openjpa.lib.graph.Edge;
+import org.apache.openjpa.lib.graph.Graph;
 import org.apache.openjpa.util.InternalException;
 
 /**
@@ -173,6 +178,132 @@ public class RowManagerImpl
         
     }
 
+    /**
+     * Return the given rows that still have to be flushed, reordered so that
+     * rows of the same table, action and SQL are adjacent and can share a
+     * statement batch. The order is stable: groups appear in the order of
+     * their first row, and rows keep their relative order within a group.
+     * Updates are grouped by table only, because the order of updates to a
+     * table can matter for its unique constraints. Rows that are already
+     * flushed, invalid or part of a foreign key graph are left out.
+     *
+     * @param dict the dictionary to generate SQL with, or null to group by
+     * table and action only because some SQL cannot be generated yet
+     * @since 3.0.0
+     */
+    public static List<RowImpl> group(Collection<? extends RowImpl> rows,
+        DBDictionary dict) {
+        Map<GroupKey, List<RowImpl>> groups =
+            new LinkedHashMap<GroupKey, List<RowImpl>>();
+        int size = 0;
+        for (RowImpl row : rows) {
+            if (row.isFlushed() || !row.isValid() || row.isDependent())
+                continue;
+            GroupKey key = new GroupKey(row, dict);
+            List<RowImpl> group = groups.get(key);
+            if (group == null) {
+                group = new ArrayList<RowImpl>();
+                groups.put(key, group);
+            }
+            group.add(row);
+            size++;
+        }
+        if (groups.size() == 1)
+            return groups.values().iterator().next();
+
+        List<RowImpl> grouped = new ArrayList<RowImpl>(size);
+        for (List<RowImpl> group : groups.values())
+            grouped.addAll(group);
+        return grouped;
+    }
+
+    /**
+     * Return the rows of the given foreign key graph in an order that
+     * respects every edge still in the graph and keeps rows of the same
+     * table, action and SQL together wherever the edges allow. An edge from
+     * one row to another means the other row has to be flushed first. Rows
+     * whose dependencies are met are flushed group by group, staying with
+     * the current group for as long as it has rows ready.
+     *
+     * @param sorted the rows of the graph in a topological order, used to
+     * break ties and returned unchanged if the graph still has a cycle
+     * @param dict the dictionary to generate SQL with, or null to group by
+     * table and action only because some SQL cannot be generated yet
+     * @since 3.0.0
+     */
+    public static List group(Graph graph, List sorted, DBDictionary dict) {
+        // count the unflushed dependencies of each row, and record which
+        // rows wait on it
+        Map<Object, int[]> pending = new IdentityHashMap<Object, int[]>();
+        Map<Object, List<Object>> waiting =
+            new IdentityHashMap<Object, List<Object>>();
+        for (Object node : sorted) {
+            pending.put(node, new int[1]);
+            for (Edge edge : graph.getEdgesFrom(node)) {
+                if (edge.getTo() == node)
+                    continue;
+                pending.get(node)[0]++;
+                List<Object> rows = waiting.get(edge.getTo());
+                if (rows == null) {
+                    rows = new ArrayList<Object>(3);
+                    waiting.put(edge.getTo(), rows);
+                }
+                rows.add(node);
+            }
+        }
+
+        Map<GroupKey, LinkedList<Object>> ready =
+            new LinkedHashMap<GroupKey, LinkedList<Object>>();
+        for (Object node : sorted)
+            if (pending.get(node)[0] == 0)
+                ready(node, ready, dict);
+
+        List grouped = new ArrayList(sorted.size());
+        GroupKey current = null;
+        LinkedList<Object> group;
+        while (grouped.size() < sorted.size()) {
+            group = (current == null) ? null : ready.get(current);
+            if (group == null || group.isEmpty()) {
+                group = null;
+                for (Iterator<Map.Entry<GroupKey, LinkedList<Object>>> itr =
+                    ready.entrySet().iterator(); itr.hasNext();) {
+                    Map.Entry<GroupKey, LinkedList<Object>> entry = itr.next();
+                    if (!entry.getValue().isEmpty()) {
+                        current = entry.getKey();
+                        group = entry.getValue();
+                        break;
+                    }
+                    itr.remove();
+                }
+                if (group == null)
+                    return sorted; // a cycle is left; keep the given order
+            }
+
+            Object node = group.removeFirst();
+            grouped.add(node);
+            List<Object> rows = waiting.get(node);
+            if (rows != null)
+                for (Object row : rows)
+                    if (--pending.get(row)[0] == 0)
+                        ready(row, ready, dict);
+        }
+        return grouped;
+    }
+
+    /**
+     * Add the given row to the ready rows of its group.
+     */
+    private static void ready(Object node,
+        Map<GroupKey, LinkedList<Object>> ready, DBDictionary dict) {
+        GroupKey key = new GroupKey((RowImpl) node, dict);
+        LinkedList<Object> group = ready.get(key);
+        if (group == null) {
+            group = new LinkedList<Object>();
+            ready.put(key, group);
+        }
+        group.add(node);
+    }
+
     public Row getSecondaryRow(Table table, int action) {
         return new SecondaryRow(table, action);
     }
@@ -265,6 +396,39 @@ public class RowManagerImpl
         return _row;
     }
 
+    /**
+     * Key for grouping rows that can share a statement batch.
+     */
+    private static class GroupKey {
+
+        public final Table table;
+        public final int action;
+        public final String sql;
+
+        public GroupKey(RowImpl row, DBDictionary dict) {
+            table = row.getTable();
+            action = row.getAction();
+            sql = (dict == null || action == Row.ACTION_UPDATE) ? null
+                : row.getSQL(dict);
+        }
+
+        public int hashCode() {
+            return ((table == null) ? 0 : table.hashCode()) + action
+                + ((sql == null) ? 0 : sql.hashCode());
+        }
+
+        public boolean equals(Object other) {
+            if (other == this)
+                return true;
+            if (!(other instanceof GroupKey))
+                return false;
+
+            GroupKey key = (GroupKey) other;
+            return table == key.table && action == key.action
+                && (sql == null ? key.sql == null : sql.equals(key.sql));
+        }
+    }
+
     /**
      * Key for hashing virtual rows.
      */
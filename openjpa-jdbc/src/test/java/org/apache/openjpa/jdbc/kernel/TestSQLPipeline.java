@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.jdbc.kernel;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import junit.framework.TestCase;
+
+import org.apache.openjpa.jdbc.schema.Column;
+import org.apache.openjpa.jdbc.sql.DBDictionary;
+import org.apache.openjpa.jdbc.sql.Row;
+import org.apache.openjpa.jdbc.sql.RowImpl;
+
+/**
+ * Tests the background SQL generation of {@link SQLPipeline}.
+ */
+public class TestSQLPipeline extends TestCase {
+
+    private ExecutorService _executor;
+
+    public void setUp() {
+        _executor = Executors.newSingleThreadExecutor();
+    }
+
+    public void tearDown() {
+        _executor.shutdownNow();
+    }
+
+    public void testEachRowGeneratedOnce() {
+        CountingRow[] rows = newRows(500);
+        SQLPipeline sql = new SQLPipeline(rows, null, _executor);
+        sql.start();
+        try {
+            for (int i = 0; i < rows.length; i++) {
+                assertSame(rows[i], sql.get(i));
+                assertEquals("SQL" + i, rows[i].getSQL(null));
+                // simulate statement execution
+                if (i % 50 == 0)
+                    Thread.yield();
+            }
+        } finally {
+            sql.finish();
+        }
+        for (int i = 0; i < rows.length; i++)
+            assertEquals(1, rows[i].generated.get());
+    }
+
+    public void testFinishStopsGeneration() {
+        CountingRow[] rows = newRows(1000);
+        SQLPipeline sql = new SQLPipeline(rows, null, _executor);
+        sql.start();
+        sql.get(0).getSQL(null);
+        sql.finish();
+
+        int generated = 0;
+        for (int i = 0; i < rows.length; i++)
+            generated += rows[i].generated.get();
+        Thread.yield();
+        int after = 0;
+        for (int i = 0; i < rows.length; i++)
+            after += rows[i].generated.get();
+        assertEquals(generated, after);
+    }
+
+    public void testFailedGenerationRepeatedByCaller() {
+        CountingRow[] rows = newRows(10);
+        rows[3].fail = true;
+        SQLPipeline sql = new SQLPipeline(rows, null, _executor);
+        sql.start();
+        try {
+            for (int i = 0; i < 3; i++)
+                sql.get(i).getSQL(null);
+            try {
+                sql.get(3).getSQL(null);
+                fail("Expected generation failure");
+            } catch (IllegalStateException ise) {
+                // expected
+            }
+            for (int i = 4; i < rows.length; i++)
+                assertEquals("SQL" + i, sql.get(i).getSQL(null));
+        } finally {
+            sql.finish();
+        }
+    }
+
+    public void testRejectedPipelineGeneratedByCaller() {
+        CountingRow[] rows = newRows(10);
+        _executor.shutdown();
+        SQLPipeline sql = new SQLPipeline(rows, null, _executor);
+        sql.start();
+        try {
+            for (int i = 0; i < rows.length; i++)
+                assertEquals("SQL" + i, sql.get(i).getSQL(null));
+        } finally {
+            sql.finish();
+        }
+        for (int i = 0; i < rows.length; i++)
+            assertEquals(1, rows[i].generated.get());
+    }
+
+    private static CountingRow[] newRows(int count) {
+        CountingRow[] rows = new CountingRow[count];
+        for (int i = 0; i < count; i++)
+            rows[i] = new CountingRow(i);
+        return rows;
+    }
+
+    private static class CountingRow extends RowImpl {
+        final AtomicInteger generated = new AtomicInteger();
+        final int index;
+        boolean fail;
+
+        CountingRow(int index) {
+            super(new Column[0], Row.ACTION_INSERT);
+            this.index = index;
+            setValid(true);
+        }
+
+        protected String generateSQL(DBDictionary dict) {
+            generated.incrementAndGet();
+            if (fail)
+                throw new IllegalStateException();
+            return "SQL" + index;
+        }
+    }
+}
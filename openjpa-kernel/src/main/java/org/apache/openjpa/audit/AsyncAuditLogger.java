@@ -0,0 +1,531 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.audit;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.openjpa.conf.OpenJPAConfiguration;
+import org.apache.openjpa.kernel.Audited;
+import org.apache.openjpa.kernel.Broker;
+import org.apache.openjpa.lib.conf.Configuration;
+import org.apache.openjpa.lib.log.Log;
+import org.apache.openjpa.util.GeneralException;
+
+/**
+ * An auditor that records audited instances asynchronously.
+ * <br>
+ * The audited instances of a transaction are rendered as JSON lines at commit
+ * and handed to a bounded buffer. A background writer drains the buffer in
+ * batches and appends the lines to rolling files, optionally compressed with
+ * GZIP. The writer only synchronizes to disk once per batch.
+ * <br>
+ * The durability policy decides whether a committing transaction waits:
+ * <LI><tt>none</tt>: fire-and-forget, the transaction never waits for the
+ * writer. This is the default.
+ * <LI><tt>sync</tt>: the transaction waits until its records are written and
+ * synchronized to disk. A failure to write is then reported to the committing
+ * transaction.
+ * <br>
+ * Configured per persistence unit, for example
+ * <tt>openjpa.Auditor=async(File=audit/orders, Durability=sync)</tt>.
+ * Files are named <tt>&lt;File&gt;.&lt;n&gt;.jsonl</tt>, with a <tt>.gz</tt>
+ * suffix when compressed, and a new file is started once the current one
+ * holds <tt>MaxFileSize</tt> uncompressed bytes.
+ *
+ * @since 3.0.0
+ */
+public class AsyncAuditLogger implements Auditor {
+	public static final String DURABILITY_NONE = "none";
+	public static final String DURABILITY_SYNC = "sync";
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final byte[] NEW_LINE = { '\n' };
+	private static final Batch CLOSE = new Batch(new byte[0], false);
+
+	private String _file = "openjpa-audit";
+	private boolean _compress = true;
+	private long _maxFileSize = 64L * 1024 * 1024;
+	private int _maxFiles = 0;
+	private int _capacity = 1024;
+	private int _batchSize = 128;
+	private boolean _sync = false;
+	private boolean _blockWhenFull = true;
+	private boolean _rollbackOnError = false;
+
+	private Log _log;
+	private BlockingQueue<Batch> _queue;
+	private Thread _writer;
+	private volatile boolean _closed;
+	private final AtomicLong _written = new AtomicLong();
+	private final AtomicLong _dropped = new AtomicLong();
+
+	// state owned by the writer thread
+	private FileOutputStream _fos;
+	private OutputStream _out;
+	private long _size;
+	private int _index = -1;
+
+	@Override
+	public void audit(Broker broker, Collection<Audited> newObjects, Collection<Audited> updates,
+			Collection<Audited> deletes) {
+		if (newObjects.isEmpty() && updates.isEmpty() && deletes.isEmpty())
+			return;
+
+		// render now, the audited instances change once the transaction ends
+		long time = System.currentTimeMillis();
+		StringBuilder buf = new StringBuilder(256);
+		for (Audited audited : newObjects)
+			render(buf, time, broker, audited, false);
+		for (Audited audited : updates)
+			render(buf, time, broker, audited, true);
+		for (Audited audited : deletes)
+			render(buf, time, broker, audited, true);
+		Batch batch = new Batch(buf.toString().getBytes(UTF8), _sync);
+
+		if (!offer(batch))
+			return;
+		if (_sync) {
+			IOException failure = batch.await();
+			if (failure != null)
+				throw new GeneralException(failure);
+		}
+	}
+
+	/**
+	 * Hand the given batch to the writer.
+	 *
+	 * @return false if the batch was dropped because the buffer is full
+	 */
+	private boolean offer(Batch batch) {
+		BlockingQueue<Batch> queue = start();
+		if (_sync || _blockWhenFull) {
+			try {
+				queue.put(batch);
+				return true;
+			} catch (InterruptedException ie) {
+				Thread.currentThread().interrupt();
+			}
+		} else if (queue.offer(batch)) {
+			return true;
+		}
+		if (_dropped.getAndIncrement() == 0 && _log != null)
+			_log.warn("Audit buffer of " + _capacity + " transactions is full, "
+				+ "audit records are being dropped.");
+		return false;
+	}
+
+	/**
+	 * Start the writer thread if it is not yet running.
+	 */
+	private synchronized BlockingQueue<Batch> start() {
+		if (_closed)
+			throw new IllegalStateException("Auditor " + this + " is closed");
+		if (_writer == null) {
+			_queue = new ArrayBlockingQueue<Batch>(_capacity);
+			_writer = new Thread(new Writer(), "OpenJPA-AuditWriter");
+			_writer.setDaemon(true);
+			_writer.start();
+		}
+		return _queue;
+	}
+
+	/**
+	 * Append a JSON line for the given audited instance.
+	 */
+	private static void render(StringBuilder buf, long time, Broker broker, Audited audited,
+			boolean original) {
+		Object pc = audited.getManagedObject();
+		buf.append("{\"time\":").append(time);
+		buf.append(",\"operation\":\"").append(audited.getType()).append('"');
+		buf.append(",\"type\":");
+		quote(buf, pc == null ? null : pc.getClass().getName());
+		buf.append(",\"id\":");
+		Object oid = (broker == null || pc == null) ? null : broker.getObjectId(pc);
+		quote(buf, oid == null ? null : oid.toString());
+		buf.append(",\"fields\":[");
+		String[] fields = audited.getUpdatedFields();
+		for (int i = 0; i < fields.length; i++) {
+			if (i > 0)
+				buf.append(',');
+			quote(buf, fields[i]);
+		}
+		buf.append(']');
+		if (original) {
+			buf.append(",\"original\":");
+			quote(buf, String.valueOf(audited.getOriginalObject()));
+		}
+		buf.append(",\"object\":");
+		quote(buf, String.valueOf(pc));
+		buf.append("}\n");
+	}
+
+	/**
+	 * Append the given string as a JSON string literal.
+	 */
+	private static void quote(StringBuilder buf, String s) {
+		if (s == null) {
+			buf.append("null");
+			return;
+		}
+		buf.append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+				case '"':
+					buf.append("\\\"");
+					break;
+				case '\\':
+					buf.append("\\\\");
+					break;
+				case '\n':
+					buf.append("\\n");
+					break;
+				case '\r':
+					buf.append("\\r");
+					break;
+				case '\t':
+					buf.append("\\t");
+					break;
+				default:
+					if (c < 0x20) {
+						String hex = Integer.toHexString(c);
+						buf.append("\\u");
+						for (int j = hex.length(); j < 4; j++)
+							buf.append('0');
+						buf.append(hex);
+					} else {
+						buf.append(c);
+					}
+			}
+		}
+		buf.append('"');
+	}
+
+	/**
+	 * Write the given batches, rolling over to a new file as needed, and
+	 * synchronize to disk if any of them waits for durability.
+	 */
+	private void write(List<Batch> batches) throws IOException {
+		boolean sync = false;
+		for (Batch batch : batches) {
+			if (_out == null || (_maxFileSize > 0 && _size >= _maxFileSize))
+				roll();
+			_out.write(batch.bytes);
+			_size += batch.bytes.length;
+			sync |= batch.sync;
+		}
+		_out.flush();
+		if (sync)
+			_fos.getFD().sync();
+	}
+
+	/**
+	 * Close the current file, if any, and open the next one.
+	 */
+	private void roll() throws IOException {
+		closeFile();
+		if (_index < 0) {
+			_index = 0;
+			while (getFile(_index).exists())
+				_index++;
+		} else {
+			_index++;
+		}
+		File file = getFile(_index);
+		File dir = file.getAbsoluteFile().getParentFile();
+		if (dir != null && !dir.exists())
+			dir.mkdirs();
+		_fos = new FileOutputStream(file, true);
+		_out = _compress ? new GZIPOutputStream(_fos, 8192, true) : new BufferedOutputStream(_fos, 8192);
+		_size = 0;
+		if (_maxFiles > 0 && _index >= _maxFiles)
+			getFile(_index - _maxFiles).delete();
+	}
+
+	private void closeFile() throws IOException {
+		if (_out == null)
+			return;
+		try {
+			_out.close();
+		} finally {
+			_out = null;
+			_fos = null;
+		}
+	}
+
+	/**
+	 * Gets the file holding the audit records of the given sequence number.
+	 */
+	public File getFile(int index) {
+		return new File(_file + "." + index + (_compress ? ".jsonl.gz" : ".jsonl"));
+	}
+
+	/**
+	 * Base name of the audit files. Defaults to <tt>openjpa-audit</tt>.
+	 */
+	public void setFile(String file) {
+		_file = file;
+	}
+
+	public String getFile() {
+		return _file;
+	}
+
+	/**
+	 * Whether audit files are compressed with GZIP. Defaults to true.
+	 */
+	public void setCompress(boolean compress) {
+		_compress = compress;
+	}
+
+	public boolean getCompress() {
+		return _compress;
+	}
+
+	/**
+	 * Uncompressed size in bytes after which a new file is started.
+	 * Non-positive values disable rolling. Defaults to 64MB.
+	 */
+	public void setMaxFileSize(long size) {
+		_maxFileSize = size;
+	}
+
+	public long getMaxFileSize() {
+		return _maxFileSize;
+	}
+
+	/**
+	 * Number of most recent files to keep when rolling. Non-positive values
+	 * keep all files, which is the default.
+	 */
+	public void setMaxFiles(int files) {
+		_maxFiles = files;
+	}
+
+	public int getMaxFiles() {
+		return _maxFiles;
+	}
+
+	/**
+	 * Number of committed transactions whose records may wait for the
+	 * writer. Defaults to 1024.
+	 */
+	public void setCapacity(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+		_capacity = capacity;
+	}
+
+	public int getCapacity() {
+		return _capacity;
+	}
+
+	/**
+	 * Maximum number of transactions the writer drains from the buffer before
+	 * flushing, and synchronizing to disk if required. Defaults to 128.
+	 */
+	public void setBatchSize(int size) {
+		if (size <= 0)
+			throw new IllegalArgumentException("BatchSize must be positive: " + size);
+		_batchSize = size;
+	}
+
+	public int getBatchSize() {
+		return _batchSize;
+	}
+
+	/**
+	 * Durability policy, either <tt>none</tt> or <tt>sync</tt>.
+	 */
+	public void setDurability(String durability) {
+		if (DURABILITY_SYNC.equalsIgnoreCase(durability))
+			_sync = true;
+		else if (DURABILITY_NONE.equalsIgnoreCase(durability))
+			_sync = false;
+		else
+			throw new IllegalArgumentException("Durability must be " + DURABILITY_NONE + " or "
+				+ DURABILITY_SYNC + ": " + durability);
+	}
+
+	public String getDurability() {
+		return _sync ? DURABILITY_SYNC : DURABILITY_NONE;
+	}
+
+	/**
+	 * Whether a committing transaction waits for space when the buffer is
+	 * full rather than dropping its records. Always true with <tt>sync</tt>
+	 * durability. Defaults to true.
+	 */
+	public void setBlockWhenFull(boolean block) {
+		_blockWhenFull = block;
+	}
+
+	public boolean getBlockWhenFull() {
+		return _blockWhenFull;
+	}
+
+	public void setRollbackOnError(boolean rollback) {
+		_rollbackOnError = rollback;
+	}
+
+	@Override
+	public boolean isRollbackOnError() {
+		return _rollbackOnError;
+	}
+
+	/**
+	 * Number of transactions whose records have been written.
+	 */
+	public long getWrittenCount() {
+		return _written.get();
+	}
+
+	/**
+	 * Number of transactions whose records were dropped as the buffer was full.
+	 */
+	public long getDroppedCount() {
+		return _dropped.get();
+	}
+
+	@Override
+	public void setConfiguration(Configuration conf) {
+		_log = conf.getLog(OpenJPAConfiguration.LOG_RUNTIME);
+	}
+
+	@Override
+	public void startConfiguration() {
+	}
+
+	@Override
+	public void endConfiguration() {
+	}
+
+	/**
+	 * Write all pending records and stop the writer.
+	 */
+	@Override
+	public void close() throws Exception {
+		Thread writer;
+		synchronized (this) {
+			if (_closed)
+				return;
+			_closed = true;
+			writer = _writer;
+		}
+		if (writer == null)
+			return;
+		_queue.put(CLOSE);
+		writer.join();
+
+		// release transactions that raced with closing
+		List<Batch> late = new ArrayList<Batch>();
+		_queue.drainTo(late);
+		for (Batch batch : late)
+			batch.done(new IOException("Auditor " + this + " is closed"));
+	}
+
+	/**
+	 * Records of a single transaction.
+	 */
+	private static class Batch {
+		final byte[] bytes;
+		final boolean sync;
+		private boolean _done;
+		private IOException _failure;
+
+		Batch(byte[] bytes, boolean sync) {
+			this.bytes = bytes;
+			this.sync = sync;
+		}
+
+		synchronized void done(IOException failure) {
+			_done = true;
+			_failure = failure;
+			notifyAll();
+		}
+
+		synchronized IOException await() {
+			boolean interrupted = false;
+			while (!_done) {
+				try {
+					wait();
+				} catch (InterruptedException ie) {
+					interrupted = true;
+				}
+			}
+			if (interrupted)
+				Thread.currentThread().interrupt();
+			return _failure;
+		}
+	}
+
+	/**
+	 * Drains the buffer in batches until closed.
+	 */
+	private class Writer implements Runnable {
+		public void run() {
+			List<Batch> batches = new ArrayList<Batch>(_batchSize);
+			boolean closing = false;
+			while (!closing) {
+				try {
+					batches.add(_queue.take());
+				} catch (InterruptedException ie) {
+					continue;
+				}
+				_queue.drainTo(batches, _batchSize - 1);
+				closing = batches.remove(CLOSE);
+				IOException failure = null;
+				try {
+					write(batches);
+					_written.addAndGet(batches.size());
+				} catch (IOException ioe) {
+					failure = ioe;
+					if (_log != null)
+						_log.error("Failed to write " + batches.size() + " audit records to "
+							+ getFile(_index), ioe);
+					try {
+						closeFile();
+					} catch (IOException ignore) {
+					}
+				}
+				for (Batch batch : batches)
+					batch.done(failure);
+				batches.clear();
+			}
+			try {
+				closeFile();
+			} catch (IOException ioe) {
+				if (_log != null)
+					_log.error("Failed to close audit file " + getFile(_index), ioe);
+			}
+		}
+	}
+}
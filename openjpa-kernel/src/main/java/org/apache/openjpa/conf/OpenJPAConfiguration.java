@@ -1984,6 +1984,32 @@ public interface OpenJPAConfiguration
        */
       public void setUseTCCLinSelectNew(Boolean useTcclForSelectNew);
 
+    /**
+     * Whether the plugin components of brokers closed on a thread, such as
+     * the lock manager and lifecycle event manager, are reset and reused by
+     * the next broker created on that thread. Components obtained from a
+     * closed broker must not be used when this is enabled.
+     *
+     * @since 3.0.0
+     */
+    public boolean getBrokerComponentPooling();
+
+    /**
+     * Whether the plugin components of brokers closed on a thread are
+     * reused by the next broker created on that thread.
+     *
+     * @since 3.0.0
+     */
+    public void setBrokerComponentPooling(boolean pooling);
+
+    /**
+     * Whether the plugin components of brokers closed on a thread are
+     * reused by the next broker created on that thread.
+     *
+     * @since 3.0.0
+     */
+    public void setBrokerComponentPooling(Boolean pooling);
+
     public String getDatabaseAction();
 
     public int getDatabaseActionConstant();
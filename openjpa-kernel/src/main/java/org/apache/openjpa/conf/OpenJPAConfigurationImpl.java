@@ -23,6 +23,7 @@ import java.util.HashSet;
 import java.util.Map;
 
 import org.apache.openjpa.lib.util.StringUtil;
+import org.apache.openjpa.audit.AsyncAuditLogger;
 import org.apache.openjpa.audit.AuditLogger;
 import org.apache.openjpa.audit.Auditor;
 import org.apache.openjpa.datacache.CacheDistributionPolicy;
@@ -178,6 +179,7 @@ public class OpenJPAConfigurationImpl
     public BooleanValue postLoadOnMerge;
     public BooleanValue optimizeIdCopy;
     public BooleanValue useTcclForSelectNew;
+    public BooleanValue brokerComponentPooling;
 
     // JPA Properties
     public IntValue databaseAction;
@@ -664,13 +666,18 @@ public class OpenJPAConfigurationImpl
         instrumentationProviders.setInstantiatingGetter("getInstrumentationInstances");
         
         auditorPlugin = addPlugin("Auditor", true);
-        aliases = new String[] { "default", AuditLogger.class.getName(), };
+        aliases = new String[] { "default", AuditLogger.class.getName(),
+            "async", AsyncAuditLogger.class.getName(), };
         auditorPlugin.setAliases(aliases);
         auditorPlugin.setInstantiatingGetter("getAuditorInstance");
 
         useTcclForSelectNew = addBoolean("UseTCCLinSelectNew");
         useTcclForSelectNew.setDefault("false");
         useTcclForSelectNew.set(false);
+
+        brokerComponentPooling = addBoolean("BrokerComponentPooling");
+        brokerComponentPooling.setDefault("false");
+        brokerComponentPooling.set(false);
         
         // initialize supported options that some runtimes may not support
         supportedOptions.add(OPTION_NONTRANS_READ);
@@ -2010,5 +2017,17 @@ public class OpenJPAConfigurationImpl
             setUseTCCLinSelectNew(useTcclForSelectNew.booleanValue());
         }
     }
-}
 
+    public boolean getBrokerComponentPooling() {
+        return brokerComponentPooling.get();
+    }
+
+    public void setBrokerComponentPooling(boolean pooling) {
+        brokerComponentPooling.set(pooling);
+    }
+
+    public void setBrokerComponentPooling(Boolean pooling) {
+        if (pooling != null)
+            setBrokerComponentPooling(pooling.booleanValue());
+    }
+}
@@ -22,6 +22,7 @@ import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.util.AbstractList;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.List;
@@ -32,6 +33,7 @@ import java.util.TreeMap;
 
 import org.apache.commons.collections.map.LinkedMap;
 import org.apache.openjpa.datacache.AbstractQueryCache.EvictPolicy;
+import org.apache.openjpa.kernel.ExpressionStoreQuery;
 import org.apache.openjpa.kernel.FetchConfiguration;
 import org.apache.openjpa.kernel.LockLevels;
 import org.apache.openjpa.kernel.OpenJPAStateManager;
@@ -379,7 +381,7 @@ public class QueryCacheStoreQuery
          * (such as deletes or updates) are performed so that the
          * cache remains up-to-date.
          */
-        private void clearAccessPath(StoreQuery q) {
+        private void clearAccessPath(StoreQuery q, boolean done) {
             if (q == null)
                 return;
 
@@ -396,27 +398,42 @@ public class QueryCacheStoreQuery
             cq.getCache().onTypesChanged(new TypesChangedEvent
                 (q.getContext(), classes));
 
-            // evict from the data cache
+            // evict from the data cache, only the changed instances if the
+            // store could name them
+            StoreQuery delegate = unwrap(q);
+            Collection<Object> oids = (done
+                && delegate instanceof ExpressionStoreQuery)
+                ? ((ExpressionStoreQuery) delegate).getBulkObjectIds() : null;
             for (int i = 0; i < cmd.length; i++) {
-                if (cmd[i].getDataCache() != null && cmd[i].getDataCache().getEvictOnBulkUpdate())
-                    cmd[i].getDataCache().removeAll(
-                        cmd[i].getDescribedType(), true);
+                if (cmd[i].getDataCache() != null && cmd[i].getDataCache().getEvictOnBulkUpdate()) {
+                    if (oids == null)
+                        cmd[i].getDataCache().removeAll(
+                            cmd[i].getDescribedType(), true);
+                    else
+                        cmd[i].getDataCache().removeAll(oids);
+                }
             }
         }
 
         public Number executeDelete(StoreQuery q, Object[] params) {
+            boolean done = false;
             try {
-                return _ex.executeDelete(unwrap(q), params);
+                Number num = _ex.executeDelete(unwrap(q), params);
+                done = true;
+                return num;
             } finally {
-                clearAccessPath(q);
+                clearAccessPath(q, done);
             }
         }
 
         public Number executeUpdate(StoreQuery q, Object[] params) {
+            boolean done = false;
             try {
-                return _ex.executeUpdate(unwrap(q), params);
+                Number num = _ex.executeUpdate(unwrap(q), params);
+                done = true;
+                return num;
             } finally {
-                clearAccessPath(q);
+                clearAccessPath(q, done);
             }
         }
 
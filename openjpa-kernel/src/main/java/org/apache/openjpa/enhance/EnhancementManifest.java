@@ -0,0 +1,195 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.enhance;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.openjpa.util.InternalException;
+
+/**
+ * Records the class files processed by the enhancer, keyed by a hash of their
+ * contents, so that later runs can skip classes that have not changed. For
+ * each class the manifest stores the hash of the class file before and after
+ * enhancement. When classes are enhanced in place, a class is only current
+ * if its class file matches the recorded output: a class file matching the
+ * input has been written again by the compiler and still needs enhancement.
+ * Otherwise the class file is never replaced, and a class is current when it
+ * matches the recorded input. A manifest written by a different enhancer
+ * version is ignored.
+ *
+ * <p>The manifest only tracks class files. It must be deleted when metadata
+ * that affects enhancement changes outside of the classes, e.g. in
+ * <code>orm.xml</code>.</p>
+ *
+ * @since 3.0.0
+ */
+public class EnhancementManifest {
+
+    // not a legal class name, so it cannot clash with an entry
+    private static final String VERSION_KEY = "@enhancer-version";
+    private static final char SEPARATOR = ',';
+
+    private final File _file;
+    private final Map<String, String> _previous =
+        new ConcurrentHashMap<String, String>();
+    private final Map<String, String> _current =
+        new ConcurrentHashMap<String, String>();
+
+    /**
+     * Load the manifest at the given file, if it exists.
+     */
+    public EnhancementManifest(File file)
+        throws IOException {
+        _file = file;
+        if (!file.exists())
+            return;
+
+        Properties props = new Properties();
+        InputStream in = new BufferedInputStream(new FileInputStream(file));
+        try {
+            props.load(in);
+        } finally {
+            in.close();
+        }
+        if (!String.valueOf(PCEnhancer.ENHANCER_VERSION).equals(
+            props.getProperty(VERSION_KEY)))
+            return;
+        for (String name : props.stringPropertyNames())
+            if (!VERSION_KEY.equals(name))
+                _previous.put(name, props.getProperty(name));
+    }
+
+    /**
+     * The file backing this manifest.
+     */
+    public File getFile() {
+        return _file;
+    }
+
+    /**
+     * Return true if the given class file hash matches the recorded output of
+     * the last enhancement of the class when enhancing in place, or its
+     * recorded input otherwise. The class's entry is carried over to the
+     * manifest written by {@link #store}.
+     */
+    public boolean isCurrent(String className, String hash, boolean inPlace) {
+        if (hash == null)
+            return false;
+        String entry = _previous.get(className);
+        if (entry == null)
+            return false;
+        int idx = entry.indexOf(SEPARATOR);
+        String recorded = (inPlace) ? entry.substring(idx + 1)
+            : entry.substring(0, idx);
+        if (!hash.equals(recorded))
+            return false;
+        _current.put(className, entry);
+        return true;
+    }
+
+    /**
+     * Record the hashes of the given class file before and after
+     * enhancement. The output hash is null if the class was not enhanced in
+     * place.
+     */
+    public void record(String className, String input, String output) {
+        if (input != null)
+            _current.put(className, input + SEPARATOR
+                + (output == null ? "" : output));
+    }
+
+    /**
+     * Write the classes recorded or found current in this run. Entries for
+     * classes that were not part of the run are dropped.
+     */
+    public void store()
+        throws IOException {
+        File dir = _file.getAbsoluteFile().getParentFile();
+        if (dir != null)
+            dir.mkdirs();
+
+        // sort entries so that unchanged manifests are byte-identical
+        Map<String, String> sorted = new TreeMap<String, String>(_current);
+        OutputStream out = new BufferedOutputStream(
+            new FileOutputStream(_file));
+        try {
+            StringBuilder buf = new StringBuilder();
+            buf.append(VERSION_KEY).append('=')
+                .append(PCEnhancer.ENHANCER_VERSION).append('\n');
+            for (Map.Entry<String, String> entry : sorted.entrySet())
+                buf.append(entry.getKey()).append('=')
+                    .append(entry.getValue()).append('\n');
+            out.write(buf.toString().getBytes("ISO-8859-1"));
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Return the hash of the class file for the given class as seen by the
+     * given loader, or null if the class file cannot be found.
+     */
+    public static String hash(String className, ClassLoader loader)
+        throws IOException {
+        URL url = loader.getResource(className.replace('.', '/') + ".class");
+        if (url == null)
+            return null;
+        InputStream in = url.openStream();
+        try {
+            return hash(in);
+        } finally {
+            in.close();
+        }
+    }
+
+    private static String hash(InputStream in)
+        throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException nsae) {
+            throw new InternalException(nsae);
+        }
+        byte[] buf = new byte[8192];
+        for (int read; (read = in.read(buf)) != -1;)
+            digest.update(buf, 0, read);
+
+        byte[] bytes = digest.digest();
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (int i = 0; i < bytes.length; i++) {
+            hex.append(Character.forDigit((bytes[i] >> 4) & 0xF, 16));
+            hex.append(Character.forDigit(bytes[i] & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.enhance;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.security.AccessController;
+
+import org.apache.openjpa.lib.util.J2DoPrivHelper;
+import org.apache.openjpa.lib.util.Localizer;
+import org.apache.openjpa.meta.AccessCode;
+import org.apache.openjpa.meta.ClassMetaData;
+import org.apache.openjpa.meta.FieldMetaData;
+import org.apache.openjpa.util.GeneralException;
+import org.apache.openjpa.util.UserException;
+
+/**
+ * Method handle based access to the persistent fields of instances of a
+ * class that was not enhanced. The members behind each field are looked up
+ * once, on first access, rather than on every access as with
+ * {@link Reflection}. Field access reads and writes the field, property
+ * access reads the field and writes through the setter unless the class is
+ * intercepting, in which case it writes the field as well.
+ *
+ * @see ClassMetaData#getFieldAccessors
+ * @since 3.0.0
+ */
+public class FieldAccessors {
+
+    private static final Localizer _loc = Localizer.forPackage
+        (FieldAccessors.class);
+
+    private static final MethodType GETTER = MethodType.methodType
+        (Object.class, Object.class);
+    private static final MethodType SETTER = MethodType.methodType
+        (void.class, Object.class, Object.class);
+
+    // handle to Reflection.set(Object, Field, Object), for fields that
+    // method handles cannot write
+    private static final MethodHandle REFLECTION_SET;
+
+    static {
+        try {
+            REFLECTION_SET = MethodHandles.lookup().findStatic
+                (Reflection.class, "set", MethodType.methodType(void.class,
+                Object.class, Field.class, Object.class));
+        } catch (Exception e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final ClassMetaData _meta;
+    private final MethodHandle[] _getters;
+    private final MethodHandle[] _setters;
+    private Object _translator = null;
+
+    public FieldAccessors(ClassMetaData meta) {
+        _meta = meta;
+        int fields = meta.getFields().length;
+        _getters = new MethodHandle[fields];
+        _setters = new MethodHandle[fields];
+    }
+
+    /**
+     * Return the value of the given field of the given instance.
+     */
+    public Object get(Object target, int field) {
+        MethodHandle getter = _getters[field];
+        if (getter == null) {
+            getter = newGetter(_meta.getField(field));
+            _getters[field] = getter;
+        }
+        try {
+            return (Object) getter.invokeExact(target);
+        } catch (Throwable t) {
+            throw wrap(t, _loc.get("get-field", target, _meta.getField(field)));
+        }
+    }
+
+    /**
+     * Set the value of the given field of the given instance.
+     */
+    public void set(Object target, int field, Object value) {
+        MethodHandle setter = _setters[field];
+        if (setter == null) {
+            setter = newSetter(_meta.getField(field));
+            _setters[field] = setter;
+        }
+        try {
+            setter.invokeExact(target, value);
+        } catch (Throwable t) {
+            throw wrap(t, _loc.get("set-field", new Object[]{ target,
+                _meta.getField(field), value,
+                value == null ? "" : value.getClass() }));
+        }
+    }
+
+    private MethodHandle newGetter(FieldMetaData fmd) {
+        Field field;
+        if (AccessCode.isProperty(fmd.getAccessType()))
+            field = Reflection.findField(_meta.getDescribedType(),
+                toFieldName(fmd), true);
+        else
+            field = (Field) fmd.getBackingMember();
+        try {
+            makeAccessible(field);
+            return MethodHandles.lookup().unreflectGetter(field).asType(GETTER);
+        } catch (IllegalAccessException iae) {
+            throw new UserException(_loc.get("reflect-security", field), iae);
+        }
+    }
+
+    private MethodHandle newSetter(FieldMetaData fmd) {
+        if (AccessCode.isProperty(fmd.getAccessType())
+            && !_meta.isIntercepting()) {
+            Method meth = Reflection.findSetter(_meta.getDescribedType(),
+                fmd.getName(), true);
+            try {
+                makeAccessible(meth);
+                return MethodHandles.lookup().unreflect(meth).asType(SETTER);
+            } catch (IllegalAccessException iae) {
+                throw new UserException(_loc.get("reflect-security", meth),
+                    iae);
+            }
+        }
+
+        Field field;
+        if (AccessCode.isProperty(fmd.getAccessType()))
+            field = Reflection.findField(_meta.getDescribedType(),
+                toFieldName(fmd), true);
+        else
+            field = (Field) fmd.getBackingMember();
+        try {
+            makeAccessible(field);
+            if (!Modifier.isFinal(field.getModifiers()))
+                return MethodHandles.lookup().unreflectSetter(field).
+                    asType(SETTER);
+        } catch (IllegalAccessException iae) {
+            // fall back to reflection below
+        }
+        return MethodHandles.insertArguments(REFLECTION_SET, 1, field);
+    }
+
+    /**
+     * The name of the field backing the given property.
+     */
+    private String toFieldName(FieldMetaData fmd) {
+        // only generated subclasses are registered and translate names
+        if (_translator == null
+            && PCRegistry.isRegistered(_meta.getDescribedType()))
+            _translator = PCRegistry.newInstance(_meta.getDescribedType(),
+                null, false);
+        if (_translator instanceof AttributeTranslator)
+            return ((AttributeTranslator) _translator)
+                .pcAttributeIndexToFieldName(fmd.getIndex());
+        return fmd.getName();
+    }
+
+    private static void makeAccessible(AccessibleObject ao) {
+        try {
+            if (!ao.isAccessible())
+                AccessController.doPrivileged(J2DoPrivHelper
+                    .setAccessibleAction(ao, true));
+        } catch (SecurityException se) {
+            throw new UserException(_loc.get("reflect-security", ao)).
+                setFatal(true);
+        }
+    }
+
+    /**
+     * Wrap the given access exception as a runtime exception.
+     */
+    private static RuntimeException wrap(Throwable t,
+        Localizer.Message message) {
+        if (t instanceof Error)
+            throw (Error) t;
+        // conversion failures of the handles are reported with the member;
+        // exceptions of setter methods are passed on
+        if (t instanceof RuntimeException && !(t instanceof ClassCastException)
+            && !(t instanceof NullPointerException))
+            return (RuntimeException) t;
+        return new GeneralException(message, t);
+    }
+}
@@ -37,6 +37,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.apache.openjpa.meta.ClassMetaData;
 import org.apache.openjpa.meta.FieldMetaData;
 import org.apache.openjpa.meta.JavaTypes;
+import org.apache.openjpa.util.ImplHelper;
 import org.apache.openjpa.util.InternalException;
 import serp.bytecode.BCClass;
 import serp.bytecode.BCField;
@@ -737,15 +738,13 @@ public class PCDataGenerator
         code.constant().setValue(objectCount);
         code.aaload();
         code.astore().setLocal(inter);
-        // 		if (inter != null && !sm.getLoaded().get(index))
+        // 		if (inter != null && !ImplHelper.isLoaded(sm, index))
         code.aload().setLocal(inter);
         jumps2.add(code.ifnull());
         code.aload().setParam(0);
-        code.invokeinterface().setMethod(OpenJPAStateManager.class,
-            "getLoaded", BitSet.class, null);
         code.constant().setValue(index);
-        code.invokevirtual().setMethod(BitSet.class, "get",
-            boolean.class, new Class[]{ int.class });
+        code.invokestatic().setMethod(ImplHelper.class, "isLoaded",
+            boolean.class, new Class[]{ OpenJPAStateManager.class, int.class });
         jumps2.add(code.ifne());
         //			sm.setIntermediate(index, inter);
         //	}  // end else
@@ -806,13 +805,12 @@ public class PCDataGenerator
                     boolean.class, new Class[]{ int.class });
                 jumps.add(code.ifeq());
             } else {
-                // if (sm.getLoaded().get(index)))
+                // if (ImplHelper.isLoaded(sm, index)))
                 setTarget(code.aload().setParam(0), jumps);
-                code.invokeinterface().setMethod(OpenJPAStateManager.class,
-                    "getLoaded", BitSet.class, null);
                 code.constant().setValue(i);
-                code.invokevirtual().setMethod(BitSet.class, "get",
-                    boolean.class, new Class[]{ int.class });
+                code.invokestatic().setMethod(ImplHelper.class, "isLoaded",
+                    boolean.class, new Class[]{ OpenJPAStateManager.class,
+                    int.class });
                 jumps.add(code.ifeq());
             }
             addStore(bc, code, fmds[i], objectCount);
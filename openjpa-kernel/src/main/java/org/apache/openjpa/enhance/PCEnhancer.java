@@ -21,6 +21,7 @@ package org.apache.openjpa.enhance;
 import java.io.Externalizable;
 import java.io.File;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.io.InputStream;
 import java.io.ObjectInput;
 import java.io.ObjectInputStream;
@@ -39,6 +40,7 @@ import java.security.PrivilegedActionException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -48,6 +50,10 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 import org.apache.openjpa.lib.util.StringUtil;
 import org.apache.openjpa.conf.OpenJPAConfiguration;
@@ -4768,6 +4774,11 @@ public class PCEnhancer {
      * <li><i>-enforcePropertyRestrictions/-epr [true/t | false/f]</i>:
      * Whether to throw an exception if a PROPERTY access entity appears
      * to be violating standard property restrictions. Defaults to false.</li>
+     * <li><i>-threads/-th &lt;n&gt;</i>: The number of threads to enhance
+     * classes with. Defaults to 1.</li>
+     * <li><i>-manifest/-mf &lt;file&gt;</i>: A file recording the class
+     * files already enhanced. Classes whose class files have not changed
+     * since they were recorded are skipped.</li>
      * </ul>
      *  Each additional argument can be either the full class name of the
      * type to enhance, the path to the .java file for the type, the path to
@@ -4825,6 +4836,9 @@ public class PCEnhancer {
         flags.enforcePropertyRestrictions = opts.removeBooleanProperty
             ("enforcePropertyRestrictions", "epr",
                 flags.enforcePropertyRestrictions);
+        flags.threads = opts.removeIntProperty("threads", "th", flags.threads);
+        flags.manifest = Files.getFile(opts.removeProperty("manifest", "mf",
+            null), null);
 
         // for unit testing
         BytecodeWriter writer = (BytecodeWriter) opts.get(
@@ -4870,45 +4884,161 @@ public class PCEnhancer {
                 classes.addAll(Arrays.asList(cap.parseTypes(args[i])));
         }
 
-        Project project = new Project();
-        BCClass bc;
-        PCEnhancer enhancer;
-        Collection persAwareClasses = new HashSet();
-        
-        int status;
+        EnhancementManifest manifest = (flags.manifest == null) ? null
+            : new EnhancementManifest(flags.manifest);
+        Collection persAwareClasses = Collections.synchronizedSet(
+            new HashSet());
+        if (flags.threads <= 1) {
+            Project project = new Project();
+            for (Iterator itr = classes.iterator(); itr.hasNext();) {
+                enhance(conf, itr.next(), flags, repos, writer, loader,
+                    project, manifest, persAwareClasses, log);
+                project.clear();
+            }
+        } else
+            enhance(conf, classes, flags, repos, writer, loader, manifest,
+                persAwareClasses, log);
+        if (manifest != null)
+            manifest.store();
+
+        if(log.isInfoEnabled() && !persAwareClasses.isEmpty()){
+        	log.info(_loc.get("pers-aware-classes", persAwareClasses.size(), persAwareClasses));
+        }
+        return true;
+    }
+
+    /**
+     * Enhance the given classes across a pool of <code>flags.threads</code>
+     * workers. All metadata is resolved before the workers start, so that
+     * they share the resolved repository without resolving concurrently.
+     * Each worker loads its classes into a project of its own.
+     */
+    private static void enhance(final OpenJPAConfiguration conf,
+        Collection classes, final Flags flags, final MetaDataRepository repos,
+        final BytecodeWriter writer, final ClassLoader loader,
+        final EnhancementManifest manifest, final Collection persAwareClasses,
+        final Log log)
+        throws IOException {
         for (Iterator itr = classes.iterator(); itr.hasNext();) {
             Object o = itr.next();
-            if (log.isInfoEnabled())
-                log.info(_loc.get("enhance-running", o));
+            try {
+                repos.getMetaData((o instanceof String) ? Class.forName(
+                    (String) o, false, loader) : (Class) o, loader, false);
+            } catch (ClassNotFoundException cnfe) {
+                // reported when the worker loads the class
+            }
+        }
 
-            if (o instanceof String)
-                bc = project.loadClass((String) o, loader);
-            else
-                bc = project.loadClass((Class) o);
-            enhancer = new PCEnhancer(conf, bc, repos, loader);
-            if (writer != null)
-                enhancer.setBytecodeWriter(writer);
-            enhancer.setDirectory(flags.directory);
-            enhancer.setAddDefaultConstructor(flags.addDefaultConstructor);
-            status = enhancer.run();
-            if (status == ENHANCE_NONE) {
-                if (log.isTraceEnabled())
-                    log.trace(_loc.get("enhance-norun"));
-            } else if (status == ENHANCE_INTERFACE) {
-                if (log.isTraceEnabled())
-                    log.trace(_loc.get("enhance-interface"));
-            } else if (status == ENHANCE_AWARE) {
-                persAwareClasses.add(o);
-                enhancer.record();
-            } else {
-                enhancer.record();
+        ForkJoinPool pool = new ForkJoinPool(flags.threads);
+        try {
+            List<Future<Object>> results = new ArrayList<Future<Object>>
+                (classes.size());
+            for (Iterator itr = classes.iterator(); itr.hasNext();) {
+                final Object o = itr.next();
+                results.add(pool.submit(new Callable<Object>() {
+                    public Object call() throws IOException {
+                        enhance(conf, o, flags, repos, writer, loader,
+                            new Project(), manifest, persAwareClasses, log);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Object> result : results) {
+                try {
+                    result.get();
+                } catch (ExecutionException ee) {
+                    Throwable cause = ee.getCause();
+                    if (cause instanceof IOException)
+                        throw (IOException) cause;
+                    if (cause instanceof RuntimeException)
+                        throw (RuntimeException) cause;
+                    if (cause instanceof Error)
+                        throw (Error) cause;
+                    throw new InternalException(cause);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException(ie.getMessage());
+                }
             }
-            project.clear();
+        } finally {
+            pool.shutdownNow();
         }
-        if(log.isInfoEnabled() && !persAwareClasses.isEmpty()){
-        	log.info(_loc.get("pers-aware-classes", persAwareClasses.size(), persAwareClasses));
+    }
+
+    /**
+     * Enhance the given class, skipping it if the manifest records its
+     * current class file.
+     */
+    private static void enhance(OpenJPAConfiguration conf, Object o,
+        Flags flags, MetaDataRepository repos, BytecodeWriter writer,
+        ClassLoader loader, Project project, EnhancementManifest manifest,
+        Collection persAwareClasses, Log log)
+        throws IOException {
+        String name = (o instanceof String) ? (String) o
+            : ((Class) o).getName();
+        boolean inPlace = writer == null && flags.directory == null;
+        String hash = null;
+        if (manifest != null) {
+            hash = EnhancementManifest.hash(name, loader);
+            if (isWritten(name, flags, writer)
+                && manifest.isCurrent(name, hash, inPlace)) {
+                if (log.isInfoEnabled())
+                    log.info(_loc.get("enhance-current", o));
+                return;
+            }
         }
-        return true;
+
+        if (log.isInfoEnabled())
+            log.info(_loc.get("enhance-running", o));
+
+        BCClass bc;
+        if (o instanceof String)
+            bc = project.loadClass((String) o, loader);
+        else
+            bc = project.loadClass((Class) o);
+        PCEnhancer enhancer = new PCEnhancer(conf, bc, repos, loader);
+        if (writer != null)
+            enhancer.setBytecodeWriter(writer);
+        enhancer.setDirectory(flags.directory);
+        enhancer.setAddDefaultConstructor(flags.addDefaultConstructor);
+        int status = enhancer.run();
+        if (status == ENHANCE_NONE) {
+            if (log.isTraceEnabled())
+                log.trace(_loc.get("enhance-norun"));
+        } else if (status == ENHANCE_INTERFACE) {
+            if (log.isTraceEnabled())
+                log.trace(_loc.get("enhance-interface"));
+        } else if (status == ENHANCE_AWARE) {
+            persAwareClasses.add(o);
+            enhancer.record();
+        } else {
+            enhancer.record();
+        }
+
+        if (manifest != null) {
+            // in-place enhancement replaces the class file we hashed, unless
+            // the class needed no changes
+            String output = null;
+            if (inPlace && (status == ENHANCE_AWARE || status == ENHANCE_PC))
+                output = EnhancementManifest.hash(name, loader);
+            else if (inPlace)
+                output = hash;
+            manifest.record(name, hash, output);
+        }
+    }
+
+    /**
+     * Whether the enhanced class file for the given class is still where a
+     * previous run wrote it.
+     */
+    private static boolean isWritten(String name, Flags flags,
+        BytecodeWriter writer) {
+        if (writer != null || flags.directory == null)
+            return true;
+        int idx = name.lastIndexOf('.');
+        File dir = Files.getPackageFile(flags.directory,
+            (idx == -1) ? "" : name.substring(0, idx), false);
+        return new File(dir, name.substring(idx + 1) + ".class").exists();
     }
 
     /**
@@ -4920,6 +5050,8 @@ public class PCEnhancer {
         public boolean addDefaultConstructor = true;
         public boolean tmpClassLoader = true;
         public boolean enforcePropertyRestrictions = false;
+        public int threads = 1;
+        public File manifest = null;
     }
 
     /**
@@ -23,12 +23,10 @@ import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.lang.reflect.Field;
-import java.lang.reflect.Method;
 
 import org.apache.openjpa.conf.OpenJPAConfiguration;
 import org.apache.openjpa.kernel.OpenJPAStateManager;
 import org.apache.openjpa.kernel.StateManagerImpl;
-import org.apache.openjpa.meta.AccessCode;
 import org.apache.openjpa.meta.ClassMetaData;
 import org.apache.openjpa.meta.FieldMetaData;
 import org.apache.openjpa.meta.JavaTypes;
@@ -338,41 +336,11 @@ public class ReflectingPersistenceCapable
     }
 
     private Object getValue(int i, Object o) {
-        FieldMetaData fmd = meta.getField(i);
-        if (AccessCode.isProperty(fmd.getAccessType())) {
-            Field field = Reflection.findField(meta.getDescribedType(),
-                toFieldName(i), true);
-            return Reflection.get(o, field);
-        } else {
-            Field field = (Field) meta.getField(i).getBackingMember();
-            return Reflection.get(o, field);
-        }
-    }
-
-    private String toFieldName(int i) {
-        if (pcSubclassInstance instanceof AttributeTranslator)
-            return ((AttributeTranslator) pcSubclassInstance)
-                .pcAttributeIndexToFieldName(i);
-        else
-            return meta.getField(i).getName();
+        return meta.getFieldAccessors().get(o, i);
     }
 
     private void setValue(int i, Object o, Object val) {
-        FieldMetaData fmd = meta.getField(i);
-        if (AccessCode.isProperty(fmd.getAccessType())) {
-            if (!meta.isIntercepting()) {
-                Method meth = Reflection.findSetter(meta.getDescribedType(),
-                    meta.getField(i).getName(), true);
-                Reflection.set(o, meth, val);
-            } else {
-                Field field = Reflection.findField(meta.getDescribedType(),
-                    toFieldName(i), true);
-                Reflection.set(o, field, val);
-            }
-        } else {
-            Field field = (Field) meta.getField(i).getBackingMember();
-            Reflection.set(o, field, val);
-        }
+        meta.getFieldAccessors().set(o, i, val);
     }
 
     private void writeObject(ObjectOutputStream out) throws IOException {
@@ -28,6 +28,7 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.openjpa.lib.util.StringUtil;
 import org.apache.openjpa.lib.util.J2DoPrivHelper;
@@ -57,6 +58,8 @@ public class Reflection {
         new ConcurrentReferenceHashMap(ReferenceMap.WEAK, ReferenceMap.HARD);
     private static Map<Class<?>, Set<String>> beanPropertiesNameCache = 
         new ConcurrentReferenceHashMap(ReferenceMap.WEAK, ReferenceMap.HARD);
+    private static Map<Class<?>, Map<String, Field>> fieldCache = 
+        new ConcurrentReferenceHashMap(ReferenceMap.WEAK, ReferenceMap.HARD);
     
     private static Method getGetterMethod(Class<?> cls, String prop) {
         Method rtnMethod = null;
@@ -98,6 +101,23 @@ public class Reflection {
         clsMap.put(prop, method);
     }
 
+    private static Field getCachedField(Class<?> cls, String name) {
+        Map<String, Field> clsMap = fieldCache.get(cls);
+        return (clsMap == null) ? null : clsMap.get(name);
+    }
+
+    private static void setCachedField(Class<?> cls, String name,
+        Field field) {
+        Map<String, Field> clsMap = fieldCache.get(cls);
+        if (clsMap == null) {
+            // weakly held fields would be collected right away, as nothing
+            // else refers to the copies returned by getDeclaredField
+            clsMap = new ConcurrentHashMap<String, Field>();
+            fieldCache.put(cls, clsMap);
+        }
+        clsMap.put(name, field);
+    }
+
     /**
      * Return the getter method matching the given property name, optionally
      * throwing an exception if none.
@@ -252,13 +272,19 @@ public class Reflection {
      * if none.
      */
     public static Field findField(Class cls, String name, boolean mustExist) {
+        // generated subclasses of unenhanced types look up their fields on
+        // every access
+        Field f = getCachedField(cls, name);
+        if (f != null)
+            return f;
         try {
-            Field f;
             for (Class c = cls; c != null && c != Object.class;
                 c = c.getSuperclass()) {
                 f = getDeclaredField(c, name);
-                if (f != null)
+                if (f != null) {
+                    setCachedField(cls, name, f);
                     return f;
+                }
             }
         } catch (Exception e) {
             throw new GeneralException(e);
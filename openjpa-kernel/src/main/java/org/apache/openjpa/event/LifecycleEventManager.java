@@ -21,6 +21,7 @@ package org.apache.openjpa.event;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
@@ -40,6 +41,12 @@ import org.apache.openjpa.util.InvalidStateException;
  * having the same listener invoked multiple times for a single event if it
  * is added to this manager multiple times with different classes, or with
  * a base class and its subclass.
+ *  <p>Each manager precomputes masks of the event types its listeners handle,
+ * per persistent class, and each {@link ClassMetaData} precomputes the mask
+ * of event types it has callbacks for. Firing an event for which no
+ * listener or callback is registered is therefore a few branches, and
+ * events handled only by callbacks are made without locking or allocating
+ * event objects. The masks are rebuilt on registration.
  *
  * @author Steve Kim
  * @author Abe White
@@ -65,6 +72,11 @@ public class LifecycleEventManager
     private boolean _failFast = false;
     private boolean _activated = false;  // set to true once modified
 
+    // masks of the event types handled by listeners for all classes, and
+    // by class listeners per source class; replaced on registration
+    private volatile int _listenerTypes = 0;
+    private volatile Map<Class<?>, Integer> _classTypes = null;
+
     /**
      * Whether this LifeCycleEventManager has had at least one listener or callback
      * registered.  Used for a quick test when firing events.
@@ -110,6 +122,7 @@ public class LifecycleEventManager
             if (_listeners == null)
                 _listeners = new ListenerList(5);
             _listeners.add(listener);
+            listenersChanged();
             return;
         }
 
@@ -124,6 +137,7 @@ public class LifecycleEventManager
             }
             listeners.add(listener);
         }
+        listenersChanged();
     }
 
     /**
@@ -135,8 +149,10 @@ public class LifecycleEventManager
             return;
         }
 
-        if (_listeners != null && _listeners.remove(listener))
+        if (_listeners != null && _listeners.remove(listener)) {
+            listenersChanged();
             return;
+        }
         if (_classListeners != null) {
             ListenerList listeners;
             for (Iterator<ListenerList> itr = _classListeners.values().iterator();
@@ -145,6 +161,83 @@ public class LifecycleEventManager
                 listeners.remove(listener);
             }
         }
+        listenersChanged();
+    }
+
+    /**
+     * Remove all listeners and restore the initial state of this manager so
+     * that it can be reused by another broker.
+     *
+     * @return false if events are being fired, in which case the manager
+     * was left unchanged and cannot be reused
+     * @since 3.0.0
+     */
+    public synchronized boolean reset() {
+        if (_firing)
+            return false;
+        _classListeners = null;
+        _listeners = null;
+        _addListeners.clear();
+        _remListeners.clear();
+        _exceps.clear();
+        _fail = false;
+        _failFast = false;
+        _activated = false;
+        listenersChanged();
+        return true;
+    }
+
+    /**
+     * Recompute the listener type masks after a change in registrations.
+     * Class masks are recomputed lazily per source class.
+     */
+    private void listenersChanged() {
+        _listenerTypes = (_listeners == null) ? 0 : _listeners.getTypes();
+        _classTypes = (_classListeners == null) ? null
+            : Collections.<Class<?>, Integer> emptyMap();
+    }
+
+    /**
+     * Return a mask of the event types listeners may be registered for
+     * with respect to the given source. The bit for an event type is
+     * <code>2 &lt;&lt; type</code>.
+     */
+    private int getListenerTypes(Object source, ClassMetaData meta) {
+        int types = _listenerTypes;
+        if (!meta.getLifecycleMetaData().getIgnoreSystemListeners())
+            types |= meta.getRepository().getSystemListeners().getTypes();
+        Map<Class<?>, Integer> classTypes = _classTypes;
+        if (classTypes != null) {
+            Class<?> c = source == null ? meta.getDescribedType() : source.getClass();
+            Integer ctypes = classTypes.get(c);
+            types |= (ctypes == null) ? getClassListenerTypes(c) : ctypes;
+        }
+        return types;
+    }
+
+    /**
+     * Compute and cache the mask of event types handled by listeners
+     * registered for the given class or its superclasses.
+     */
+    private synchronized int getClassListenerTypes(Class<?> cls) {
+        if (_classListeners == null)
+            return 0;
+        int types = 0;
+        ListenerList listeners;
+        for (Class<?> c = cls; c != null && c != Object.class;
+            c = c.getSuperclass()) {
+            listeners = _classListeners.get(c);
+            if (listeners != null)
+                types |= listeners.getTypes();
+        }
+
+        // copy on write so that readers never lock
+        Map<Class<?>, Integer> classTypes = new HashMap<Class<?>, Integer>();
+        if (_classTypes != null)
+            classTypes.putAll(_classTypes);
+        classTypes.put(cls, types);
+        _classTypes = classTypes;
+        return types;
     }
 
     /**
@@ -222,6 +315,10 @@ public class LifecycleEventManager
     }
 
     private boolean hasHandlers(Object source, ClassMetaData meta, int type) {
+        int types = meta.getLifecycleMetaData().getCallbackTypes()
+            | getListenerTypes(source, meta);
+        if ((types & (2 << type)) == 0)
+            return false;
         return hasCallbacks(source, meta, type)
             || hasListeners(source, meta, type);
     }
@@ -278,8 +375,46 @@ public class LifecycleEventManager
     /**
      * Fire lifecycle event to all registered listeners.
      */
-    public synchronized Exception[] fireEvent(Object source, Object related,
+    public Exception[] fireEvent(Object source, Object related,
+        ClassMetaData meta, int type) {
+        int mask = 2 << type;
+        if ((getListenerTypes(source, meta) & mask) != 0)
+            return fireEventToListeners(source, related, meta, type);
+        if ((meta.getLifecycleMetaData().getCallbackTypes() & mask) == 0)
+            return EMPTY_EXCEPTIONS;
+        return makeCallbacks(source, related, meta, type);
+    }
+
+    /**
+     * Make callbacks when no listeners are registered for the event.
+     * Requires neither locking nor allocation unless a callback fails.
+     */
+    private Exception[] makeCallbacks(Object source, Object related,
         ClassMetaData meta, int type) {
+        LifecycleCallbacks[] callbacks = meta.getLifecycleMetaData().
+            getCallbacks(type);
+        List<Exception> exceptions = null;
+        for (int i = 0; i < callbacks.length; i++) {
+            try {
+                callbacks[i].makeCallback(source, related, type);
+            } catch (Exception e) {
+                if (exceptions == null)
+                    exceptions = new ArrayList<Exception>(1);
+                exceptions.add(e);
+                if (_failFast)
+                    break;
+            }
+        }
+        if (exceptions == null)
+            return EMPTY_EXCEPTIONS;
+        return exceptions.toArray(new Exception[exceptions.size()]);
+    }
+
+    /**
+     * Fire lifecycle event to registered listeners and callbacks.
+     */
+    private synchronized Exception[] fireEventToListeners(Object source,
+        Object related, ClassMetaData meta, int type) {
         boolean reentrant = _firing;
         _firing = true;
         List<Exception> exceptions = (reentrant) ? new LinkedList<Exception>() : _exceps;
@@ -579,6 +714,14 @@ public class LifecycleEventManager
             return (_types & (2 << type)) > 0;
         }
 
+        /**
+         * Return a mask of the event types the listeners process. The bit
+         * for an event type is <code>2 &lt;&lt; type</code>.
+         */
+        public int getTypes() {
+            return _types;
+        }
+
         public boolean add(Object listener) {
             if (contains(listener))
                 return false;
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.instrumentation;
+
+import org.apache.openjpa.lib.instrumentation.BatchStatistics;
+
+/**
+ * Provides a basic instrument implementation wrapper for flush batching
+ * statistics.  This class can be extended to create a provider specific
+ * instrument.  Collection of statistics is enabled while the instrument is
+ * started.
+ */
+public abstract class AbstractBatchInstrument
+    extends AbstractStatisticsInstrument<BatchStatistics> implements BatchInstrument {
+
+    protected AbstractBatchInstrument() {
+        super(BatchStatistics.class);
+    }
+
+    public long getFlushCount() {
+        BatchStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getFlushCount();
+        return NO_STATS;
+    }
+
+    public long getRowCount() {
+        BatchStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getRowCount();
+        return NO_STATS;
+    }
+
+    public long getExecutionCount() {
+        BatchStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getExecutionCount();
+        return NO_STATS;
+    }
+
+    public long getBatchCount() {
+        BatchStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getBatchCount();
+        return NO_STATS;
+    }
+
+    public long getBatchedRowCount() {
+        BatchStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getBatchedRowCount();
+        return NO_STATS;
+    }
+
+    public long getMaxBatchSize() {
+        BatchStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getMaxBatchSize();
+        return NO_STATS;
+    }
+
+    public double getAverageBatchSize() {
+        BatchStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getAverageBatchSize();
+        return NO_STATS;
+    }
+
+    public double getLastFlushAverageBatchSize() {
+        BatchStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getLastFlushAverageBatchSize();
+        return NO_STATS;
+    }
+}
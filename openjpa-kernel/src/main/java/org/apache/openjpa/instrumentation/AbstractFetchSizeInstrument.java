@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.instrumentation;
+
+import org.apache.openjpa.lib.instrumentation.FetchSizeStatistics;
+
+/**
+ * Provides a basic instrument implementation wrapper for adaptive fetch
+ * size statistics.  This class can be extended to create a provider specific
+ * instrument.  Collection of statistics is enabled while the instrument is
+ * started.
+ */
+public abstract class AbstractFetchSizeInstrument
+    extends AbstractStatisticsInstrument<FetchSizeStatistics> implements FetchSizeInstrument {
+
+    protected AbstractFetchSizeInstrument() {
+        super(FetchSizeStatistics.class);
+    }
+
+    public long getExecutionCount() {
+        FetchSizeStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getExecutionCount();
+        return NO_STATS;
+    }
+
+    public long getTunedExecutionCount() {
+        FetchSizeStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getTunedExecutionCount();
+        return NO_STATS;
+    }
+
+    public long getRowCount() {
+        FetchSizeStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getRowCount();
+        return NO_STATS;
+    }
+
+    public long getRoundTrips() {
+        FetchSizeStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getRoundTrips();
+        return NO_STATS;
+    }
+
+    public long getDefaultRoundTrips() {
+        FetchSizeStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getDefaultRoundTrips();
+        return NO_STATS;
+    }
+
+    public long getRoundTripsSaved() {
+        FetchSizeStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getRoundTripsSaved();
+        return NO_STATS;
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.instrumentation;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.openjpa.lib.instrumentation.LatencyHistogram;
+import org.apache.openjpa.lib.instrumentation.LatencyStatistics;
+
+/**
+ * Provides a basic instrument implementation wrapper for latency statistics.
+ * This class can be extended to create a provider specific instrument for
+ * latency.  Collection of statistics is enabled while the instrument is
+ * started.
+ * <p>
+ * The <code>SlowQueryThreshold</code>, <code>SlowQueryCapacity</code> and
+ * <code>MaxStatements</code> properties can be set in the instrument
+ * plugin string, ex. <code>Latency(SlowQueryThreshold=250)</code>.
+ */
+public abstract class AbstractLatencyInstrument
+    extends AbstractStatisticsInstrument<LatencyStatistics> implements LatencyInstrument {
+
+    private long _slowThreshold = LatencyStatistics.DEFAULT_SLOW_QUERY_THRESHOLD;
+    private int _slowCapacity = LatencyStatistics.DEFAULT_SLOW_QUERY_CAPACITY;
+    private int _maxStatements = LatencyStatistics.DEFAULT_MAX_STATEMENTS;
+
+    protected AbstractLatencyInstrument() {
+        super(LatencyStatistics.class);
+    }
+
+    /**
+     * Sets the statistics wrapped by this instrument and applies the
+     * configured thresholds to them.
+     */
+    public void setStatistics(LatencyStatistics stats) {
+        super.setStatistics(stats);
+        if (stats != null) {
+            stats.setSlowQueryThreshold(_slowThreshold);
+            if (stats.getSlowQueryCapacity() != _slowCapacity)
+                stats.setSlowQueryCapacity(_slowCapacity);
+            stats.setMaxStatements(_maxStatements);
+        }
+    }
+
+    public long getSlowQueryThreshold() {
+        return _slowThreshold;
+    }
+
+    public void setSlowQueryThreshold(long millis) {
+        _slowThreshold = millis;
+        LatencyStatistics stats = getStatistics();
+        if (stats != null)
+            stats.setSlowQueryThreshold(millis);
+    }
+
+    public int getSlowQueryCapacity() {
+        return _slowCapacity;
+    }
+
+    public void setSlowQueryCapacity(int capacity) {
+        _slowCapacity = capacity;
+    }
+
+    public int getMaxStatements() {
+        return _maxStatements;
+    }
+
+    public void setMaxStatements(int max) {
+        _maxStatements = max;
+    }
+
+    public Set<String> statements() {
+        LatencyStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getStatements();
+        return Collections.emptySet();
+    }
+
+    private LatencyHistogram getLatency(String statement) {
+        LatencyStatistics stats = getStatistics();
+        if (stats == null)
+            return null;
+        return stats.getLatency(statement);
+    }
+
+    public long getExecutionCount(String statement) {
+        LatencyHistogram hist = getLatency(statement);
+        if (hist != null)
+            return hist.getCount();
+        return NO_STATS;
+    }
+
+    public double getMeanLatency(String statement) {
+        LatencyHistogram hist = getLatency(statement);
+        if (hist != null)
+            return hist.getMean();
+        return NO_STATS;
+    }
+
+    public long getMaxLatency(String statement) {
+        LatencyHistogram hist = getLatency(statement);
+        if (hist != null)
+            return hist.getMax();
+        return NO_STATS;
+    }
+
+    public long getLatencyPercentile(String statement, double percentile) {
+        LatencyHistogram hist = getLatency(statement);
+        if (hist != null)
+            return hist.getPercentile(percentile);
+        return NO_STATS;
+    }
+
+    public long getRowCount(String statement) {
+        LatencyStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getRowCount(statement);
+        return NO_STATS;
+    }
+
+    public long getFlushCount() {
+        LatencyStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getFlushLatency().getCount();
+        return NO_STATS;
+    }
+
+    public double getMeanFlushLatency() {
+        LatencyStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getFlushLatency().getMean();
+        return NO_STATS;
+    }
+
+    public long getMaxFlushLatency() {
+        LatencyStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getFlushLatency().getMax();
+        return NO_STATS;
+    }
+
+    public long getFlushLatencyPercentile(double percentile) {
+        LatencyStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getFlushLatency().getPercentile(percentile);
+        return NO_STATS;
+    }
+
+    public long getConnectionWaitCount() {
+        LatencyStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getConnectionWait().getCount();
+        return NO_STATS;
+    }
+
+    public double getMeanConnectionWait() {
+        LatencyStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getConnectionWait().getMean();
+        return NO_STATS;
+    }
+
+    public long getMaxConnectionWait() {
+        LatencyStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getConnectionWait().getMax();
+        return NO_STATS;
+    }
+
+    public long getConnectionWaitPercentile(double percentile) {
+        LatencyStatistics stats = getStatistics();
+        if (stats != null)
+            return stats.getConnectionWait().getPercentile(percentile);
+        return NO_STATS;
+    }
+
+    public String[] getSlowQueries() {
+        LatencyStatistics stats = getStatistics();
+        if (stats == null)
+            return new String[0];
+        List<String> slow = stats.getSlowQueries();
+        return slow.toArray(new String[slow.size()]);
+    }
+}
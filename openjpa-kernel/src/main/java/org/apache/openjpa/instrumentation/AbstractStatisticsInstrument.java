@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.instrumentation;
+
+import java.util.Date;
+
+import org.apache.openjpa.conf.OpenJPAConfiguration;
+import org.apache.openjpa.lib.instrumentation.AbstractInstrument;
+import org.apache.openjpa.lib.instrumentation.AbstractStatistics;
+import org.apache.openjpa.lib.instrumentation.InstrumentationLevel;
+
+/**
+ * Provides a basic instrument implementation wrapper for statistics that
+ * the {@link InstrumentationManagerImpl} shares with the runtime components
+ * recording them. Collection of statistics is enabled while the instrument
+ * is started.
+ *
+ * @since 3.0.0
+ */
+public abstract class AbstractStatisticsInstrument<S extends AbstractStatistics>
+    extends AbstractInstrument implements StatisticsInstrument {
+
+    /**
+     * Value indicating that statistics are not available.
+     */
+    public static final long NO_STATS = -1;
+
+    private final Class<S> _type;
+    private S _stats;
+    private String _configID = null;
+    private String _configRef = null;
+
+    protected AbstractStatisticsInstrument(Class<S> type) {
+        _type = type;
+    }
+
+    public void setConfigId(String cid) {
+        _configID = cid;
+    }
+
+    public void setContextRef(String cref) {
+        _configRef = cref;
+    }
+
+    public String getConfigId() {
+        return _configID;
+    }
+
+    public String getContextRef() {
+        return _configRef;
+    }
+
+    /**
+     * Sets the statistics wrapped by this instrument.
+     */
+    public void setStatistics(S stats) {
+        _stats = stats;
+    }
+
+    /**
+     * Returns the statistics wrapped by this instrument, or null if there
+     * are none.
+     */
+    public S getStatistics() {
+        return _stats;
+    }
+
+    /**
+     * Wraps the statistics of this instrument's type held by the
+     * instrumentation manager of the provider's configuration.
+     */
+    public void initialize() {
+        OpenJPAConfiguration conf = (OpenJPAConfiguration) getProvider().getConfiguration();
+        setStatistics(InstrumentationManagerImpl.getStatistics(
+            conf.getInstrumentationManagerInstance(), _type));
+        setConfigId(conf.getId());
+        setContextRef(Integer.toString(System.identityHashCode(getContext())));
+    }
+
+    public void setStarted(boolean started) {
+        super.setStarted(started);
+        if (_stats != null)
+            _stats.setEnabled(started);
+    }
+
+    public void reset() {
+        if (_stats != null)
+            _stats.reset();
+    }
+
+    public Date sinceDate() {
+        if (_stats != null)
+            return _stats.since();
+        return null;
+    }
+
+    public Date startDate() {
+        if (_stats != null)
+            return _stats.start();
+        return null;
+    }
+
+    public InstrumentationLevel getLevel() {
+        return InstrumentationLevel.FACTORY;
+    }
+}
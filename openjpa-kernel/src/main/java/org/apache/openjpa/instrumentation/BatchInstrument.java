@@ -0,0 +1,69 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.instrumentation;
+
+/**
+ * Interface for flush batching instrumentation.  Batch sizes are measured as
+ * the rows written per statement execution.
+ */
+public interface BatchInstrument extends StatisticsInstrument {
+
+    /**
+     * Returns number of flushes since last reset.
+     */
+    public long getFlushCount();
+
+    /**
+     * Returns number of rows written since last reset.
+     */
+    public long getRowCount();
+
+    /**
+     * Returns number of statement executions, batched or not, since last
+     * reset.
+     */
+    public long getExecutionCount();
+
+    /**
+     * Returns number of JDBC batches executed since last reset.
+     */
+    public long getBatchCount();
+
+    /**
+     * Returns number of rows written in JDBC batches since last reset.
+     */
+    public long getBatchedRowCount();
+
+    /**
+     * Returns the size of the largest batch executed since last reset.
+     */
+    public long getMaxBatchSize();
+
+    /**
+     * Returns the average number of rows per statement execution since last
+     * reset.
+     */
+    public double getAverageBatchSize();
+
+    /**
+     * Returns the average number of rows per statement execution of the
+     * last flush.
+     */
+    public double getLastFlushAverageBatchSize();
+}
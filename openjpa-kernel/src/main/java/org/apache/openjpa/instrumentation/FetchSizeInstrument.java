@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.instrumentation;
+
+/**
+ * Interface for adaptive fetch size instrumentation.  Round trips to the
+ * database are estimated from the rows read and the fetch size in effect.
+ */
+public interface FetchSizeInstrument extends StatisticsInstrument {
+
+    /**
+     * Returns number of query executions since last reset.
+     */
+    public long getExecutionCount();
+
+    /**
+     * Returns number of query executions with a tuned fetch size since last
+     * reset.
+     */
+    public long getTunedExecutionCount();
+
+    /**
+     * Returns number of rows read since last reset.
+     */
+    public long getRowCount();
+
+    /**
+     * Returns the estimated round trips taken since last reset.
+     */
+    public long getRoundTrips();
+
+    /**
+     * Returns the estimated round trips that would have been taken without
+     * fetch size tuning since last reset.
+     */
+    public long getDefaultRoundTrips();
+
+    /**
+     * Returns the estimated round trips saved by fetch size tuning since
+     * last reset.
+     */
+    public long getRoundTripsSaved();
+}
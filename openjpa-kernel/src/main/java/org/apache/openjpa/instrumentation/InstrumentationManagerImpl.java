@@ -20,13 +20,19 @@ package org.apache.openjpa.instrumentation;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.openjpa.conf.OpenJPAConfiguration;
 import org.apache.openjpa.lib.conf.PluginListValue;
 import org.apache.openjpa.lib.instrumentation.InstrumentationLevel;
 import org.apache.openjpa.lib.instrumentation.InstrumentationProvider;
+import org.apache.openjpa.lib.instrumentation.AbstractStatistics;
+import org.apache.openjpa.lib.instrumentation.BatchStatistics;
+import org.apache.openjpa.lib.instrumentation.FetchSizeStatistics;
+import org.apache.openjpa.lib.instrumentation.LatencyStatistics;
 
 /**
  * An implementation of an instrumentation manager.
@@ -37,6 +43,15 @@ public class InstrumentationManagerImpl implements InstrumentationManager {
         Collections.synchronizedSet(new HashSet<InstrumentationProvider>());
     
     private boolean _closed = false;
+
+    private final Map<Class<?>, AbstractStatistics> _statistics =
+        new HashMap<Class<?>, AbstractStatistics>();
+
+    public InstrumentationManagerImpl() {
+        _statistics.put(LatencyStatistics.class, new LatencyStatistics());
+        _statistics.put(FetchSizeStatistics.class, new FetchSizeStatistics());
+        _statistics.put(BatchStatistics.class, new BatchStatistics());
+    }
     
     /**
      * Initializes all providers defined for the specified configuration.
@@ -62,6 +77,30 @@ public class InstrumentationManagerImpl implements InstrumentationManager {
         return Collections.unmodifiableSet(_providers);
     }
 
+    /**
+     * Returns the statistics of the given type shared by the runtime
+     * components of the configuration and the instruments reporting them,
+     * or null if this manager does not collect statistics of that type.
+     * Collection is enabled by the matching instruments.
+     * @since 3.0.0
+     */
+    public <T extends AbstractStatistics> T getStatistics(Class<T> type) {
+        return type.cast(_statistics.get(type));
+    }
+
+    /**
+     * Returns the statistics of the given type held by the given manager, or
+     * null if the manager is not an instance of this class or does not
+     * collect statistics of that type.
+     * @since 3.0.0
+     */
+    public static <T extends AbstractStatistics> T getStatistics(
+        InstrumentationManager mgr, Class<T> type) {
+        if (mgr instanceof InstrumentationManagerImpl)
+            return ((InstrumentationManagerImpl) mgr).getStatistics(type);
+        return null;
+    }
+
     /**
      *  Starts all providers at a specific level and context
      */
@@ -99,6 +138,9 @@ public class InstrumentationManagerImpl implements InstrumentationManager {
         for (InstrumentationProvider provider : _providers) {
             provider.stop();
         }
+        for (AbstractStatistics stats : _statistics.values()) {
+            stats.setEnabled(false);
+        }
         _closed = true;
     }
 }
@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.instrumentation;
+
+import java.util.Set;
+
+/**
+ * Interface for latency instrumentation.  Latency values are reported in
+ * microseconds and percentiles are expressed in the range 0-100.
+ */
+public interface LatencyInstrument extends StatisticsInstrument {
+
+    /**
+     * Returns the JPQL queries and SQL statements currently tracked.
+     */
+    public Set<String> statements();
+
+    /**
+     * Returns number of executions of the given statement since last reset.
+     */
+    public long getExecutionCount(String statement);
+
+    /**
+     * Returns the mean execution latency of the given statement.
+     */
+    public double getMeanLatency(String statement);
+
+    /**
+     * Returns the maximum execution latency of the given statement.
+     */
+    public long getMaxLatency(String statement);
+
+    /**
+     * Returns the execution latency of the given statement at the given
+     * percentile.
+     */
+    public long getLatencyPercentile(String statement, double percentile);
+
+    /**
+     * Returns the number of rows read or updated by the given statement.
+     */
+    public long getRowCount(String statement);
+
+    /**
+     * Returns the number of flushes since last reset.
+     */
+    public long getFlushCount();
+
+    /**
+     * Returns the mean flush duration.
+     */
+    public double getMeanFlushLatency();
+
+    /**
+     * Returns the maximum flush duration.
+     */
+    public long getMaxFlushLatency();
+
+    /**
+     * Returns the flush duration at the given percentile.
+     */
+    public long getFlushLatencyPercentile(double percentile);
+
+    /**
+     * Returns the number of connections obtained since last reset.
+     */
+    public long getConnectionWaitCount();
+
+    /**
+     * Returns the mean time spent waiting for a connection.
+     */
+    public double getMeanConnectionWait();
+
+    /**
+     * Returns the maximum time spent waiting for a connection.
+     */
+    public long getMaxConnectionWait();
+
+    /**
+     * Returns the time spent waiting for a connection at the given percentile.
+     */
+    public long getConnectionWaitPercentile(double percentile);
+
+    /**
+     * Returns the captured slow executions, oldest first.
+     */
+    public String[] getSlowQueries();
+
+    /**
+     * Returns the slow query threshold in milliseconds.
+     */
+    public long getSlowQueryThreshold();
+
+    /**
+     * Sets the slow query threshold in milliseconds.
+     */
+    public void setSlowQueryThreshold(long millis);
+}
@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.instrumentation;
+
+import java.util.Date;
+
+/**
+ * Interface for instruments that report statistics collected by the runtime
+ * components of a configuration.
+ *
+ * @since 3.0.0
+ */
+public interface StatisticsInstrument {
+
+    /**
+     * Resets the statistics.
+     */
+    public void reset();
+
+    /**
+     * Returns date since statistics collection were last reset.
+     */
+    public Date sinceDate();
+
+    /**
+     * Returns date statistics collection started.
+     */
+    public Date startDate();
+}
@@ -52,6 +52,7 @@ import org.apache.openjpa.enhance.ManagedClassSubclasser;
 import org.apache.openjpa.enhance.PCRegistry;
 import org.apache.openjpa.enhance.PersistenceCapable;
 import org.apache.openjpa.event.BrokerFactoryEvent;
+import org.apache.openjpa.event.LifecycleEventManager;
 import org.apache.openjpa.event.RemoteCommitEventManager;
 import org.apache.openjpa.instrumentation.InstrumentationManager;
 import org.apache.openjpa.lib.conf.Configuration;
@@ -60,6 +61,8 @@ import org.apache.openjpa.lib.instrumentation.InstrumentationLevel;
 import org.apache.openjpa.lib.log.Log;
 import org.apache.openjpa.lib.util.J2DoPrivHelper;
 import org.apache.openjpa.lib.util.Localizer;
+import org.apache.openjpa.lib.util.ReferenceMap;
+import org.apache.openjpa.lib.util.concurrent.ConcurrentReferenceHashMap;
 import org.apache.openjpa.lib.util.concurrent.ConcurrentReferenceHashSet;
 import org.apache.openjpa.meta.MetaDataModes;
 import org.apache.openjpa.meta.MetaDataRepository;
@@ -117,6 +120,15 @@ public abstract class AbstractBrokerFactory
     // key under which this instance can be stored in the broker pool
     // and later identified
     private Object _poolKey;   
+
+    // settings copied into each new broker; taken once the conf is frozen
+    private transient volatile ConfigurationSnapshot _snapshot = null;
+
+    // components released by brokers closed on each thread, when broker
+    // component pooling is enabled; weakly keyed so that the components of
+    // finished threads are dropped
+    private transient volatile Map<Thread, BrokerComponents> _components =
+        null;
     
     /**
      * Return an internal factory pool key for the given configuration.
@@ -165,15 +177,34 @@ public abstract class AbstractBrokerFactory
         return _conf;
     }
 
+    /**
+     * Return the immutable snapshot of the settings applied to each new
+     * broker, or null if the configuration has not been frozen yet.
+     *
+     * @since 3.0.0
+     */
+    public ConfigurationSnapshot getConfigurationSnapshot() {
+        return _snapshot;
+    }
+
     public Broker newBroker() {
+        ConfigurationSnapshot snap = _snapshot;
+        if (snap != null)
+            return newBroker(snap.getConnectionUserName(), snap.getConnectionPassword());
         return newBroker(_conf.getConnectionUserName(), _conf.getConnectionPassword());
     }
 
     public Broker newBroker(String user, String pass) {
+        ConfigurationSnapshot snap = _snapshot;
+        if (snap != null)
+            return newBroker(user, pass, snap.isTransactionModeManaged(), snap.getConnectionRetainMode());
         return newBroker(user, pass, _conf.isTransactionModeManaged(), _conf.getConnectionRetainModeConstant());
     }
 
     public Broker newBroker(boolean managed, int connRetainMode) {
+        ConfigurationSnapshot snap = _snapshot;
+        if (snap != null)
+            return newBroker(snap.getConnectionUserName(), snap.getConnectionPassword(), managed, connRetainMode);
         return newBroker(_conf.getConnectionUserName(), _conf.getConnectionPassword(), managed, connRetainMode);
     }
 
@@ -236,6 +267,8 @@ public abstract class AbstractBrokerFactory
        loadPersistentTypes(broker.getClassLoader());
         _brokers.add(broker);
         _conf.setReadOnly(Configuration.INIT_STATE_FROZEN);
+        if (_snapshot == null)
+            _snapshot = new ConfigurationSnapshot(_conf);
     }
 
     /**
@@ -396,6 +429,14 @@ public abstract class AbstractBrokerFactory
                     (_conf.getMetaDataRepositoryInstance());
             }
 
+            Map<Thread, BrokerComponents> components = _components;
+            if (components != null) {
+                _components = null;
+                for (BrokerComponents pooled : components.values())
+                    if (pooled.lm != null)
+                        pooled.lm.close();
+                components.clear();
+            }
             _conf.close();
             _closed = true;
             Log log = _conf.getLog(OpenJPAConfiguration.LOG_RUNTIME);
@@ -584,10 +625,102 @@ public abstract class AbstractBrokerFactory
         return null;
     }
 
+    /**
+     * Return a lock manager for a new broker, reusing the one released by
+     * the last broker closed on the current thread if broker component
+     * pooling is enabled.
+     */
+    LockManager newLockManager() {
+        BrokerComponents pooled = getPooledComponents(false);
+        if (pooled != null && pooled.lm != null) {
+            LockManager lm = pooled.lm;
+            pooled.lm = null;
+            if (Objects.equals(pooled.lmPlugin, _conf.getLockManager()))
+                return lm;
+            lm.close();
+        }
+        return _conf.newLockManagerInstance();
+    }
+
+    /**
+     * Return a lifecycle event manager for a new broker, reusing the one
+     * released by the last broker closed on the current thread if broker
+     * component pooling is enabled.
+     */
+    LifecycleEventManager newLifecycleEventManager() {
+        BrokerComponents pooled = getPooledComponents(false);
+        if (pooled != null && pooled.lem != null) {
+            LifecycleEventManager lem = pooled.lem;
+            pooled.lem = null;
+            // the plugin may be replaced once after the factory is frozen
+            if (Objects.equals(pooled.lemPlugin, _conf.getLifecycleEventManager()))
+                return lem;
+        }
+        return _conf.getLifecycleEventManagerInstance();
+    }
+
+    /**
+     * Offer the components of a closed broker for reuse by the next broker
+     * created on the current thread if broker component pooling is enabled.
+     * A lock manager is only kept if it can be
+     * {@linkplain AbstractLockManager#reset reset}, and is closed otherwise.
+     */
+    void releaseComponents(LockManager lm, LifecycleEventManager lem) {
+        BrokerComponents pooled = getPooledComponents(true);
+        if (lm != null) {
+            if (pooled != null && lm instanceof AbstractLockManager
+                && ((AbstractLockManager) lm).reset()) {
+                if (pooled.lm != null)
+                    pooled.lm.close();
+                pooled.lm = lm;
+                pooled.lmPlugin = _conf.getLockManager();
+            } else
+                lm.close();
+        }
+        if (pooled == null)
+            return;
+        if (lem != null && !_conf.getCompatibilityInstance().isSingletonLifecycleEventManager() && lem.reset()) {
+            pooled.lem = lem;
+            pooled.lemPlugin = _conf.getLifecycleEventManager();
+        }
+    }
+
+    /**
+     * Return the components kept for the current thread, or null if broker
+     * component pooling is disabled.
+     */
+    private BrokerComponents getPooledComponents(boolean create) {
+        Map<Thread, BrokerComponents> components = _components;
+        if (components == null)
+            return null;
+        Thread thread = Thread.currentThread();
+        BrokerComponents pooled = components.get(thread);
+        if (pooled == null && create) {
+            pooled = new BrokerComponents();
+            components.put(thread, pooled);
+        }
+        return pooled;
+    }
+
     /**
      * Configures the given broker with the current factory option settings.
      */
     protected void configureBroker(BrokerImpl broker) {
+        ConfigurationSnapshot snap = _snapshot;
+        if (snap != null) {
+            broker.setOptimistic(snap.getOptimistic());
+            broker.setNontransactionalRead(snap.getNontransactionalRead());
+            broker.setNontransactionalWrite(snap.getNontransactionalWrite());
+            broker.setRetainState(snap.getRetainState());
+            broker.setRestoreState(snap.getRestoreState());
+            broker.setAutoClear(snap.getAutoClear());
+            broker.setIgnoreChanges(snap.getIgnoreChanges());
+            broker.setMultithreaded(snap.getMultithreaded());
+            broker.setAutoDetach(snap.getAutoDetach());
+            broker.setDetachState(snap.getDetachState());
+            broker.setPostLoadOnMerge(snap.getPostLoadOnMerge());
+            return;
+        }
         broker.setOptimistic(_conf.getOptimistic());
         broker.setNontransactionalRead(_conf.getNontransactionalRead());
         broker.setNontransactionalWrite(_conf.getNontransactionalWrite());
@@ -652,6 +785,9 @@ public abstract class AbstractBrokerFactory
             if (_conf.isInitializeEagerly()) {
                 _conf.setReadOnly(Configuration.INIT_STATE_FROZEN);
             }
+            if (_conf.getBrokerComponentPooling())
+                _components = new ConcurrentReferenceHashMap(
+                    ReferenceMap.WEAK, ReferenceMap.HARD);
             // fire an event for all the broker factory listeners
             // registered on the configuration.
             _conf.getBrokerFactoryEventManager().fireEvent(
@@ -823,6 +959,16 @@ public abstract class AbstractBrokerFactory
             _transactional.remove (_trans);
 		}
 	}
+
+    /**
+     * Components of a closed broker kept for reuse on its thread.
+     */
+    private static class BrokerComponents {
+        LockManager lm;
+        String lmPlugin;
+        LifecycleEventManager lem;
+        String lemPlugin;
+    }
     
     /**
      * Method insures that deserialized EMF has this reference re-instantiated
@@ -79,6 +79,20 @@ public abstract class AbstractLockManager
     public void close () {
 	}
 
+    /**
+     * Drop all state kept for the current context, so that this manager can
+     * serve another context once its context has been closed. Return false
+     * if this manager cannot be reused, in which case it is closed instead.
+     * Used by broker component pooling. Returns false by default; subclasses
+     * of reusable managers that keep state of their own must override this
+     * method to clear that state as well.
+     *
+     * @since 3.0.0
+     */
+    public boolean reset() {
+        return false;
+    }
+
     /**
      * Default not to skip relation field to maintain PessimisticLockManager semantics. 
      */
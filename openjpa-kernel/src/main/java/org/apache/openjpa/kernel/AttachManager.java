@@ -19,7 +19,6 @@
 package org.apache.openjpa.kernel;
 
 import java.util.ArrayList;
-import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
@@ -255,7 +254,6 @@ public class AttachManager {
 
     private Object handleCascade(Object toAttach, OpenJPAStateManager owner) {
         StateManagerImpl sm = _broker.getStateManagerImpl(toAttach, true);
-        BitSet loaded = sm.getLoaded();
         FieldMetaData[] fmds = sm.getMetaData().getDefinedFields();
         for (FieldMetaData fmd : fmds) {
             if (fmd.getElement().getCascadeAttach() == ValueMetaData.CASCADE_IMMEDIATE) {
@@ -263,7 +261,7 @@ public class AttachManager {
                 if (inverseFieldMappings.length != 0) {
                     _visitedNodes.add(sm);
                     // Only try to attach this field is it is loaded
-                    if (loaded.get(fmd.getIndex())) {
+                    if (sm.isLoaded(fmd.getIndex())) {
                         getStrategy(toAttach).attachField(this, toAttach, sm, fmd, true);
                     }
                 }
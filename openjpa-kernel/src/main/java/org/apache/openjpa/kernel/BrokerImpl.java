@@ -63,9 +63,11 @@ import org.apache.openjpa.event.RemoteCommitEventManager;
 import org.apache.openjpa.event.TransactionEvent;
 import org.apache.openjpa.event.TransactionEventManager;
 import org.apache.openjpa.instrumentation.InstrumentationManager;
+import org.apache.openjpa.instrumentation.InstrumentationManagerImpl;
 import org.apache.openjpa.kernel.exps.ExpressionParser;
 import org.apache.openjpa.lib.conf.Configurations;
 import org.apache.openjpa.lib.instrumentation.InstrumentationLevel;
+import org.apache.openjpa.lib.instrumentation.LatencyStatistics;
 import org.apache.openjpa.lib.log.Log;
 import org.apache.openjpa.lib.util.J2DoPrivHelper;
 import org.apache.openjpa.lib.util.Localizer;
@@ -74,6 +76,7 @@ import org.apache.openjpa.lib.util.ReferenceHashSet;
 import org.apache.openjpa.lib.util.ReferenceMap;
 import org.apache.openjpa.meta.ClassMetaData;
 import org.apache.openjpa.meta.FieldMetaData;
+import org.apache.openjpa.meta.JavaTypes;
 import org.apache.openjpa.meta.MetaDataRepository;
 import org.apache.openjpa.meta.SequenceMetaData;
 import org.apache.openjpa.meta.ValueMetaData;
@@ -129,6 +132,12 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
      */
     protected static final int FLUSH_LOGICAL = 3;
 
+    /**
+     * Minimum number of new instances of a type in a single
+     * {@link #persistAll} call for them to take the bulk persist path.
+     */
+    static final int BULK_PERSIST_MIN = 16;
+
     static final int STATUS_INIT = 0;
     static final int STATUS_TRANSIENT = 1;
     static final int STATUS_OID_ASSIGN = 2;
@@ -173,6 +182,7 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
     private transient OpCallbacks _call = null;
     private transient RuntimeExceptionTranslator _extrans = null;
     private transient InstrumentationManager _instm = null;
+    private transient LatencyStatistics _latency = null;
 
     // ref to producing factory and configuration
     private transient AbstractBrokerFactory _factory = null;
@@ -330,6 +340,7 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
         boolean fromDeserialization, boolean fromWriteBehindCallback) {
         _fromWriteBehindCallback = fromWriteBehindCallback;
         _initializeWasInvoked = true;
+        ConfigurationSnapshot snap = factory.getConfigurationSnapshot();
         _loader = AccessController.doPrivileged(
             J2DoPrivHelper.getContextClassLoaderAction());
         if (!fromDeserialization){
@@ -353,9 +364,10 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
             _runtime = new LocalManagedRuntime(this);
 
         if (!fromDeserialization) {
-            _lifeEventManager = _conf.getLifecycleEventManagerInstance();
+            _lifeEventManager = _factory.newLifecycleEventManager();
             _transEventManager = new TransactionEventManager();
-            int cmode = _repo.getMetaDataFactory().getDefaults().getCallbackMode();
+            int cmode = (snap != null) ? snap.getCallbackMode()
+                : _repo.getMetaDataFactory().getDefaults().getCallbackMode();
             setLifecycleListenerCallbackMode(cmode);
             setTransactionListenerCallbackMode(cmode);
 
@@ -368,7 +380,7 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
         // before initializing them because they may each try to access the
         // other in their initialization
         _store = sm;
-        _lm = _conf.newLockManagerInstance();
+        _lm = _factory.newLockManager();
         _im = _conf.newInverseManagerInstance();
         _spm = _conf.getSavepointManagerInstance();
         _store.setContext(this);
@@ -383,13 +395,18 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
         
         _instm = _conf.getInstrumentationManagerInstance();
         if (_instm != null) {
+            _latency = InstrumentationManagerImpl.getStatistics(_instm,
+                LatencyStatistics.class);
             _instm.start(InstrumentationLevel.BROKER, this);
         }
 
         _dmLite = new DetachManagerLite(_conf);
-        _printParameters =
-            Boolean.parseBoolean(Configurations.parseProperties(_conf.getConnectionFactoryProperties()).getProperty(
-                PRINT_PARAMETERS_CONFIG_STR, "false"));
+        if (snap != null)
+            _printParameters = snap.getPrintParameters();
+        else
+            _printParameters =
+                Boolean.parseBoolean(Configurations.parseProperties(_conf.getConnectionFactoryProperties()).getProperty(
+                    PRINT_PARAMETERS_CONFIG_STR, "false"));
 
         // do it before begin event otherwise transactional listeners can't use it, see @Auditable
         if (!fromDeserialization)
@@ -951,49 +968,8 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
             // cached instance?
             StateManagerImpl sm = getStateManagerImplById(oid,
                 (flags & OID_ALLOW_NEW) != 0 || hasFlushed());
-            if (sm != null) {
-                if (!requiresLoad(sm, true, fetch, edata, flags))
-                    return call.processReturn(oid, sm);
-
-                if (!sm.isLoading()) {
-                    // make sure all the configured fields are loaded; do this
-                    // after making instance transactional for locking
-                    if (!sm.isTransactional() && useTransactionalState(fetch))
-                        sm.transactional();
-                    boolean loaded;
-                    try {
-                        loaded = sm.load(fetch, StateManagerImpl.LOAD_FGS, 
-                            exclude, edata, false);
-                    } catch (ObjectNotFoundException onfe) {
-                        if ((flags & OID_NODELETED) != 0
-                            || (flags & OID_NOVALIDATE) != 0)
-                            throw onfe;
-                        return call.processReturn(oid, null);
-                    }
-
-                    // if no data needed to be loaded and the user wants to
-                    // validate, just make sure the object exists
-                    if (!loaded && (flags & OID_NOVALIDATE) == 0
-                        && _compat.getValidateTrueChecksStore()
-                        && !sm.isTransactional()
-                        && !_store.exists(sm, edata)) {
-                        if ((flags & OID_NODELETED) == 0)
-                            return call.processReturn(oid, null);
-                        throw new ObjectNotFoundException(_loc.get
-                            ("del-instance", sm.getManagedInstance(), oid)).
-                            setFailedObject(sm.getManagedInstance());
-                    }
-                }
-
-                // since the object was cached, we may need to upgrade lock
-                // if current level is higher than level of initial load
-                if ((_flags & FLAG_ACTIVE) != 0) {
-                    int level = fetch.getReadLockLevel();
-                    _lm.lock(sm, level, fetch.getLockTimeout(), edata);
-                    sm.readLocked(level, fetch.getWriteLockLevel());
-                }
-                return call.processReturn(oid, sm);
-            }
+            if (sm != null)
+                return findManaged(sm, oid, fetch, exclude, edata, flags, call);
 
             // if there's no cached sm for a new/transient id type, we
             // it definitely doesn't exist
@@ -1032,6 +1008,107 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
         }
     }
 
+    /**
+     * Return the given cached instance from a find, loading its fetch
+     * group fields and upgrading its lock as needed.
+     */
+    private Object findManaged(StateManagerImpl sm, Object oid,
+        FetchConfiguration fetch, BitSet exclude, Object edata, int flags,
+        FindCallbacks call) {
+        if (!requiresLoad(sm, true, fetch, edata, flags))
+            return call.processReturn(oid, sm);
+
+        if (!sm.isLoading()) {
+            // make sure all the configured fields are loaded; do this
+            // after making instance transactional for locking
+            if (!sm.isTransactional() && useTransactionalState(fetch))
+                sm.transactional();
+            boolean loaded;
+            try {
+                loaded = sm.load(fetch, StateManagerImpl.LOAD_FGS, 
+                    exclude, edata, false);
+            } catch (ObjectNotFoundException onfe) {
+                if ((flags & OID_NODELETED) != 0
+                    || (flags & OID_NOVALIDATE) != 0)
+                    throw onfe;
+                return call.processReturn(oid, null);
+            }
+
+            // if no data needed to be loaded and the user wants to
+            // validate, just make sure the object exists
+            if (!loaded && (flags & OID_NOVALIDATE) == 0
+                && _compat.getValidateTrueChecksStore()
+                && !sm.isTransactional()
+                && !_store.exists(sm, edata)) {
+                if ((flags & OID_NODELETED) == 0)
+                    return call.processReturn(oid, null);
+                throw new ObjectNotFoundException(_loc.get
+                    ("del-instance", sm.getManagedInstance(), oid)).
+                    setFailedObject(sm.getManagedInstance());
+            }
+        }
+
+        // since the object was cached, we may need to upgrade lock
+        // if current level is higher than level of initial load
+        if ((_flags & FLAG_ACTIVE) != 0) {
+            int level = fetch.getReadLockLevel();
+            _lm.lock(sm, level, fetch.getLockTimeout(), edata);
+            sm.readLocked(level, fetch.getWriteLockLevel());
+        }
+        return call.processReturn(oid, sm);
+    }
+
+    /**
+     * Find the instance of the given class whose single numeric identity
+     * field or datastore id has the given value. Instances cached under an
+     * oid of exactly the given class are found without constructing an
+     * oid; otherwise this behaves as {@link #find(Object,boolean,FindCallbacks)}
+     * with the oid for the given value.
+     *
+     * @since 3.0.0
+     */
+    public Object find(Class<?> cls, long id, boolean validate,
+        FindCallbacks call) {
+        if (call == null)
+            call = this;
+        int flags = OID_COPY | OID_ALLOW_NEW | OID_NODELETED;
+        if (!validate)
+            flags |= OID_NOVALIDATE;
+
+        beginOperation(true);
+        try {
+            assertNontransactionalRead();
+            StateManagerImpl sm = _cache.getById(cls, id, true);
+            if (sm != null) {
+                Object oid = call.processArgument(sm.getObjectId());
+                return findManaged(sm, oid, _fc, null, null, flags, call);
+            }
+        } catch (OpenJPAException ke) {
+            throw ke;
+        } catch (RuntimeException re) {
+            throw new GeneralException(re);
+        } finally {
+            endOperation();
+        }
+
+        // not cached under an oid of the exact type; take the regular path
+        ClassMetaData meta = _repo.getMetaData(cls, _loader, true);
+        return find(newObjectId(cls, toObjectIdValue(meta, id)), _fc, null,
+            null, flags, call);
+    }
+
+    /**
+     * Box the given numeric id value to the type of the single identity
+     * field of the given type, if any.
+     */
+    static Object toObjectIdValue(ClassMetaData meta, long id) {
+        Object val = Long.valueOf(id);
+        if (meta.isOpenJPAIdentity())
+            val = JavaTypes.convert(val, meta.getPrimaryKeyFields()[0].
+                getObjectIdFieldTypeCode());
+        return val;
+    }
+
     /**
      * Initialize a newly-constructed state manager.
      */
@@ -1699,8 +1776,9 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
                 if (_savepointCache == null)
                     save.save(Collections.EMPTY_SET);
                 else {
+                    // lazy savepoints keep the set
                     save.save(_savepointCache);
-                    _savepointCache.clear();
+                    _savepointCache = null;
                 }
             }
             _savepoints.put(name, save);
@@ -1812,8 +1890,11 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
                     oldTransCache.remove(sm);
                     if (sm.isDirty())
                         newTransCache.addDirty(sm);
-                    else
+                    else {
+                        // restored states may carry flush work of their own
                         newTransCache.addClean(sm);
+                        newTransCache.addFlushable(sm);
+                    }
                 }
                 for (Iterator<?> itr = oldTransCache.iterator(); itr.hasNext();) {
                     sm = (StateManagerImpl) itr.next();
@@ -2099,13 +2180,25 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
             throw new InvalidStateException(_loc.get("reentrant-flush"));
 
         _flags |= FLAG_FLUSHING;
+        LatencyStatistics latency = getLatencyStatistics();
+        long start = (latency == null) ? 0 : System.nanoTime();
         try {
             flush(reason);
         } finally {
             _flags &= ~FLAG_FLUSHING;
+            if (latency != null)
+                latency.recordFlush(System.nanoTime() - start);
         }
     }
 
+    /**
+     * Return the latency statistics to record into, or null if latency
+     * collection is not enabled.
+     */
+    LatencyStatistics getLatencyStatistics() {
+        return (_latency != null && _latency.isEnabled()) ? _latency : null;
+    }
+
     /**
      * Flush the transactional state to the data store. Subclasses that
      * customize commit behavior should override this method. The method
@@ -2118,8 +2211,10 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
      */
     protected void flush(int reason) {
         // this will enlist proxied states as necessary so we know whether we
-        // have anything to flush
-        Collection transactional = getTransactionalStates();
+        // have anything to flush.  only dirty states and the clean states
+        // that still have flush work pending take part, so the cost of a
+        // flush does not grow with the number of clean instances
+        Collection transactional = getFlushStates();
 
         // do we actually have to flush?  only if our flags say so, or if
         // we have transaction listeners that need to be invoked for commit
@@ -2171,8 +2266,10 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
                 if ((_transEventManager.hasFlushListeners()
                     || _transEventManager.hasEndListeners())
                     && (flush || reason == FLUSH_COMMIT)) {
-                    // fire events
-                    mobjs = new ManagedObjectCollection(transactional);
+                    // fire events; listeners see all transactional objects,
+                    // not just the ones being flushed
+                    Collection all = getTransactionalStates();
+                    mobjs = new ManagedObjectCollection(all);
                     if (reason == FLUSH_COMMIT
                         && _transEventManager.hasEndListeners()) {
                         fireTransactionEvent(new TransactionEvent(this, 
@@ -2180,6 +2277,7 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
                             _persistedClss, _updatedClss, _deletedClss));
 
                         flushAdditions(transactional, reason);
+                        all.addAll(transactional);
                         flush = (_flags & FLAG_FLUSH_REQUIRED) != 0;
                     }
 
@@ -2188,6 +2286,7 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
                             TransactionEvent.BEFORE_FLUSH, mobjs,
                             _persistedClss, _updatedClss, _deletedClss));
                         flushAdditions(transactional, reason);
+                        all.addAll(transactional);
                     }
                 }
             }
@@ -2518,11 +2617,16 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
         try {
             assertWriteOperation();
 
+            Map<Class<?>, ClassMetaData> bulk = prepareBulkPersist(objs);
+            ClassMetaData meta;
             for (Object obj : objs) {
                 try {
                 	if(obj == null)
                 		continue;
-                    persistInternal(obj, null, explicit, call, true);
+                    meta = (bulk == null) ? null : bulk.get(obj.getClass());
+                    if (meta == null
+                        || !persistNew(obj, meta, explicit, call))
+                        persistInternal(obj, null, explicit, call, true);
                 } catch (UserException ue) {
                     exceps = add(exceps, ue);
                 }
@@ -2536,6 +2640,153 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
         throwNestedExceptions(exceps, false);
     }
 
+    /**
+     * Find the classes of the given objects that are persisted in numbers of
+     * at least {@link #BULK_PERSIST_MIN} new instances and need no per-object
+     * work besides being managed: they have no persist callbacks, listeners
+     * or validation and do not cascade persist immediately. Sequence values
+     * for the instances of these classes are allocated with a single
+     * {@link Seq#allocate} call per class.
+     *
+     * @return the metadata of the bulk classes, or null if none
+     */
+    private Map<Class<?>, ClassMetaData> prepareBulkPersist(Collection objs) {
+        if (objs.size() < BULK_PERSIST_MIN)
+            return null;
+
+        Map<Class<?>, BulkPersistCount> counts =
+            new HashMap<Class<?>, BulkPersistCount>();
+        BulkPersistCount count;
+        for (Object obj : objs) {
+            if (!(obj instanceof PersistenceCapable)
+                || ((PersistenceCapable) obj).pcGetStateManager() != null)
+                continue;
+            count = counts.get(obj.getClass());
+            if (count == null)
+                counts.put(obj.getClass(), new BulkPersistCount(obj));
+            else
+                count.count++;
+        }
+
+        Map<Class<?>, ClassMetaData> bulk = null;
+        ClassMetaData meta;
+        for (Map.Entry<Class<?>, BulkPersistCount> entry : counts.entrySet()) {
+            count = entry.getValue();
+            if (count.count < BULK_PERSIST_MIN)
+                continue;
+            meta = _repo.getMetaData(entry.getKey(), _loader, false);
+            if (!isBulkPersistable(count.first, meta))
+                continue;
+
+            if (bulk == null)
+                bulk = new HashMap<Class<?>, ClassMetaData>();
+            bulk.put(entry.getKey(), meta);
+            if ((_flags & FLAG_ACTIVE) != 0)
+                allocateSequences(meta, count.count);
+        }
+        return bulk;
+    }
+
+    /**
+     * The number of new instances of a class in a persistAll call, and the
+     * first of them.
+     */
+    private static class BulkPersistCount {
+        final Object first;
+        int count = 1;
+
+        BulkPersistCount(Object first) {
+            this.first = first;
+        }
+    }
+
+    /**
+     * Whether new instances of the given type can be persisted without
+     * firing events or cascading.
+     */
+    private boolean isBulkPersistable(Object obj, ClassMetaData meta) {
+        if (meta == null || meta.isEmbeddedOnly()
+            || meta.getIdentityType() == ClassMetaData.ID_UNKNOWN)
+            return false;
+        if (_lifeEventManager != null && _lifeEventManager.isActive(meta)
+            && _lifeEventManager.hasPersistListeners(obj, meta))
+            return false;
+
+        FieldMetaData[] fmds = meta.getFields();
+        for (int i = 0; i < fmds.length; i++) {
+            if (fmds[i].getCascadePersist() == ValueMetaData.CASCADE_IMMEDIATE
+                || fmds[i].getKey().getCascadePersist()
+                == ValueMetaData.CASCADE_IMMEDIATE
+                || fmds[i].getElement().getCascadePersist()
+                == ValueMetaData.CASCADE_IMMEDIATE)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Allocate the sequence values that the given number of new instances of
+     * the given type will need at flush. Allocation is only an optimization;
+     * failures surface again when the values are generated.
+     */
+    private void allocateSequences(ClassMetaData meta, int count) {
+        try {
+            if (meta.getIdentityType() == ClassMetaData.ID_DATASTORE) {
+                if (meta.getIdentityStrategy() == ValueStrategies.SEQUENCE
+                    || meta.getIdentityStrategy() == ValueStrategies.NATIVE) {
+                    Seq seq = getIdentitySequence(meta);
+                    if (seq != null)
+                        seq.allocate(count, this, meta);
+                }
+                return;
+            }
+
+            FieldMetaData[] pks = meta.getPrimaryKeyFields();
+            for (int i = 0; i < pks.length; i++) {
+                if (pks[i].getValueStrategy() != ValueStrategies.SEQUENCE)
+                    continue;
+                Seq seq = getValueSequence(pks[i]);
+                if (seq != null)
+                    seq.allocate(count, this, pks[i].getDefiningMetaData());
+            }
+        } catch (RuntimeException re) {
+            if (_log.isTraceEnabled())
+                _log.trace(_loc.get("bulk-allocate-failed", meta), re);
+        }
+    }
+
+    /**
+     * Persist the given new instance of a type selected for bulk persist.
+     *
+     * @return false if the instance needs the regular persist path
+     */
+    private boolean persistNew(Object obj, ClassMetaData meta,
+        boolean explicit, OpCallbacks call) {
+        PersistenceCapable pc = (PersistenceCapable) obj;
+        if (pc.pcGetStateManager() != null
+            || pc.pcIsDetached() == Boolean.TRUE)
+            return false;
+        int action = processArgument(OpCallbacks.OP_PERSIST, obj, null, call);
+        if ((action & OpCallbacks.ACT_RUN) == 0)
+            return false;
+
+        Object id;
+        if (meta.getIdentityType() == ClassMetaData.ID_APPLICATION)
+            id = ApplicationIds.create(pc, meta);
+        else
+            id = StateManagerId.newInstance(this);
+        checkForDuplicateId(id, obj, meta);
+
+        StateManagerImpl sm = newStateManagerImpl(id, meta);
+        if ((_flags & FLAG_ACTIVE) == 0)
+            sm.initialize(pc, PCState.PNONTRANSNEW);
+        else if (explicit)
+            sm.initialize(pc, PCState.PNEW);
+        else
+            sm.initialize(pc, PCState.PNEWPROVISIONAL);
+        return true;
+    }
+
     /**
      * If the given element is not null, add it to the given list,
      * creating the list if necessary.
@@ -3694,6 +3945,7 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
                 sm.setCheckVersion(true);
                 if (updateVersion)
                     sm.setUpdateVersion(true);
+                addToFlush(sm);
                 _flags |= FLAG_FLUSH_REQUIRED; // version check/up
             } else if (sm == null) {
                 // manage transient instance
@@ -3728,6 +3980,7 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
             try {
                 sm.transactional();
                 sm.load(_fc, StateManagerImpl.LOAD_FGS, null, null, false);
+                addToFlush(sm);
             } catch (OpenJPAException ke) {
                 exceps = add(exceps, ke);
             }
@@ -4105,6 +4358,18 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
         return _transCache.copy();
     }
 
+    /**
+     * Return a copy of the transactional state managers that take part in
+     * the next flush: all dirty instances, plus clean instances that were
+     * flushed earlier in the transaction or that need a version check or
+     * update.
+     */
+    protected Collection<StateManagerImpl> getFlushStates() {
+        if (!hasTransactionalObjects())
+            return new LinkedHashSet<StateManagerImpl>();
+        return _transCache.copyFlushable();
+    }
+
     /**
      * Whether or not there are any transactional objects in the current
      * persistence context. If there are any instances with untracked state,
@@ -4195,6 +4460,15 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
         }
     }
 
+    /**
+     * Notify the broker that the given clean transactional state manager
+     * must take part in the next flush, such as for a version check.
+     */
+    private void addToFlush(StateManagerImpl sm) {
+        if (_transCache != null && sm.isTransactional() && !sm.isDirty())
+            _transCache.addFlushable(sm);
+    }
+
     /**
      * Notify the persistence manager that the given state manager should
      * be removed from the set of instances involved in the current transaction.
@@ -4213,6 +4487,18 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
         }
     }
 
+    /**
+     * Notification that the given instance is about to change, so that lazy
+     * savepoints can save the given field, or with a field of -1 the state
+     * of the instance other than its field values.
+     */
+    void beforeSavepointChange(StateManagerImpl sm, int field) {
+        if (_savepoints == null || _savepoints.isEmpty())
+            return;
+        for (Iterator<?> itr = _savepoints.values().iterator(); itr.hasNext();)
+            ((OpenJPASavepoint) itr.next()).beforeChange(sm, field);
+    }
+
     /**
      * Notification that the given instance has been dirtied. This
      * notification is given when an object first transitions to a dirty state,
@@ -4427,6 +4713,7 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
         _pending = null;
         _loader = null;
         _transEventManager = null;
+        LifecycleEventManager lem = _lifeEventManager;
         _lifeEventManager = null;
 
         OpenJPASavepoint save;
@@ -4462,7 +4749,8 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
 
         try { releaseConnection(); } catch (RuntimeException re) {}
 
-        _lm.close();
+        // closes the lock manager unless it is kept for reuse
+        _factory.releaseComponents(_lm, lem);
         _store.close();
         if (_instm != null) {
             _instm.stop(InstrumentationLevel.BROKER, this);
@@ -4852,6 +5140,8 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
         private final boolean _orderDirty;
         private Set<StateManagerImpl> _dirty = null;
         private Set<StateManagerImpl> _clean = null;
+        // clean instances that still need flushing; subset of _clean
+        private Set<StateManagerImpl> _flushable = null;
 
         public TransactionalCache(boolean orderDirty) {
             _orderDirty = orderDirty;
@@ -4888,12 +5178,44 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
             return new LinkedHashSet<StateManagerImpl>(_dirty);
         }
 
+        /**
+         * Return a copy of the dirty state managers and the clean ones that
+         * have been marked flushable.
+         */
+        public Collection copyFlushable() {
+            Set copy = new LinkedHashSet();
+            if (_dirty != null)
+                copy.addAll(_dirty);
+            if (_flushable != null)
+                for (Iterator<StateManagerImpl> itr = _flushable.iterator(); itr.hasNext();)
+                    copy.add(itr.next());
+            return copy;
+        }
+
         /**
          * Transfer the given instance from the dirty cache to the clean cache.
+         * The instance remains flushable, since its flushed changes take part
+         * in later flushes of the transaction.
          */
         public void flushed(StateManagerImpl sm) {
-            if (sm.isDirty() && _dirty != null && _dirty.remove(sm))
+            if (sm.isDirty() && _dirty != null && _dirty.remove(sm)) {
                 addCleanInternal(sm);
+                addFlushableInternal(sm);
+            }
+        }
+
+        /**
+         * Mark the given clean instance as needing to take part in flushes.
+         */
+        public void addFlushable(StateManagerImpl sm) {
+            if (_clean != null && _clean.contains(sm))
+                addFlushableInternal(sm);
+        }
+
+        private void addFlushableInternal(StateManagerImpl sm) {
+            if (_flushable == null)
+                _flushable = new ReferenceHashSet(ReferenceHashSet.SOFT);
+            _flushable.add(sm);
         }
 
         /**
@@ -4933,6 +5255,8 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
         }
 
         private boolean removeCleanInternal(StateManagerImpl sm) {
+            if (_flushable != null)
+                _flushable.remove(sm);
             return _clean != null && _clean.remove(sm);
         }
 
@@ -4962,6 +5286,7 @@ public class BrokerImpl implements Broker, FindCallbacks, Cloneable, Serializabl
                 _dirty = null;
             if (_clean != null)
                 _clean = null;
+            _flushable = null;
         }
 
         public boolean isEmpty() {
@@ -0,0 +1,232 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.kernel;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.openjpa.conf.OpenJPAConfiguration;
+import org.apache.openjpa.lib.conf.Configurations;
+import org.apache.openjpa.lib.util.StringUtil;
+import org.apache.openjpa.meta.FetchGroup;
+
+/**
+ * Immutable snapshot of the configuration settings that every new
+ * {@link Broker} and {@link FetchConfiguration} is initialized with.
+ * The snapshot is taken by {@link AbstractBrokerFactory} once its
+ * configuration is frozen, so that creating a broker only copies fields
+ * rather than consulting configuration values, decrypting passwords or
+ * parsing property strings. Settings whose values are
+ * {@link org.apache.openjpa.lib.conf.Value#isDynamic dynamic} are not
+ * part of the snapshot and must still be read from the configuration.
+ *
+ * @since 3.0.0
+ */
+public final class ConfigurationSnapshot {
+
+    private static final String PRINT_PARAMETERS = "PrintParameters";
+
+    // connection settings
+    private final String _user;
+    private final String _pass;
+    private final boolean _managed;
+    private final int _connRetainMode;
+
+    // broker settings
+    private final boolean _optimistic;
+    private final boolean _nontransRead;
+    private final boolean _nontransWrite;
+    private final boolean _retainState;
+    private final int _restoreState;
+    private final int _autoClear;
+    private final boolean _ignoreChanges;
+    private final boolean _multithreaded;
+    private final int _autoDetach;
+    private final int _detachState;
+    private final boolean _postLoadOnMerge;
+    private final boolean _printParameters;
+    private final int _callbackMode;
+
+    // fetch settings
+    private final Set<String> _fetchGroups;
+    private final boolean _fetchGroupsPUDefault;
+    private final int _maxFetchDepth;
+    private final int _flushBeforeQueries;
+    private final boolean _cacheNonDefaultFetchPlanQueries;
+
+    /**
+     * Take a snapshot of the given configuration. The configuration should
+     * be frozen, as later changes will not be reflected.
+     */
+    public ConfigurationSnapshot(OpenJPAConfiguration conf) {
+        _user = conf.getConnectionUserName();
+        _pass = conf.getConnectionPassword();
+        _managed = conf.isTransactionModeManaged();
+        _connRetainMode = conf.getConnectionRetainModeConstant();
+
+        _optimistic = conf.getOptimistic();
+        _nontransRead = conf.getNontransactionalRead();
+        _nontransWrite = conf.getNontransactionalWrite();
+        _retainState = conf.getRetainState();
+        _restoreState = conf.getRestoreStateConstant();
+        _autoClear = conf.getAutoClearConstant();
+        _ignoreChanges = conf.getIgnoreChanges();
+        _multithreaded = conf.getMultithreaded();
+        _autoDetach = conf.getAutoDetachConstant();
+        _detachState = conf.getDetachStateInstance().getDetachState();
+        _postLoadOnMerge = conf.getPostLoadOnMerge();
+        _printParameters = Boolean.parseBoolean(Configurations.parseProperties(
+            conf.getConnectionFactoryProperties()).getProperty(PRINT_PARAMETERS, "false"));
+        _callbackMode = conf.getMetaDataRepositoryInstance().getMetaDataFactory().getDefaults().getCallbackMode();
+
+        String[] groups = conf.getFetchGroupsList();
+        Set<String> fetchGroups = new HashSet<String>();
+        boolean valid = true;
+        if (groups == null || groups.length == 0)
+            fetchGroups.add(FetchGroup.NAME_DEFAULT);
+        else {
+            for (String group : groups) {
+                if (StringUtil.isEmpty(group))
+                    valid = false;
+                fetchGroups.add(group);
+            }
+        }
+        // leave invalid group lists to the fetch configuration to report
+        _fetchGroups = (valid) ? Collections.unmodifiableSet(fetchGroups) : null;
+        _fetchGroupsPUDefault = groups != null && fetchGroups.size() == groups.length;
+        _maxFetchDepth = conf.getMaxFetchDepth();
+        _flushBeforeQueries = conf.getFlushBeforeQueriesConstant();
+        _cacheNonDefaultFetchPlanQueries = conf.getCompatibilityInstance().getCacheNonDefaultFetchPlanQueries();
+    }
+
+    /**
+     * The default connection user name.
+     */
+    public String getConnectionUserName() {
+        return _user;
+    }
+
+    /**
+     * The default connection password, already decrypted.
+     */
+    public String getConnectionPassword() {
+        return _pass;
+    }
+
+    /**
+     * Whether the default transaction mode is managed.
+     */
+    public boolean isTransactionModeManaged() {
+        return _managed;
+    }
+
+    /**
+     * The default connection retain mode constant.
+     */
+    public int getConnectionRetainMode() {
+        return _connRetainMode;
+    }
+
+    public boolean getOptimistic() {
+        return _optimistic;
+    }
+
+    public boolean getNontransactionalRead() {
+        return _nontransRead;
+    }
+
+    public boolean getNontransactionalWrite() {
+        return _nontransWrite;
+    }
+
+    public boolean getRetainState() {
+        return _retainState;
+    }
+
+    public int getRestoreState() {
+        return _restoreState;
+    }
+
+    public int getAutoClear() {
+        return _autoClear;
+    }
+
+    public boolean getIgnoreChanges() {
+        return _ignoreChanges;
+    }
+
+    public boolean getMultithreaded() {
+        return _multithreaded;
+    }
+
+    public int getAutoDetach() {
+        return _autoDetach;
+    }
+
+    public int getDetachState() {
+        return _detachState;
+    }
+
+    public boolean getPostLoadOnMerge() {
+        return _postLoadOnMerge;
+    }
+
+    /**
+     * Whether the <code>PrintParameters</code> connection factory property
+     * is set.
+     */
+    public boolean getPrintParameters() {
+        return _printParameters;
+    }
+
+    /**
+     * The default lifecycle and transaction listener callback mode.
+     */
+    public int getCallbackMode() {
+        return _callbackMode;
+    }
+
+    /**
+     * The default fetch groups, or null if the configured list is invalid.
+     */
+    public Set<String> getFetchGroups() {
+        return _fetchGroups;
+    }
+
+    /**
+     * Whether the {@link #getFetchGroups} set matches the configured list
+     * exactly.
+     */
+    public boolean isFetchGroupsPUDefault() {
+        return _fetchGroupsPUDefault;
+    }
+
+    public int getMaxFetchDepth() {
+        return _maxFetchDepth;
+    }
+
+    public int getFlushBeforeQueries() {
+        return _flushBeforeQueries;
+    }
+
+    public boolean getCacheNonDefaultFetchPlanQueries() {
+        return _cacheNonDefaultFetchPlanQueries;
+    }
+}
@@ -233,6 +233,41 @@ public class DelegatingBroker
         }
     }
 
+    /**
+     * Find the instance of the given class whose single numeric identity
+     * field or datastore id has the given value.
+     *
+     * @see BrokerImpl#find(Class,long,boolean,FindCallbacks)
+     * @since 3.0.0
+     */
+    public Object find(Class<?> cls, long id, boolean validate,
+        FindCallbacks call) {
+        try {
+            return find(_broker, cls, id, validate, call);
+        } catch (RuntimeException re) {
+            throw translate(re);
+        }
+    }
+
+    /**
+     * Find by numeric id through the given broker, constructing the oid if
+     * the broker does not support finding without one.
+     */
+    private static Object find(Broker broker, Class<?> cls, long id,
+        boolean validate, FindCallbacks call) {
+        if (broker instanceof BrokerImpl)
+            return ((BrokerImpl) broker).find(cls, id, validate, call);
+        if (broker instanceof DelegatingBroker)
+            return ((DelegatingBroker) broker).find(cls, id, validate, call);
+
+        ClassMetaData meta = broker.getConfiguration().
+            getMetaDataRepositoryInstance().getMetaData(cls,
+            broker.getClassLoader(), true);
+        Object oid = broker.newObjectId(cls,
+            BrokerImpl.toObjectIdValue(meta, id));
+        return broker.find(oid, validate, call);
+    }
+
     public Object[] findAll(Collection oids, boolean validate,
         FindCallbacks call) {
         try {
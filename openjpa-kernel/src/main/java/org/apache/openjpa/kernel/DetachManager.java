@@ -225,10 +225,9 @@ public class DetachManager
             return false;
 
         // only flush if there are actually any dirty non-flushed fields
-        BitSet dirtyFields = sm.getDirty();
-        BitSet flushedFields = sm.getFlushed();
-        for (int i = 0; i < dirtyFields.size(); i++) {
-            if (dirtyFields.get(i) && !flushedFields.get(i)) {
+        int fields = sm.getMetaData().getFields().length;
+        for (int i = 0; i < fields; i++) {
+            if (sm.isDirty(i) && !sm.isFlushed(i)) {
                 if (sm.getBroker().getRollbackOnly())
                     sm.getBroker().preFlush();
                 else
@@ -247,6 +247,18 @@ public class ExpressionStoreQuery
         return null;
     }
 
+    /**
+     * Return the identities of the instances changed by the last bulk
+     * delete or update this query executed against the data store, or null
+     * if they are not known. Caches evict only these instances when they
+     * are given; otherwise they evict every instance of the affected types.
+     *
+     * @since 3.0.0
+     */
+    public Collection<Object> getBulkObjectIds() {
+        return null;
+    }
+
     /**
      * Return the commands that will be sent to the datastore in order
      * to execute the query, typically in the database's native language.
@@ -785,37 +797,58 @@ public class ExpressionStoreQuery
         }
 
         public Number executeDelete(StoreQuery q, Object[] params) {
+            Collection<Object> oids = null;
             try {
                 Number num =
                     ((ExpressionStoreQuery) q).executeDelete(this, _meta, _metas, _subs, _facts, _exps, params);
                 if (num == null)
                     return q.getContext().deleteInMemory(q, this, params);
+                oids = ((ExpressionStoreQuery) q).getBulkObjectIds();
                 return num;
             } finally {
-                for (ClassMetaData cmd : getAccessPathMetaDatas(q)) {
-                    DataCache cache = cmd.getDataCache();
-                    if (cache != null && cache.getEvictOnBulkUpdate()) {
-                        cache.removeAll(cmd.getDescribedType(), true);
-                    }
-                }
+                evictBulk(q, oids);
             }
         }
 
         public Number executeUpdate(StoreQuery q, Object[] params) {
+            Collection<Object> oids = null;
             try {
                 Number num =
                     ((ExpressionStoreQuery) q).executeUpdate(this, _meta, _metas, _subs, _facts, _exps, params);
                 if (num == null)
                     return q.getContext().updateInMemory(q, this, params);
+                oids = ((ExpressionStoreQuery) q).getBulkObjectIds();
                 return num;
             } finally {
-                for (ClassMetaData cmd : getAccessPathMetaDatas(q)) {
-                    DataCache cache = cmd.getDataCache();
-                    if (cache != null && cache.getEvictOnBulkUpdate()) {
+                evictBulk(q, oids);
+            }
+        }
+
+        /**
+         * Evict the instances changed by a bulk operation from the data
+         * caches that ask for it. Without their identities, every cached
+         * instance of the access path types is evicted. With them, unchanged
+         * instances held by the current context are evicted as well.
+         */
+        private void evictBulk(StoreQuery q, Collection<Object> oids) {
+            for (ClassMetaData cmd : getAccessPathMetaDatas(q)) {
+                DataCache cache = cmd.getDataCache();
+                if (cache != null && cache.getEvictOnBulkUpdate()) {
+                    if (oids == null)
                         cache.removeAll(cmd.getDescribedType(), true);
-                    }
+                    else
+                        cache.removeAll(oids);
                 }
             }
+            if (oids == null)
+                return;
+
+            Broker broker = q.getContext().getStoreContext().getBroker();
+            for (Object oid : oids) {
+                Object pc = broker.findCached(oid, null);
+                if (pc != null)
+                    broker.evict(pc, null);
+            }
         }
 
         public String[] getDataStoreActions(StoreQuery q, Object[] params,
@@ -185,10 +185,24 @@ public class FetchConfigurationImpl
         // initialize to conf info
         OpenJPAConfiguration conf = ctx.getConfiguration();
         setFetchBatchSize(conf.getFetchBatchSize());
-        setFlushBeforeQueries(conf.getFlushBeforeQueriesConstant());
         setLockTimeout(conf.getLockTimeout());
         setQueryTimeout(conf.getQueryTimeout());
-        
+
+        // copy the remaining defaults from the factory's snapshot, if any
+        ConfigurationSnapshot snap = getConfigurationSnapshot(ctx);
+        if (snap != null && snap.getFetchGroups() != null) {
+            setFlushBeforeQueries(snap.getFlushBeforeQueries());
+            _state.fetchGroups = new HashSet<String>(snap.getFetchGroups());
+            _state.fetchGroupContainsDefault = _state.fetchGroups.contains(FetchGroup.NAME_DEFAULT);
+            _state.fetchGroupContainsAll = _state.fetchGroups.contains(FetchGroup.NAME_ALL);
+            _state.fetchGroupIsPUDefault = snap.isFetchGroupsPUDefault()
+                && (_state.fields == null || _state.fields.isEmpty());
+            setMaxFetchDepth(snap.getMaxFetchDepth());
+            _state.cacheNonDefaultFetchPlanQueries = snap.getCacheNonDefaultFetchPlanQueries();
+            return;
+        }
+
+        setFlushBeforeQueries(conf.getFlushBeforeQueriesConstant());
         String[] fetchGroupList = conf.getFetchGroupsList();
         clearFetchGroups((fetchGroupList == null || fetchGroupList.length == 0));
         
@@ -198,6 +212,18 @@ public class FetchConfigurationImpl
         _state.cacheNonDefaultFetchPlanQueries = conf.getCompatibilityInstance().getCacheNonDefaultFetchPlanQueries();
     }
 
+    /**
+     * Return the configuration snapshot of the factory that created the
+     * broker of the given context, or null if none.
+     */
+    private static ConfigurationSnapshot getConfigurationSnapshot(StoreContext ctx) {
+        Broker broker = ctx.getBroker();
+        BrokerFactory factory = (broker == null) ? null : broker.getBrokerFactory();
+        if (factory instanceof AbstractBrokerFactory)
+            return ((AbstractBrokerFactory) factory).getConfigurationSnapshot();
+        return null;
+    }
+
     /**
      * Clone this instance.
      */
@@ -28,6 +28,7 @@ public class InMemorySavepointManager
     implements SavepointManager {
 
     private boolean _preFlush = true;
+    private boolean _lazy = false;
 
     /**
      * Return whether to call {@link Broker#preFlush}
@@ -49,10 +50,32 @@ public class InMemorySavepointManager
         _preFlush = preFlush;
     }
 
+    /**
+     * Return whether savepoints save field values only as the fields first
+     * change after the savepoint is set, rather than copying all fields of
+     * all transactional instances when it is set. Defaults to false.
+     *
+     * @since 3.0.0
+     */
+    public boolean getLazy() {
+        return _lazy;
+    }
+
+    /**
+     * Set whether savepoints save field values only as the fields first
+     * change after the savepoint is set, rather than copying all fields of
+     * all transactional instances when it is set. Defaults to false.
+     *
+     * @since 3.0.0
+     */
+    public void setLazy(boolean lazy) {
+        _lazy = lazy;
+    }
+
     public OpenJPASavepoint newSavepoint(String name, Broker broker) {
         // pre-flush after creating savepoint b/c pre-flush may add/change
         // states
-        OpenJPASavepoint save = new OpenJPASavepoint(broker, name, true);
+        OpenJPASavepoint save = new OpenJPASavepoint(broker, name, true, _lazy);
         if (_preFlush)
             broker.preFlush();
         return save;
@@ -33,6 +33,7 @@ import org.apache.openjpa.lib.util.Localizer;
 import org.apache.openjpa.meta.FieldMetaData;
 import org.apache.openjpa.meta.JavaTypes;
 import org.apache.openjpa.meta.ValueMetaData;
+import org.apache.openjpa.util.ImplHelper;
 import org.apache.openjpa.util.InvalidStateException;
 
 /**
@@ -211,7 +212,7 @@ public class InverseManager implements Configurable {
      * Return whether the given field is loaded for the given instance.
      */
     private boolean isLoaded(OpenJPAStateManager sm, int field) {
-        if (sm.getLoaded().get(field))
+        if (ImplHelper.isLoaded(sm, field))
             return true;
 
         // if the field isn't loaded in the state manager, it still might be
@@ -240,7 +241,7 @@ public class InverseManager implements Configurable {
     protected void clearInverseRelations(OpenJPAStateManager sm,
         FieldMetaData fmd, FieldMetaData[] inverses, Object newValue) {
         // don't bother clearing unflushed new instances
-        if (sm.isNew() && !sm.getFlushed().get(fmd.getIndex()))
+        if (sm.isNew() && !ImplHelper.isFlushed(sm, fmd.getIndex()))
             return;
         if (fmd.getDeclaredTypeCode() == JavaTypes.PC) {
             Object initial = sm.fetchInitialField(fmd.getIndex());
@@ -30,6 +30,9 @@ import java.util.Map;
 import org.apache.openjpa.lib.util.Localizer;
 import org.apache.openjpa.lib.util.ReferenceHashSet;
 import org.apache.openjpa.util.Exceptions;
+import org.apache.openjpa.util.Id;
+import org.apache.openjpa.util.IntId;
+import org.apache.openjpa.util.LongId;
 import org.apache.openjpa.util.UserException;
 
 /**
@@ -45,6 +48,7 @@ class ManagedCache implements Serializable {
     private Map<Object,StateManagerImpl> _news = null; // tmp id -> new sm
     private Collection<StateManagerImpl> _embeds = null; // embedded/non-persistent sms
     private Collection<StateManagerImpl> _untracked = null; // hard refs to untracked sms
+    private transient Map<Class<?>,LongIdIndex> _ids = null; // type -> id value -> oid in main
     private BrokerImpl broker;
 
     /**
@@ -93,6 +97,31 @@ class ManagedCache implements Serializable {
         return sm;
     }
 
+    /**
+     * Return the instance of the given type whose single numeric identity
+     * field or datastore id has the given value, optionally allowing new
+     * instances. This looks up the oid under which the instance is cached
+     * without constructing one. A null return only means that no oid of
+     * exactly the given type is indexed; callers must then fall back to
+     * {@link #getById(Object, boolean)}.
+     */
+    public StateManagerImpl getById(Class<?> type, long id, boolean allowNew) {
+        if (_ids == null)
+            return null;
+        LongIdIndex idx = _ids.get(type);
+        if (idx == null)
+            return null;
+        Object oid = idx.get(id);
+        if (oid == null)
+            return null;
+
+        // drop the entry if the main cache released the instance
+        StateManagerImpl sm = getById(oid, allowNew);
+        if (sm == null && _main.get(oid) == null)
+            idx.remove(id, oid);
+        return sm;
+    }
+
     /**
      * Call this method when a new state manager initializes itself.
      */
@@ -127,6 +156,7 @@ class ManagedCache implements Serializable {
                 Exceptions.toString(orig.getManagedInstance())))
                 .setFailedObject(sm.getManagedInstance());
         }
+        index(sm.getObjectId(), sm);
     }
 
     /**
@@ -140,7 +170,9 @@ class ManagedCache implements Serializable {
     	StateManagerImpl orig;
         if (sm.getObjectId() != null) {
             orig = _main.remove(id);
-            if (orig != sm) {
+            if (orig == sm)
+                unindex(id, sm);
+            else {
                 if (orig != null)
                     _main.put(id, orig); // put back
                 if (_conflicts != null) {
@@ -196,7 +228,8 @@ class ManagedCache implements Serializable {
             if (_conflicts == null)
                 _conflicts = new HashMap<Object,StateManagerImpl>();
             _conflicts.put(sm.getObjectId(), sm);
-        }
+        } else
+            index(sm.getObjectId(), sm);
     }
 
     /**
@@ -218,6 +251,7 @@ class ManagedCache implements Serializable {
                         .setFailedObject(sm.getManagedInstance())
                         .setFatal(true);
                 }
+                index(id, sm);
             }
             return;
         }
@@ -237,6 +271,7 @@ class ManagedCache implements Serializable {
                 sm.getObjectId(), Exceptions.toString(sm.getManagedInstance())))
                     .setFailedObject(sm.getManagedInstance()).setFatal(true);
         }
+        index(sm.getObjectId(), sm);
     }
 
     /**
@@ -276,6 +311,7 @@ class ManagedCache implements Serializable {
      */
     public void clear() {
         _main = (Map<Object, StateManagerImpl>) broker.newManagedObjectCache();
+        _ids = null;
         if (_conflicts != null)
             _conflicts = null;
         if (_news != null)
@@ -301,4 +337,138 @@ class ManagedCache implements Serializable {
         for (StateManagerImpl sm : _untracked)
         	sm.dirtyCheck();
     }
+
+    /**
+     * Index the given main cache oid by its numeric value if it is a
+     * single-field numeric or datastore id.
+     */
+    private void index(Object oid, StateManagerImpl sm) {
+        if (!(oid instanceof LongId || oid instanceof IntId
+            || oid instanceof Id))
+            return;
+        if (_ids == null)
+            _ids = new HashMap<Class<?>,LongIdIndex>();
+        Class<?> type = sm.getMetaData().getDescribedType();
+        LongIdIndex idx = _ids.get(type);
+        if (idx == null) {
+            idx = new LongIdIndex();
+            _ids.put(type, idx);
+        }
+        idx.put(toLong(oid), oid);
+    }
+
+    /**
+     * Remove the index entry of the given oid.
+     */
+    private void unindex(Object oid, StateManagerImpl sm) {
+        if (_ids == null || !(oid instanceof LongId || oid instanceof IntId
+            || oid instanceof Id))
+            return;
+        LongIdIndex idx = _ids.get(sm.getMetaData().getDescribedType());
+        if (idx != null)
+            idx.remove(toLong(oid), oid);
+    }
+
+    private static long toLong(Object oid) {
+        if (oid instanceof LongId)
+            return ((LongId) oid).getId();
+        if (oid instanceof IntId)
+            return ((IntId) oid).getId();
+        return ((Id) oid).getId();
+    }
+
+    /**
+     * Open addressing map from primitive id values to the oids under which
+     * the instances are kept in the main cache. Entries may outlive their
+     * instance when the main cache releases a soft reference. Such entries
+     * are dropped when a lookup misses in the main cache and whenever the
+     * index would grow, so the index stays proportional to the instances
+     * the main cache still holds.
+     */
+    private class LongIdIndex {
+
+        private long[] _keys = new long[16];
+        private Object[] _oids = new Object[16];
+        private int _size = 0;
+
+        public Object get(long key) {
+            int mask = _oids.length - 1;
+            for (int i = slot(key, mask); _oids[i] != null; i = (i + 1) & mask)
+                if (_keys[i] == key)
+                    return _oids[i];
+            return null;
+        }
+
+        public void put(long key, Object oid) {
+            int mask = _oids.length - 1;
+            int i = slot(key, mask);
+            for (; _oids[i] != null; i = (i + 1) & mask) {
+                if (_keys[i] == key) {
+                    _oids[i] = oid;
+                    return;
+                }
+            }
+            _keys[i] = key;
+            _oids[i] = oid;
+            if (++_size * 2 > _oids.length)
+                rehash();
+        }
+
+        /**
+         * Remove the entry for the given key if it maps to an oid equal to
+         * the given one.
+         */
+        public void remove(long key, Object oid) {
+            int mask = _oids.length - 1;
+            int i = slot(key, mask);
+            for (; _oids[i] != null; i = (i + 1) & mask)
+                if (_keys[i] == key)
+                    break;
+            if (_oids[i] == null || !_oids[i].equals(oid))
+                return;
+
+            // shift back the following entries of the probe sequence
+            _oids[i] = null;
+            _size--;
+            for (int j = (i + 1) & mask; _oids[j] != null; j = (j + 1) & mask) {
+                int k = slot(_keys[j], mask);
+                if ((j > i && (k <= i || k > j)) || (j < i && k <= i && k > j)) {
+                    _keys[i] = _keys[j];
+                    _oids[i] = _oids[j];
+                    _oids[j] = null;
+                    i = j;
+                }
+            }
+        }
+
+        /**
+         * Rebuild the table without the entries whose instance the main
+         * cache released, growing it only if the remaining entries need it.
+         */
+        private void rehash() {
+            long[] keys = _keys;
+            Object[] oids = _oids;
+            int live = 0;
+            for (int i = 0; i < oids.length; i++) {
+                if (oids[i] != null && _main.get(oids[i]) == null)
+                    oids[i] = null;
+                else if (oids[i] != null)
+                    live++;
+            }
+
+            int capacity = oids.length;
+            if (live * 4 > capacity)
+                capacity *= 2;
+            _keys = new long[capacity];
+            _oids = new Object[capacity];
+            _size = 0;
+            for (int i = 0; i < oids.length; i++)
+                if (oids[i] != null)
+                    put(keys[i], oids[i]);
+        }
+
+        private int slot(long key, int mask) {
+            return (int) ((key * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        }
+    }
 }
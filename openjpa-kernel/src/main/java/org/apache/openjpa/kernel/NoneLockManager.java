@@ -45,4 +45,10 @@ public class NoneLockManager
     public int getLockLevel(OpenJPAStateManager sm) {
         return LOCK_NONE;
     }
+
+    public boolean reset() {
+        ctx = null;
+        log = null;
+        return true;
+    }
 }
@@ -21,7 +21,9 @@ package org.apache.openjpa.kernel;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Represents a savepoint where operations afterwards can be rolled
@@ -36,16 +38,35 @@ public class OpenJPASavepoint implements Serializable {
     private final Broker _broker;
     private final String _name;
     private final boolean _copy;
+    private final boolean _lazy;
 
      private Map<StateManagerImpl, SavepointFieldManager> _saved;
 
+    // states covered by a lazy savepoint
+    private Collection<StateManagerImpl> _states;
+
     /**
      * Constructor. Indicate whether to copy field data into memory.
      */
     public OpenJPASavepoint(Broker broker, String name, boolean copy) {
+        this(broker, name, copy, false);
+    }
+
+    /**
+     * Constructor. Indicate whether to copy field data into memory, and
+     * whether to do so lazily. A lazy savepoint saves nothing when it is set;
+     * instead it saves each field of a covered instance just before the
+     * field first changes, making it cheap to set and roll back savepoints
+     * in transactions that hold many more instances than they change.
+     *
+     * @since 3.0.0
+     */
+    public OpenJPASavepoint(Broker broker, String name, boolean copy,
+        boolean lazy) {
         _broker = broker;
         _name = name;
         _copy = copy;
+        _lazy = lazy;
     }
 
     /**
@@ -69,11 +90,33 @@ public class OpenJPASavepoint implements Serializable {
         return _copy;
     }
 
+    /**
+     * Whether this savepoint saves field values only as they change.
+     *
+     * @since 3.0.0
+     */
+    public boolean isLazy() {
+        return _lazy;
+    }
+
     /**
      * Return the map of states to savepoint data.
      */
     protected Map<StateManagerImpl, SavepointFieldManager> getStates() {
-        return _saved;
+        if (!_lazy || _states == null)
+            return _saved;
+
+        // states that did not change need a manager that leaves them as is
+        Map<StateManagerImpl, SavepointFieldManager> states =
+            new HashMap<StateManagerImpl, SavepointFieldManager>
+                ((int) (_states.size() * 1.33 + 1));
+        for (StateManagerImpl sm : _states) {
+            SavepointFieldManager fm = _saved.get(sm);
+            if (fm == null)
+                fm = new SavepointFieldManager(sm, _copy, true);
+            states.put(sm, fm);
+        }
+        return states;
     }
 
     /**
@@ -84,12 +127,48 @@ public class OpenJPASavepoint implements Serializable {
         if (_saved != null)
             throw new IllegalStateException();
 
+        if (_lazy) {
+            _states = (states instanceof Set) ? states
+                : new HashSet<StateManagerImpl>(states);
+            _saved = new HashMap<StateManagerImpl, SavepointFieldManager>();
+            for (StateManagerImpl sm : states) {
+                // mutable fields of new instances may not be proxied yet, and
+                // must be for their changes to be seen
+                if (sm.isNew())
+                    sm.proxyFields(false, false);
+            }
+            return;
+        }
+
         _saved = new HashMap<StateManagerImpl, SavepointFieldManager>((int) (states.size() * 1.33 + 1));
         for (StateManagerImpl sm : states) {
             _saved.put(sm, new SavepointFieldManager(sm, _copy));
         }
     }
 
+    /**
+     * Notification that the given instance is about to change. A lazy
+     * savepoint covering the instance saves its state and the given field,
+     * unless already saved. Pass a field of -1 to save only the state of the
+     * instance, other than its field values.
+     *
+     * @since 3.0.0
+     */
+    public void beforeChange(StateManagerImpl sm, int field) {
+        if (!_lazy || _states == null || !_states.contains(sm))
+            return;
+
+        SavepointFieldManager fm = _saved.get(sm);
+        if (fm == null) {
+            fm = new SavepointFieldManager(sm, _copy, true);
+            _saved.put(sm, fm);
+        }
+        if (field == -1)
+            fm.saveState();
+        else
+            fm.saveField(field);
+    }
+
     /**
      * Release this savepoint and any associated resources. Releases
      * will happen in reverse order of creation.
@@ -99,6 +178,7 @@ public class OpenJPASavepoint implements Serializable {
      */
     public void release(boolean user) {
         _saved = null;
+        _states = null;
     }
 
     /**
@@ -110,16 +190,17 @@ public class OpenJPASavepoint implements Serializable {
     public Collection<SavepointFieldManager> rollback(Collection<OpenJPASavepoint> previous) {
         Map<StateManagerImpl, SavepointFieldManager> saved;
         if (previous.isEmpty())
-            saved = _saved;
+            saved = getStates();
         else {
             // merge all changes into one collection, allowing for later
             // SavepointFieldManagers to replace previous ones.
             saved = new HashMap<StateManagerImpl, SavepointFieldManager>();
             for (OpenJPASavepoint savepoint : previous)
                 saved.putAll(savepoint.getStates());
-            saved.putAll(_saved);
+            saved.putAll(getStates());
         }
         _saved = null;
+        _states = null;
         return saved.values ();
 	}
 }
@@ -130,18 +130,21 @@ public interface OpenJPAStateManager
     public boolean isProvisional();
 
     /**
-     * Return a read-only mask of the indexes of all loaded fields.
+     * Return a read-only mask of the indexes of all loaded fields. The mask
+     * may be a snapshot that does not reflect later changes to this state.
      */
     public BitSet getLoaded();
 
     /**
-     * Return a read-only mask of the indexes of all dirty fields.
+     * Return a read-only mask of the indexes of all dirty fields. The mask
+     * may be a snapshot that does not reflect later changes to this state.
      */
     public BitSet getDirty();
 
     /**
      * Return a read-only mask of the indexes of all fields that have been
-     * flushed since they were last changed.
+     * flushed since they were last changed. The mask may be a snapshot that
+     * does not reflect later changes to this state.
      */
     public BitSet getFlushed();
 
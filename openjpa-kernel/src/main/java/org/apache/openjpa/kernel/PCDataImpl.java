@@ -23,6 +23,7 @@ import java.util.BitSet;
 import org.apache.openjpa.datacache.DataCache;
 import org.apache.openjpa.meta.ClassMetaData;
 import org.apache.openjpa.meta.FieldMetaData;
+import org.apache.openjpa.util.ImplHelper;
 
 /**
  * Default {@link PCData} implementation.
@@ -148,7 +149,7 @@ public class PCDataImpl
             // fields in configured fetch groups
             if (!isLoaded(i))
                 loadIntermediate(sm, fmds[i]);
-            else if (!sm.getLoaded().get(i) && fetch.requiresFetch(fmds[i]) 
+            else if (!ImplHelper.isLoaded(sm, i) && fetch.requiresFetch(fmds[i]) 
                 != FetchConfiguration.FETCH_NONE)
                 loadField(sm, fmds[i], fetch, context);
         }
@@ -233,7 +234,7 @@ public class PCDataImpl
     protected void loadIntermediate(OpenJPAStateManager sm, FieldMetaData fmd) {
         int index = fmd.getIndex();
         Object inter = getIntermediate(index);
-        if (inter != null && !sm.getLoaded().get(index))
+        if (inter != null && !ImplHelper.isLoaded(sm, index))
             sm.setIntermediate(index, inter);
     }
 
@@ -243,7 +244,7 @@ public class PCDataImpl
 
         FieldMetaData[] fmds = sm.getMetaData().getFields();
         for (int i = 0; i < fmds.length; i++) {
-            if (sm.getLoaded().get(i)) {
+            if (ImplHelper.isLoaded(sm, i)) {
                 storeField(sm, fmds[i]);
                 storeImplData(sm, fmds[i], isLoaded(i));
             } else if (!isLoaded(i))
@@ -108,4 +108,13 @@ public interface QueryHints {
      * if possible.
      */
     public static final String HINT_USE_LITERAL_IN_SQL = "openjpa.hint.UseLiteralInSQL";
+
+    /**
+     * A boolean directive to stream the results of a query: results are read
+     * through a forward-only cursor, are not retained by the result list, and
+     * their instances are detached from the persistence context as iteration
+     * advances past them, so that memory use does not grow with the number of
+     * results. The result list can only be traversed once, in order.
+     */
+    public static final String HINT_STREAM_RESULTS = "openjpa.hint.StreamResults";
 }
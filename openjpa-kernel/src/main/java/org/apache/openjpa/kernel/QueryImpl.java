@@ -25,11 +25,13 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.commons.collections.map.LinkedMap;
@@ -45,6 +47,7 @@ import org.apache.openjpa.kernel.exps.Literal;
 import org.apache.openjpa.kernel.exps.Path;
 import org.apache.openjpa.kernel.exps.QueryExpressions;
 import org.apache.openjpa.kernel.exps.Val;
+import org.apache.openjpa.lib.instrumentation.LatencyStatistics;
 import org.apache.openjpa.lib.log.Log;
 import org.apache.openjpa.lib.rop.BatchedResultObjectProvider;
 import org.apache.openjpa.lib.rop.EagerResultList;
@@ -53,6 +56,7 @@ import org.apache.openjpa.lib.rop.MergedResultObjectProvider;
 import org.apache.openjpa.lib.rop.RangeResultObjectProvider;
 import org.apache.openjpa.lib.rop.ResultList;
 import org.apache.openjpa.lib.rop.ResultObjectProvider;
+import org.apache.openjpa.lib.rop.StreamingResultList;
 import org.apache.openjpa.lib.util.ClassUtil;
 import org.apache.openjpa.lib.util.J2DoPrivHelper;
 import org.apache.openjpa.lib.util.Localizer;
@@ -824,13 +828,21 @@ public class QueryImpl
                     logExecution(operation, ex.getOrderedParameterTypes(_storeQuery),
                         params);
 
-                if (operation == OP_SELECT)
-                    return execute(_storeQuery, ex, params);
-                if (operation == OP_DELETE)
-                    return delete(_storeQuery, ex, params);
-                if (operation == OP_UPDATE)
-                    return update(_storeQuery, ex, params);
-                throw new UnsupportedException();
+                LatencyStatistics latency = _broker.getLatencyStatistics();
+                long start = (latency == null) ? 0 : System.nanoTime();
+                try {
+                    if (operation == OP_SELECT)
+                        return execute(_storeQuery, ex, params);
+                    if (operation == OP_DELETE)
+                        return delete(_storeQuery, ex, params);
+                    if (operation == OP_UPDATE)
+                        return update(_storeQuery, ex, params);
+                    throw new UnsupportedException();
+                } finally {
+                    if (latency != null)
+                        recordLatency(latency, System.nanoTime() - start,
+                            params);
+                }
             } catch (OpenJPAException ke) {
                 throw ke;
             } catch (Exception e) {
@@ -867,13 +879,21 @@ public class QueryImpl
                 if (_log.isTraceEnabled())
                     logExecution(operation, params);
 
-                if (operation == OP_SELECT)
-                    return execute(_storeQuery, ex, arr);
-                if (operation == OP_DELETE)
-                    return delete(_storeQuery, ex, arr);
-                if (operation == OP_UPDATE)
-                    return update(_storeQuery, ex, arr);
-                throw new UnsupportedException();
+                LatencyStatistics latency = _broker.getLatencyStatistics();
+                long start = (latency == null) ? 0 : System.nanoTime();
+                try {
+                    if (operation == OP_SELECT)
+                        return execute(_storeQuery, ex, arr);
+                    if (operation == OP_DELETE)
+                        return delete(_storeQuery, ex, arr);
+                    if (operation == OP_UPDATE)
+                        return update(_storeQuery, ex, arr);
+                    throw new UnsupportedException();
+                } finally {
+                    if (latency != null)
+                        recordLatency(latency, System.nanoTime() - start,
+                            arr);
+                }
             } catch (OpenJPAException ke) {
                 throw ke;
             } catch (Exception e) {
@@ -888,6 +908,20 @@ public class QueryImpl
         }
     }
 
+    /**
+     * Record the execution time of this query, if it has a query string.
+     */
+    private void recordLatency(LatencyStatistics latency, long nanos,
+        Object[] params) {
+        String query = getQueryString();
+        if (query == null)
+            return;
+        latency.recordExecution(query, nanos);
+        if (latency.isSlow(nanos))
+            latency.recordSlowQuery(query, (params.length == 0) ? null
+                : Arrays.toString(params), nanos);
+    }
+
     public long deleteAll() {
         return deleteAll((Object[]) null);
     }
@@ -1223,12 +1257,24 @@ public class QueryImpl
      * Return whether this should be treated as a potential large result set.
      */
     private boolean isLRS(long start, long end) {
+        if (isStreaming())
+            return true;
         long range = end - start;
         return _fc.getFetchBatchSize() >= 0
             && !(range <= _fc.getFetchBatchSize()
             || (_fc.getFetchBatchSize() == 0 && range <= 50));
     }
 
+    /**
+     * Return whether results should be streamed rather than retained.
+     *
+     * @see QueryHints#HINT_STREAM_RESULTS
+     */
+    private boolean isStreaming() {
+        Object hint = _fc.getHint(QueryHints.HINT_STREAM_RESULTS);
+        return hint != null && Boolean.valueOf(hint.toString());
+    }
+
     /**
      * Return the query result for the given result object provider.
      */
@@ -1259,7 +1305,10 @@ public class QueryImpl
         boolean lrs = range.lrs && !ex.isAggregate(q) && !ex.hasGrouping(q);
         ResultList<?> res = new ListResultList(Collections.emptyList());
         try {
-            res = (!detach && lrs) ? _fc.newResultList(rop) : new EagerResultList(rop);
+            if (lrs && isStreaming())
+                res = new StreamingResultList(new StreamingResultObjectProvider(rop, _broker));
+            else
+                res = (!detach && lrs) ? _fc.newResultList(rop) : new EagerResultList(rop);
             res.setUserObject(new Object[]{rop,ex});
             _resultLists.add(decorateResultList(res));
         } catch (OpenJPAException e) {
@@ -2126,6 +2175,163 @@ public class QueryImpl
         }
     }
 
+    /**
+     * Result object provider that releases the instances of a result from
+     * the broker when the provider advances past it, so that streaming a
+     * query does not accumulate managed instances. The related instances
+     * loaded with a result, such as eager relations, are released with it.
+     * Instances are detached in place, or released when detachment copies.
+     * Instances modified while iterating, and instances that were managed
+     * before the query was executed, remain managed.
+     */
+    public static class StreamingResultObjectProvider
+        implements ResultObjectProvider {
+
+        private final ResultObjectProvider _delegate;
+        private final Broker _broker;
+        private final boolean _copyOnDetach;
+        private final Set<Object> _managed = Collections.newSetFromMap(
+            new IdentityHashMap<Object,Boolean>());
+        private Object _last = null;
+
+        public StreamingResultObjectProvider(ResultObjectProvider delegate,
+            Broker broker) {
+            _delegate = delegate;
+            _broker = broker;
+            _copyOnDetach = broker.getConfiguration().
+                getCompatibilityInstance().getCopyOnDetach();
+        }
+
+        public boolean supportsRandomAccess() {
+            return false;
+        }
+
+        public void open()
+            throws Exception {
+            _managed.addAll(_broker.getManagedObjects());
+            _delegate.open();
+        }
+
+        public Object getResultObject()
+            throws Exception {
+            _last = _delegate.getResultObject();
+            return _last;
+        }
+
+        public boolean next()
+            throws Exception {
+            releaseLast();
+            return _delegate.next();
+        }
+
+        public boolean absolute(int pos)
+            throws Exception {
+            releaseLast();
+            return _delegate.absolute(pos);
+        }
+
+        public int size()
+            throws Exception {
+            return _delegate.size();
+        }
+
+        public void reset()
+            throws Exception {
+            releaseLast();
+            _delegate.reset();
+        }
+
+        public void close()
+            throws Exception {
+            try {
+                if (!_broker.isClosed())
+                    releaseLast();
+            } finally {
+                _managed.clear();
+                _delegate.close();
+            }
+        }
+
+        public void handleCheckedException(Exception e) {
+            _delegate.handleCheckedException(e);
+        }
+
+        public ResultObjectProvider getDelegate() {
+            return _delegate;
+        }
+
+        private void releaseLast() {
+            Object last = _last;
+            _last = null;
+            if (last == null)
+                return;
+
+            // collect the instances of the result and the related instances
+            // loaded with them before releasing any, as detaching clears
+            // the state the relations are read from
+            List<Object> pcs = new ArrayList<Object>();
+            Set<Object> seen = Collections.newSetFromMap(
+                new IdentityHashMap<Object,Boolean>());
+            if (last instanceof Object[]) {
+                Object[] arr = (Object[]) last;
+                for (int i = 0; i < arr.length; i++)
+                    collect(arr[i], pcs, seen);
+            } else
+                collect(last, pcs, seen);
+
+            for (Object pc : pcs) {
+                // may already have been detached by a cascade
+                if (_broker.getStateManager(pc) == null)
+                    continue;
+                if (_copyOnDetach)
+                    _broker.release(pc, null);
+                else
+                    _broker.detach(pc, null);
+            }
+        }
+
+        /**
+         * Add the given instance and the instances reachable through its
+         * loaded relations to the given list if they can be released.
+         */
+        private void collect(Object o, List<Object> pcs, Set<Object> seen) {
+            if (o == null || _managed.contains(o) || !seen.add(o))
+                return;
+            OpenJPAStateManager sm = _broker.getStateManager(o);
+            if (sm == null || sm.isEmbedded() || sm.isDetached() || sm.isNew()
+                || sm.isDirty() || sm.isDeleted())
+                return;
+            pcs.add(o);
+
+            FieldMetaData[] fmds = sm.getMetaData().getFields();
+            for (int i = 0; i < fmds.length; i++) {
+                if (fmds[i].isLRS() || !ImplHelper.isLoaded(sm, i)
+                    || !(fmds[i].isDeclaredTypePC()
+                    || fmds[i].getElement().isDeclaredTypePC()
+                    || fmds[i].getKey().isDeclaredTypePC()))
+                    continue;
+
+                Object val = sm.fetchField(i, false);
+                if (val instanceof Collection) {
+                    for (Object elem : (Collection<?>) val)
+                        collect(elem, pcs, seen);
+                } else if (val instanceof Map) {
+                    Map<?,?> map = (Map<?,?>) val;
+                    if (fmds[i].getKey().isDeclaredTypePC())
+                        for (Object key : map.keySet())
+                            collect(key, pcs, seen);
+                    if (fmds[i].getElement().isDeclaredTypePC())
+                        for (Object elem : map.values())
+                            collect(elem, pcs, seen);
+                } else if (val instanceof Object[]) {
+                    for (Object elem : (Object[]) val)
+                        collect(elem, pcs, seen);
+                } else
+                    collect(val, pcs, seen);
+            }
+        }
+    }
+
     /**
      * Result list that removes itself from the query's open result list
      * when it is closed. Public for testing.
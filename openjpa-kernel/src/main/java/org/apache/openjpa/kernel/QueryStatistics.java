@@ -263,6 +263,20 @@ public interface QueryStatistics<T> extends Serializable {
 			if (cached)
 				addSample(query, HIT);
 		}
+
+		/**
+		 * Record that the given query has been executed, and whether the
+		 * execution was a cache hit.
+		 * 
+		 * @since 3.0.0
+		 */
+		public void recordExecution(T query, boolean hit) {
+		    if (query == null)
+		        return;
+		    addSample(query, READ);
+		    if (hit)
+		        addSample(query, HIT);
+		}
 		
         public void recordEviction(T query) {
             if (query == null) {
@@ -48,14 +48,19 @@ class SavepointFieldManager
         (SavepointFieldManager.class);
 
     private final StateManagerImpl _sm;
-    private final BitSet _loaded;
-    private final BitSet _dirty;
-    private final BitSet _flush;
-    private final PCState _state;
+    private final boolean _copyAll;
+    private BitSet _loaded;
+    private BitSet _dirty;
+    private BitSet _flush;
+    private PCState _state;
     private transient PersistenceCapable _copy;
 
-    private final Object _version;
-    private final Object _loadVersion;
+    private Object _version;
+    private Object _loadVersion;
+
+    // fields saved so far by a lazy savepoint; null when all loaded fields
+    // were saved up front
+    private BitSet _saved;
 
     // used to track field value during store/fetch cycle
     private Object _field = null;
@@ -68,33 +73,81 @@ class SavepointFieldManager
      * copied regardless of copy setting.
      */
     public SavepointFieldManager(StateManagerImpl sm, boolean copy) {
-        _sm = sm;
-        _state = _sm.getPCState();
+        this(sm, copy, false);
+    }
 
-        _dirty = (BitSet) _sm.getDirty().clone();
-        _flush = (BitSet) _sm.getFlushed().clone();
-        _loaded = (BitSet) _sm.getLoaded().clone();
+    /**
+     * Constructor. If <code>lazy</code> is true, nothing is saved until the
+     * instance is about to change; see {@link #saveField}. A lazy manager
+     * that never saved anything leaves the instance untouched on rollback.
+     *
+     * @since 3.0.0
+     */
+    public SavepointFieldManager(StateManagerImpl sm, boolean copy,
+        boolean lazy) {
+        _sm = sm;
+        _copyAll = copy;
+        if (lazy) {
+            _saved = new BitSet();
+            return;
+        }
 
+        saveState();
         FieldMetaData[] fields = _sm.getMetaData().getFields();
         for (int i = 0; i < _loaded.length(); i++) {
             if (!_loaded.get(i))
                 continue;
-            if (copy || fields[i].getManagement() ==
-                FieldMetaData.MANAGE_TRANSACTIONAL) {
-                if (_copy == null)
-                    _copy = _sm.getPersistenceCapable().pcNewInstance
-                        (_sm, true);
+            if (isCopied(fields[i]))
                 storeField(fields[i]);
-            } else
+            else
                 _loaded.clear(i);
         }
 
         // we need to proxy the fields so that we can track future changes
         // from this savepoint forward for PNew instances' mutable fields
         _sm.proxyFields(false, false);
+    }
+
+    /**
+     * Save the state of the instance, other than its field values, if it
+     * has not been saved yet.
+     */
+    void saveState() {
+        if (_state != null)
+            return;
+
+        _state = _sm.getPCState();
+        _dirty = (BitSet) _sm.getDirty().clone();
+        _flush = (BitSet) _sm.getFlushed().clone();
+        _loaded = (_saved == null) ? (BitSet) _sm.getLoaded().clone()
+            : new BitSet();
+        _version = _sm.getVersion();
+        _loadVersion = _sm.getLoadVersion();
+    }
+
+    /**
+     * Save the given field of a lazy savepoint if it has not been saved
+     * yet, along with the state of the instance.
+     */
+    void saveField(int field) {
+        saveState();
+        if (_saved.get(field))
+            return;
+
+        _saved.set(field);
+        FieldMetaData fmd = _sm.getMetaData().getField(field);
+        if (_sm.isLoaded(field) && isCopied(fmd)) {
+            _loaded.set(field);
+            storeField(fmd);
+        }
+    }
 
-        _version = _sm.getVersion ();
-        _loadVersion = _sm.getLoadVersion ();
+    /**
+     * Whether the given field is copied into this savepoint.
+     */
+    private boolean isCopied(FieldMetaData fmd) {
+        return _copyAll
+            || fmd.getManagement() == FieldMetaData.MANAGE_TRANSACTIONAL;
     }
 
     /**
@@ -120,7 +173,8 @@ class SavepointFieldManager
     }
 
     /**
-     * Return the saved {@link PCState}
+     * Return the saved {@link PCState}, or null if a lazy savepoint has
+     * not saved anything for the instance.
      */
     public PCState getPCState() {
         return _state;
@@ -133,6 +187,15 @@ class SavepointFieldManager
         return _loaded;
     }
 
+    /**
+     * Return the fields saved by a lazy savepoint, whether or not they were
+     * loaded at the time, or null if the savepoint saved all loaded fields
+     * when it was set.
+     */
+    public BitSet getSaved() {
+        return _saved;
+    }
+
     /**
      * Return the dirty fields during the saved state.
      */
@@ -151,6 +214,8 @@ class SavepointFieldManager
      * Store the data for the given field.
      */
     public void storeField(FieldMetaData field) {
+        if (_copy == null)
+            _copy = _sm.getPersistenceCapable().pcNewInstance(_sm, true);
         switch (field.getDeclaredTypeCode()) {
             case JavaTypes.DATE:
             case JavaTypes.ARRAY:
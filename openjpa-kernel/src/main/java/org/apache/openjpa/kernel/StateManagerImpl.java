@@ -113,6 +113,15 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     // information about the instance
     private transient PersistenceCapable _pc = null;
     protected transient ClassMetaData _meta = null;
+
+    // field state masks. Types with at most 64 fields keep the masks inline
+    // in the long fields and leave the BitSets null; wider types use the
+    // BitSets
+    private boolean _wide = false;
+    private long _loadedBits = 0;
+    private long _dirtyBits = 0;
+    private long _flushBits = 0;
+    private long _delayedBits = 0;
     protected BitSet _loaded = null;
     
     // Care needs to be taken when accessing these fields as they will can be null if no fields are
@@ -219,10 +228,16 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
         _pc.pcReplaceStateManager(this);
         _state = newState;
 
-        // clone the field bitsets. 
-        _dirty=(BitSet)sm.getDirty().clone();
-        _loaded = (BitSet)sm.getLoaded().clone();
-        _flush = (BitSet) sm.getFlushed().clone();
+        // clone the field masks
+        _wide = sm._wide;
+        _loadedBits = sm._loadedBits;
+        _dirtyBits = sm._dirtyBits;
+        _flushBits = sm._flushBits;
+        if (_wide) {
+            _dirty = (BitSet) sm.getDirty().clone();
+            _loaded = (BitSet) sm.getLoaded().clone();
+            _flush = (BitSet) sm.getFlushed().clone();
+        }
         _version = sm.getVersion();
         
         _oid = sm.getObjectId(); 
@@ -270,6 +285,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
             return;
 
         PCState prev = _state;
+        _broker.beforeSavepointChange(this, -1);
         lock();
         try {
             // notify the store manager that we're changing states; can veto
@@ -356,11 +372,13 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
         pc.pcReplaceStateManager(this);
 
         FieldMetaData[] fmds = _meta.getFields();
-        _loaded = new BitSet(fmds.length);
+        _wide = fmds.length > Long.SIZE;
+        _loadedBits = 0;
+        _loaded = (_wide) ? new BitSet(fmds.length) : null;
         
         // mark primary key and non-persistent fields as loaded
         for(int i : _meta.getPkAndNonPersistentManagedFmdIndexes()){
-            _loaded.set(i);
+            setLoadedBit(i, true);
         }
             
         _mappedByIdFields = _meta.getMappyedByIdFields();
@@ -491,8 +509,21 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
         return (_flags & FLAG_FLUSHED_DIRTY) > 0;
     }
 
+    /**
+     * Types with at most 64 fields keep their masks in a long, so for them
+     * this returns a new mask that does not track later changes.
+     */
     public BitSet getLoaded() {
-        return _loaded;
+        return (_wide) ? _loaded : toBitSet(_loadedBits);
+    }
+
+    /**
+     * Return whether the given field is loaded, without creating a mask.
+     *
+     * @since 3.0.0
+     */
+    public boolean isLoaded(int field) {
+        return (_wide) ? _loaded.get(field) : (_loadedBits & (1L << field)) != 0;
     }
 
     public BitSet getUnloaded(FetchConfiguration fetch) {
@@ -515,7 +546,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
         FieldMetaData[] fmds = _meta.getFields();
         boolean load;
         for (int i = 0; i < fmds.length; i++) {
-            if (_loaded.get(i) || (exclude != null && exclude.get(i)))
+            if (isLoaded(i) || (exclude != null && exclude.get(i)))
                 continue;
 
             switch (mode) {
@@ -794,7 +825,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     }
 
     public synchronized boolean isImplDataCacheable(int field) {
-        if (_fieldImpl == null || !_loaded.get(field))
+        if (_fieldImpl == null || !isLoaded(field))
             return false;
         if (_meta.getField(field).usesImplData() != null)
             return false;
@@ -817,7 +848,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
         // only return the field data if the field is in the right loaded
         // state; otherwise we might return intermediate for impl data or
         // vice versa
-        if (_fieldImpl == null || _loaded.get(field) != isLoaded)
+        if (_fieldImpl == null || isLoaded(field) != isLoaded)
             return null;
         int idx = _meta.getExtraFieldDataIndex(field);
         return (idx == -1) ? null : _fieldImpl[idx];
@@ -835,7 +866,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
         Object old = (_fieldImpl == null) ? null : _fieldImpl[idx];
         if (data != null) {
             // cannot set if field in wrong loaded state
-            if (_loaded.get(field) != loaded)
+            if (isLoaded(field) != loaded)
                 throw new InternalException(String.valueOf(_meta.getField
                     (field)));
 
@@ -843,7 +874,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
             if (_fieldImpl == null)
                 _fieldImpl = new Object[_meta.getExtraFieldDataLength()];
             _fieldImpl[idx] = data;
-        } else if (_fieldImpl != null && _loaded.get(field) == loaded)
+        } else if (_fieldImpl != null && isLoaded(field) == loaded)
             _fieldImpl[idx] = null;
         return old;
     }
@@ -935,7 +966,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
             // pk and version fields cannot be mutated; don't mark them
             // as such. ##### validate?
             if (!fmds[i].isPrimaryKey() && !fmds[i].isVersion()
-                && _loaded.get(i)) {
+                && isLoaded(i)) {
                 if (!saved.isFieldEqual(i, fetch(i))) {
                     dirty(i);
                 }
@@ -977,7 +1008,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
 
         lock();
         try {
-            if (_saved == null || !_loaded.get(field) || !isFieldDirty(field))
+            if (_saved == null || !isLoaded(field) || !isDirty(field))
                 return fetchField(field, false);
 
             // if the field is dirty but we never loaded it, we can't restore it
@@ -1093,7 +1124,9 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
 
             // all dirty fields were flushed, we are referencing the _dirty BitSet directly here
             // because we don't want to instantiate it if we don't have to.
-            if (_dirty != null) {
+            if (!_wide) {
+                _flushBits |= _dirtyBits;
+            } else if (_dirty != null) {
                 getFlushed().or(_dirty);
             }
 
@@ -1186,6 +1219,11 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
      * Rollback state of the managed instance to the given savepoint.
      */
     void rollbackToSavepoint(SavepointFieldManager savepoint) {
+        // nothing to restore if the instance has not changed since a lazy
+        // savepoint was set
+        if (savepoint.getPCState() == null)
+            return;
+
         _state = savepoint.getPCState();
         BitSet loaded = savepoint.getLoaded();
         for (int i = 0, len = loaded.length(); i < len; i++) {
@@ -1194,9 +1232,25 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
                 replaceField(_pc, savepoint, i);
             }
         }
-        _loaded = loaded;
-        _dirty = savepoint.getDirty();
-        _flush = savepoint.getFlushed();
+
+        // fields a lazy savepoint did not save have not changed since
+        BitSet saved = savepoint.getSaved();
+        if (saved == null) {
+            if (_wide)
+                _loaded = loaded;
+            else
+                _loadedBits = toBits(loaded);
+        } else
+            for (int i = saved.nextSetBit(0); i >= 0;
+                i = saved.nextSetBit(i + 1))
+                setLoadedBit(i, loaded.get(i));
+        if (_wide) {
+            _dirty = savepoint.getDirty();
+            _flush = savepoint.getFlushed();
+        } else {
+            _dirtyBits = toBits(savepoint.getDirty());
+            _flushBits = toBits(savepoint.getFlushed());
+        }
         _version = savepoint.getVersion();
         _loadVersion = savepoint.getLoadVersion();
     }
@@ -1292,7 +1346,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     void gatherCascadeRefresh(OpCallbacks call) {
         FieldMetaData[] fmds = _meta.getFields();
         for (int i = 0; i < fmds.length; i++) {
-            if (!_loaded.get(i))
+            if (!isLoaded(i))
                 continue;
 
             if (fmds[i].getCascadeRefresh() == ValueMetaData.CASCADE_IMMEDIATE
@@ -1326,7 +1380,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
             // if some fields have been loaded but the instance is out of
             // date or this is part of a refreshAll() and we don't want to
             // take the extra hit to see if the instance is out of date, clear
-            if (_loaded.length() > 0 && (refreshAll || isEmbedded()
+            if (loadedLength() > 0 && (refreshAll || isEmbedded()
                 || !syncVersion(null))) {
                 Object version = _version;
                 clearFields();
@@ -1617,7 +1671,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
         try {
             // If this field is loaded, and not a PK field allow pass through
             // TODO -- what about version fields? Could probably UT this
-            if(_loaded.get(field) && !_meta.getField(field).isPrimaryKey())
+            if(isLoaded(field) && !_meta.getField(field).isPrimaryKey())
                 return;
                 
             beforeRead(field);
@@ -1628,6 +1682,9 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     }
 
     public boolean isDelayed(int field) {
+        if (!_wide) {
+            return (_delayedBits & (1L << field)) != 0;
+        }
         if (_delayed == null) {
             return false;
         }
@@ -1635,6 +1692,14 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     }
 
     public void setDelayed(int field, boolean delay) {
+        if (!_wide) {
+            if (delay) {
+                _delayedBits |= 1L << field;
+            } else {
+                _delayedBits &= ~(1L << field);
+            }
+            return;
+        }
         if (_delayed == null) {
             _delayed = new BitSet();
         }
@@ -1669,7 +1734,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
                     setFailedObject(getManagedInstance());
             }
             // Cleared the delayed bit
-            _delayed.clear(field);
+            setDelayed(field, false);
             obtainLocks(active, false, lockLevel, null, null);
         } catch (RuntimeException re) {
             throw translate(re);
@@ -1686,7 +1751,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
         try {
             boolean active = _broker.isActive();
             int lockLevel = calculateLockLevel(active, false, null);
-            if (!_loaded.get(field))
+            if (!isLoaded(field))
                 loadField(field, lockLevel, false, true);
             else
                 assignField(field, false);
@@ -1731,6 +1796,9 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
         boolean newFlush = false;
         boolean clean = false;
         try {
+            // let lazy savepoints save the field before it changes
+            _broker.beforeSavepointChange(this, field);
+
             FieldMetaData fmd = _meta.getField(field);
             if (!isNew() || isFlushed()) {
                 if (fmd.getUpdateStrategy() == UpdateStrategies.RESTRICT)
@@ -1812,7 +1880,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
 
             // dirty the field and mark loaded; load fetch group if needed
             int lockLevel = calculateLockLevel(active, true, null);
-            if (!isFieldDirty(field)) {
+            if (!isDirty(field)) {
                 setLoaded(field, true);
                 setFieldDirty(field);
 
@@ -1939,7 +2007,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     public void settingBooleanField(PersistenceCapable pc, int field,
         boolean curVal, boolean newVal, int set) {
         if (set != SET_REMOTE) {
-            if (newVal == curVal && _loaded.get(field))
+            if (newVal == curVal && isLoaded(field))
                 return;
             assertNoPrimaryKeyChange(field);
         }
@@ -1958,7 +2026,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     public void settingByteField(PersistenceCapable pc, int field,
         byte curVal, byte newVal, int set) {
         if (set != SET_REMOTE) {
-            if (newVal == curVal && _loaded.get(field))
+            if (newVal == curVal && isLoaded(field))
                 return;
             assertNoPrimaryKeyChange(field);
         }
@@ -1977,7 +2045,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     public void settingCharField(PersistenceCapable pc, int field,
         char curVal, char newVal, int set) {
         if (set != SET_REMOTE) {
-            if (newVal == curVal && _loaded.get(field))
+            if (newVal == curVal && isLoaded(field))
                 return;
             assertNoPrimaryKeyChange(field);
         }
@@ -1996,7 +2064,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     public void settingDoubleField(PersistenceCapable pc, int field,
         double curVal, double newVal, int set) {
         if (set != SET_REMOTE) {
-            if (newVal == curVal && _loaded.get(field))
+            if (newVal == curVal && isLoaded(field))
                 return;
             assertNoPrimaryKeyChange(field);
         }
@@ -2015,7 +2083,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     public void settingFloatField(PersistenceCapable pc, int field,
         float curVal, float newVal, int set) {
         if (set != SET_REMOTE) {
-            if (newVal == curVal && _loaded.get(field))
+            if (newVal == curVal && isLoaded(field))
                 return;
             assertNoPrimaryKeyChange(field);
         }
@@ -2034,7 +2102,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     public void settingIntField(PersistenceCapable pc, int field,
         int curVal, int newVal, int set) {
         if (set != SET_REMOTE) {
-            if (newVal == curVal && _loaded.get(field))
+            if (newVal == curVal && isLoaded(field))
                 return;
             assertNoPrimaryKeyChange(field);
         }
@@ -2053,7 +2121,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     public void settingLongField(PersistenceCapable pc, int field,
         long curVal, long newVal, int set) {
         if (set != SET_REMOTE) {
-            if (newVal == curVal && _loaded.get(field))
+            if (newVal == curVal && isLoaded(field))
                 return;
             assertNoPrimaryKeyChange(field);
         }
@@ -2073,7 +2141,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
         Object curVal, Object newVal, int set) {
         if (set != SET_REMOTE) {
             FieldMetaData fmd = _meta.getField(field);
-            if (_loaded.get(field)) {
+            if (isLoaded(field)) {
                 if (newVal == curVal)
                     return;
 
@@ -2142,7 +2210,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     public void settingShortField(PersistenceCapable pc, int field,
         short curVal, short newVal, int set) {
         if (set != SET_REMOTE) {
-            if (newVal == curVal && _loaded.get(field))
+            if (newVal == curVal && isLoaded(field))
                 return;
             assertNoPrimaryKeyChange(field);
         }
@@ -2161,7 +2229,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     public void settingStringField(PersistenceCapable pc, int field,
         String curVal, String newVal, int set) {
         if (set != SET_REMOTE) {
-            if (Objects.equals(newVal, curVal) && _loaded.get(field))
+            if (Objects.equals(newVal, curVal) && isLoaded(field))
                 return;
             assertNoPrimaryKeyChange(field);
         }
@@ -2309,7 +2377,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     public boolean fetchBooleanField(int field) {
         lock();
         try {
-            if (!_loaded.get(field))
+            if (!isLoaded(field))
                 loadField(field, LockLevels.LOCK_NONE, false, false);
 
             provideField(_pc, _single, field);
@@ -2331,7 +2399,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     public byte fetchByteField(int field) {
         lock();
         try {
-            if (!_loaded.get(field))
+            if (!isLoaded(field))
                 loadField(field, LockLevels.LOCK_NONE, false, false);
 
             provideField(_pc, _single, field);
@@ -2353,7 +2421,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     public char fetchCharField(int field) {
         lock();
         try {
-            if (!_loaded.get(field))
+            if (!isLoaded(field))
                 loadField(field, LockLevels.LOCK_NONE, false, false);
 
             provideField(_pc, _single, field);
@@ -2375,7 +2443,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     public double fetchDoubleField(int field) {
         lock();
         try {
-            if (!_loaded.get(field))
+            if (!isLoaded(field))
                 loadField(field, LockLevels.LOCK_NONE, false, false);
 
             provideField(_pc, _single, field);
@@ -2397,7 +2465,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     public float fetchFloatField(int field) {
         lock();
         try {
-            if (!_loaded.get(field))
+            if (!isLoaded(field))
                 loadField(field, LockLevels.LOCK_NONE, false, false);
 
             provideField(_pc, _single, field);
@@ -2419,7 +2487,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     public int fetchIntField(int field) {
         lock();
         try {
-            if (!_loaded.get(field))
+            if (!isLoaded(field))
                 loadField(field, LockLevels.LOCK_NONE, false, false);
 
             provideField(_pc, _single, field);
@@ -2441,7 +2509,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     public long fetchLongField(int field) {
         lock();
         try {
-            if (!_loaded.get(field))
+            if (!isLoaded(field))
                 loadField(field, LockLevels.LOCK_NONE, false, false);
 
             provideField(_pc, _single, field);
@@ -2463,7 +2531,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     public Object fetchObjectField(int field) {
         lock();
         try {
-            if (!_loaded.get(field))
+            if (!isLoaded(field))
                 loadField(field, LockLevels.LOCK_NONE, false, false);
 
             provideField(_pc, _single, field);
@@ -2485,7 +2553,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     public short fetchShortField(int field) {
         lock();
         try {
-            if (!_loaded.get(field))
+            if (!isLoaded(field))
                 loadField(field, LockLevels.LOCK_NONE, false, false);
 
             provideField(_pc, _single, field);
@@ -2507,7 +2575,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     public String fetchStringField(int field) {
         lock();
         try {
-            if (!_loaded.get(field))
+            if (!isLoaded(field))
                 loadField(field, LockLevels.LOCK_NONE, false, false);
 
             provideField(_pc, _single, field);
@@ -2789,6 +2857,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
         _flags &= ~FLAG_FLUSHED_DIRTY;
 
         _flush = null;
+        _flushBits = 0;
     }
 
     /**
@@ -2842,6 +2911,11 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
 
         fireLifecycleEvent(LifecycleEvent.BEFORE_CLEAR);
 
+        // let lazy savepoints save the fields we're about to clear
+        for (int i = 0, len = loadedLength(); i < len; i++)
+            if (isLoaded(i))
+                _broker.beforeSavepointChange(this, i);
+
         // unproxy all fields
         unproxyFields();
 
@@ -2879,7 +2953,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
 
         _flags |= FLAG_SAVE;
         if (immediate) {
-            for (int i = 0, len = _loaded.length(); i < len; i++)
+            for (int i = 0, len = loadedLength(); i < len; i++)
                 saveField(i);
             _flags &= ~FLAG_SAVE;
             // OPENJPA-659
@@ -2901,14 +2975,14 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
 
         // if this is a managed inverse field, load it so we're sure to have
         // the original value
-        if (!_loaded.get(field) && ((_flags & FLAG_INVERSES) != 0
+        if (!isLoaded(field) && ((_flags & FLAG_INVERSES) != 0
             && _meta.getField(field).getInverseMetaDatas().length > 0))
             loadField(field, LockLevels.LOCK_NONE, false, false);
 
         // don't bother creating the save field manager if we're not going to
         // save the old field value anyway
         if (_saved == null) {
-            if (_loaded.get(field))
+            if (isLoaded(field))
                 _saved = new SaveFieldManager(this, null, getDirty());
             else
                 return;
@@ -2948,20 +3022,27 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
             if (_saved == null) {
                 if ((_flags & FLAG_SAVE) == 0)
                     clearFields();
-                else // only unloaded fields were dirtied
-                    _loaded.andNot(_loaded);
+                else { // only unloaded fields were dirtied
+                    if (_wide)
+                        _loaded.clear();
+                    else
+                        _loadedBits = 0;
+                }
             }
             // we direct state transitions based on our own getRestoreState
             // method, but to decide whether to actually rollback field
             // values, we consult the broker for the user's setting
             else if (_broker.getRestoreState() != RestoreState.RESTORE_NONE) {
                 // rollback all currently-loaded fields
-                for (int i = 0, len = _loaded.length(); i < len; i++)
-                    if (_loaded.get(i) && _saved.restoreField(i))
+                for (int i = 0, len = loadedLength(); i < len; i++)
+                    if (isLoaded(i) && _saved.restoreField(i))
                         replaceField(_pc, _saved, i);
 
                 // rollback loaded set
-                _loaded.andNot(_saved.getUnloaded());
+                if (_wide)
+                    _loaded.andNot(_saved.getUnloaded());
+                else
+                    _loadedBits &= ~toBits(_saved.getUnloaded());
             }
         }
         finally {
@@ -2990,7 +3071,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
             for (FieldMetaData fmd : _meta.getProxyFields()) {
                 int index = fmd.getIndex();
                 // only reload if dirty
-                if (_loaded.get(index) && isFieldDirty(index)) {
+                if (isLoaded(index) && isDirty(index)) {
                     provideField(_pc, _single, index);
                     if (_single.proxy(reset, replaceNull)) {
                         replaceField(_pc, _single, index);
@@ -3013,7 +3094,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
 
         lock();
         try {
-            for (int i = 0, len = _loaded.length(); i < len; i++) {
+            for (int i = 0, len = loadedLength(); i < len; i++) {
                 provideField(_pc, _single, i);
                 _single.unproxy();
                 _single.releaseEmbedded();
@@ -3050,7 +3131,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
             if (!logical)
                 assignObjectId(false, true);
             for (int i = 0, len = _meta.getFields().length; i < len; i++) {
-                if ((logical || !assignField(i, true)) && !isFieldFlushed(i) && isFieldDirty(i)) {
+                if ((logical || !assignField(i, true)) && !isFlushed(i) && isDirty(i)) {
                     provideField(_pc, _single, i);
                     if (_single.preFlush(logical, call))
                         replaceField(_pc, _single, i);
@@ -3108,7 +3189,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     void cascadePersist(OpCallbacks call) {
         FieldMetaData[] fmds = _meta.getFields();
         for (int i = 0; i < fmds.length; i++) {
-            if (!_loaded.get(i))
+            if (!isLoaded(i))
                 continue;
 
             if (fmds[i].getCascadePersist() == ValueMetaData.CASCADE_IMMEDIATE
@@ -3156,7 +3237,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
             // If the _loadVersion field is null AND the version field has been loaded, skip calling sync version.
             // This indicates that the DB has a null value for the version column. 
             FieldMetaData versionMeta = _meta != null ? _meta.getVersionField() : null;
-            if (_loadVersion == null && (versionMeta != null && !_loaded.get(versionMeta.getIndex()))) {
+            if (_loadVersion == null && (versionMeta != null && !isLoaded(versionMeta.getIndex()))) {
                 syncVersion(sdata);
                 ret = ret || _loadVersion != null;
             }
@@ -3194,7 +3275,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
         if (lfg != null) {  
             FieldMetaData[] fmds = _meta.getFields();
             for (int i = 0; i < fmds.length; i++) {
-                if (!_loaded.get(i) && (i == field
+                if (!isLoaded(i) && (i == field
                     || fmds[i].isInFetchGroup(lfg))) {
                     if (fields == null)
                         fields = new BitSet(fmds.length);
@@ -3212,7 +3293,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
             // no load group but dfg: add dfg fields if we haven't already
             if (!unloadedDFGFieldMarked)
                 fields = getUnloadedInternal(fetch, LOAD_FGS, null);
-        } else if (!_loaded.get(fmd.getIndex())) {
+        } else if (!isLoaded(fmd.getIndex())) {
             // no load group or dfg: load individual field
             if (fields == null)
                 fields = new BitSet();
@@ -3261,7 +3342,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     private void setLoaded(int field, boolean isLoaded) {
         // don't continue if loaded state is already correct; otherwise we
         // can end up clearing _fieldImpl when we shouldn't
-        if (_loaded.get(field) == isLoaded)
+        if (isLoaded(field) == isLoaded)
             return;
 
         // if loading, clear intermediate data; if unloading, clear impl data
@@ -3271,10 +3352,44 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
                 _fieldImpl[idx] = null;
         }
 
-        if (isLoaded)
-            _loaded.set(field);
-        else
-            _loaded.clear(field);
+        setLoadedBit(field, isLoaded);
+    }
+
+    /**
+     * Set or clear the loaded bit of the given field.
+     */
+    private void setLoadedBit(int field, boolean isLoaded) {
+        if (_wide) {
+            _loaded.set(field, isLoaded);
+        } else if (isLoaded) {
+            _loadedBits |= 1L << field;
+        } else {
+            _loadedBits &= ~(1L << field);
+        }
+    }
+
+    /**
+     * Return the index of the highest loaded field plus one.
+     */
+    private int loadedLength() {
+        return (_wide) ? _loaded.length() : Long.SIZE - Long.numberOfLeadingZeros(_loadedBits);
+    }
+
+    /**
+     * Return a new bit set holding the given mask.
+     */
+    private static BitSet toBitSet(long bits) {
+        return BitSet.valueOf(new long[] { bits });
+    }
+
+    /**
+     * Return the mask held by the given bit set of a type with at most 64
+     * fields.
+     */
+    private static long toBits(BitSet bits) {
+        if (bits == null || bits.isEmpty())
+            return 0;
+        return bits.toLongArray()[0];
     }
 
     /**
@@ -3343,7 +3458,7 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
 
         FieldMetaData[] fmds = _meta.getFields();
         for (int i = 0; i < fmds.length; i++)
-            if (!_loaded.get(i) && fmds[i].isInFetchGroup(fgName))
+            if (!isLoaded(i) && fmds[i].isInFetchGroup(fgName))
                 return false;
 
         _flags |= FLAG_LOADED;
@@ -3505,13 +3620,25 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     }
 
     public BitSet getFlushed() {
+        if (!_wide) {
+            return toBitSet(_flushBits);
+        }
         if (_flush == null) {
             _flush = new BitSet(_meta.getFields().length);
         }
         return _flush;
     }
 
-    private boolean isFieldFlushed(int index) {
+    /**
+     * Return whether the given field has been flushed since it was last
+     * changed, without creating a mask.
+     *
+     * @since 3.0.0
+     */
+    public boolean isFlushed(int index) {
+        if (!_wide) {
+            return (_flushBits & (1L << index)) != 0;
+        }
         if (_flush == null) {
             return false;
         }
@@ -3522,19 +3649,32 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
      * Will clear the bit at the specified if the _flush BetSet has been created.
      */
     private void clearFlushField(int index) {
-        if (_flush != null) {
+        if (!_wide) {
+            _flushBits &= ~(1L << index);
+        } else if (_flush != null) {
             getFlushed().clear(index);
         }
     }
 
     public BitSet getDirty() {
+        if (!_wide) {
+            return toBitSet(_dirtyBits);
+        }
         if (_dirty == null) {
             _dirty = new BitSet(_meta.getFields().length);
         }
         return _dirty;
     }
 
-    private boolean isFieldDirty(int index) {
+    /**
+     * Return whether the given field is dirty, without creating a mask.
+     *
+     * @since 3.0.0
+     */
+    public boolean isDirty(int index) {
+        if (!_wide) {
+            return (_dirtyBits & (1L << index)) != 0;
+        }
         if (_dirty == null) {
             return false;
         }
@@ -3542,14 +3682,20 @@ public class StateManagerImpl implements OpenJPAStateManager, Serializable {
     }
 
     private void setFieldDirty(int index) {
-        getDirty().set(index);
+        if (!_wide) {
+            _dirtyBits |= 1L << index;
+        } else {
+            getDirty().set(index);
+        }
     }
 
     /**
      * Will clear the bit at the specified index if the _dirty BetSet has been created.
      */
     private void clearDirty(int index) {
-        if (_dirty != null) {
+        if (!_wide) {
+            _dirtyBits &= ~(1L << index);
+        } else if (_dirty != null) {
             getDirty().clear(index);
         }
     }
@@ -157,4 +157,11 @@ public class VersionLockManager
     public boolean getVersionUpdateOnWriteLock() {
         return _versionUpdateOnWriteLock;
     }
+
+    public boolean reset() {
+        ctx = null;
+        log = null;
+        _refreshing = false;
+        return true;
+    }
 }
@@ -23,6 +23,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.lang.reflect.Method;
 import java.net.MalformedURLException;
 import java.net.URL;
@@ -39,6 +40,12 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
@@ -83,6 +90,18 @@ public abstract class AbstractCFMetaDataFactory
     protected Collection<String> cpath = null;
 
     private Set<String> _typeNames = null;
+    private int _scanThreads = 1;
+    private String _scanIndex = null;
+    private PersistentTypeIndex _index = null;
+    private PersistentTypeIndex _record = null;
+
+    private static final ThreadFactory SCAN_THREADS = new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "OpenJPA Scan");
+            t.setDaemon(true);
+            return t;
+        }
+    };
     public static final String PERSISTENCE_UNIT_ROOT_URL = "PersistenceUnitRootUrl";
     public static final String MAPPING_FILE_NAMES = "MappingFileNames";
     public static final String JAR_FILE_URLS = "JarFiles";
@@ -176,6 +195,68 @@ public abstract class AbstractCFMetaDataFactory
           : new ArrayList<String>(Arrays.asList(StringUtil.split(cpath, ";", 0)));
     }
 
+    /**
+     * The number of threads that scan jars and directories for persistent
+     * types concurrently. Defaults to 1, which scans all locations on the
+     * calling thread.
+     *
+     * @since 3.0.0
+     */
+    public int getScanThreads() {
+        return _scanThreads;
+    }
+
+    /**
+     * The number of threads that scan jars and directories for persistent
+     * types concurrently.
+     *
+     * @since 3.0.0
+     */
+    public void setScanThreads(int threads) {
+        _scanThreads = threads;
+    }
+
+    /**
+     * Path or resource name of a {@link PersistentTypeIndex} that lists the
+     * persistent types of jars and directories. A location whose checksum
+     * matches its index entry is not scanned.
+     *
+     * @since 3.0.0
+     */
+    public String getScanIndex() {
+        return _scanIndex;
+    }
+
+    /**
+     * Path or resource name of a {@link PersistentTypeIndex} that lists the
+     * persistent types of jars and directories.
+     *
+     * @since 3.0.0
+     */
+    public void setScanIndex(String index) {
+        _scanIndex = StringUtil.isEmpty(index) ? null : index;
+        _index = null;
+    }
+
+    /**
+     * Scan the configured locations, ignoring any configured scan index, and
+     * return an index of the persistent type names found in each jar and
+     * directory.
+     *
+     * @since 3.0.0
+     */
+    public PersistentTypeIndex buildScanIndex(ClassLoader loader)
+        throws IOException {
+        PersistentTypeIndex index = new PersistentTypeIndex();
+        _record = index;
+        try {
+            parsePersistentTypeNames(loader);
+        } finally {
+            _record = null;
+        }
+        return index;
+    }
+
     public boolean store(ClassMetaData[] metas, QueryMetaData[] queries,
         SequenceMetaData[] seqs, int mode, Map<File,String> output) {
         if (mode == MODE_NONE)
@@ -620,10 +701,13 @@ public abstract class AbstractCFMetaDataFactory
             long start = System.currentTimeMillis();
 
             Set names = parsePersistentTypeNames(loader);
-            if (names.isEmpty() && devpath)
-                scan(new ClasspathMetaDataIterator(null, newMetaDataFilter()),
-                    newClassArgParser(), names, false, null);
-            else // we don't cache a full dev cp scan
+            if (names.isEmpty() && devpath) {
+                ScanBatch batch = new ScanBatch(newClassArgParser(), names);
+                for (File file : ClasspathMetaDataIterator
+                    .getClasspathFiles(null))
+                    batch.add(file, false, file);
+                batch.run();
+            } else // we don't cache a full dev cp scan
                 _typeNames = names;
 
             if (log.isTraceEnabled())
@@ -643,6 +727,7 @@ public abstract class AbstractCFMetaDataFactory
         ClassArgParser cparser = newClassArgParser();
         String[] clss;
         Set<String> names = new HashSet<String>();
+        ScanBatch batch = new ScanBatch(cparser, names);
         if (files != null) {
             File file;
             for (Iterator itr = files.iterator(); itr.hasNext();) {
@@ -651,20 +736,11 @@ public abstract class AbstractCFMetaDataFactory
                     .isDirectoryAction(file))).booleanValue()) {
                     if (log.isTraceEnabled())
                         log.trace(_loc.get("scanning-directory", file));
-                    scan(new FileMetaDataIterator(file, newMetaDataFilter()),
-                        cparser, names, true, file);
+                    batch.add(file, true, file);
                 } else if (file.getName().endsWith(".jar")) {
                     if (log.isTraceEnabled())
                         log.trace(_loc.get("scanning-jar", file));
-                    try {
-                        ZipFile zFile = AccessController
-                            .doPrivileged(J2DoPrivHelper
-                                .newZipFileAction(file));
-                        scan(new ZipFileMetaDataIterator(zFile,
-                            newMetaDataFilter()), cparser, names, true, file);
-                    } catch (PrivilegedActionException pae) {
-                        throw (IOException) pae.getException();
-                    }
+                    batch.add(file, true, file);
                 } else {
                     if (log.isTraceEnabled())
                         log.trace(_loc.get("scanning-file", file));
@@ -701,9 +777,7 @@ public abstract class AbstractCFMetaDataFactory
                         .booleanValue()) {
                         if (log.isTraceEnabled())
                             log.trace(_loc.get("scanning-directory", file));
-                        scan(
-                            new FileMetaDataIterator(file, newMetaDataFilter()),
-                            cparser, names, true, file);
+                        batch.add(file, true, file);
                         continue;
                     }
                 }
@@ -734,7 +808,7 @@ public abstract class AbstractCFMetaDataFactory
                             }
                         });
                         if (zis != null) {
-                            scan(new ZipStreamMetaDataIterator(zis, newMetaDataFilter()), cparser, names, true, url);
+                            batch.add(new ZipStreamMetaDataIterator(zis, newMetaDataFilter()), true, url);
                         }
                     } else {
                         final URLConnection conn = url.openConnection();
@@ -755,7 +829,7 @@ public abstract class AbstractCFMetaDataFactory
                             }
                         });
                         if (file != null) {
-                            scan(new FileMetaDataIterator(file, newMetaDataFilter()), cparser, names, true, file);
+                            batch.add(file, true, file);
                         }
                     }
                     continue;
@@ -764,13 +838,13 @@ public abstract class AbstractCFMetaDataFactory
                     if (url.getPath().endsWith("!/")) {
                         if (log.isTraceEnabled())
                             log.trace(_loc.get("scanning-jar-url", url));
-                        scan(new ZipFileMetaDataIterator(url,
-                            newMetaDataFilter()), cparser, names, true, url);
+                        batch.add(new ZipFileMetaDataIterator(url,
+                            newMetaDataFilter()), true, url);
                     } else {
                         if (log.isTraceEnabled())
                             log.trace(_loc.get("scanning-jar-url", url));
-                        scan(new JarFileURLMetaDataIterator(url,
-                            newMetaDataFilter()), cparser, names, true, url);
+                        batch.add(new JarFileURLMetaDataIterator(url,
+                            newMetaDataFilter()), true, url);
                     }                   
                 } else if (url.getPath().endsWith(".jar")) {
                     if (log.isTraceEnabled())
@@ -779,9 +853,9 @@ public abstract class AbstractCFMetaDataFactory
                         InputStream is = (InputStream)
                             AccessController.doPrivileged(
                                 J2DoPrivHelper.openStreamAction(url));
-                        scan(new ZipStreamMetaDataIterator(
+                        batch.add(new ZipStreamMetaDataIterator(
                             new ZipInputStream(is),
-                            newMetaDataFilter()), cparser, names, true, url);
+                            newMetaDataFilter()), true, url);
                     } catch (PrivilegedActionException pae) {
                         throw (IOException) pae.getException();
                     }
@@ -808,8 +882,8 @@ public abstract class AbstractCFMetaDataFactory
                         // The URL provides a Jar-formatted InputStream, consume it with ZipStreamMetaDataIterator
                         if (log.isTraceEnabled())
                             log.trace(_loc.get("scanning-jar-at-url", url));
-                        scan(new ZipStreamMetaDataIterator(new ZipInputStream(is), newMetaDataFilter()),
-                            cparser, names, true, url);
+                        batch.add(new ZipStreamMetaDataIterator(new ZipInputStream(is), newMetaDataFilter()),
+                            true, url);
                     } else {
                         // Fall back to URLMetaDataIterator
                         if (log.isTraceEnabled())
@@ -839,10 +913,9 @@ public abstract class AbstractCFMetaDataFactory
                             InputStream is = (InputStream)
                                 AccessController.doPrivileged(
                                     J2DoPrivHelper.openStreamAction(url));
-                            scan(new ZipStreamMetaDataIterator
+                            batch.add(new ZipStreamMetaDataIterator
                                 (new ZipInputStream(is),
-                                newMetaDataFilter()), cparser, names, true,
-                                url);
+                                newMetaDataFilter()), true, url);
                         } catch (PrivilegedActionException pae) {
                             throw (IOException) pae.getException();
                         }
@@ -926,9 +999,10 @@ public abstract class AbstractCFMetaDataFactory
         }
         if (cpath != null) {
             String[] dirs = (String[]) cpath.toArray(new String[cpath.size()]);
-            scan(new ClasspathMetaDataIterator(dirs, newMetaDataFilter()),
-                cparser, names, true, dirs);
+            for (File file : ClasspathMetaDataIterator.getClasspathFiles(dirs))
+                batch.add(file, true, file);
         }
+        batch.run();
         if (types != null)
             names.addAll(types);
 
@@ -939,31 +1013,218 @@ public abstract class AbstractCFMetaDataFactory
     }
 
     /**
-     * Scan for persistent type names using the given metadata iterator.
+     * Scans of jars, directories and other metadata iterators that run on
+     * up to {@link #getScanThreads} threads. Their results are merged into
+     * the given names in the order in which the scans were added.
      */
-    private void scan(MetaDataIterator mitr, ClassArgParser cparser, Set names,
-        boolean mapNames, Object debugContext)
+    private class ScanBatch {
+        private final ClassArgParser _cparser;
+        private final Set<String> _names;
+        private final List<Scan> _scans = new ArrayList<Scan>();
+
+        public ScanBatch(ClassArgParser cparser, Set<String> names) {
+            _cparser = cparser;
+            _names = names;
+        }
+
+        /**
+         * Add a scan of the given metadata iterator.
+         */
+        public void add(MetaDataIterator mitr, boolean mapNames,
+            Object debugContext) {
+            _scans.add(new Scan(null, mitr, mapNames, debugContext));
+        }
+
+        /**
+         * Add a scan of the given jar or directory, which is skipped if the
+         * scan index has an entry for its current content.
+         */
+        public void add(File location, boolean mapNames, Object debugContext) {
+            _scans.add(new Scan(location, null, mapNames, debugContext));
+        }
+
+        /**
+         * Run the added scans and merge their results.
+         */
+        public void run() throws IOException {
+            if (_scans.isEmpty())
+                return;
+            try {
+                PersistentTypeIndex index = (_record == null) ? getIndex() 
+                    : null;
+                for (Scan scan : _scans)
+                    scan.index = index;
+                int threads = Math.min(_scanThreads, _scans.size());
+                if (threads <= 1) {
+                    for (Scan scan : _scans)
+                        scan.call();
+                } else {
+                    ExecutorService executor = Executors.newFixedThreadPool
+                        (threads, SCAN_THREADS);
+                    try {
+                        for (Future<Scan> future : executor.invokeAll(_scans))
+                            future.get();
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException();
+                    } catch (ExecutionException ee) {
+                        Throwable cause = ee.getCause();
+                        if (cause instanceof IOException)
+                            throw (IOException) cause;
+                        if (cause instanceof RuntimeException)
+                            throw (RuntimeException) cause;
+                        if (cause instanceof Error)
+                            throw (Error) cause;
+                        throw new GeneralException(cause);
+                    } finally {
+                        executor.shutdown();
+                    }
+                }
+            } finally {
+                for (Scan scan : _scans)
+                    if (scan.mitr != null)
+                        scan.mitr.close();
+            }
+
+            for (Scan scan : _scans)
+                merge(scan);
+            _scans.clear();
+        }
+
+        private void merge(Scan scan) {
+            if (scan.indexed != null) {
+                if (log.isTraceEnabled())
+                    log.trace(_loc.get("scan-index-found-names",
+                        Arrays.asList(scan.indexed), scan.debugContext));
+                _names.addAll(Arrays.asList(scan.indexed));
+                return;
+            }
+
+            List<String> found = new ArrayList<String>();
+            boolean classesOnly = true;
+            for (Map.Entry<Object, String[]> entry : scan.map.entrySet()) {
+                if (scan.mapNames)
+                    mapPersistentTypeNames(entry.getKey(), entry.getValue());
+                List<String> newNames = Arrays.asList(entry.getValue());
+                if (log.isTraceEnabled())
+                    log.trace(_loc.get("scan-found-names", newNames,
+                        scan.debugContext));
+                _names.addAll(newNames);
+                found.addAll(newNames);
+                classesOnly &= entry.getKey().toString().endsWith(".class");
+            }
+            // only class files can be restored from the index, as other
+            // resources have to be mapped to their types
+            if (_record != null && scan.location != null && classesOnly)
+                _record.put(scan.location, scan.checksum,
+                    found.toArray(new String[found.size()]));
+        }
+
+        private class Scan implements Callable<Scan> {
+            final File location;
+            final boolean mapNames;
+            final Object debugContext;
+            MetaDataIterator mitr;
+            PersistentTypeIndex index;
+            String checksum;
+            String[] indexed;
+            Map<Object, String[]> map;
+
+            Scan(File location, MetaDataIterator mitr, boolean mapNames,
+                Object debugContext) {
+                this.location = location;
+                this.mitr = mitr;
+                this.mapNames = mapNames;
+                this.debugContext = debugContext;
+            }
+
+            public Scan call() throws IOException {
+                if (location != null) {
+                    if (index != null || _record != null)
+                        checksum = PersistentTypeIndex.checksum(location);
+                    if (index != null) {
+                        indexed = index.get(location, checksum);
+                        if (indexed != null)
+                            return this;
+                    }
+                    mitr = newMetaDataIterator(location);
+                }
+                try {
+                    map = _cparser.mapTypeNames(mitr);
+                } finally {
+                    mitr.close();
+                }
+                return this;
+            }
+        }
+    }
+
+    /**
+     * Return an iterator over the metadata in the given jar or directory.
+     */
+    private MetaDataIterator newMetaDataIterator(File location)
         throws IOException {
-        Map map;
+        if (AccessController.doPrivileged(J2DoPrivHelper
+            .isDirectoryAction(location)).booleanValue())
+            return new FileMetaDataIterator(location, newMetaDataFilter());
         try {
-            map = cparser.mapTypeNames(mitr);
-        } finally {
-            mitr.close();
+            ZipFile zFile = AccessController.doPrivileged(J2DoPrivHelper
+                .newZipFileAction(location));
+            return new ZipFileMetaDataIterator(zFile, newMetaDataFilter());
+        } catch (PrivilegedActionException pae) {
+            throw (IOException) pae.getException();
         }
+    }
 
-        Map.Entry entry;
-        for (Iterator itr = map.entrySet().iterator(); itr.hasNext();) {
-            entry = (Map.Entry) itr.next();
-            if (mapNames)
-                mapPersistentTypeNames(entry.getKey(), (String[])
-                    entry.getValue());
-            List newNames = Arrays.asList((String[]) entry.getValue());
-            if (log.isTraceEnabled())
-                log.trace(_loc.get("scan-found-names", newNames, debugContext));
-            names.addAll(newNames);
+    /**
+     * Return the configured scan index, loading it on first use.
+     */
+    private PersistentTypeIndex getIndex() throws IOException {
+        if (_scanIndex == null || _index != null)
+            return _index;
+
+        ClassLoader loader = repos.getConfiguration().
+            getClassResolverInstance().getClassLoader(getClass(), null);
+        InputStream in;
+        File file = new File(_scanIndex);
+        if ((AccessController.doPrivileged(J2DoPrivHelper
+            .existsAction(file))).booleanValue()) {
+            try {
+                in = AccessController.doPrivileged(J2DoPrivHelper
+                    .newFileInputStreamAction(file));
+            } catch (PrivilegedActionException pae) {
+                throw (IOException) pae.getException();
+            }
+        } else {
+            URL url = AccessController.doPrivileged(J2DoPrivHelper
+                .getResourceAction(loader, _scanIndex));
+            try {
+                in = (url == null) ? null : AccessController.doPrivileged
+                    (J2DoPrivHelper.openStreamAction(url));
+            } catch (PrivilegedActionException pae) {
+                throw (IOException) pae.getException();
+            }
+        }
+        if (in == null) {
+            if (log.isWarnEnabled())
+                log.warn(_loc.get("scan-index-missing", _scanIndex));
+            _scanIndex = null;
+            return null;
         }
+
+        PersistentTypeIndex index = new PersistentTypeIndex();
+        try {
+            index.load(in);
+        } finally {
+            in.close();
+        }
+        if (log.isTraceEnabled())
+            log.trace(_loc.get("scan-index-loaded", _scanIndex,
+                String.valueOf(index.size())));
+        _index = index;
+        return _index;
     }
-    
+
     /**
      * Decodes a URL-encoded path string.  For example, an encoded
      * space (%20) is decoded into a normal space (' ') character.
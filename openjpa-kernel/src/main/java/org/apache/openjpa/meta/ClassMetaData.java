@@ -41,6 +41,7 @@ import org.apache.openjpa.lib.util.StringUtil;
 import org.apache.openjpa.conf.OpenJPAConfiguration;
 import org.apache.openjpa.datacache.CacheDistributionPolicy;
 import org.apache.openjpa.datacache.DataCache;
+import org.apache.openjpa.enhance.FieldAccessors;
 import org.apache.openjpa.enhance.PCRegistry;
 import org.apache.openjpa.enhance.PersistenceCapable;
 import org.apache.openjpa.enhance.Reflection;
@@ -163,6 +164,7 @@ public class ClassMetaData
     private boolean _defSupFields = false;
     private Collection<String> _staticFields = null;
     private int[] _fieldDataTable = null;
+    private transient FieldAccessors _accessors = null;
     private Map<String,FetchGroup> _fgMap = null;
 
     ////////////////////////////////////////////////////////////////////
@@ -823,6 +825,18 @@ public class ClassMetaData
         _intercepting = intercepting;
     }
 
+    /**
+     * Return the accessors used to read and write the fields of instances
+     * of this type when it is not enhanced.
+     *
+     * @since 3.0.0
+     */
+    public FieldAccessors getFieldAccessors() {
+        if (_accessors == null)
+            _accessors = new FieldAccessors(this);
+        return _accessors;
+    }
+
     /**
      * Whether the type is a managed interface.
      */
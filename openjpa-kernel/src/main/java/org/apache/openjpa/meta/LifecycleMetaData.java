@@ -54,6 +54,7 @@ public class LifecycleMetaData
     private boolean _ignoreSystem = false;
     private int _ignoreSups = 0;
     private boolean _activated = false;
+    private int _callbackTypes = 0;
 
     /**
      * Construct with owning metadata.
@@ -180,10 +181,28 @@ public class LifecycleMetaData
     void resolve() {
         if (!_resolved) {
             _all = combineCallbacks();
+            int types = 0;
+            for (int i = 0; _all != null && i < _all.length; i++)
+                if (_all[i] != null && _all[i].length > 0)
+                    types |= 2 << i;
+            _callbackTypes = types;
             _resolved = true;
         }
     }
 
+    /**
+     * Return a mask of the event types for which callbacks are registered,
+     * including superclass callbacks if appropriate. The bit for an event
+     * type is <code>2 &lt;&lt; type</code>, matching
+     * {@link org.apache.openjpa.event.LifecycleEventManager.ListenerList}.
+     *
+     * @since 3.0.0
+     */
+    public int getCallbackTypes() {
+        resolve();
+        return _callbackTypes;
+    }
+
     /**
      * Combine our callbacks with superclass callbacks as necessary.
      * This method has the side effect of manipulating the _high array to
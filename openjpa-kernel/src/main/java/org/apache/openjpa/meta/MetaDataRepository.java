@@ -19,6 +19,7 @@
 package org.apache.openjpa.meta;
 
 import java.io.Serializable;
+import java.lang.reflect.AnnotatedElement;
 import java.security.AccessController;
 import java.security.PrivilegedActionException;
 import java.util.ArrayList;
@@ -33,7 +34,13 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.apache.openjpa.conf.OpenJPAConfiguration;
 import org.apache.openjpa.enhance.DynamicPersistenceCapable;
@@ -156,7 +163,22 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
     protected boolean _preload = false;
     protected boolean _preloadComplete = false;
     protected boolean _locking = true;
+    protected int _preloadThreads = 1;
     private static final String PRELOAD_STR = "Preload";
+
+    private static final ThreadFactory PRELOAD_THREAD_FACTORY = new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "OpenJPA Preload");
+            t.setDaemon(true);
+            return t;
+        }
+    };
+
+    // fully resolved metadata that may be returned without locking, and the
+    // depth of locked getMetaData calls on the current resolving thread
+    private boolean _concurrentResolve = false;
+    private final Map<Class<?>, ClassMetaData> _resolved = new ConcurrentHashMap<Class<?>, ClassMetaData>();
+    private int _resolveDepth = 0;
     
     // A boolean used to decide whether or not we need to call to PCEnhancer to check whether we have any down level
     // Entities.
@@ -244,6 +266,7 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
      */
     public void setResolve(int mode) {
         _resMode = mode;
+        _resolved.clear();
     }
 
     /**
@@ -256,6 +279,7 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
             _resMode |= mode;
         else
             _resMode &= ~mode;
+        _resolved.clear();
     }
 
     /**
@@ -272,6 +296,7 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
      */
     public void setSourceMode(int mode) {
         _sourceMode = mode;
+        _resolved.clear();
     }
 
     /**
@@ -285,6 +310,7 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
             _sourceMode |= mode;
         else
             _sourceMode &= ~mode;
+        _resolved.clear();
     }
 
     /**
@@ -303,6 +329,54 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
         _preload = l;
     }
 
+    /**
+     * The number of threads that load and introspect the persistent classes during
+     * {@link #preload}. Metadata is still parsed and resolved by the preloading thread.
+     * Defaults to 1.
+     *
+     * @since 3.0.0
+     */
+    public int getPreloadThreads() {
+        return _preloadThreads;
+    }
+
+    /**
+     * The number of threads that load and introspect the persistent classes during
+     * {@link #preload}. Metadata is still parsed and resolved by the preloading thread.
+     * Defaults to 1.
+     *
+     * @since 3.0.0
+     */
+    public void setPreloadThreads(int threads) {
+        _preloadThreads = Math.max(1, threads);
+    }
+
+    /**
+     * Whether metadata that is already fully resolved is returned without acquiring the
+     * repository lock, so that lookups of resolved types do not wait for a thread that is
+     * resolving other types. Has no effect once {@link #preload} has removed locking.
+     * Defaults to false.
+     *
+     * @since 3.0.0
+     */
+    public boolean getConcurrentResolve() {
+        return _concurrentResolve;
+    }
+
+    /**
+     * Whether metadata that is already fully resolved is returned without acquiring the
+     * repository lock, so that lookups of resolved types do not wait for a thread that is
+     * resolving other types. Has no effect once {@link #preload} has removed locking.
+     * Defaults to false.
+     *
+     * @since 3.0.0
+     */
+    public void setConcurrentResolve(boolean concurrent) {
+        _concurrentResolve = concurrent;
+        if (!concurrent)
+            _resolved.clear();
+    }
+
 
      /**
      * If the openjpa.MetaDataRepository plugin value Preload=true is set, this method will load all
@@ -340,16 +414,10 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
             _log.trace(_loc.get("repos-initializeEager-found", classes));
         }
 
-        List<Class<?>> loaded = new ArrayList<Class<?>>();
-        for (String c : classes) {
-            try {
-                Class<?> cls = AccessController.doPrivileged((J2DoPrivHelper.getForNameAction(c, true, multi)));
-                loaded.add(cls);
-                // This call may be unnecessary?
-                _factory.load(cls, MODE_ALL, multi);
-            } catch (PrivilegedActionException pae) {
-                throw new MetaDataException(_loc.get("repos-initializeEager-error"), pae);
-            }
+        List<Class<?>> loaded = loadPreloadClasses(classes, multi);
+        for (Class<?> cls : loaded) {
+            // This call may be unnecessary?
+            _factory.load(cls, MODE_ALL, multi);
         }
         resolveAll(multi);
         
@@ -372,7 +440,75 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
         _preloadComplete = true;
     }
 
-    
+
+    /**
+     * Load, in the order given, the named classes for preloading. With more than one preload
+     * thread the classes are loaded, initialized and introspected concurrently, so that the
+     * metadata parsers later find the JVM's class and annotation caches populated.
+     */
+    private List<Class<?>> loadPreloadClasses(Collection<String> names, final ClassLoader loader) {
+        List<Class<?>> loaded = new ArrayList<Class<?>>(names.size());
+        int threads = Math.min(_preloadThreads, names.size());
+        if (threads <= 1) {
+            for (String name : names)
+                loaded.add(loadPreloadClass(name, loader, false));
+            return loaded;
+        }
+
+        List<Callable<Class<?>>> loads = new ArrayList<Callable<Class<?>>>(names.size());
+        for (final String name : names) {
+            loads.add(new Callable<Class<?>>() {
+                public Class<?> call() {
+                    return loadPreloadClass(name, loader, true);
+                }
+            });
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads, PRELOAD_THREAD_FACTORY);
+        try {
+            for (Future<Class<?>> future : executor.invokeAll(loads))
+                loaded.add(future.get());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new MetaDataException(_loc.get("repos-initializeEager-error"), ie);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof RuntimeException)
+                throw (RuntimeException) cause;
+            if (cause instanceof Error)
+                throw (Error) cause;
+            throw new MetaDataException(_loc.get("repos-initializeEager-error"), cause);
+        } finally {
+            executor.shutdown();
+        }
+        return loaded;
+    }
+
+    /**
+     * Load and initialize the named class, optionally reading its declared members and
+     * annotations.
+     */
+    private Class<?> loadPreloadClass(String name, ClassLoader loader, boolean introspect) {
+        Class<?> cls;
+        try {
+            cls = AccessController.doPrivileged(J2DoPrivHelper.getForNameAction(name, true, loader));
+        } catch (PrivilegedActionException pae) {
+            throw new MetaDataException(_loc.get("repos-initializeEager-error"), pae);
+        }
+        if (introspect) {
+            introspect(cls);
+            for (AnnotatedElement field : AccessController.doPrivileged(J2DoPrivHelper.getDeclaredFieldsAction(cls)))
+                introspect(field);
+            for (AnnotatedElement method : AccessController.doPrivileged(J2DoPrivHelper
+                .getDeclaredMethodsAction(cls)))
+                introspect(method);
+        }
+        return cls;
+    }
+
+    private static void introspect(AnnotatedElement element) {
+        AccessController.doPrivileged(J2DoPrivHelper.getDeclaredAnnotationsAction(element));
+    }
+
     /**
      * Return the metadata for the given class.
      * 
@@ -385,14 +521,41 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
      */
     public ClassMetaData getMetaData(Class<?> cls, ClassLoader envLoader, boolean mustExist) {
         if (_locking) {
+            if (_concurrentResolve && cls != null) {
+                ClassMetaData meta = _resolved.get(cls);
+                if (meta != null)
+                    return meta;
+            }
             synchronized(this){
-                return getMetaDataInternal(cls, envLoader, mustExist);    
+                if (!_concurrentResolve)
+                    return getMetaDataInternal(cls, envLoader, mustExist);
+
+                ClassMetaData meta;
+                _resolveDepth++;
+                try {
+                    meta = getMetaDataInternal(cls, envLoader, mustExist);
+                } finally {
+                    _resolveDepth--;
+                }
+                publishResolved(cls, meta);
+                return meta;
             }
         } else {
             return getMetaDataInternal(cls, envLoader, mustExist);
         }
     }
 
+    /**
+     * Make the given metadata available to unlocked lookups if it is fully resolved. Only
+     * metadata returned from an outermost call qualifies: a reentrant call made while resolving
+     * may return metadata whose resolution is still in progress further up the stack.
+     */
+    private void publishResolved(Class<?> cls, ClassMetaData meta) {
+        if (_resolveDepth == 0 && meta != null && meta.getDescribedType() == cls && _resMode != MODE_NONE
+            && (meta.getResolve() & _resMode) == _resMode && _resolving.isEmpty() && _mapping.isEmpty())
+            _resolved.put(cls, meta);
+    }
+
     private ClassMetaData getMetaDataInternal(Class<?> cls, ClassLoader envLoader, boolean mustExist) {
         ClassMetaData meta = getMetaDataInternal(cls, envLoader);
         if (meta == null) {
@@ -936,6 +1099,7 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
             if (_pawares.containsKey(cls))
                 throw new MetaDataException(_loc.get("pc-and-aware", cls));
             _metas.put(cls, meta);
+            _resolved.remove(cls);
         return meta;
     }
 
@@ -1081,10 +1245,13 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
     private boolean removeMetaDataInternal(Class<?> cls) {
             if (cls == null)
                 return false;
+            _resolved.remove(cls);
             if (_metas.remove(cls) != null) {
                 Class<?> impl = _ifaces.remove(cls);
-                if (impl != null)
+                if (impl != null) {
                     _metas.remove(impl);
+                    _resolved.remove(impl);
+                }
                 return true;
             }
             return false;
@@ -1443,6 +1610,7 @@ public class MetaDataRepository implements PCRegistry.RegisterClassListener, Con
     private void clearInternal(){
         // Recreating these datastructures is probably faster than calling clear. Future change?
             _metas.clear();
+            _resolved.clear();
             _oids.clear();
             _subs.clear();
             _impls.clear();
@@ -0,0 +1,251 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.meta;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.AccessController;
+import java.security.PrivilegedActionException;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Properties;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.apache.openjpa.conf.OpenJPAConfiguration;
+import org.apache.openjpa.conf.OpenJPAConfigurationImpl;
+import org.apache.openjpa.lib.conf.Configurations;
+import org.apache.openjpa.lib.util.Files;
+import org.apache.openjpa.lib.util.J2DoPrivHelper;
+import org.apache.openjpa.lib.util.Localizer;
+import org.apache.openjpa.lib.util.Options;
+import org.apache.openjpa.lib.util.StringUtil;
+
+/**
+ * Index of the persistent type names found in jars and directories, so
+ * that a {@link AbstractCFMetaDataFactory} can skip scanning a location
+ * whose content has not changed since the index was built.
+ * Each entry is keyed by the name of the location and a checksum of its
+ * content. The checksum of a jar is computed from the names and CRCs of
+ * its entries as recorded in the jar directory, so it does not require
+ * reading the entries themselves. The checksum of a directory is computed
+ * from the relative path, size and modification time of its files.
+ *
+ * @since 3.0.0
+ */
+public class PersistentTypeIndex {
+
+    private static final Localizer _loc = Localizer.forPackage
+        (PersistentTypeIndex.class);
+
+    private final Properties _entries = new Properties();
+
+    /**
+     * Return the names recorded for the given location with the given
+     * checksum, or null if the location is not indexed with that checksum.
+     */
+    public String[] get(File location, String checksum) {
+        if (checksum == null)
+            return null;
+        String names = _entries.getProperty(toKey(location, checksum));
+        if (names == null)
+            return null;
+        return (names.length() == 0) ? new String[0]
+            : StringUtil.split(names, ",", 0);
+    }
+
+    /**
+     * Record the names found in the given location with the given checksum.
+     */
+    public synchronized void put(File location, String checksum,
+        String[] names) {
+        if (checksum == null)
+            return;
+        String[] sorted = names.clone();
+        Arrays.sort(sorted);
+        _entries.setProperty(toKey(location, checksum),
+            StringUtil.join(sorted, ","));
+    }
+
+    /**
+     * Return the number of indexed locations.
+     */
+    public int size() {
+        return _entries.size();
+    }
+
+    private static String toKey(File location, String checksum) {
+        return location.getName() + "@" + checksum;
+    }
+
+    /**
+     * Read the index from the given stream.
+     */
+    public void load(InputStream in) throws IOException {
+        _entries.load(in);
+    }
+
+    /**
+     * Write the index to the given stream.
+     */
+    public void store(OutputStream out) throws IOException {
+        _entries.store(out, "OpenJPA persistent type index");
+    }
+
+    /**
+     * Return a checksum of the content of the given jar or directory, or
+     * null if it can not be computed.
+     */
+    public static String checksum(File location) throws IOException {
+        CRC32 crc = new CRC32();
+        if (AccessController.doPrivileged(J2DoPrivHelper
+            .isDirectoryAction(location)).booleanValue()) {
+            checksum(location, "", crc);
+        } else {
+            ZipFile zip;
+            try {
+                zip = AccessController.doPrivileged(J2DoPrivHelper
+                    .newZipFileAction(location));
+            } catch (PrivilegedActionException pae) {
+                throw (IOException) pae.getException();
+            }
+            try {
+                for (Enumeration<? extends ZipEntry> e = zip.entries();
+                    e.hasMoreElements();) {
+                    ZipEntry entry = e.nextElement();
+                    update(crc, entry.getName());
+                    update(crc, entry.getCrc());
+                    update(crc, entry.getSize());
+                }
+            } finally {
+                zip.close();
+            }
+        }
+        return Long.toHexString(crc.getValue());
+    }
+
+    private static void checksum(File dir, String path, CRC32 crc) {
+        File[] files = AccessController.doPrivileged(J2DoPrivHelper
+            .listFilesAction(dir));
+        if (files == null)
+            return;
+        Arrays.sort(files);
+        for (File file : files) {
+            String name = path + file.getName();
+            if (AccessController.doPrivileged(J2DoPrivHelper
+                .isDirectoryAction(file)).booleanValue()) {
+                checksum(file, name + "/", crc);
+            } else {
+                update(crc, name);
+                update(crc, AccessController.doPrivileged(J2DoPrivHelper
+                    .lengthAction(file)));
+                update(crc, AccessController.doPrivileged(J2DoPrivHelper
+                    .lastModifiedAction(file)));
+            }
+        }
+    }
+
+    private static void update(CRC32 crc, String s) {
+        for (int i = 0; i < s.length(); i++)
+            crc.update(s.charAt(i));
+        crc.update(0);
+    }
+
+    private static void update(CRC32 crc, long l) {
+        for (int i = 0; i < 8; i++)
+            crc.update((int) (l >>> (i * 8)));
+    }
+
+    /**
+     * Usage: java org.apache.openjpa.meta.PersistentTypeIndex [option]*
+     * &lt;index file&gt;
+     *  Where the following options are recognized.
+     * <ul>
+     * <li><i>-properties/-p &lt;properties file or resource&gt;</i>: The path
+     * or resource name of a OpenJPA properties file containing information
+     * as outlined in {@link OpenJPAConfiguration}. Optional.</li>
+     * <li><i>-&lt;property name&gt; &lt;property value&gt;</i>: All bean
+     * properties of the OpenJPA {@link OpenJPAConfiguration} can be set by
+     * using their names and supplying a value.</li>
+     * </ul>
+     * Scans the locations of the configured metadata factory and writes the
+     * persistent type names found in each jar and directory to the given
+     * index file, which the factory can then be pointed to via its
+     * <code>ScanIndex</code> property.
+     */
+    public static void main(String[] args) throws IOException {
+        Options opts = new Options();
+        final String[] arguments = opts.setFromCmdLine(args);
+        boolean ret = (arguments.length == 1) &&
+            Configurations.runAgainstAllAnchors(opts,
+            new Configurations.Runnable() {
+            public boolean run(Options opts) throws Exception {
+                OpenJPAConfiguration conf = new OpenJPAConfigurationImpl();
+                try {
+                    return PersistentTypeIndex.run(conf, arguments, opts);
+                } finally {
+                    conf.close();
+                }
+            }
+        });
+        if (!ret) {
+            // START - ALLOW PRINT STATEMENTS
+            System.err.println(_loc.get("index-usage"));
+            // STOP - ALLOW PRINT STATEMENTS
+        }
+    }
+
+    /**
+     * Run the tool. Returns false if invalid options were given.
+     */
+    public static boolean run(OpenJPAConfiguration conf, String[] args,
+        Options opts) throws IOException {
+        if (args.length != 1)
+            return false;
+        Configurations.populateConfiguration(conf, opts);
+        ClassLoader loader = conf.getClassResolverInstance().
+            getClassLoader(PersistentTypeIndex.class, null);
+        MetaDataFactory mdf = conf.newMetaDataRepositoryInstance()
+            .getMetaDataFactory();
+        if (mdf instanceof DelegatingMetaDataFactory)
+            mdf = ((DelegatingMetaDataFactory) mdf).getInnermostDelegate();
+        if (!(mdf instanceof AbstractCFMetaDataFactory))
+            return false;
+
+        File file = Files.getFile(args[0], loader);
+        PersistentTypeIndex index = ((AbstractCFMetaDataFactory) mdf)
+            .buildScanIndex(loader);
+        OutputStream out;
+        try {
+            out = AccessController.doPrivileged(J2DoPrivHelper
+                .newFileOutputStreamAction(file));
+        } catch (PrivilegedActionException pae) {
+            throw (IOException) pae.getException();
+        }
+        try {
+            index.store(out);
+        } finally {
+            out.close();
+        }
+        return true;
+    }
+}
@@ -295,6 +295,17 @@ public abstract class AbstractLRSProxyCollection
      */
     protected abstract int count();
 
+    /**
+     * Whether a count obtained from {@link #count} stays valid once the
+     * changes to this collection are stored, so that the changes are applied
+     * to it instead of counting again. Returns false by default.
+     *
+     * @since 3.0.0
+     */
+    protected boolean isCountCached() {
+        return false;
+    }
+
     ////////////////////////////
     // Predicate Implementation
     ////////////////////////////
@@ -312,8 +323,13 @@ public abstract class AbstractLRSProxyCollection
     }
 
     public void startTracking() {
+        // apply the tracked changes to a cached count; they are now stored
+        boolean cached = _count != -1 && isCountCached();
+        if (cached && _count != Integer.MAX_VALUE)
+            _count += _ct.getAdded().size() - _ct.getRemoved().size();
         _ct.startTracking();
-        reset();
+        if (!cached)
+            reset();
     }
 
     public void stopTracking() {
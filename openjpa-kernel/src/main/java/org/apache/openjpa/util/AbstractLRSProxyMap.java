@@ -340,6 +340,17 @@ public abstract class AbstractLRSProxyMap<K,V>
      */
     protected abstract int count();
 
+    /**
+     * Whether a count obtained from {@link #count} stays valid once the
+     * changes to this map are stored, so that the changes are applied to it
+     * instead of counting again. Returns false by default.
+     *
+     * @since 3.0.0
+     */
+    protected boolean isCountCached() {
+        return false;
+    }
+
     private Itr iterator(int mode) {
         _iterated = true;
 
@@ -373,8 +384,15 @@ public abstract class AbstractLRSProxyMap<K,V>
     }
 
     public void startTracking() {
+        // apply the tracked changes to a cached count; they are now stored
+        boolean cached = _count != -1 && isCountCached();
+        if (cached && _count != Integer.MAX_VALUE)
+            _count += _ct.getAdded().size() - _ct.getRemoved().size();
         _ct.startTracking();
-        reset();
+        if (!cached)
+            reset();
+        else if (_map != null)
+            _map.clear();
     }
 
     public void stopTracking() {
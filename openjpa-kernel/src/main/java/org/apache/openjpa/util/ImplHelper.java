@@ -35,6 +35,7 @@ import org.apache.openjpa.kernel.FetchConfiguration;
 import org.apache.openjpa.kernel.LockManager;
 import org.apache.openjpa.kernel.OpenJPAStateManager;
 import org.apache.openjpa.kernel.PCState;
+import org.apache.openjpa.kernel.StateManagerImpl;
 import org.apache.openjpa.kernel.StoreContext;
 import org.apache.openjpa.kernel.StoreManager;
 import org.apache.openjpa.lib.util.Closeable;
@@ -192,6 +193,45 @@ public class ImplHelper {
         return null;
     }
 
+    /**
+     * Return whether the given field of the state is loaded. Unlike
+     * {@link OpenJPAStateManager#getLoaded} this does not create a mask for
+     * the state managers of the kernel.
+     *
+     * @since 3.0.0
+     */
+    public static boolean isLoaded(OpenJPAStateManager sm, int field) {
+        if (sm instanceof StateManagerImpl)
+            return ((StateManagerImpl) sm).isLoaded(field);
+        return sm.getLoaded().get(field);
+    }
+
+    /**
+     * Return whether the given field of the state is dirty. Unlike
+     * {@link OpenJPAStateManager#getDirty} this does not create a mask for
+     * the state managers of the kernel.
+     *
+     * @since 3.0.0
+     */
+    public static boolean isDirty(OpenJPAStateManager sm, int field) {
+        if (sm instanceof StateManagerImpl)
+            return ((StateManagerImpl) sm).isDirty(field);
+        return sm.getDirty().get(field);
+    }
+
+    /**
+     * Return whether the given field of the state has been flushed since it
+     * was last changed. Unlike {@link OpenJPAStateManager#getFlushed} this
+     * does not create a mask for the state managers of the kernel.
+     *
+     * @since 3.0.0
+     */
+    public static boolean isFlushed(OpenJPAStateManager sm, int field) {
+        if (sm instanceof StateManagerImpl)
+            return ((StateManagerImpl) sm).isFlushed(field);
+        return sm.getFlushed().get(field);
+    }
+
     /**
      * Close the given resource. The resource can be an extent iterator,
      * query result, large result set relation, or any closeable OpenJPA
@@ -0,0 +1,72 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.lib.instrumentation;
+
+import java.util.Date;
+
+/**
+ * Base class for statistics that are shared between the runtime components
+ * recording them and the instruments reporting them. Collection is disabled
+ * by default and is enabled while an instrument is started.
+ *
+ * @since 3.0.0
+ */
+public abstract class AbstractStatistics {
+
+    private volatile boolean _enabled = false;
+
+    private final Date _start = new Date();
+    private volatile Date _since = new Date();
+
+    /**
+     * Whether statistics are being collected.
+     */
+    public boolean isEnabled() {
+        return _enabled;
+    }
+
+    /**
+     * Whether statistics are being collected.
+     */
+    public void setEnabled(boolean enabled) {
+        _enabled = enabled;
+    }
+
+    /**
+     * Clear all collected statistics. Subclasses clear their own values
+     * and then call this method.
+     */
+    public void reset() {
+        _since = new Date();
+    }
+
+    /**
+     * Return the date statistics were started.
+     */
+    public Date start() {
+        return _start;
+    }
+
+    /**
+     * Return the date statistics were last reset.
+     */
+    public Date since() {
+        return _since;
+    }
+}
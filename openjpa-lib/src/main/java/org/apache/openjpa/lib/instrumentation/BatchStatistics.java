@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.lib.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the JDBC batch sizes achieved by flushes: the number of flushes,
+ * the rows they wrote, and the statement executions those rows took. A row
+ * executed on its own counts as an execution of size one, so the average
+ * batch size is the number of rows per round trip to the database.
+ * Collection is disabled by default.
+ *
+ * @since 3.0.0
+ */
+public class BatchStatistics extends AbstractStatistics {
+
+
+    private final AtomicLong _flushes = new AtomicLong();
+    private final AtomicLong _rows = new AtomicLong();
+    private final AtomicLong _executions = new AtomicLong();
+    private final AtomicLong _batches = new AtomicLong();
+    private final AtomicLong _batchedRows = new AtomicLong();
+    private final AtomicLong _maxBatch = new AtomicLong();
+    private volatile long _lastRows = 0;
+    private volatile long _lastExecutions = 0;
+
+
+    /**
+     * Record a flush.
+     *
+     * @param rows the number of rows the flush wrote
+     * @param executions the number of statement executions the rows took
+     * @param batches the number of those executions that were JDBC batches
+     * @param batchedRows the number of rows written in JDBC batches
+     * @param maxBatch the size of the largest batch of the flush
+     */
+    public void recordFlush(long rows, long executions, long batches,
+        long batchedRows, long maxBatch) {
+        _flushes.incrementAndGet();
+        _rows.addAndGet(rows);
+        _executions.addAndGet(executions);
+        _batches.addAndGet(batches);
+        _batchedRows.addAndGet(batchedRows);
+        long max;
+        do {
+            max = _maxBatch.get();
+        } while (maxBatch > max && !_maxBatch.compareAndSet(max, maxBatch));
+        _lastRows = rows;
+        _lastExecutions = executions;
+    }
+
+    /**
+     * Number of flushes recorded.
+     */
+    public long getFlushCount() {
+        return _flushes.get();
+    }
+
+    /**
+     * Number of rows written by the recorded flushes.
+     */
+    public long getRowCount() {
+        return _rows.get();
+    }
+
+    /**
+     * Number of statement executions, batched or not, taken by the recorded
+     * flushes.
+     */
+    public long getExecutionCount() {
+        return _executions.get();
+    }
+
+    /**
+     * Number of JDBC batches executed by the recorded flushes.
+     */
+    public long getBatchCount() {
+        return _batches.get();
+    }
+
+    /**
+     * Number of rows written in JDBC batches.
+     */
+    public long getBatchedRowCount() {
+        return _batchedRows.get();
+    }
+
+    /**
+     * Size of the largest batch executed.
+     */
+    public long getMaxBatchSize() {
+        return _maxBatch.get();
+    }
+
+    /**
+     * Average number of rows per statement execution, or 0 if no
+     * statements were executed.
+     */
+    public double getAverageBatchSize() {
+        return average(_rows.get(), _executions.get());
+    }
+
+    /**
+     * Average number of rows per statement execution of the last recorded
+     * flush, or 0 if it executed no statements.
+     */
+    public double getLastFlushAverageBatchSize() {
+        return average(_lastRows, _lastExecutions);
+    }
+
+    private static double average(long rows, long executions) {
+        return (executions == 0) ? 0 : (double) rows / executions;
+    }
+
+    /**
+     * Clear all statistics.
+     */
+    public void reset() {
+        _flushes.set(0);
+        _rows.set(0);
+        _executions.set(0);
+        _batches.set(0);
+        _batchedRows.set(0);
+        _maxBatch.set(0);
+        _lastRows = 0;
+        _lastExecutions = 0;
+        super.reset();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.lib.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the effect of adaptive result set fetch sizes: the number of
+ * queries executed, the rows they read, and the round trips to the database
+ * they took compared to the round trips they would have taken with the
+ * fetch size the statements were created with.
+ * <p>
+ * Round trips are estimated as one round trip per full fetch plus the
+ * fetch that detects the end of the result. Collection is disabled by
+ * default.
+ *
+ * @since 3.0.0
+ */
+public class FetchSizeStatistics extends AbstractStatistics {
+
+
+    private final AtomicLong _executions = new AtomicLong();
+    private final AtomicLong _tuned = new AtomicLong();
+    private final AtomicLong _rows = new AtomicLong();
+    private final AtomicLong _trips = new AtomicLong();
+    private final AtomicLong _defaultTrips = new AtomicLong();
+
+
+    /**
+     * Record a query execution that read the given number of rows.
+     *
+     * @param fetchSize the positive fetch size in effect for the execution
+     * @param defaultFetchSize the positive fetch size the statement would
+     * have used without adaptive tuning
+     */
+    public void recordExecution(long rows, int fetchSize,
+        int defaultFetchSize) {
+        _executions.incrementAndGet();
+        if (fetchSize != defaultFetchSize)
+            _tuned.incrementAndGet();
+        _rows.addAndGet(rows);
+        _trips.addAndGet(roundTrips(rows, fetchSize));
+        _defaultTrips.addAndGet(roundTrips(rows, defaultFetchSize));
+    }
+
+    /**
+     * Estimated number of round trips to read the given number of rows
+     * with the given positive fetch size.
+     */
+    public static long roundTrips(long rows, int fetchSize) {
+        return rows / Math.max(fetchSize, 1) + 1;
+    }
+
+    /**
+     * Number of query executions recorded.
+     */
+    public long getExecutionCount() {
+        return _executions.get();
+    }
+
+    /**
+     * Number of query executions whose fetch size was tuned.
+     */
+    public long getTunedExecutionCount() {
+        return _tuned.get();
+    }
+
+    /**
+     * Number of rows read by the recorded executions.
+     */
+    public long getRowCount() {
+        return _rows.get();
+    }
+
+    /**
+     * Estimated round trips taken by the recorded executions.
+     */
+    public long getRoundTrips() {
+        return _trips.get();
+    }
+
+    /**
+     * Estimated round trips the recorded executions would have taken with
+     * their default fetch size.
+     */
+    public long getDefaultRoundTrips() {
+        return _defaultTrips.get();
+    }
+
+    /**
+     * Estimated round trips saved by tuning. Can be negative if tuning
+     * shrank fetch sizes below the default for statements whose results
+     * then grew.
+     */
+    public long getRoundTripsSaved() {
+        return _defaultTrips.get() - _trips.get();
+    }
+
+    /**
+     * Clear all statistics.
+     */
+    public void reset() {
+        _executions.set(0);
+        _tuned.set(0);
+        _rows.set(0);
+        _trips.set(0);
+        _defaultTrips.set(0);
+        super.reset();
+    }
+}
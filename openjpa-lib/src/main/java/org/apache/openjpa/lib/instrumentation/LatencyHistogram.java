@@ -0,0 +1,165 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.lib.instrumentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed-size, log-linear latency histogram in the style of HdrHistogram.
+ * Values are recorded in microseconds into buckets whose width doubles
+ * every power of two, with 32 linear sub-buckets per power, so every
+ * recorded value is reported with a relative error of at most ~3%.
+ * Recording is lock-free and does not allocate; the bucket array is sized
+ * once at construction from the highest trackable value.
+ *
+ * @since 3.0.0
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Default highest trackable value: one hour in microseconds.
+     */
+    public static final long DEFAULT_HIGHEST_TRACKABLE = 60L * 60 * 1000 * 1000;
+
+    private final AtomicLongArray _counts;
+    private final AtomicLong _total = new AtomicLong();
+    private final AtomicLong _sum = new AtomicLong();
+    private final AtomicLong _max = new AtomicLong();
+    private final long _highest;
+
+    public LatencyHistogram() {
+        this(DEFAULT_HIGHEST_TRACKABLE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param highestTrackable highest value in microseconds that is tracked
+     * with full precision; larger values are counted in the last bucket
+     */
+    public LatencyHistogram(long highestTrackable) {
+        _highest = Math.max(highestTrackable, 2 * SUB_BUCKET_COUNT);
+        _counts = new AtomicLongArray(indexOf(_highest) + 1);
+    }
+
+    /**
+     * Record the given elapsed time in nanoseconds.
+     */
+    public void recordNanos(long nanos) {
+        record(nanos / 1000);
+    }
+
+    /**
+     * Record the given value in microseconds.
+     */
+    public void record(long micros) {
+        if (micros < 0)
+            micros = 0;
+        _counts.incrementAndGet(indexOf(Math.min(micros, _highest)));
+        _total.incrementAndGet();
+        _sum.addAndGet(micros);
+        long max;
+        while (micros > (max = _max.get()))
+            if (_max.compareAndSet(max, micros))
+                break;
+    }
+
+    /**
+     * Return the number of recorded values.
+     */
+    public long getCount() {
+        return _total.get();
+    }
+
+    /**
+     * Return the largest recorded value in microseconds.
+     */
+    public long getMax() {
+        return _max.get();
+    }
+
+    /**
+     * Return the mean of the recorded values in microseconds, or 0 if
+     * nothing has been recorded.
+     */
+    public double getMean() {
+        long count = _total.get();
+        return (count == 0) ? 0 : (double) _sum.get() / count;
+    }
+
+    /**
+     * Return the value in microseconds at or below which the given
+     * percentage of the recorded values fall.
+     *
+     * @param percentile a percentage in the range 0-100
+     */
+    public long getPercentile(double percentile) {
+        long count = _total.get();
+        if (count == 0)
+            return 0;
+        percentile = Math.max(0, Math.min(100, percentile));
+        long target = Math.max(1, (long) Math.ceil(count * percentile / 100));
+        long seen = 0;
+        int last = _counts.length() - 1;
+        for (int i = 0; i < last; i++) {
+            seen += _counts.get(i);
+            if (seen >= target)
+                return Math.min(highestEquivalentValue(i), _max.get());
+        }
+        // the last bucket also holds values beyond the trackable range
+        return _max.get();
+    }
+
+    /**
+     * Clear all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < _counts.length(); i++)
+            _counts.set(i, 0);
+        _total.set(0);
+        _sum.set(0);
+        _max.set(0);
+    }
+
+    /**
+     * Return the bucket index of the given non-negative value. Values
+     * below twice the sub-bucket count map directly to their own bucket.
+     */
+    static int indexOf(long value) {
+        if (value < 2 * SUB_BUCKET_COUNT)
+            return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * Return the highest value that maps to the given bucket index.
+     */
+    static long highestEquivalentValue(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT)
+            return index;
+        int shift = (index >>> SUB_BUCKET_BITS) - 1;
+        long mantissa = index - ((long) shift << SUB_BUCKET_BITS);
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
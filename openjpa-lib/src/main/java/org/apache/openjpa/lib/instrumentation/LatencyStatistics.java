@@ -0,0 +1,306 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.lib.instrumentation;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects latency distributions for query and SQL statement executions,
+ * flushes and connection acquisition, and keeps the most recent slow
+ * statements in a bounded ring buffer.
+ * <p>
+ * Recording an execution of a statement that is already tracked does not
+ * allocate: per-statement entries are created on the first execution of a
+ * statement, histograms are preallocated, and slow statement slots are
+ * reused. Capturing a slow execution formats its parameters. Collection is
+ * disabled by default; callers on the hot path are expected to test
+ * {@link #isEnabled} before taking timestamps.
+ *
+ * @since 3.0.0
+ */
+public class LatencyStatistics extends AbstractStatistics {
+
+    public static final int DEFAULT_MAX_STATEMENTS = 1000;
+    public static final int DEFAULT_SLOW_QUERY_CAPACITY = 100;
+    public static final long DEFAULT_SLOW_QUERY_THRESHOLD = 1000;
+
+    private volatile int _maxStatements = DEFAULT_MAX_STATEMENTS;
+    private volatile long _slowThresholdNanos =
+        DEFAULT_SLOW_QUERY_THRESHOLD * 1000 * 1000;
+
+    private final ConcurrentMap<String, Entry> _stats =
+        new ConcurrentHashMap<String, Entry>();
+    private final LatencyHistogram _flush = new LatencyHistogram();
+    private final LatencyHistogram _connWait = new LatencyHistogram();
+    private final AtomicLong _untracked = new AtomicLong();
+
+    private volatile SlowQuery[] _slow = newSlowQueries(DEFAULT_SLOW_QUERY_CAPACITY);
+    private final AtomicLong _slowSeq = new AtomicLong();
+
+
+    /**
+     * The maximum number of distinct statements tracked. Executions of
+     * statements beyond this limit are only counted in
+     * {@link #getUntrackedCount}, bounding the memory used by statement
+     * text that is generated dynamically. Defaults to 1000.
+     */
+    public int getMaxStatements() {
+        return _maxStatements;
+    }
+
+    /**
+     * The maximum number of distinct statements tracked.
+     */
+    public void setMaxStatements(int max) {
+        _maxStatements = max;
+    }
+
+    /**
+     * Executions taking at least this many milliseconds are captured in
+     * the slow query buffer. Defaults to 1000. A negative value disables
+     * slow query capture.
+     */
+    public long getSlowQueryThreshold() {
+        return (_slowThresholdNanos < 0) ? -1
+            : _slowThresholdNanos / (1000 * 1000);
+    }
+
+    /**
+     * Executions taking at least this many milliseconds are captured in
+     * the slow query buffer.
+     */
+    public void setSlowQueryThreshold(long millis) {
+        _slowThresholdNanos = (millis < 0) ? -1 : millis * 1000 * 1000;
+    }
+
+    /**
+     * The number of slow executions retained. Defaults to 100.
+     */
+    public int getSlowQueryCapacity() {
+        return _slow.length;
+    }
+
+    /**
+     * The number of slow executions retained. Changing the capacity
+     * discards the currently captured executions.
+     */
+    public void setSlowQueryCapacity(int capacity) {
+        _slow = newSlowQueries(Math.max(1, capacity));
+        _slowSeq.set(0);
+    }
+
+    /**
+     * Whether an execution of the given duration should be captured as a
+     * slow query. Callers use this to avoid formatting parameters for
+     * fast executions.
+     */
+    public boolean isSlow(long nanos) {
+        long threshold = _slowThresholdNanos;
+        return threshold >= 0 && nanos >= threshold;
+    }
+
+    /**
+     * Record an execution of the given query or SQL statement.
+     */
+    public void recordExecution(String statement, long nanos) {
+        Entry entry = getEntry(statement);
+        if (entry != null)
+            entry.latency.recordNanos(nanos);
+    }
+
+    /**
+     * Record the number of rows read or updated by an execution of the
+     * given statement.
+     */
+    public void recordRows(String statement, long rows) {
+        Entry entry = getEntry(statement);
+        if (entry != null)
+            entry.rows.addAndGet(rows);
+    }
+
+    /**
+     * Record the duration of a flush.
+     */
+    public void recordFlush(long nanos) {
+        _flush.recordNanos(nanos);
+    }
+
+    /**
+     * Record the time spent waiting to obtain a connection.
+     */
+    public void recordConnectionWait(long nanos) {
+        _connWait.recordNanos(nanos);
+    }
+
+    /**
+     * Capture a slow execution. The oldest captured execution is
+     * overwritten once the buffer is full.
+     *
+     * @param statement the query or SQL text
+     * @param params string form of the bound parameters, or null
+     * @param nanos elapsed time
+     */
+    public void recordSlowQuery(String statement, String params, long nanos) {
+        SlowQuery[] slow = _slow;
+        SlowQuery slot = slow[(int) (_slowSeq.getAndIncrement() % slow.length)];
+        slot.set(statement, params, nanos);
+    }
+
+    /**
+     * Return the statements currently tracked.
+     */
+    public Set<String> getStatements() {
+        return Collections.unmodifiableSet(_stats.keySet());
+    }
+
+    /**
+     * Return the latency histogram of the given statement, or null if the
+     * statement is not tracked.
+     */
+    public LatencyHistogram getLatency(String statement) {
+        Entry entry = (statement == null) ? null : _stats.get(statement);
+        return (entry == null) ? null : entry.latency;
+    }
+
+    /**
+     * Return the total rows read or updated by the given statement.
+     */
+    public long getRowCount(String statement) {
+        Entry entry = (statement == null) ? null : _stats.get(statement);
+        return (entry == null) ? 0 : entry.rows.get();
+    }
+
+    /**
+     * Return the flush duration histogram.
+     */
+    public LatencyHistogram getFlushLatency() {
+        return _flush;
+    }
+
+    /**
+     * Return the connection wait histogram.
+     */
+    public LatencyHistogram getConnectionWait() {
+        return _connWait;
+    }
+
+    /**
+     * Return the number of executions of statements that were not
+     * tracked because {@link #getMaxStatements} was reached.
+     */
+    public long getUntrackedCount() {
+        return _untracked.get();
+    }
+
+    /**
+     * Return a description of each captured slow execution, oldest first.
+     */
+    public List<String> getSlowQueries() {
+        SlowQuery[] slow = _slow;
+        long seq = _slowSeq.get();
+        int size = (int) Math.min(seq, slow.length);
+        List<String> result = new ArrayList<String>(size);
+        for (long i = seq - size; i < seq; i++) {
+            String desc = slow[(int) (i % slow.length)].toString();
+            if (desc != null)
+                result.add(desc);
+        }
+        return result;
+    }
+
+    /**
+     * Clear all collected statistics.
+     */
+    public void reset() {
+        _stats.clear();
+        _flush.reset();
+        _connWait.reset();
+        _untracked.set(0);
+        for (SlowQuery slot : _slow)
+            slot.set(null, null, 0);
+        _slowSeq.set(0);
+        super.reset();
+    }
+
+    private Entry getEntry(String statement) {
+        if (statement == null)
+            return null;
+        Entry entry = _stats.get(statement);
+        if (entry != null)
+            return entry;
+        if (_stats.size() >= _maxStatements) {
+            _untracked.incrementAndGet();
+            return null;
+        }
+        entry = new Entry();
+        Entry existing = _stats.putIfAbsent(statement, entry);
+        return (existing == null) ? entry : existing;
+    }
+
+    private static SlowQuery[] newSlowQueries(int capacity) {
+        SlowQuery[] slow = new SlowQuery[capacity];
+        for (int i = 0; i < slow.length; i++)
+            slow[i] = new SlowQuery();
+        return slow;
+    }
+
+    /**
+     * Statistics tracked per statement.
+     */
+    private static class Entry {
+        final LatencyHistogram latency = new LatencyHistogram();
+        final AtomicLong rows = new AtomicLong();
+    }
+
+    /**
+     * Reusable slot of the slow query buffer.
+     */
+    private static class SlowQuery {
+        private String _statement;
+        private String _params;
+        private long _nanos;
+        private long _time;
+
+        synchronized void set(String statement, String params, long nanos) {
+            _statement = statement;
+            _params = params;
+            _nanos = nanos;
+            _time = System.currentTimeMillis();
+        }
+
+        public synchronized String toString() {
+            if (_statement == null)
+                return null;
+            StringBuilder buf = new StringBuilder();
+            buf.append(new Date(_time)).append(" [").
+                append(_nanos / (1000 * 1000)).append(" ms] ").
+                append(_statement);
+            if (_params != null)
+                buf.append(" ").append(_params);
+            return buf.toString();
+        }
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.lib.jdbc;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.openjpa.lib.instrumentation.FetchSizeStatistics;
+
+/**
+ * A {@link ConnectionDecorator} that learns, per prepared SQL statement, the
+ * typical number of rows and the width of a row, and sets the fetch size of
+ * new statements for the same SQL accordingly: small lookups fetch their
+ * few rows without allocating large driver buffers, while large scans fetch
+ * as many rows per round trip as fit in <code>FetchBufferSize</code> bytes,
+ * up to <code>MaxFetchSize</code> rows.
+ * <p>
+ * Tuning is off unless <code>AdaptiveFetchSize</code> is set, typically
+ * through <code>openjpa.ConnectionFactoryProperties</code>. A fetch size
+ * set explicitly on the statement after it is prepared, such as the
+ * <code>FetchBatchSize</code> of the fetch configuration, takes
+ * precedence. Statements are keyed by their SQL, the way the prepared query
+ * cache keys queries by their text, and the number of statements learned is
+ * bounded by <code>MaxStatements</code>. Only queries are tuned; inserts,
+ * updates and deletes are left unwrapped and take no profile.
+ *
+ * @since 3.0.0
+ */
+public class AdaptiveFetchSizeDecorator implements ConnectionDecorator {
+
+    private static final int MAX_COLUMN_WIDTH = 4096;
+
+    private final FetchSizeStatistics _stats;
+    private final ConcurrentMap<String, Profile> _profiles =
+        new ConcurrentHashMap<String, Profile>();
+
+    private boolean _adaptive = false;
+    private int _maxFetchSize = 1000;
+    private int _bufferSize = 256 * 1024;
+    private int _driverFetchSize = 10;
+    private int _maxStatements = 1000;
+
+    public AdaptiveFetchSizeDecorator() {
+        this(null);
+    }
+
+    public AdaptiveFetchSizeDecorator(FetchSizeStatistics stats) {
+        _stats = stats;
+    }
+
+    /**
+     * Whether fetch sizes are tuned. Defaults to false.
+     */
+    public boolean getAdaptiveFetchSize() {
+        return _adaptive;
+    }
+
+    /**
+     * Whether fetch sizes are tuned. Defaults to false.
+     */
+    public void setAdaptiveFetchSize(boolean adaptive) {
+        _adaptive = adaptive;
+    }
+
+    /**
+     * The largest fetch size set. Defaults to 1000.
+     */
+    public int getMaxFetchSize() {
+        return _maxFetchSize;
+    }
+
+    /**
+     * The largest fetch size set. Defaults to 1000.
+     */
+    public void setMaxFetchSize(int max) {
+        _maxFetchSize = max;
+    }
+
+    /**
+     * The approximate number of bytes of row data to fetch per round trip.
+     * Defaults to 256KB.
+     */
+    public int getFetchBufferSize() {
+        return _bufferSize;
+    }
+
+    /**
+     * The approximate number of bytes of row data to fetch per round trip.
+     * Defaults to 256KB.
+     */
+    public void setFetchBufferSize(int size) {
+        _bufferSize = size;
+    }
+
+    /**
+     * The fetch size the driver uses when a statement reports a fetch size
+     * of 0, used to estimate the round trips saved. Defaults to 10.
+     */
+    public int getDriverFetchSize() {
+        return _driverFetchSize;
+    }
+
+    /**
+     * The fetch size the driver uses when a statement reports a fetch size
+     * of 0, used to estimate the round trips saved. Defaults to 10.
+     */
+    public void setDriverFetchSize(int size) {
+        _driverFetchSize = size;
+    }
+
+    /**
+     * The maximum number of distinct statements learned. Defaults to 1000.
+     */
+    public int getMaxStatements() {
+        return _maxStatements;
+    }
+
+    /**
+     * The maximum number of distinct statements learned. Defaults to 1000.
+     */
+    public void setMaxStatements(int max) {
+        _maxStatements = max;
+    }
+
+    /**
+     * The statistics collected by this decorator.
+     */
+    public FetchSizeStatistics getStatistics() {
+        return _stats;
+    }
+
+    /**
+     * The fetch size currently set on statements for the given SQL, or 0
+     * if nothing has been learned for it yet.
+     */
+    public int getFetchSize(String sql) {
+        Profile profile = _profiles.get(sql);
+        return (profile == null) ? 0 : profile.getFetchSize();
+    }
+
+    /**
+     * Forget all learned statements.
+     */
+    public void clear() {
+        _profiles.clear();
+    }
+
+    public Connection decorate(Connection conn) {
+        if (!_adaptive)
+            return conn;
+        return new AdaptiveConnection(conn);
+    }
+
+    /**
+     * Tune the fetch size of the given statement and wrap it to learn from
+     * its results.
+     */
+    private PreparedStatement tune(PreparedStatement stmnt, Connection conn,
+        String sql) throws SQLException {
+        if (!isQuery(sql))
+            return stmnt;
+        Profile profile = _profiles.get(sql);
+        if (profile == null) {
+            if (_profiles.size() >= _maxStatements)
+                return stmnt;
+            profile = new Profile();
+            Profile existing = _profiles.putIfAbsent(sql, profile);
+            if (existing != null)
+                profile = existing;
+        }
+
+        int defaultSize = stmnt.getFetchSize();
+        int size = profile.getFetchSize();
+        if (size > 0 && size != defaultSize) {
+            try {
+                stmnt.setFetchSize(size);
+            } catch (SQLException se) {
+                // drivers may reject fetch sizes; keep the default
+            }
+        }
+        return new AdaptivePreparedStatement(stmnt, conn, profile,
+            defaultSize);
+    }
+
+    /**
+     * Whether the given SQL is a query, which starts with SELECT or WITH
+     * after any leading whitespace or parentheses.
+     */
+    static boolean isQuery(String sql) {
+        if (sql == null)
+            return false;
+        int i = 0;
+        int len = sql.length();
+        while (i < len && (Character.isWhitespace(sql.charAt(i))
+            || sql.charAt(i) == '('))
+            i++;
+        return sql.regionMatches(true, i, "SELECT", 0, 6)
+            || sql.regionMatches(true, i, "WITH", 0, 4);
+    }
+
+    /**
+     * Estimate the width of a row in bytes from the column sizes.
+     */
+    private static int getRowWidth(ResultSet rs) {
+        try {
+            ResultSetMetaData meta = rs.getMetaData();
+            int width = 0;
+            for (int i = 1; i <= meta.getColumnCount(); i++) {
+                int size = meta.getColumnDisplaySize(i);
+                width += (size <= 0) ? 16 : Math.min(size, MAX_COLUMN_WIDTH);
+            }
+            return Math.max(width, 1);
+        } catch (SQLException se) {
+            return 0;
+        }
+    }
+
+    /**
+     * Learned result shape of a statement.
+     */
+    private class Profile {
+        // moving average of the rows read, -1 until the first result
+        private volatile int _rows = -1;
+        private volatile int _width = 0;
+        private volatile int _fetchSize = 0;
+
+        public int getFetchSize() {
+            return _fetchSize;
+        }
+
+        public boolean hasWidth() {
+            return _width > 0;
+        }
+
+        public void setWidth(int width) {
+            _width = width;
+        }
+
+        /**
+         * Learn from a result of the given number of rows. Concurrent
+         * updates may lose an observation, which only slows learning.
+         */
+        public void observe(long rows) {
+            int n = (int) Math.min(rows, Integer.MAX_VALUE / 4);
+            int avg = _rows;
+            avg = (avg < 0) ? n : (3 * avg + n + 3) / 4;
+            _rows = avg;
+
+            int max = _maxFetchSize;
+            if (_width > 0 && _bufferSize > 0)
+                max = Math.min(max, Math.max(_bufferSize / _width, 1));
+            _fetchSize = Math.max(Math.min(avg + 1, max), 1);
+        }
+    }
+
+    /**
+     * Tunes statements prepared through this connection.
+     */
+    private class AdaptiveConnection extends DelegatingConnection {
+
+        public AdaptiveConnection(Connection conn) {
+            super(conn);
+        }
+
+        protected PreparedStatement prepareStatement(String sql, boolean wrap)
+            throws SQLException {
+            return tune(super.prepareStatement(sql, false), this, sql);
+        }
+
+        protected PreparedStatement prepareStatement(String sql, int rsType,
+            int rsConcur, boolean wrap) throws SQLException {
+            return tune(super.prepareStatement(sql, rsType, rsConcur, false),
+                this, sql);
+        }
+
+        protected PreparedStatement prepareStatement(String sql, int rsType,
+            int rsConcur, int rsHold, boolean wrap) throws SQLException {
+            return tune(super.prepareStatement(sql, rsType, rsConcur, rsHold,
+                false), this, sql);
+        }
+    }
+
+    /**
+     * Learns from the results of a tuned statement.
+     */
+    private class AdaptivePreparedStatement
+        extends DelegatingPreparedStatement {
+
+        private final Profile _profile;
+        private final int _defaultSize;
+
+        public AdaptivePreparedStatement(PreparedStatement stmnt,
+            Connection conn, Profile profile, int defaultSize) {
+            super(stmnt, conn);
+            _profile = profile;
+            _defaultSize = defaultSize;
+        }
+
+        protected ResultSet executeQuery(boolean wrap) throws SQLException {
+            ResultSet rs = super.executeQuery(false);
+            if (rs == null)
+                return null;
+            return new AdaptiveResultSet(rs, this, _profile, getFetchSize(),
+                _defaultSize);
+        }
+    }
+
+    /**
+     * Counts rows and reports them to the statement profile on close.
+     */
+    private class AdaptiveResultSet extends DelegatingResultSet {
+
+        private final Profile _profile;
+        private final int _fetchSize;
+        private final int _defaultSize;
+        private long _rows = 0;
+        private boolean _closed = false;
+
+        public AdaptiveResultSet(ResultSet rs, Statement stmnt,
+            Profile profile, int fetchSize, int defaultSize) {
+            super(rs, stmnt);
+            _profile = profile;
+            _fetchSize = fetchSize;
+            _defaultSize = defaultSize;
+        }
+
+        public boolean next() throws SQLException {
+            boolean next = super.next();
+            if (next)
+                _rows++;
+            return next;
+        }
+
+        public void close() throws SQLException {
+            if (!_closed) {
+                _closed = true;
+                if (!_profile.hasWidth())
+                    _profile.setWidth(getRowWidth(getDelegate()));
+                _profile.observe(_rows);
+                if (_stats != null && _stats.isEnabled())
+                    _stats.recordExecution(_rows,
+                        (_fetchSize > 0) ? _fetchSize : _driverFetchSize,
+                        (_defaultSize > 0) ? _defaultSize : _driverFetchSize);
+            }
+            super.close();
+        }
+    }
+}
@@ -0,0 +1,449 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.lib.jdbc;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.sql.Timestamp;
+
+import org.apache.openjpa.lib.instrumentation.LatencyStatistics;
+
+/**
+ * A {@link ConnectionDecorator} that records the execution time and row
+ * counts of SQL statements in a {@link LatencyStatistics} instance, and
+ * captures the bound parameters of statements exceeding the slow query
+ * threshold. Connections are only decorated while the statistics are
+ * enabled, so there is no overhead when latency instrumentation is off.
+ * <p>
+ * Decorated statements and results are wrapped, one wrapper per statement
+ * and result. While slow query capture is enabled, each prepared statement
+ * also tracks its parameters in primitive arrays, allocated when the first
+ * parameter is bound, so that binding does not box values. The parameters
+ * are only formatted once a slow execution is detected.
+ *
+ * @since 3.0.0
+ */
+public class LatencyConnectionDecorator implements ConnectionDecorator {
+
+    private static final byte PARAM_UNSET = 0;
+    private static final byte PARAM_NULL = 1;
+    private static final byte PARAM_OBJECT = 2;
+    private static final byte PARAM_BOOLEAN = 3;
+    private static final byte PARAM_LONG = 4;
+    private static final byte PARAM_DOUBLE = 5;
+
+    private final LatencyStatistics _stats;
+
+    public LatencyConnectionDecorator(LatencyStatistics stats) {
+        _stats = stats;
+    }
+
+    /**
+     * The statistics collected by this decorator.
+     */
+    public LatencyStatistics getStatistics() {
+        return _stats;
+    }
+
+    public Connection decorate(Connection conn) {
+        if (_stats == null || !_stats.isEnabled())
+            return conn;
+        return new LatencyConnection(conn);
+    }
+
+    /**
+     * Record an execution, capturing it as a slow query if appropriate.
+     */
+    private void record(String sql, long start, LatencyPreparedStatement ps) {
+        long elapsed = System.nanoTime() - start;
+        _stats.recordExecution(sql, elapsed);
+        if (_stats.isSlow(elapsed))
+            _stats.recordSlowQuery(sql, (ps == null) ? null
+                : ps.formatParameters(), elapsed);
+    }
+
+    /**
+     * Wrap the given result to count the rows read from it.
+     */
+    private ResultSet countRows(ResultSet rs, Statement stmnt, String sql) {
+        if (rs == null)
+            return null;
+        return new LatencyResultSet(rs, stmnt, sql);
+    }
+
+    /**
+     * Times statements created through this connection.
+     */
+    private class LatencyConnection extends DelegatingConnection {
+
+        public LatencyConnection(Connection conn) {
+            super(conn);
+        }
+
+        protected Statement createStatement(boolean wrap) throws SQLException {
+            return new LatencyStatement(super.createStatement(false), this);
+        }
+
+        protected Statement createStatement(int rsType, int rsConcur,
+            boolean wrap) throws SQLException {
+            return new LatencyStatement(super.createStatement(rsType,
+                rsConcur, false), this);
+        }
+
+        protected Statement createStatement(int rsType, int rsConcur,
+            int rsHold, boolean wrap) throws SQLException {
+            return new LatencyStatement(super.createStatement(rsType,
+                rsConcur, rsHold, false), this);
+        }
+
+        protected PreparedStatement prepareStatement(String sql, boolean wrap)
+            throws SQLException {
+            return new LatencyPreparedStatement(super.prepareStatement(sql,
+                false), this, sql);
+        }
+
+        protected PreparedStatement prepareStatement(String sql, int rsType,
+            int rsConcur, boolean wrap) throws SQLException {
+            return new LatencyPreparedStatement(super.prepareStatement(sql,
+                rsType, rsConcur, false), this, sql);
+        }
+
+        protected PreparedStatement prepareStatement(String sql, int rsType,
+            int rsConcur, int rsHold, boolean wrap) throws SQLException {
+            return new LatencyPreparedStatement(super.prepareStatement(sql,
+                rsType, rsConcur, rsHold, false), this, sql);
+        }
+
+        protected PreparedStatement prepareStatement(String sql,
+            int autoGeneratedKeys, boolean wrap) throws SQLException {
+            return new LatencyPreparedStatement(super.prepareStatement(sql,
+                autoGeneratedKeys, false), this, sql);
+        }
+
+        protected PreparedStatement prepareStatement(String sql,
+            int[] columnIndexes, boolean wrap) throws SQLException {
+            return new LatencyPreparedStatement(super.prepareStatement(sql,
+                columnIndexes, false), this, sql);
+        }
+
+        protected PreparedStatement prepareStatement(String sql,
+            String[] columnNames, boolean wrap) throws SQLException {
+            return new LatencyPreparedStatement(super.prepareStatement(sql,
+                columnNames, false), this, sql);
+        }
+    }
+
+    /**
+     * Times executions of ad-hoc statements.
+     */
+    private class LatencyStatement extends DelegatingStatement {
+
+        public LatencyStatement(Statement stmnt, Connection conn) {
+            super(stmnt, conn);
+        }
+
+        protected ResultSet executeQuery(String sql, boolean wrap)
+            throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return countRows(super.executeQuery(sql, false), this, sql);
+            } finally {
+                record(sql, start, null);
+            }
+        }
+
+        public int executeUpdate(String sql) throws SQLException {
+            long start = System.nanoTime();
+            int count = 0;
+            try {
+                count = super.executeUpdate(sql);
+                return count;
+            } finally {
+                record(sql, start, null);
+                _stats.recordRows(sql, count);
+            }
+        }
+
+        public boolean execute(String sql) throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return super.execute(sql);
+            } finally {
+                record(sql, start, null);
+            }
+        }
+    }
+
+    /**
+     * Times executions of prepared statements and tracks their parameters.
+     */
+    private class LatencyPreparedStatement extends DelegatingPreparedStatement {
+
+        private final String _sql;
+        private byte[] _types = null;
+        private long[] _bits = null;
+        private Object[] _refs = null;
+        private int _max = 0;
+
+        public LatencyPreparedStatement(PreparedStatement ps,
+            Connection conn, String sql) {
+            super(ps, conn);
+            _sql = sql;
+        }
+
+        protected ResultSet executeQuery(boolean wrap) throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return countRows(super.executeQuery(false), this, _sql);
+            } finally {
+                record(_sql, start, this);
+            }
+        }
+
+        public int executeUpdate() throws SQLException {
+            long start = System.nanoTime();
+            int count = 0;
+            try {
+                count = super.executeUpdate();
+                return count;
+            } finally {
+                record(_sql, start, this);
+                _stats.recordRows(_sql, count);
+            }
+        }
+
+        public int[] executeBatch() throws SQLException {
+            long start = System.nanoTime();
+            int[] counts = null;
+            try {
+                counts = super.executeBatch();
+                return counts;
+            } finally {
+                record(_sql, start, this);
+                if (counts != null) {
+                    long rows = 0;
+                    for (int i = 0; i < counts.length; i++)
+                        if (counts[i] > 0)
+                            rows += counts[i];
+                    _stats.recordRows(_sql, rows);
+                }
+            }
+        }
+
+        public boolean execute() throws SQLException {
+            long start = System.nanoTime();
+            try {
+                return super.execute();
+            } finally {
+                record(_sql, start, this);
+            }
+        }
+
+        public void clearParameters() throws SQLException {
+            super.clearParameters();
+            for (int i = 0; i < _max; i++) {
+                _types[i] = PARAM_UNSET;
+                _refs[i] = null;
+            }
+            _max = 0;
+        }
+
+        public void setNull(int i1, int i2) throws SQLException {
+            super.setNull(i1, i2);
+            track(i1, PARAM_NULL, 0, null);
+        }
+
+        public void setBoolean(int i, boolean b) throws SQLException {
+            super.setBoolean(i, b);
+            track(i, PARAM_BOOLEAN, (b) ? 1 : 0, null);
+        }
+
+        public void setByte(int i, byte b) throws SQLException {
+            super.setByte(i, b);
+            track(i, PARAM_LONG, b, null);
+        }
+
+        public void setShort(int i, short s) throws SQLException {
+            super.setShort(i, s);
+            track(i, PARAM_LONG, s, null);
+        }
+
+        public void setInt(int i1, int i2) throws SQLException {
+            super.setInt(i1, i2);
+            track(i1, PARAM_LONG, i2, null);
+        }
+
+        public void setLong(int i, long l) throws SQLException {
+            super.setLong(i, l);
+            track(i, PARAM_LONG, l, null);
+        }
+
+        public void setFloat(int i, float f) throws SQLException {
+            super.setFloat(i, f);
+            track(i, PARAM_DOUBLE, Double.doubleToRawLongBits(f), null);
+        }
+
+        public void setDouble(int i, double d) throws SQLException {
+            super.setDouble(i, d);
+            track(i, PARAM_DOUBLE, Double.doubleToRawLongBits(d), null);
+        }
+
+        public void setBigDecimal(int i, BigDecimal bd) throws SQLException {
+            super.setBigDecimal(i, bd);
+            track(i, PARAM_OBJECT, 0, bd);
+        }
+
+        public void setString(int i, String s) throws SQLException {
+            super.setString(i, s);
+            track(i, PARAM_OBJECT, 0, s);
+        }
+
+        public void setDate(int i, Date d) throws SQLException {
+            super.setDate(i, d);
+            track(i, PARAM_OBJECT, 0, d);
+        }
+
+        public void setTime(int i, Time t) throws SQLException {
+            super.setTime(i, t);
+            track(i, PARAM_OBJECT, 0, t);
+        }
+
+        public void setTimestamp(int i, Timestamp t) throws SQLException {
+            super.setTimestamp(i, t);
+            track(i, PARAM_OBJECT, 0, t);
+        }
+
+        public void setObject(int i1, Object o, int i2) throws SQLException {
+            super.setObject(i1, o, i2);
+            track(i1, PARAM_OBJECT, 0, o);
+        }
+
+        public void setObject(int i, Object o) throws SQLException {
+            super.setObject(i, o);
+            track(i, PARAM_OBJECT, 0, o);
+        }
+
+        /**
+         * Remember the value bound to the given 1-based parameter index,
+         * unless slow executions are not captured.
+         */
+        private void track(int index, byte type, long bits, Object ref) {
+            int i = index - 1;
+            if (i < 0 || _stats.getSlowQueryThreshold() < 0)
+                return;
+            if (_types == null) {
+                int len = Math.max(i + 1, 8);
+                _types = new byte[len];
+                _bits = new long[len];
+                _refs = new Object[len];
+            } else if (i >= _types.length) {
+                int len = Math.max(i + 1, _types.length * 2);
+                byte[] types = new byte[len];
+                long[] longs = new long[len];
+                Object[] refs = new Object[len];
+                System.arraycopy(_types, 0, types, 0, _max);
+                System.arraycopy(_bits, 0, longs, 0, _max);
+                System.arraycopy(_refs, 0, refs, 0, _max);
+                _types = types;
+                _bits = longs;
+                _refs = refs;
+            }
+            _types[i] = type;
+            _bits[i] = bits;
+            _refs[i] = ref;
+            if (i >= _max)
+                _max = i + 1;
+        }
+
+        /**
+         * Format the currently bound parameters.
+         */
+        String formatParameters() {
+            if (_max == 0)
+                return null;
+            StringBuilder buf = new StringBuilder("[");
+            for (int i = 0; i < _max; i++) {
+                if (i > 0)
+                    buf.append(", ");
+                switch (_types[i]) {
+                    case PARAM_NULL:
+                        buf.append("null");
+                        break;
+                    case PARAM_BOOLEAN:
+                        buf.append(_bits[i] != 0);
+                        break;
+                    case PARAM_LONG:
+                        buf.append(_bits[i]);
+                        break;
+                    case PARAM_DOUBLE:
+                        buf.append(Double.longBitsToDouble(_bits[i]));
+                        break;
+                    case PARAM_OBJECT:
+                        if (_refs[i] instanceof String)
+                            buf.append("'").append(_refs[i]).append("'");
+                        else if (_refs[i] == null)
+                            buf.append("null");
+                        else
+                            buf.append("(").append(_refs[i].getClass().
+                                getName()).append(") ").append(_refs[i]);
+                        break;
+                    default:
+                        buf.append("?");
+                }
+            }
+            return buf.append("]").toString();
+        }
+    }
+
+    /**
+     * Counts the rows read from a query result.
+     */
+    private class LatencyResultSet extends DelegatingResultSet {
+
+        private final String _sql;
+        private long _rows = 0;
+        private boolean _closed = false;
+
+        public LatencyResultSet(ResultSet rs, Statement stmnt, String sql) {
+            super(rs, stmnt);
+            _sql = sql;
+        }
+
+        public boolean next() throws SQLException {
+            boolean next = super.next();
+            if (next)
+                _rows++;
+            return next;
+        }
+
+        public void close() throws SQLException {
+            if (!_closed) {
+                _closed = true;
+                _stats.recordRows(_sql, _rows);
+            }
+            super.close();
+        }
+    }
+}
@@ -22,6 +22,8 @@ import java.io.File;
 import java.io.IOException;
 import java.security.AccessController;
 import java.security.PrivilegedActionException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import java.util.zip.ZipFile;
 
@@ -50,12 +52,37 @@ public class ClasspathMetaDataIterator extends MetaDataIteratorChain {
      */
     public ClasspathMetaDataIterator(String[] dirs, MetaDataFilter filter)
         throws IOException {
+        for (File file : getClasspathFiles(dirs)) {
+            if (AccessController.doPrivileged(J2DoPrivHelper
+                .isDirectoryAction(file)).booleanValue())
+                addIterator(new FileMetaDataIterator(file, filter));
+            else {
+                try {
+                    ZipFile zFile = AccessController
+                        .doPrivileged(J2DoPrivHelper.newZipFileAction(file));
+                    addIterator(new ZipFileMetaDataIterator(zFile, filter));
+                } catch (PrivilegedActionException pae) {
+                    throw (IOException) pae.getException();
+                }
+            }
+        }
+    }
+
+    /**
+     * Return the existing directories and jars of the classpath that end
+     * with any of the given strings, in classpath order. The given
+     * directories may be null to return all classpath directories and jars.
+     *
+     * @since 3.0.0
+     */
+    public static List<File> getClasspathFiles(String[] dirs) {
         Properties props = AccessController.doPrivileged(
             J2DoPrivHelper.getPropertiesAction()); 
         String path = props.getProperty("java.class.path");
         String[] tokens = StringUtil.split(path,
             props.getProperty("path.separator"), 0);
 
+        List<File> files = new ArrayList<File>(tokens.length);
         for (int i = 0; i < tokens.length; i++) {
             if (dirs != null && dirs.length != 0 && !endsWith(tokens[i], dirs))
                 continue;
@@ -65,18 +92,11 @@ public class ClasspathMetaDataIterator extends MetaDataIteratorChain {
                 J2DoPrivHelper.existsAction(file))).booleanValue())
                 continue;
             if (AccessController.doPrivileged(J2DoPrivHelper
-                .isDirectoryAction(file)).booleanValue())
-                addIterator(new FileMetaDataIterator(file, filter));
-            else if (tokens[i].endsWith(".jar")) {
-                try {
-                    ZipFile zFile = AccessController
-                        .doPrivileged(J2DoPrivHelper.newZipFileAction(file));
-                    addIterator(new ZipFileMetaDataIterator(zFile, filter));
-                } catch (PrivilegedActionException pae) {
-                    throw (IOException) pae.getException();
-                }
-            }
+                .isDirectoryAction(file)).booleanValue()
+                || tokens[i].endsWith(".jar"))
+                files.add(file);
         }
+        return files;
     }
 
     /**
@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.lib.rop;
+
+import java.io.ObjectStreamException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+
+import org.apache.openjpa.lib.util.Localizer;
+
+/**
+ * Forward-only result list that retains none of its results. Results are
+ * read from the provider as they are iterated and can only be traversed
+ * once, in order, so the memory used is independent of the number of
+ * results. All iterators share a single cursor.
+ *
+ * @since 3.0.0
+ */
+public class StreamingResultList extends AbstractSequentialResultList
+    implements ResultList {
+
+    private static final Localizer _loc = Localizer.forPackage
+        (StreamingResultList.class);
+
+    private static final int OPEN = 0;
+    private static final int CLOSED = 1;
+    private static final int FREED = 2;
+
+    private ResultObjectProvider _rop = null;
+    private int _state = OPEN;
+    private int _size = -1;
+
+    // index of the next result, and the next result if already read ahead
+    private int _idx = 0;
+    private boolean _ahead = false;
+    private Object _next = null;
+
+    public StreamingResultList(ResultObjectProvider rop) {
+        _rop = rop;
+        try {
+            _rop.open();
+        } catch (RuntimeException re) {
+            close();
+            throw re;
+        } catch (Exception e) {
+            close();
+            _rop.handleCheckedException(e);
+        }
+    }
+
+    public boolean isProviderOpen() {
+        return _state == OPEN;
+    }
+
+    public boolean isClosed() {
+        return _state == CLOSED;
+    }
+
+    public void close() {
+        if (_state != CLOSED) {
+            free();
+            _next = null;
+            _state = CLOSED;
+        }
+    }
+
+    protected ListIterator itr(int index) {
+        if (index < _idx)
+            throw new IllegalStateException(_loc.get("streamed-past",
+                String.valueOf(index)).getMessage());
+        Itr itr = new Itr();
+        while (_idx < index && itr.hasNext())
+            itr.next();
+        return itr;
+    }
+
+    public int size() {
+        assertOpen();
+        if (_size != -1)
+            return _size;
+        if (_state != OPEN)
+            return _idx;
+        try {
+            _size = _rop.size();
+            return _size;
+        } catch (RuntimeException re) {
+            close();
+            throw re;
+        } catch (Exception e) {
+            close();
+            _rop.handleCheckedException(e);
+            return -1;
+        }
+    }
+
+    /**
+     * Read the next result ahead of the cursor.
+     */
+    private boolean readAhead() {
+        if (_ahead)
+            return true;
+        if (_state != OPEN)
+            return false;
+        try {
+            if (!_rop.next()) {
+                free();
+                return false;
+            }
+            _next = _rop.getResultObject();
+            _ahead = true;
+            return true;
+        } catch (RuntimeException re) {
+            close();
+            throw re;
+        } catch (Exception e) {
+            close();
+            _rop.handleCheckedException(e);
+            return false;
+        }
+    }
+
+    private void free() {
+        if (_state == OPEN) {
+            try {
+                _rop.close();
+            } catch (Exception e) {
+            }
+            _state = FREED;
+        }
+    }
+
+    public Object writeReplace() throws ObjectStreamException {
+        // serialize the remaining results
+        List list = new ArrayList();
+        while (readAhead()) {
+            list.add(_next);
+            _next = null;
+            _ahead = false;
+            _idx++;
+        }
+        return list;
+    }
+
+    public int hashCode() {
+        // superclass tries to traverses entire list for hashcode
+        return System.identityHashCode(this);
+    }
+
+    public boolean equals(Object other) {
+        // superclass tries to traverse entire list for equality
+        return other == this;
+    }
+
+    public List subList(int fromIndex, int toIndex) {
+        assertOpen();
+        List list = new ArrayList(Math.max(toIndex - fromIndex, 0));
+        for (ListIterator itr = itr(fromIndex); itr.hasNext()
+            && itr.nextIndex() < toIndex;)
+            list.add(itr.next());
+        return list;
+    }
+
+    private class Itr extends AbstractListIterator {
+
+        public int nextIndex() {
+            return _idx;
+        }
+
+        public int previousIndex() {
+            return _idx - 1;
+        }
+
+        public boolean hasNext() {
+            return readAhead();
+        }
+
+        public boolean hasPrevious() {
+            return false;
+        }
+
+        public Object previous() {
+            throw new NoSuchElementException();
+        }
+
+        public Object next() {
+            if (!readAhead())
+                throw new NoSuchElementException();
+            Object next = _next;
+            _next = null;
+            _ahead = false;
+            _idx++;
+            return next;
+        }
+    }
+}
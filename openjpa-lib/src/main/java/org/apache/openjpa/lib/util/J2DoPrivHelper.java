@@ -624,6 +624,23 @@ public abstract class J2DoPrivHelper {
         };
     }
 
+    /**
+     * Return a PrivilegeAction object for f.lastModified().
+     * 
+     * Requires security policy:
+     *   'permission java.io.FilePermission "read";'
+     *   
+     * @return Long
+     * @since 3.0.0
+     */
+    public static PrivilegedAction<Long> lastModifiedAction(final File f) {
+        return new PrivilegedAction<Long>() {
+            public Long run() {
+                return Long.valueOf(f.lastModified());
+            }
+        };
+    }
+
     /**
      * Return a PrivilegeAction object for f.listFiles().
      * 
@@ -0,0 +1,100 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.lib.instrumentation;
+
+import java.util.List;
+
+import junit.framework.TestCase;
+
+/**
+ * Tests the {@link LatencyHistogram} and {@link LatencyStatistics}.
+ */
+public class TestLatencyStatistics extends TestCase {
+
+    public void testBucketIndexesAreContiguous() {
+        int last = -1;
+        for (long v = 0; v < 100000; v++) {
+            int idx = LatencyHistogram.indexOf(v);
+            assertTrue(idx == last || idx == last + 1);
+            assertTrue(LatencyHistogram.highestEquivalentValue(idx) >= v);
+            last = idx;
+        }
+    }
+
+    public void testPercentiles() {
+        LatencyHistogram hist = new LatencyHistogram();
+        for (long v = 1; v <= 10000; v++)
+            hist.record(v);
+        assertEquals(10000, hist.getCount());
+        assertEquals(10000, hist.getMax());
+        assertEquals(5000.5, hist.getMean(), 0.001);
+        assertWithin(5000, hist.getPercentile(50));
+        assertWithin(9900, hist.getPercentile(99));
+        assertEquals(10000, hist.getPercentile(100));
+
+        hist.reset();
+        assertEquals(0, hist.getCount());
+        assertEquals(0, hist.getPercentile(50));
+    }
+
+    public void testValuesAboveHighestTrackable() {
+        LatencyHistogram hist = new LatencyHistogram(1000);
+        hist.record(5000);
+        assertEquals(1, hist.getCount());
+        assertEquals(5000, hist.getMax());
+        assertEquals(5000, hist.getPercentile(100));
+    }
+
+    public void testStatementLimit() {
+        LatencyStatistics stats = new LatencyStatistics();
+        stats.setMaxStatements(2);
+        stats.recordExecution("a", 1000);
+        stats.recordExecution("b", 1000);
+        stats.recordExecution("c", 1000);
+        stats.recordRows("a", 3);
+        assertEquals(2, stats.getStatements().size());
+        assertEquals(1, stats.getUntrackedCount());
+        assertEquals(3, stats.getRowCount("a"));
+        assertNull(stats.getLatency("c"));
+    }
+
+    public void testSlowQueryRingBuffer() {
+        LatencyStatistics stats = new LatencyStatistics();
+        stats.setSlowQueryCapacity(3);
+        stats.setSlowQueryThreshold(10);
+        assertFalse(stats.isSlow(9 * 1000 * 1000));
+        assertTrue(stats.isSlow(10 * 1000 * 1000));
+        for (int i = 0; i < 5; i++)
+            stats.recordSlowQuery("q" + i, "[" + i + "]", 20 * 1000 * 1000);
+        List<String> slow = stats.getSlowQueries();
+        assertEquals(3, slow.size());
+        assertTrue(slow.get(0).endsWith("q2 [2]"));
+        assertTrue(slow.get(2).endsWith("q4 [4]"));
+
+        stats.reset();
+        assertTrue(stats.getSlowQueries().isEmpty());
+        stats.setSlowQueryThreshold(-1);
+        assertFalse(stats.isSlow(Long.MAX_VALUE));
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(expected + " vs " + actual,
+            Math.abs(expected - actual) <= expected * 0.04);
+    }
+}
@@ -247,4 +247,41 @@ public interface JDBCFetchPlan
      * @since 2.2.0
      */
     public void setIgnoreDfgForFkSelect(boolean b);
+
+    /**
+     * Whether pessimistic locks skip the rows that are locked by other
+     * transactions instead of waiting for them. Rows skipped by a query
+     * are left out of its result.
+     *
+     * @since 3.0.0
+     */
+    public boolean getSkipLocked();
+
+    /**
+     * Whether pessimistic locks skip the rows that are locked by other
+     * transactions instead of waiting for them. Rows skipped by a query
+     * are left out of its result.
+     *
+     * @since 3.0.0
+     */
+    public JDBCFetchPlan setSkipLocked(boolean skip);
+
+    /**
+     * The number of elements that large result set collection fields read
+     * per query. When greater than 0, such a collection is iterated in pages
+     * ordered by the primary key of its elements and the connection is
+     * released between pages. The size of large result set fields is then
+     * counted once and kept up to date from the changes made to them.
+     *
+     * @since 3.0.0
+     */
+    public int getLRSPageSize();
+
+    /**
+     * The number of elements that large result set collection fields read
+     * per query, or 0 to iterate over a single open result.
+     *
+     * @since 3.0.0
+     */
+    public JDBCFetchPlan setLRSPageSize(int size);
 }
@@ -78,6 +78,10 @@ public class JDBCFetchPlanImpl
                 new HintValueConverter.OpenJPAEnumToInteger(ResultSetType.FORWARD_ONLY));
         registerHint(new String[]{"openjpa.FetchPlan.SubclassFetchMode", "openjpa.jdbc.SubclassFetchMode"}, 
                 new HintValueConverter.OpenJPAEnumToInteger(FetchMode.NONE));
+        registerHint(new String[]{"openjpa.FetchPlan.SkipLocked", "openjpa.jdbc.SkipLocked"},
+                new HintValueConverter.StringToBoolean());
+        registerHint(new String[]{"openjpa.FetchPlan.LRSPageSize", "openjpa.jdbc.LRSPageSize"},
+                new HintValueConverter.StringToInteger());
         
 //        "openjpa.FetchPlan.FetchDirection"
 //        _hints.add("openjpa.FetchPlan.LockScope");
@@ -350,4 +354,21 @@ public class JDBCFetchPlanImpl
     public void setIgnoreDfgForFkSelect(boolean b) {
         _fetch.setIgnoreDfgForFkSelect(b);
     }
+    public boolean getSkipLocked() {
+        return _fetch.getSkipLocked();
+    }
+
+    public JDBCFetchPlan setSkipLocked(boolean skip) {
+        _fetch.setSkipLocked(skip);
+        return this;
+    }
+
+    public int getLRSPageSize() {
+        return _fetch.getLRSPageSize();
+    }
+
+    public JDBCFetchPlan setLRSPageSize(int size) {
+        _fetch.setLRSPageSize(size);
+        return this;
+    }
 }
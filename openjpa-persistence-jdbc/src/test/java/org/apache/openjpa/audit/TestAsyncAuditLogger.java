@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.audit;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import javax.persistence.EntityManager;
+
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.apache.openjpa.persistence.test.AbstractPersistenceTestCase;
+
+/**
+ * Tests the asynchronous audit logger writes audited instances as JSON lines.
+ */
+public class TestAsyncAuditLogger extends AbstractPersistenceTestCase {
+	private File _base;
+
+	public void setUp() {
+		_base = new File("target", "audit-" + getName());
+		for (int i = 0; i < 10; i++) {
+			new File(_base.getPath() + "." + i + ".jsonl").delete();
+			new File(_base.getPath() + "." + i + ".jsonl.gz").delete();
+		}
+	}
+
+	public void testSyncDurabilityWritesBeforeCommitReturns() throws Exception {
+		OpenJPAEntityManagerFactorySPI emf = createEMF(X.class, CLEAR_TABLES,
+			"openjpa.Auditor", "async(File=" + _base.getPath() + ",Durability=sync,Compress=false)");
+		try {
+			AsyncAuditLogger auditor = (AsyncAuditLogger) emf.getConfiguration().getAuditorInstance();
+			assertEquals(AsyncAuditLogger.DURABILITY_SYNC, auditor.getDurability());
+
+			EntityManager em = emf.createEntityManager();
+			em.getTransaction().begin();
+			X x = new X();
+			x.setName("x");
+			em.persist(x);
+			em.getTransaction().commit();
+
+			List<String> lines = read(auditor.getFile(0), false);
+			assertEquals(1, lines.size());
+			assertTrue(lines.get(0), lines.get(0).contains("\"operation\":\"CREATE\""));
+			assertTrue(lines.get(0), lines.get(0).contains("\"type\":\"" + X.class.getName() + "\""));
+
+			em.getTransaction().begin();
+			x.setPrice(200);
+			em.getTransaction().commit();
+
+			lines = read(auditor.getFile(0), false);
+			assertEquals(2, lines.size());
+			assertTrue(lines.get(1), lines.get(1).contains("\"operation\":\"UPDATE\""));
+			assertTrue(lines.get(1), lines.get(1).contains("\"fields\":[\"price\"]"));
+			em.close();
+		} finally {
+			closeEMF(emf);
+		}
+	}
+
+	public void testRecordsAreWrittenToRollingCompressedFiles() throws Exception {
+		OpenJPAEntityManagerFactorySPI emf = createEMF(X.class, CLEAR_TABLES,
+			"openjpa.Auditor", "async(File=" + _base.getPath() + ",MaxFileSize=1,BatchSize=4)");
+		AsyncAuditLogger auditor = (AsyncAuditLogger) emf.getConfiguration().getAuditorInstance();
+		int n = 5;
+		long[] ids = new long[n];
+		EntityManager em = emf.createEntityManager();
+		for (int i = 0; i < n; i++) {
+			em.getTransaction().begin();
+			X x = new X();
+			x.setName("x" + i);
+			em.persist(x);
+			em.getTransaction().commit();
+			ids[i] = x.getId();
+		}
+		em.close();
+		closeEMF(emf);
+
+		// every transaction exceeds the file size, so each has its own file
+		assertEquals(n, auditor.getWrittenCount());
+		assertEquals(0, auditor.getDroppedCount());
+		for (int i = 0; i < n; i++) {
+			List<String> lines = read(auditor.getFile(i), true);
+			assertEquals(1, lines.size());
+			assertTrue(lines.get(0), lines.get(0).contains("X[" + ids[i] + "]"));
+		}
+		assertFalse(auditor.getFile(n).exists());
+	}
+
+	private List<String> read(File file, boolean compressed) throws IOException {
+		assertTrue(file + " does not exist", file.exists());
+		InputStream in = new FileInputStream(file);
+		if (compressed)
+			in = new GZIPInputStream(in);
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, "UTF-8"));
+		try {
+			List<String> lines = new ArrayList<String>();
+			for (String line = reader.readLine(); line != null; line = reader.readLine())
+				lines.add(line);
+			return lines;
+		} finally {
+			reader.close();
+		}
+	}
+}
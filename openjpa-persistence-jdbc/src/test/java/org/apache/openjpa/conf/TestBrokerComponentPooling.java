@@ -0,0 +1,171 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.conf;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.openjpa.event.AbstractLifecycleListener;
+import org.apache.openjpa.event.LifecycleEvent;
+import org.apache.openjpa.kernel.AbstractLockManager;
+import org.apache.openjpa.kernel.Broker;
+import org.apache.openjpa.kernel.VersionLockManager;
+import org.apache.openjpa.persistence.JPAFacadeHelper;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerSPI;
+import org.apache.openjpa.persistence.datacache.common.apps.PObject;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Tests reuse of the components of closed brokers on the same thread.
+ */
+public class TestBrokerComponentPooling extends SingleEMFTestCase {
+
+    public void setUp() throws Exception {
+        super.setUp(PObject.class, CLEAR_TABLES, "openjpa.BrokerComponentPooling", "true");
+    }
+
+    public void testComponentsAreReusedOnSameThread() {
+        OpenJPAEntityManagerSPI em = emf.createEntityManager();
+        Broker broker = JPAFacadeHelper.toBroker(em);
+        Object lm = broker.getLockManager();
+        Object lem = broker.getLifecycleEventManager();
+        em.close();
+
+        em = emf.createEntityManager();
+        broker = JPAFacadeHelper.toBroker(em);
+        assertSame(lm, broker.getLockManager());
+        assertSame(lem, broker.getLifecycleEventManager());
+        assertSame(broker, ((AbstractLockManager) broker.getLockManager()).getContext());
+        em.close();
+    }
+
+    public void testComponentsAreNotSharedAcrossThreads() throws Exception {
+        OpenJPAEntityManagerSPI em = emf.createEntityManager();
+        final Object lm = JPAFacadeHelper.toBroker(em).getLockManager();
+        em.close();
+
+        final Object[] other = new Object[1];
+        Thread t = new Thread() {
+            public void run() {
+                OpenJPAEntityManagerSPI em = emf.createEntityManager();
+                other[0] = JPAFacadeHelper.toBroker(em).getLockManager();
+                em.close();
+            }
+        };
+        t.start();
+        t.join();
+        assertNotNull(other[0]);
+        assertNotSame(lm, other[0]);
+    }
+
+    public void testListenersDoNotLeakIntoReusingBroker() {
+        final AtomicInteger persists = new AtomicInteger();
+        OpenJPAEntityManagerSPI em = emf.createEntityManager();
+        em.addLifecycleListener(new AbstractLifecycleListener() {
+            public void afterPersist(LifecycleEvent event) {
+                persists.incrementAndGet();
+            }
+        }, (Class[]) null);
+        em.getTransaction().begin();
+        em.persist(new PObject());
+        em.getTransaction().commit();
+        em.close();
+        assertEquals(1, persists.get());
+
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        em.persist(new PObject());
+        em.getTransaction().commit();
+        em.close();
+        assertEquals(1, persists.get());
+    }
+
+    public void testPooledLockManagerIsResetNotClosed() throws Exception {
+        CountingLockManager.closes.set(0);
+        final OpenJPAEntityManagerFactorySPI emf2 = createEMF(PObject.class,
+            "openjpa.BrokerComponentPooling", "true",
+            "openjpa.LockManager", CountingLockManager.class.getName());
+        try {
+            final AbstractLockManager[] lm = new AbstractLockManager[1];
+            Thread t = new Thread() {
+                public void run() {
+                    OpenJPAEntityManagerSPI em = emf2.createEntityManager();
+                    lm[0] = (AbstractLockManager) JPAFacadeHelper.toBroker(em)
+                        .getLockManager();
+                    em.close();
+                }
+            };
+            t.start();
+            t.join();
+            assertNotNull(lm[0]);
+            assertNull(lm[0].getContext());
+            assertEquals(0, CountingLockManager.closes.get());
+        } finally {
+            closeEMF(emf2);
+        }
+        // closing the factory drops the components pooled on every thread
+        assertEquals(1, CountingLockManager.closes.get());
+    }
+
+    public void testLockManagerWithoutResetIsClosed() {
+        CountingLockManager.closes.set(0);
+        OpenJPAEntityManagerFactorySPI emf2 = createEMF(PObject.class,
+            "openjpa.BrokerComponentPooling", "true",
+            "openjpa.LockManager", UnresettableLockManager.class.getName());
+        try {
+            OpenJPAEntityManagerSPI em = emf2.createEntityManager();
+            Object lm = JPAFacadeHelper.toBroker(em).getLockManager();
+            em.close();
+            assertEquals(1, CountingLockManager.closes.get());
+            em = emf2.createEntityManager();
+            assertNotSame(lm, JPAFacadeHelper.toBroker(em).getLockManager());
+            em.close();
+        } finally {
+            closeEMF(emf2);
+        }
+    }
+
+    public void testComponentsAreNotReusedByDefault() {
+        OpenJPAEntityManagerFactorySPI emf2 = createEMF(PObject.class);
+        try {
+            OpenJPAEntityManagerSPI em = emf2.createEntityManager();
+            Object lm = JPAFacadeHelper.toBroker(em).getLockManager();
+            em.close();
+            em = emf2.createEntityManager();
+            assertNotSame(lm, JPAFacadeHelper.toBroker(em).getLockManager());
+            em.close();
+        } finally {
+            closeEMF(emf2);
+        }
+    }
+
+    public static class CountingLockManager extends VersionLockManager {
+        static final AtomicInteger closes = new AtomicInteger();
+
+        public void close() {
+            closes.incrementAndGet();
+        }
+    }
+
+    public static class UnresettableLockManager extends CountingLockManager {
+        public boolean reset() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.conf;
+
+import org.apache.openjpa.kernel.AbstractBrokerFactory;
+import org.apache.openjpa.kernel.Broker;
+import org.apache.openjpa.kernel.ConfigurationSnapshot;
+import org.apache.openjpa.kernel.FetchConfiguration;
+import org.apache.openjpa.persistence.JPAFacadeHelper;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerSPI;
+import org.apache.openjpa.persistence.datacache.common.apps.PObject;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Tests that brokers created from the factory's configuration snapshot
+ * are initialized the same way as brokers created from the configuration.
+ */
+public class TestConfigurationSnapshot extends SingleEMFTestCase {
+
+    public void setUp() throws Exception {
+        super.setUp(PObject.class,
+            "openjpa.Optimistic", "false",
+            "openjpa.RetainState", "false",
+            "openjpa.AutoClear", "all",
+            "openjpa.FetchGroups", "default,detail",
+            "openjpa.MaxFetchDepth", "3",
+            "openjpa.FlushBeforeQueries", "false");
+    }
+
+    private AbstractBrokerFactory getBrokerFactory() {
+        return (AbstractBrokerFactory) JPAFacadeHelper.toBrokerFactory(emf);
+    }
+
+    public void testSnapshotIsTakenOnceConfigurationIsFrozen() {
+        assertNull(getBrokerFactory().getConfigurationSnapshot());
+        emf.createEntityManager().close();
+        assertTrue(emf.getConfiguration().isReadOnly());
+        ConfigurationSnapshot snap = getBrokerFactory().getConfigurationSnapshot();
+        assertNotNull(snap);
+        assertFalse(snap.getOptimistic());
+        assertEquals(3, snap.getMaxFetchDepth());
+        assertTrue(snap.getFetchGroups().contains("detail"));
+    }
+
+    public void testBrokersFromSnapshotMatchBrokersFromConfiguration() {
+        OpenJPAEntityManagerSPI em1 = emf.createEntityManager();
+        assertNotNull(getBrokerFactory().getConfigurationSnapshot());
+        OpenJPAEntityManagerSPI em2 = emf.createEntityManager();
+
+        Broker b1 = JPAFacadeHelper.toBroker(em1);
+        Broker b2 = JPAFacadeHelper.toBroker(em2);
+        assertEquals(b1.getOptimistic(), b2.getOptimistic());
+        assertEquals(b1.getNontransactionalRead(), b2.getNontransactionalRead());
+        assertEquals(b1.getNontransactionalWrite(), b2.getNontransactionalWrite());
+        assertEquals(b1.getRetainState(), b2.getRetainState());
+        assertEquals(b1.getRestoreState(), b2.getRestoreState());
+        assertEquals(b1.getAutoClear(), b2.getAutoClear());
+        assertEquals(b1.getAutoDetach(), b2.getAutoDetach());
+        assertEquals(b1.getDetachState(), b2.getDetachState());
+        assertEquals(b1.getConnectionRetainMode(), b2.getConnectionRetainMode());
+
+        FetchConfiguration f1 = b1.getFetchConfiguration();
+        FetchConfiguration f2 = b2.getFetchConfiguration();
+        assertEquals(f1.getFetchGroups(), f2.getFetchGroups());
+        assertEquals(f1.getMaxFetchDepth(), f2.getMaxFetchDepth());
+        assertEquals(f1.getFlushBeforeQueries(), f2.getFlushBeforeQueries());
+        assertEquals(f1.isDefaultPUFetchGroupConfigurationOnly(), f2.isDefaultPUFetchGroupConfigurationOnly());
+        assertTrue(f2.isDefaultPUFetchGroupConfigurationOnly());
+        assertTrue(f2.hasFetchGroup("detail"));
+        em1.close();
+        em2.close();
+    }
+
+    public void testDynamicValuesAreNotFrozenInSnapshot() {
+        emf.createEntityManager().close();
+        OpenJPAConfiguration conf = emf.getConfiguration();
+        conf.setLockTimeout(conf.getLockTimeout() + 10);
+        conf.setFetchBatchSize(conf.getFetchBatchSize() + 10);
+
+        OpenJPAEntityManagerSPI em = emf.createEntityManager();
+        FetchConfiguration fetch = JPAFacadeHelper.toBroker(em).getFetchConfiguration();
+        assertEquals(conf.getLockTimeout(), fetch.getLockTimeout());
+        assertEquals(conf.getFetchBatchSize(), fetch.getFetchBatchSize());
+        em.close();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.enhance;
+
+import java.lang.reflect.Field;
+
+import org.apache.openjpa.meta.ClassMetaData;
+import org.apache.openjpa.persistence.JPAFacadeHelper;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Tests the method handle accessors used for unenhanced types, and compares
+ * their speed with direct access, which is what enhanced types use, and with
+ * reflection.
+ */
+public class TestFieldAccessors extends SingleEMFTestCase {
+    private static final int ITERATIONS = 5000000;
+
+    public void setUp() {
+        setUp(UnenhancedFieldAccess.class, UnenhancedFieldAccessSubclass.class,
+            UnenhancedPropertyAccess.class,
+            UnenhancedPropertyAccessSubclass.class, CLEAR_TABLES,
+            "openjpa.RuntimeUnenhancedClasses", "supported");
+        // trigger subclass generation and registration
+        emf.createEntityManager().close();
+    }
+
+    public void testFieldAccess() {
+        ClassMetaData meta = JPAFacadeHelper.getMetaData(emf,
+            UnenhancedFieldAccess.class);
+        FieldAccessors accessors = meta.getFieldAccessors();
+        assertSame(accessors, meta.getFieldAccessors());
+
+        UnenhancedFieldAccess un = new UnenhancedFieldAccess();
+        int str = meta.getField("stringField").getIndex();
+        int version = meta.getField("version").getIndex();
+        assertEquals("foo", accessors.get(un, str));
+        accessors.set(un, str, "bar");
+        assertEquals("bar", un.getStringField());
+        assertEquals(0, accessors.get(un, version));
+        accessors.set(un, version, 5);
+        assertEquals(5, accessors.get(un, version));
+        accessors.set(un, str, null);
+        assertNull(un.getStringField());
+    }
+
+    public void testFieldAccessOnSubclassInstance() {
+        ClassMetaData meta = JPAFacadeHelper.getMetaData(emf,
+            UnenhancedFieldAccessSubclass.class);
+        UnenhancedFieldAccessSubclass un = new UnenhancedFieldAccessSubclass();
+        int str = meta.getField("stringField").getIndex();
+        meta.getFieldAccessors().set(un, str, "sub");
+        assertEquals("sub", un.getStringField());
+        assertEquals("sub", meta.getFieldAccessors().get(un, str));
+    }
+
+    public void testPropertyAccess() {
+        ClassMetaData meta = JPAFacadeHelper.getMetaData(emf,
+            UnenhancedPropertyAccess.class);
+        FieldAccessors accessors = meta.getFieldAccessors();
+
+        // the property is backed by a field with a different name
+        UnenhancedPropertyAccess un = new UnenhancedPropertyAccess();
+        int str = meta.getField("stringField").getIndex();
+        assertEquals("foo", accessors.get(un, str));
+        accessors.set(un, str, "bar");
+        assertEquals("bar", un.getStringField());
+        assertEquals("bar", accessors.get(un, str));
+    }
+
+    public void testWrongValueTypeIsReported() {
+        ClassMetaData meta = JPAFacadeHelper.getMetaData(emf,
+            UnenhancedFieldAccess.class);
+        int str = meta.getField("stringField").getIndex();
+        try {
+            meta.getFieldAccessors().set(new UnenhancedFieldAccess(), str, 1);
+            fail("Expected exception");
+        } catch (RuntimeException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("stringField"));
+        }
+    }
+
+    public void testFieldLookupSurvivesCollection() {
+        int field = System.identityHashCode(Reflection.findField(
+            UnenhancedFieldAccess.class, "lazyField", true));
+        System.gc();
+        assertEquals(field, System.identityHashCode(Reflection.findField(
+            UnenhancedFieldAccess.class, "lazyField", true)));
+    }
+
+    /**
+     * Compares reading a field through an accessor method, as enhanced
+     * classes do, through reflection, and through method handles.
+     */
+    public void testAccessBenchmark() {
+        ClassMetaData meta = JPAFacadeHelper.getMetaData(emf,
+            UnenhancedFieldAccess.class);
+        FieldAccessors accessors = meta.getFieldAccessors();
+        int str = meta.getField("stringField").getIndex();
+        Field field = (Field) meta.getField(str).getBackingMember();
+
+        UnenhancedFieldAccess[] uns = new UnenhancedFieldAccess[16];
+        for (int i = 0; i < uns.length; i++) {
+            uns[i] = new UnenhancedFieldAccess();
+            uns[i].setStringField("s" + i);
+        }
+
+        long direct = 0, reflecting = 0, handles = 0;
+        int sink = 0;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++)
+                sink += uns[i & 15].getStringField().length();
+            direct = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++)
+                sink += ((String) Reflection.get(uns[i & 15], field)).length();
+            reflecting = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++)
+                sink += ((String) accessors.get(uns[i & 15], str)).length();
+            handles = System.nanoTime() - start;
+        }
+        assertTrue(sink > 0);
+        getLog().info("Field reads per microsecond: direct "
+            + perMicro(direct) + ", reflection " + perMicro(reflecting)
+            + ", method handles " + perMicro(handles));
+    }
+
+    private static long perMicro(long nanos) {
+        return ITERATIONS * 1000L / Math.max(nanos, 1);
+    }
+}
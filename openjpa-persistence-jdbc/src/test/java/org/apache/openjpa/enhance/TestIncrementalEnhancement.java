@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.enhance;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import org.apache.openjpa.conf.OpenJPAConfiguration;
+import org.apache.openjpa.conf.OpenJPAConfigurationImpl;
+import org.apache.openjpa.lib.conf.Configurations;
+import org.apache.openjpa.lib.util.BytecodeWriter;
+import org.apache.openjpa.lib.util.Options;
+import org.apache.openjpa.persistence.test.AbstractCachedEMFTestCase;
+import serp.bytecode.BCClass;
+
+/**
+ * Tests parallel enhancement and skipping of unchanged classes recorded in an
+ * enhancement manifest.
+ */
+public class TestIncrementalEnhancement
+    extends AbstractCachedEMFTestCase {
+
+    private static final String[] CLASSES = {
+        UnenhancedBootstrapInstance.class.getName(),
+        UnenhancedBootstrapInstance2.class.getName(),
+    };
+
+    private File _manifest;
+    private final List<String> _written =
+        Collections.synchronizedList(new ArrayList<String>());
+
+    public void setUp() throws Exception {
+        super.setUp();
+        _manifest = File.createTempFile("enhancement", ".manifest");
+        _manifest.delete();
+    }
+
+    public void tearDown() throws Exception {
+        _manifest.delete();
+        super.tearDown();
+    }
+
+    public void testParallelEnhancement()
+        throws IOException {
+        PCEnhancer.Flags flags = new PCEnhancer.Flags();
+        flags.threads = 4;
+        enhance(flags);
+        assertEquals(2, _written.size());
+        assertTrue(_written.containsAll(Arrays.asList(CLASSES)));
+    }
+
+    public void testUnchangedClassesAreSkipped()
+        throws IOException {
+        PCEnhancer.Flags flags = new PCEnhancer.Flags();
+        flags.threads = 4;
+        flags.manifest = _manifest;
+        enhance(flags);
+        assertEquals(2, _written.size());
+        assertTrue(_manifest.exists());
+
+        _written.clear();
+        enhance(flags);
+        assertEquals(0, _written.size());
+
+        // a class whose recorded hash no longer matches is enhanced again
+        Properties props = new Properties();
+        InputStream in = new FileInputStream(_manifest);
+        try {
+            props.load(in);
+        } finally {
+            in.close();
+        }
+        assertNotNull(props.getProperty(CLASSES[0]));
+        props.setProperty(CLASSES[0], "0,0");
+        OutputStream out = new FileOutputStream(_manifest);
+        try {
+            props.store(out, null);
+        } finally {
+            out.close();
+        }
+
+        flags.threads = 1;
+        enhance(flags);
+        assertEquals(Collections.singletonList(CLASSES[0]), _written);
+    }
+
+    public void testRecompiledClassIsEnhancedInPlace()
+        throws IOException {
+        File dir = File.createTempFile("enhancement", "");
+        dir.delete();
+        String path = CLASSES[0].replace('.', '/') + ".class";
+        File file = new File(dir, path);
+        file.getParentFile().mkdirs();
+        byte[] compiled = read(getClass().getClassLoader()
+            .getResourceAsStream(path));
+        write(file, compiled);
+        try {
+            PCEnhancer.Flags flags = new PCEnhancer.Flags();
+            flags.manifest = _manifest;
+            enhanceInPlace(flags, dir);
+            byte[] enhanced = read(new FileInputStream(file));
+            assertFalse(Arrays.equals(compiled, enhanced));
+
+            enhanceInPlace(flags, dir);
+            assertTrue(Arrays.equals(enhanced, read(new FileInputStream(file))));
+
+            // recompiling an unchanged source writes back the class file the
+            // manifest recorded as the input of the last enhancement
+            write(file, compiled);
+            enhanceInPlace(flags, dir);
+            assertTrue(Arrays.equals(enhanced, read(new FileInputStream(file))));
+        } finally {
+            for (File f = file; f != null && !f.equals(dir.getParentFile());
+                f = f.getParentFile())
+                f.delete();
+        }
+    }
+
+    /**
+     * Enhance the first class in place in the given directory of class
+     * files, using the enhancer's own class file writer.
+     */
+    private void enhanceInPlace(PCEnhancer.Flags flags, File dir)
+        throws IOException {
+        OpenJPAConfiguration conf = new OpenJPAConfigurationImpl();
+        Configurations.populateConfiguration(conf, new Options());
+        ClassLoader loader = new ClassDirLoader(dir,
+            getClass().getClassLoader());
+        try {
+            assertTrue(PCEnhancer.run(conf, new String[]{ CLASSES[0] }, flags,
+                null, null, loader));
+        } finally {
+            conf.close();
+        }
+    }
+
+    private static byte[] read(InputStream in)
+        throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            byte[] buf = new byte[4096];
+            for (int read; (read = in.read(buf)) != -1;)
+                out.write(buf, 0, read);
+        } finally {
+            in.close();
+        }
+        return out.toByteArray();
+    }
+
+    private static void write(File file, byte[] bytes)
+        throws IOException {
+        OutputStream out = new FileOutputStream(file);
+        try {
+            out.write(bytes);
+        } finally {
+            out.close();
+        }
+    }
+
+    private void enhance(PCEnhancer.Flags flags)
+        throws IOException {
+        OpenJPAConfiguration conf = new OpenJPAConfigurationImpl();
+        Configurations.populateConfiguration(conf, new Options());
+        BytecodeWriter writer = new BytecodeWriter() {
+            public void write(BCClass type) {
+                assertTrue(Arrays.asList(type.getInterfaceNames()).contains(
+                    PersistenceCapable.class.getName()));
+                _written.add(type.getName());
+            }
+        };
+        try {
+            assertTrue(PCEnhancer.run(conf, CLASSES, flags, null, writer,
+                getClass().getClassLoader()));
+        } finally {
+            conf.close();
+        }
+    }
+
+    /**
+     * Loads the classes found in a directory itself rather than from its
+     * parent, so that they can be enhanced in place without touching the
+     * test classes.
+     */
+    private static class ClassDirLoader
+        extends URLClassLoader {
+
+        public ClassDirLoader(File dir, ClassLoader parent)
+            throws MalformedURLException {
+            super(new URL[]{ dir.toURI().toURL() }, parent);
+        }
+
+        public URL getResource(String name) {
+            URL url = findResource(name);
+            return (url == null) ? super.getResource(name) : url;
+        }
+
+        protected synchronized Class<?> loadClass(String name,
+            boolean resolve)
+            throws ClassNotFoundException {
+            Class<?> cls = findLoadedClass(name);
+            if (cls == null
+                && findResource(name.replace('.', '/') + ".class") != null)
+                cls = findClass(name);
+            if (cls == null)
+                return super.loadClass(name, resolve);
+            if (resolve)
+                resolveClass(cls);
+            return cls;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.instrumentation;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.apache.openjpa.lib.instrumentation.FetchSizeStatistics;
+import org.apache.openjpa.lib.instrumentation.Instrument;
+import org.apache.openjpa.lib.instrumentation.InstrumentationProvider;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Verifies fetch sizes are tuned per statement and the round trips saved are
+ * reported through the JMX fetch size instrument.
+ */
+public class TestFetchSizeInstrument extends SingleEMFTestCase {
+    private static final int ROWS = 50;
+
+    public void setUp() throws Exception {
+        super.setUp(CLEAR_TABLES, CacheableEntity.class,
+            "openjpa.ConnectionFactoryProperties",
+            "AdaptiveFetchSize=true",
+            "openjpa.Instrumentation", "jmx(Instrument='FetchSize')");
+
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < ROWS; i++) {
+            CacheableEntity ce = new CacheableEntity();
+            ce.setId(i);
+            ce.setName("name" + i);
+            em.persist(ce);
+        }
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    private FetchSizeInstrument getInstrument() {
+        return getInstrument(emf);
+    }
+
+    private FetchSizeInstrument getInstrument(OpenJPAEntityManagerFactorySPI emf) {
+        InstrumentationManager mgr = emf.getConfiguration().getInstrumentationManagerInstance();
+        for (InstrumentationProvider provider : mgr.getProviders()) {
+            Instrument inst = provider.getInstrumentByName("FetchSize");
+            if (inst != null) {
+                assertTrue(inst.isStarted());
+                assertTrue(InstrumentationManagerImpl.getStatistics(mgr, FetchSizeStatistics.class).isEnabled());
+                return (FetchSizeInstrument) inst;
+            }
+        }
+        fail("No FetchSize instrument");
+        return null;
+    }
+
+    public void testScanFetchSizeIsTuned() {
+        FetchSizeInstrument fi = getInstrument();
+        fi.reset();
+
+        String jpql = "select c from CacheableEntity c where c.name <> :name";
+        int n = 5;
+        for (int i = 0; i < n; i++) {
+            EntityManager em = emf.createEntityManager();
+            List<?> res = em.createQuery(jpql).setParameter("name", "x").getResultList();
+            assertEquals(ROWS, res.size());
+            em.close();
+        }
+
+        assertEquals(n, fi.getExecutionCount());
+        assertEquals(n * ROWS, fi.getRowCount());
+
+        // the first execution learns the result size with the default fetch
+        // size, later ones fetch all rows in a single round trip
+        assertEquals(n - 1, fi.getTunedExecutionCount());
+        long defaultTrips = fi.getDefaultRoundTrips() / n;
+        assertTrue(defaultTrips > 1);
+        assertEquals(defaultTrips + (n - 1), fi.getRoundTrips());
+        assertEquals(fi.getDefaultRoundTrips() - fi.getRoundTrips(), fi.getRoundTripsSaved());
+        assertTrue(fi.getRoundTripsSaved() > 0);
+    }
+
+    public void testLookupFetchSizeIsTuned() {
+        FetchSizeInstrument fi = getInstrument();
+        fi.reset();
+
+        String jpql = "select c from CacheableEntity c where c.name = :name";
+        for (int i = 0; i < 3; i++) {
+            EntityManager em = emf.createEntityManager();
+            List<?> res = em.createQuery(jpql).setParameter("name", "name" + i).getResultList();
+            assertEquals(1, res.size());
+            em.close();
+        }
+
+        // single row lookups fetch no more than two rows once learned, which
+        // is a single round trip
+        assertEquals(3, fi.getExecutionCount());
+        assertEquals(3, fi.getRowCount());
+        assertTrue(fi.getRoundTrips() <= fi.getDefaultRoundTrips());
+        assertTrue(fi.getRoundTrips() <= fi.getDefaultRoundTrips() / 3 + 2);
+    }
+
+    public void testWritesDoNotTakeStatementSlots() {
+        OpenJPAEntityManagerFactorySPI emf2 = createEMF(CacheableEntity.class,
+            "openjpa.ConnectionFactoryProperties",
+            "AdaptiveFetchSize=true,MaxStatements=1",
+            "openjpa.Instrumentation", "jmx(Instrument='FetchSize')");
+        try {
+            FetchSizeInstrument fi = getInstrument(emf2);
+            EntityManager em = emf2.createEntityManager();
+            em.getTransaction().begin();
+            CacheableEntity ce = new CacheableEntity();
+            ce.setId(ROWS);
+            ce.setName("name" + ROWS);
+            em.persist(ce);
+            em.createQuery("update CacheableEntity c set c.name = 'x' "
+                + "where c.id = 0").executeUpdate();
+            em.createQuery("delete from CacheableEntity c where c.id = :id")
+                .setParameter("id", ROWS - 1).executeUpdate();
+            em.getTransaction().commit();
+            em.close();
+            fi.reset();
+
+            // the insert, update and delete above leave the single statement
+            // slot to the query
+            String jpql = "select c from CacheableEntity c where c.name <> :name";
+            for (int i = 0; i < 2; i++) {
+                em = emf2.createEntityManager();
+                em.createQuery(jpql).setParameter("name", "x").getResultList();
+                em.close();
+            }
+            assertEquals(2, fi.getExecutionCount());
+            assertEquals(1, fi.getTunedExecutionCount());
+        } finally {
+            closeEMF(emf2);
+        }
+    }
+}
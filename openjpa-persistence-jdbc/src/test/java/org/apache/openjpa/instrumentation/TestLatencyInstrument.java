@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.instrumentation;
+
+import java.util.List;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+
+import org.apache.openjpa.lib.instrumentation.Instrument;
+import org.apache.openjpa.lib.instrumentation.InstrumentationProvider;
+import org.apache.openjpa.lib.instrumentation.LatencyStatistics;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Verifies latency statistics are collected through the JMX latency
+ * instrument.
+ */
+public class TestLatencyInstrument extends SingleEMFTestCase {
+
+    public static final String LATENCY_PROVIDER =
+        "jmx(Instrument='Latency(SlowQueryThreshold=0,SlowQueryCapacity=5)')";
+
+    public void setUp() throws Exception {
+        super.setUp(CLEAR_TABLES, CacheableEntity.class,
+            "openjpa.Instrumentation", LATENCY_PROVIDER);
+    }
+
+    private LatencyInstrument getInstrument() {
+        InstrumentationManager mgr = emf.getConfiguration().getInstrumentationManagerInstance();
+        Set<InstrumentationProvider> providers = mgr.getProviders();
+        assertEquals(1, providers.size());
+        Instrument inst = providers.iterator().next().getInstrumentByName("Latency");
+        assertNotNull(inst);
+        assertTrue(inst.isStarted());
+        assertTrue(InstrumentationManagerImpl.getStatistics(mgr, LatencyStatistics.class).isEnabled());
+        return (LatencyInstrument) inst;
+    }
+
+    public void testLatencyCollected() {
+        LatencyInstrument li = getInstrument();
+        li.reset();
+
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < 3; i++) {
+            CacheableEntity ce = new CacheableEntity();
+            ce.setId(i);
+            ce.setName("name" + i);
+            em.persist(ce);
+        }
+        em.getTransaction().commit();
+
+        String jpql = "select c from CacheableEntity c where c.name <> :name";
+        List<?> res = em.createQuery(jpql).setParameter("name", "x").getResultList();
+        assertEquals(3, res.size());
+        em.close();
+
+        assertEquals(1, li.getExecutionCount(jpql));
+        assertTrue(li.getMaxLatency(jpql) >= li.getLatencyPercentile(jpql, 50));
+
+        // the SQL of the query and of the inserts are tracked with row counts
+        boolean select = false;
+        boolean insert = false;
+        for (String stmnt : li.statements()) {
+            if (stmnt.startsWith("SELECT") && stmnt.contains("INST_CACHE_ENT")) {
+                select = true;
+                assertEquals(3, li.getRowCount(stmnt));
+            } else if (stmnt.startsWith("INSERT")) {
+                insert = true;
+                assertEquals(3, li.getRowCount(stmnt));
+            }
+        }
+        assertTrue(select);
+        assertTrue(insert);
+
+        assertTrue(li.getFlushCount() >= 1);
+        assertTrue(li.getConnectionWaitCount() >= 1);
+
+        // every execution qualifies as slow; the buffer keeps the latest 5
+        String[] slow = li.getSlowQueries();
+        assertEquals(5, slow.length);
+        assertTrue(slow[slow.length - 2].endsWith("['x']"));
+        assertTrue(slow[slow.length - 1].contains(jpql));
+    }
+}
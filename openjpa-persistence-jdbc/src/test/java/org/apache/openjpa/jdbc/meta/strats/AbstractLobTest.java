@@ -30,6 +30,7 @@ import javax.persistence.Query;
 import org.apache.openjpa.conf.OpenJPAConfiguration;
 import org.apache.openjpa.datacache.DataCachePCData;
 import org.apache.openjpa.jdbc.sql.DB2Dictionary;
+import org.apache.openjpa.jdbc.sql.DerbyDictionary;
 import org.apache.openjpa.jdbc.sql.MySQLDictionary;
 import org.apache.openjpa.jdbc.sql.OracleDictionary;
 import org.apache.openjpa.jdbc.sql.SQLServerDictionary;
@@ -51,7 +52,7 @@ public abstract class AbstractLobTest extends SingleEMFTestCase {
 
     protected List<Class<?>> supportedDatabases =
         new ArrayList<Class<?>>
-            (Arrays.asList(MySQLDictionary.class, OracleDictionary.class, SQLServerDictionary.class,
+            (Arrays.asList(DerbyDictionary.class, MySQLDictionary.class, OracleDictionary.class, SQLServerDictionary.class,
                     DB2Dictionary.class));
         
     public void setUp() throws Exception {
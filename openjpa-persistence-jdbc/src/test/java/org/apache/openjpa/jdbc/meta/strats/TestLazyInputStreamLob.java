@@ -0,0 +1,70 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.jdbc.meta.strats;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import javax.persistence.EntityManager;
+
+import org.apache.openjpa.jdbc.sql.DBDictionary;
+
+/**
+ * Runs the InputStream LOB tests with every value read lazily from the
+ * database rather than inlined when the field loads.
+ */
+public class TestLazyInputStreamLob extends TestInputStreamLob {
+
+    private int _inlineSize;
+
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        if (isTestsDisabled())
+            return;
+        DBDictionary dict = getDBDictionary();
+        _inlineSize = dict.maxInlineStreamingLobSize;
+        dict.maxInlineStreamingLobSize = 0;
+    }
+
+    @Override
+    public void tearDown() throws Exception {
+        if (!isTestsDisabled())
+            getDBDictionary().maxInlineStreamingLobSize = _inlineSize;
+        super.tearDown();
+    }
+
+    public void testLoadDoesNotReadValue() throws IOException {
+        String s = createLobData();
+        insert(newLobEntity(s, 1));
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        LobEntity entity = em.find(InputStreamLobEntity.class, 1);
+        InputStream in = (InputStream) entity.getStream();
+        assertTrue(in instanceof LazyLobStream.Binary);
+        assertEquals(0, in.available());
+
+        // a partially read stream releases its result on close
+        assertEquals(s.charAt(0), in.read());
+        in.close();
+        assertEquals(-1, in.read());
+        em.getTransaction().commit();
+        em.close();
+    }
+}
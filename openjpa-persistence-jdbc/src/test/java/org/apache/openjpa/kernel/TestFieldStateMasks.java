@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.kernel;
+
+import java.util.BitSet;
+
+import org.apache.openjpa.persistence.JPAFacadeHelper;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerSPI;
+import org.apache.openjpa.persistence.simple.AllFieldTypes;
+import org.apache.openjpa.persistence.simple.WideFieldTypes;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Tests that the per-field state queries of {@link StateManagerImpl}
+ * agree with the masks it returns, both for types whose state fits in a
+ * single long and for wider types.
+ */
+public class TestFieldStateMasks extends SingleEMFTestCase {
+
+    public void setUp() throws Exception {
+        super.setUp(AllFieldTypes.class, WideFieldTypes.class, CLEAR_TABLES);
+    }
+
+    public void testNarrowType() {
+        OpenJPAEntityManagerSPI em = emf.createEntityManager();
+        em.getTransaction().begin();
+        AllFieldTypes pc = new AllFieldTypes();
+        em.persist(pc);
+        em.getTransaction().commit();
+
+        em.getTransaction().begin();
+        pc.setIntField(5);
+        StateManagerImpl sm = getStateManager(em, pc);
+        assertTrue(sm.getMetaData().getFields().length <= 64);
+        int field = sm.getMetaData().getField("intField").getIndex();
+        assertTrue(sm.isLoaded(field));
+        assertTrue(sm.isDirty(field));
+        assertFalse(sm.isFlushed(field));
+        assertMasks(sm);
+
+        em.flush();
+        assertTrue(sm.isFlushed(field));
+        assertMasks(sm);
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+    public void testWideType() {
+        OpenJPAEntityManagerSPI em = emf.createEntityManager();
+        em.getTransaction().begin();
+        WideFieldTypes pc = new WideFieldTypes();
+        pc.setId(1);
+        em.persist(pc);
+        em.getTransaction().commit();
+        em.close();
+
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        pc = em.find(WideFieldTypes.class, 1L);
+        pc.setF69(5);
+        StateManagerImpl sm = getStateManager(em, pc);
+        assertTrue(sm.getMetaData().getFields().length > 64);
+        int field = sm.getMetaData().getField("f69").getIndex();
+        assertTrue(field >= 64);
+        assertTrue(sm.isLoaded(field));
+        assertTrue(sm.isDirty(field));
+        assertFalse(sm.isFlushed(field));
+        assertMasks(sm);
+
+        em.flush();
+        assertTrue(sm.isFlushed(field));
+        assertMasks(sm);
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+    public void testMasksAreCopies() {
+        OpenJPAEntityManagerSPI em = emf.createEntityManager();
+        em.getTransaction().begin();
+        AllFieldTypes pc = new AllFieldTypes();
+        em.persist(pc);
+        StateManagerImpl sm = getStateManager(em, pc);
+        int field = sm.getMetaData().getField("intField").getIndex();
+        BitSet loaded = sm.getLoaded();
+        loaded.clear(field);
+        assertTrue(sm.isLoaded(field));
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+    private StateManagerImpl getStateManager(OpenJPAEntityManagerSPI em,
+        Object pc) {
+        return (StateManagerImpl) JPAFacadeHelper.toBroker(em)
+            .getStateManager(pc);
+    }
+
+    private void assertMasks(StateManagerImpl sm) {
+        BitSet loaded = sm.getLoaded();
+        BitSet dirty = sm.getDirty();
+        BitSet flushed = sm.getFlushed();
+        for (int i = 0; i < sm.getMetaData().getFields().length; i++) {
+            assertEquals(loaded.get(i), sm.isLoaded(i));
+            assertEquals(dirty.get(i), sm.isDirty(i));
+            assertEquals(flushed.get(i), sm.isFlushed(i));
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.kernel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.openjpa.persistence.JPAFacadeHelper;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerSPI;
+import org.apache.openjpa.persistence.simple.AllFieldTypes;
+import org.apache.openjpa.persistence.simple.NamedEntity;
+import org.apache.openjpa.persistence.simple.Person;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+import org.apache.openjpa.util.Id;
+
+/**
+ * Tests finding instances by a primitive numeric identity value.
+ */
+public class TestFindByNumericId extends SingleEMFTestCase {
+
+    public void setUp() throws Exception {
+        super.setUp(NamedEntity.class, Person.class, AllFieldTypes.class,
+            CLEAR_TABLES);
+    }
+
+    public void testFindLongId() {
+        OpenJPAEntityManagerSPI em = emf.createEntityManager();
+        em.getTransaction().begin();
+        NamedEntity pc = new NamedEntity();
+        pc.setName("a");
+        em.persist(pc);
+        em.getTransaction().commit();
+        long id = pc.getId();
+
+        assertSame(pc, em.findByLongId(NamedEntity.class, id));
+        assertSame(pc, em.find(NamedEntity.class, id));
+        assertNull(em.findByLongId(NamedEntity.class, id + 1000));
+        em.close();
+
+        em = emf.createEntityManager();
+        NamedEntity found = em.findByLongId(NamedEntity.class, id);
+        assertNotNull(found);
+        assertEquals("a", found.getName());
+        assertSame(found, em.findByLongId(NamedEntity.class, id));
+        assertSame(found, em.find(NamedEntity.class, id));
+        em.close();
+    }
+
+    public void testFindIntId() {
+        OpenJPAEntityManagerSPI em = emf.createEntityManager();
+        em.getTransaction().begin();
+        Person pc = new Person();
+        pc.setId(5);
+        pc.setForename("f");
+        em.persist(pc);
+        em.getTransaction().commit();
+        em.close();
+
+        em = emf.createEntityManager();
+        Person found = em.findByLongId(Person.class, 5L);
+        assertNotNull(found);
+        assertEquals("f", found.getForename());
+        assertSame(found, em.findByLongId(Person.class, 5L));
+        assertSame(found, em.find(Person.class, Integer.valueOf(5)));
+        em.close();
+    }
+
+    public void testFindDatastoreId() {
+        OpenJPAEntityManagerSPI em = emf.createEntityManager();
+        em.getTransaction().begin();
+        AllFieldTypes pc = new AllFieldTypes();
+        em.persist(pc);
+        em.getTransaction().commit();
+        long id = ((Id) JPAFacadeHelper.toBroker(em).getObjectId(pc)).getId();
+
+        assertSame(pc, em.findByLongId(AllFieldTypes.class, id));
+        em.close();
+
+        em = emf.createEntityManager();
+        AllFieldTypes found = em.findByLongId(AllFieldTypes.class, id);
+        assertNotNull(found);
+        assertSame(found, em.findByLongId(AllFieldTypes.class, id));
+        em.close();
+    }
+
+    public void testRemovedInstances() {
+        OpenJPAEntityManagerSPI em = emf.createEntityManager();
+        em.getTransaction().begin();
+        List<NamedEntity> pcs = new ArrayList<NamedEntity>();
+        for (int i = 0; i < 100; i++) {
+            NamedEntity pc = new NamedEntity();
+            pc.setName("n" + i);
+            em.persist(pc);
+            pcs.add(pc);
+        }
+        em.getTransaction().commit();
+
+        // removed instances leave the cache when the transaction commits;
+        // their ids must no longer be found while the rest stay cached
+        em.getTransaction().begin();
+        for (int i = 0; i < pcs.size(); i += 2)
+            em.remove(pcs.get(i));
+        assertNull(em.findByLongId(NamedEntity.class, pcs.get(0).getId()));
+        em.getTransaction().commit();
+        for (int i = 0; i < pcs.size(); i++) {
+            NamedEntity pc = pcs.get(i);
+            NamedEntity found = em.findByLongId(NamedEntity.class, pc.getId());
+            if (i % 2 == 0)
+                assertNull(found);
+            else
+                assertSame(pc, found);
+        }
+
+        em.clear();
+        long id = pcs.get(3).getId();
+        NamedEntity found = em.findByLongId(NamedEntity.class, id);
+        assertNotSame(pcs.get(3), found);
+        assertSame(found, em.findByLongId(NamedEntity.class, id));
+        em.close();
+    }
+}
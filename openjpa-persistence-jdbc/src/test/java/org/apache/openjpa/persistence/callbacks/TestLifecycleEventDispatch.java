@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.persistence.callbacks;
+
+import org.apache.openjpa.event.AbstractLifecycleListener;
+import org.apache.openjpa.event.LifecycleEvent;
+import org.apache.openjpa.event.LifecycleEventManager;
+import org.apache.openjpa.meta.ClassMetaData;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Tests that lifecycle events are dispatched correctly through the
+ * precomputed listener and callback masks of {@link LifecycleEventManager}.
+ */
+public class TestLifecycleEventDispatch extends SingleEMFTestCase {
+    private ClassMetaData _meta;
+
+    public void setUp() {
+        super.setUp(CLEAR_TABLES, PostPersistEntity.class);
+        _meta = emf.getConfiguration().getMetaDataRepositoryInstance().
+            getMetaData(PostPersistEntity.class, null, true);
+    }
+
+    public void testCallbackWithoutListeners() {
+        LifecycleEventManager mgr = new LifecycleEventManager();
+        PostPersistEntity pc = new PostPersistEntity();
+        assertTrue(mgr.hasPersistListeners(pc, _meta));
+        assertFalse(mgr.hasDeleteListeners(pc, _meta));
+
+        Exception[] exs = mgr.fireEvent(pc, _meta,
+            LifecycleEvent.AFTER_PERSIST_PERFORMED);
+        assertEquals(0, exs.length);
+        assertEquals(1, pc.postPersistCallbackCount);
+
+        exs = mgr.fireEvent(pc, _meta, LifecycleEvent.BEFORE_DELETE);
+        assertEquals(0, exs.length);
+        assertEquals(1, pc.postPersistCallbackCount);
+    }
+
+    public void testListenersRegisteredAfterFiring() {
+        LifecycleEventManager mgr = new LifecycleEventManager();
+        PostPersistEntity pc = new PostPersistEntity();
+        mgr.fireEvent(pc, _meta, LifecycleEvent.BEFORE_DELETE);
+        assertFalse(mgr.hasDeleteListeners(pc, _meta));
+
+        CountingListener all = new CountingListener();
+        mgr.addListener(all, null);
+        assertTrue(mgr.hasDeleteListeners(pc, _meta));
+        mgr.fireEvent(pc, _meta, LifecycleEvent.BEFORE_DELETE);
+        mgr.fireEvent(pc, _meta, LifecycleEvent.BEFORE_PERSIST);
+        mgr.fireEvent(pc, _meta, LifecycleEvent.AFTER_PERSIST_PERFORMED);
+        assertEquals(2, all.count);
+        assertEquals(1, pc.postPersistCallbackCount);
+
+        mgr.removeListener(all);
+        assertFalse(mgr.hasDeleteListeners(pc, _meta));
+
+        // listeners for the class are picked up once registered, and not
+        // for unrelated classes
+        CountingListener cls = new CountingListener();
+        mgr.fireEvent(pc, _meta, LifecycleEvent.BEFORE_DELETE);
+        mgr.addListener(cls, new Class<?>[] { PostPersistEntity.class });
+        mgr.fireEvent(pc, _meta, LifecycleEvent.BEFORE_DELETE);
+        assertEquals(1, cls.count);
+
+        CountingListener other = new CountingListener();
+        mgr.removeListener(cls);
+        mgr.addListener(other, new Class<?>[] { Message.class });
+        assertFalse(mgr.hasDeleteListeners(pc, _meta));
+        mgr.fireEvent(pc, _meta, LifecycleEvent.BEFORE_DELETE);
+        assertEquals(0, other.count);
+        assertEquals(1, cls.count);
+    }
+
+    private static class CountingListener extends AbstractLifecycleListener {
+        int count;
+
+        protected void eventOccurred(LifecycleEvent event) {
+            count++;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.persistence.datacache;
+
+import org.apache.openjpa.lib.jdbc.AbstractJDBCListener;
+import org.apache.openjpa.lib.jdbc.JDBCEvent;
+import org.apache.openjpa.lib.jdbc.JDBCListener;
+import org.apache.openjpa.persistence.OpenJPAEntityManager;
+import org.apache.openjpa.persistence.StoreCache;
+import org.apache.openjpa.persistence.simple.AllFieldTypes;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Tests that bulk updates and deletes evict only the instances they change
+ * when the dictionary is configured to select their identities first.
+ */
+public class TestBulkUpdateIdEviction
+    extends SingleEMFTestCase {
+
+    private Object[] oids;
+    private boolean interleave = false;
+
+    public void setUp() throws Exception {
+        setUp("openjpa.DataCache", "true",
+            "openjpa.QueryCache", "true",
+            "openjpa.RemoteCommitProvider", "sjvm",
+            "openjpa.jdbc.DBDictionary", "BulkUpdateIdLimit=2",
+            "openjpa.jdbc.JDBCListeners",
+            new JDBCListener[] { new InterleavingListener() },
+            CLEAR_TABLES, AllFieldTypes.class);
+
+        OpenJPAEntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        oids = new Object[3];
+        for (int i = 0; i < oids.length; i++) {
+            AllFieldTypes pc = new AllFieldTypes();
+            pc.setStringField("pc" + i);
+            em.persist(pc);
+            oids[i] = pc;
+        }
+        em.getTransaction().commit();
+        for (int i = 0; i < oids.length; i++)
+            oids[i] = em.getObjectId(oids[i]);
+        em.close();
+
+        for (int i = 0; i < oids.length; i++)
+            assertTrue(getCache().contains(AllFieldTypes.class, oids[i]));
+    }
+
+    private StoreCache getCache() {
+        return emf.getStoreCache();
+    }
+
+    private void execute(String jpql) {
+        OpenJPAEntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        em.createQuery(jpql).executeUpdate();
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    public void testBulkUpdateEvictsChangedInstances() {
+        execute("UPDATE AllFieldTypes o SET o.intField = 10 "
+            + "WHERE o.stringField = 'pc0'");
+
+        assertFalse(getCache().contains(AllFieldTypes.class, oids[0]));
+        assertTrue(getCache().contains(AllFieldTypes.class, oids[1]));
+        assertTrue(getCache().contains(AllFieldTypes.class, oids[2]));
+
+        OpenJPAEntityManager em = emf.createEntityManager();
+        assertEquals(10, em.find(AllFieldTypes.class, oids[0]).getIntField());
+        em.close();
+    }
+
+    public void testBulkDeleteEvictsDeletedInstances() {
+        execute("DELETE FROM AllFieldTypes o WHERE o.stringField <> 'pc2'");
+
+        assertFalse(getCache().contains(AllFieldTypes.class, oids[0]));
+        assertFalse(getCache().contains(AllFieldTypes.class, oids[1]));
+        assertTrue(getCache().contains(AllFieldTypes.class, oids[2]));
+
+        OpenJPAEntityManager em = emf.createEntityManager();
+        assertNull(em.find(AllFieldTypes.class, oids[0]));
+        assertNotNull(em.find(AllFieldTypes.class, oids[2]));
+        em.close();
+    }
+
+    public void testBulkUpdateOverLimitEvictsType() {
+        execute("UPDATE AllFieldTypes o SET o.intField = 10");
+
+        for (int i = 0; i < oids.length; i++)
+            assertFalse(getCache().contains(AllFieldTypes.class, oids[i]));
+    }
+
+    public void testConcurrentChangeEvictsType() {
+        // another transaction makes a row match between the selection of
+        // the identities and the update
+        interleave = true;
+        execute("UPDATE AllFieldTypes o SET o.intField = 10 "
+            + "WHERE o.stringField = 'pc0'");
+
+        assertFalse(interleave);
+        for (int i = 0; i < oids.length; i++)
+            assertFalse(getCache().contains(AllFieldTypes.class, oids[i]));
+    }
+
+    public void testBulkUpdateRefreshesCleanManagedInstances() {
+        OpenJPAEntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        AllFieldTypes pc0 = em.find(AllFieldTypes.class, oids[0]);
+        AllFieldTypes pc1 = em.find(AllFieldTypes.class, oids[1]);
+        pc1.setIntField(5);
+        em.createQuery("UPDATE AllFieldTypes o SET o.intField = 10 "
+            + "WHERE o.stringField IN ('pc0', 'pc1')").executeUpdate();
+
+        assertEquals(10, pc0.getIntField());
+        assertEquals(5, pc1.getIntField());
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+    /**
+     * Commits a new matching row in a separate transaction just before the
+     * first bulk update statement executes.
+     */
+    private class InterleavingListener
+        extends AbstractJDBCListener {
+
+        public void beforeExecuteStatement(JDBCEvent event) {
+            if (!interleave || event.getSQL() == null
+                || !event.getSQL().toUpperCase().startsWith(
+                "UPDATE ALLFIELDTYPES"))
+                return;
+            interleave = false;
+
+            OpenJPAEntityManager em = emf.createEntityManager();
+            em.getTransaction().begin();
+            AllFieldTypes pc = new AllFieldTypes();
+            pc.setStringField("pc0");
+            em.persist(pc);
+            em.getTransaction().commit();
+            em.close();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.persistence.flush;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.RollbackException;
+
+import org.apache.openjpa.persistence.detach.IntVersionEntity;
+import org.apache.openjpa.persistence.detach.TimestampVersionEntity;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Tests that flush only visits dirty instances and the clean instances with
+ * pending flush work, and compares flush times for varying numbers of
+ * managed and dirty instances.
+ */
+public class TestDirtySetFlush extends SingleEMFTestCase {
+    private static final int SAMPLES = 7;
+
+    public void setUp() {
+        super.setUp(CLEAR_TABLES, IntVersionEntity.class,
+            TimestampVersionEntity.class);
+    }
+
+    public void testOnlyDirtyInstancesAreUpdated() {
+        populate(20);
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        List<IntVersionEntity> pcs = findAll(em);
+        pcs.get(3).setName("changed");
+        em.flush();
+        pcs.get(5).setName("changed");
+        em.getTransaction().commit();
+        em.close();
+
+        em = emf.createEntityManager();
+        for (IntVersionEntity pc : findAll(em)) {
+            if (pc.getId() == 3 || pc.getId() == 5) {
+                assertEquals("changed", pc.getName());
+                assertEquals(2, pc.getVersion());
+            } else {
+                assertEquals("pc" + pc.getId(), pc.getName());
+                assertEquals(1, pc.getVersion());
+            }
+        }
+        em.close();
+    }
+
+    public void testLockedCleanInstanceIsFlushed() {
+        populate(5);
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        List<IntVersionEntity> pcs = findAll(em);
+        em.lock(pcs.get(2), LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+        em.getTransaction().commit();
+        em.close();
+
+        em = emf.createEntityManager();
+        assertEquals(2, em.find(IntVersionEntity.class, 2).getVersion());
+        assertEquals(1, em.find(IntVersionEntity.class, 3).getVersion());
+        em.close();
+    }
+
+    public void testReadLockedCleanInstanceIsVersionChecked() {
+        populate(5);
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        findAll(em);
+        IntVersionEntity pc = em.find(IntVersionEntity.class, 1);
+        em.lock(pc, LockModeType.OPTIMISTIC);
+
+        EntityManager em2 = emf.createEntityManager();
+        em2.getTransaction().begin();
+        em2.find(IntVersionEntity.class, 1).setName("concurrent");
+        em2.getTransaction().commit();
+        em2.close();
+
+        try {
+            em.getTransaction().commit();
+            fail("Expected optimistic lock failure");
+        } catch (RollbackException re) {
+            // expected
+        }
+        em.close();
+    }
+
+    public void testFlushCostByManagedAndDirtyCount() {
+        int[] managed = { 100, 2000 };
+        int[] dirty = { 1, 50 };
+        populate(managed[managed.length - 1]);
+        for (int m = 0; m < managed.length; m++) {
+            for (int d = 0; d < dirty.length; d++) {
+                long time = time(managed[m], dirty[d]);
+                getLog().info("Median flush time with " + managed[m]
+                    + " managed and " + dirty[d] + " dirty instances "
+                    + time / 1000 + "us");
+            }
+        }
+    }
+
+    /**
+     * Return the median time in nanoseconds to flush the given number of
+     * dirty instances among the given number of managed instances.
+     */
+    private long time(int managed, int dirty) {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        List<IntVersionEntity> pcs = em.createQuery("select p from "
+            + "IntVersionEntity p where p.id < :max order by p.id",
+            IntVersionEntity.class).setParameter("max", managed).
+            getResultList();
+        assertEquals(managed, pcs.size());
+
+        long[] times = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            for (int j = 0; j < dirty; j++)
+                pcs.get(j).setName("sample" + i);
+            long start = System.nanoTime();
+            em.flush();
+            times[i] = System.nanoTime() - start;
+        }
+        em.getTransaction().rollback();
+        em.close();
+        Arrays.sort(times);
+        return times[SAMPLES / 2];
+    }
+
+    private List<IntVersionEntity> findAll(EntityManager em) {
+        return em.createQuery("select p from IntVersionEntity p order by p.id",
+            IntVersionEntity.class).getResultList();
+    }
+
+    private void populate(int count) {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < count; i++) {
+            IntVersionEntity pc = new IntVersionEntity(i);
+            pc.setName("pc" + i);
+            em.persist(pc);
+        }
+        em.getTransaction().commit();
+        em.close();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.persistence.generationtype;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.openjpa.event.AbstractLifecycleListener;
+import org.apache.openjpa.event.LifecycleEvent;
+import org.apache.openjpa.persistence.OpenJPAEntityManager;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerSPI;
+import org.apache.openjpa.persistence.test.SQLListenerTestCase;
+
+/**
+ * Tests persisting large homogeneous collections through
+ * {@link OpenJPAEntityManager#persistAll}.
+ */
+public class TestBulkPersist extends SQLListenerTestCase {
+    private static final int COUNT = 100;
+
+    public void setUp() {
+        setUp(Dog.class, CLEAR_TABLES);
+    }
+
+    public void testSequenceValuesAllocatedTogether() {
+        OpenJPAEntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        // warm up the generator so that its table exists
+        em.persist(newDog(-1));
+        em.flush();
+
+        List<Dog> dogs = new ArrayList<Dog>();
+        for (int i = 0; i < COUNT; i++)
+            dogs.add(newDog(i));
+        resetSQL();
+        em.persistAll(dogs);
+        int updates = countGeneratorUpdates();
+        em.getTransaction().commit();
+
+        // allocation size is 10, so without allocating ahead we would need
+        // one generator update per 10 instances
+        assertTrue("Generator updates: " + updates, updates > 0
+            && updates < COUNT / 10);
+        assertEquals(updates, countGeneratorUpdates());
+
+        Set<Integer> ids = new HashSet<Integer>();
+        for (Dog dog : dogs) {
+            assertTrue(em.contains(dog));
+            ids.add(dog.getId());
+        }
+        assertEquals(COUNT, ids.size());
+        em.close();
+
+        em = emf.createEntityManager();
+        assertEquals(COUNT + 1, ((Number) em.createQuery("select count(d) "
+            + "from Dog d").getSingleResult()).intValue());
+        em.close();
+    }
+
+    public void testRollback() {
+        OpenJPAEntityManager em = emf.createEntityManager();
+        List<Dog> dogs = new ArrayList<Dog>();
+        for (int i = 0; i < COUNT; i++)
+            dogs.add(newDog(i));
+        em.getTransaction().begin();
+        em.persistAll(dogs);
+        em.flush();
+        em.getTransaction().rollback();
+        assertFalse(em.contains(dogs.get(0)));
+        assertEquals(0, ((Number) em.createQuery("select count(d) "
+            + "from Dog d").getSingleResult()).intValue());
+        em.close();
+    }
+
+    public void testListenersStillNotified() {
+        OpenJPAEntityManager em = emf.createEntityManager();
+        final int[] events = new int[1];
+        ((OpenJPAEntityManagerSPI) em).addLifecycleListener(
+            new AbstractLifecycleListener() {
+                public void beforePersist(LifecycleEvent event) {
+                    events[0]++;
+                }
+            }, Dog.class);
+
+        List<Dog> dogs = new ArrayList<Dog>();
+        for (int i = 0; i < COUNT; i++)
+            dogs.add(newDog(i));
+        em.getTransaction().begin();
+        em.persistAll(dogs);
+        em.getTransaction().commit();
+        assertEquals(COUNT, events[0]);
+        em.close();
+    }
+
+    public void testDuplicateInstances() {
+        OpenJPAEntityManager em = emf.createEntityManager();
+        List<Dog> dogs = new ArrayList<Dog>();
+        for (int i = 0; i < COUNT; i++)
+            dogs.add(newDog(i));
+        dogs.add(dogs.get(0));
+        em.getTransaction().begin();
+        em.persistAll(dogs);
+        em.getTransaction().commit();
+        em.close();
+
+        em = emf.createEntityManager();
+        assertEquals(COUNT, ((Number) em.createQuery("select count(d) "
+            + "from Dog d").getSingleResult()).intValue());
+        em.close();
+    }
+
+    private int countGeneratorUpdates() {
+        int count = 0;
+        for (String s : sql)
+            if (s.toUpperCase().startsWith("UPDATE ID_GEN"))
+                count++;
+        return count;
+    }
+
+    private Dog newDog(int i) {
+        Dog dog = new Dog();
+        dog.setName("dog" + i);
+        return dog;
+    }
+}
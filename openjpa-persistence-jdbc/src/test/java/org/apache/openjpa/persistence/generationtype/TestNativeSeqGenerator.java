@@ -18,8 +18,12 @@
  */
 package org.apache.openjpa.persistence.generationtype;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
 import org.apache.openjpa.jdbc.sql.DBDictionary;
+import org.apache.openjpa.persistence.Generator;
 import org.apache.openjpa.persistence.OpenJPAEntityManager;
 import org.apache.openjpa.persistence.test.SQLListenerTestCase;
 
@@ -90,4 +94,24 @@ public class TestNativeSeqGenerator extends SQLListenerTestCase {
         assertAllExactSQLInOrder(statements);
         em.close();
     }
+
+    /**
+     * Asserts that allocating more values than fit in one block keeps the
+     * values left in the current block and fetches further blocks ahead.
+     */
+    public void testAllocateKeepsCurrentBlock() {
+        Generator gen = em.getIdGenerator(EntityE2.class);
+        long first = ((Number) gen.next()).longValue();
+        gen.allocate(120);
+        resetSQL();
+
+        Set<Long> values = new HashSet<Long>();
+        for (int i = 0; i < 120; i++)
+            values.add(((Number) gen.next()).longValue());
+        assertEquals(0, getSQLCount());
+        assertEquals(120, values.size());
+        assertTrue(values.contains(first + 1));
+        assertTrue(values.contains(first + 49));
+        em.close();
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.persistence.inheritance.polymorphic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.apache.openjpa.lib.jdbc.AbstractJDBCListener;
+import org.apache.openjpa.lib.jdbc.JDBCEvent;
+import org.apache.openjpa.lib.jdbc.JDBCListener;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Tests concurrent execution of the selects of a polymorphic query over a
+ * table-per-class hierarchy.
+ */
+public class TestParallelUnion
+    extends SingleEMFTestCase {
+
+    private static final String UNION_THREAD = "OpenJPA SQL Executor";
+
+    private final List<String> _threads =
+        Collections.synchronizedList(new ArrayList<String>());
+
+    public void setUp() {
+        setUp(CLEAR_TABLES, Translation.class, BaseEntity.class,
+            EnglishParagraph.class, FrenchParagraph.class,
+            GermanParagraph.class, Translatable.class,
+            "openjpa.jdbc.JDBCListeners", new JDBCListener[] {
+                new AbstractJDBCListener() {
+                    public void beforeExecuteStatement(JDBCEvent event) {
+                        _threads.add(Thread.currentThread().getName());
+                    }
+                }
+            });
+
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < 3; i++) {
+            EnglishParagraph english = new EnglishParagraph();
+            english.setContent("Hello " + i);
+            em.persist(english);
+            FrenchParagraph french = new FrenchParagraph();
+            french.setContent("Bonjour " + i);
+            em.persist(french);
+            GermanParagraph german = new GermanParagraph();
+            german.setContent("Guten Tag " + i);
+            em.persist(german);
+        }
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    public void tearDown() throws Exception {
+        getDBDictionary().parallelUnionThreshold = 0;
+        super.tearDown();
+    }
+
+    public void testOrderedQueryRunsSelectsConcurrently() {
+        List<Long> serial = findIds();
+        assertEquals(9, serial.size());
+        assertFalse(_threads.contains(UNION_THREAD));
+
+        getDBDictionary().parallelUnionThreshold = 2;
+        _threads.clear();
+        List<Long> parallel = findIds();
+        assertEquals(serial, parallel);
+        assertTrue(_threads.contains(UNION_THREAD));
+
+        // below the threshold the selects run serially
+        getDBDictionary().parallelUnionThreshold = 4;
+        _threads.clear();
+        assertEquals(serial, findIds());
+        assertFalse(_threads.contains(UNION_THREAD));
+    }
+
+    public void testDatastoreTransactionRunsSelectsSerially() {
+        getDBDictionary().parallelUnionThreshold = 2;
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        GermanParagraph german = new GermanParagraph();
+        german.setContent("Hallo");
+        em.persist(german);
+        em.flush();
+
+        _threads.clear();
+        List<?> res = em.createQuery("select tr from Translatable tr")
+            .getResultList();
+        assertEquals(10, res.size());
+        assertTrue(res.contains(german));
+        assertFalse(_threads.contains(UNION_THREAD));
+        em.getTransaction().rollback();
+        em.close();
+    }
+
+    private List<Long> findIds() {
+        EntityManager em = emf.createEntityManager();
+        List<?> res = em.createQuery("select tr from Translatable tr "
+            + "order by tr.id desc").getResultList();
+        List<Long> ids = new ArrayList<Long>();
+        for (Object o : res)
+            ids.add(((Translatable) o).getId());
+        em.close();
+        return ids;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.persistence.jdbc.sqlcache;
+
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.ParameterExpression;
+import javax.persistence.criteria.Root;
+
+import org.apache.openjpa.kernel.PreparedQuery;
+import org.apache.openjpa.kernel.PreparedQueryCache;
+import org.apache.openjpa.kernel.QueryLanguages;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.apache.openjpa.persistence.OpenJPAQuery;
+import org.apache.openjpa.persistence.criteria.CriteriaBuilderImpl;
+import org.apache.openjpa.persistence.criteria.OpenJPACriteriaQuery;
+import org.apache.openjpa.persistence.test.SQLListenerTestCase;
+
+/**
+ * Tests that structurally identical criteria queries share a prepared query.
+ */
+public class TestCriteriaPreparedQuery extends SQLListenerTestCase {
+    private EntityManager em;
+
+    public void setUp() {
+        super.setUp(CLEAR_TABLES,
+                "openjpa.RuntimeUnenhancedClasses", "unsupported",
+                "openjpa.DynamicEnhancementAgent", "false",
+                "openjpa.DataCache", "false",
+                "openjpa.jdbc.QuerySQLCache", "true(EnableStatistics=true)",
+                Person.class, Address.class);
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        em.persist(new Person("Alan", "Turing", (short)41, 1912));
+        em.persist(new Person("Grace", "Hopper", (short)85, 1906));
+        em.persist(new Person("Edsger", "Dijkstra", (short)72, 1930));
+        em.getTransaction().commit();
+        em.clear();
+    }
+
+    public void tearDown() throws Exception {
+        if (em != null && em.isOpen())
+            em.close();
+        super.tearDown();
+    }
+
+    PreparedQueryCache getCache() {
+        return ((OpenJPAEntityManagerFactorySPI) emf).getConfiguration()
+            .getQuerySQLCacheInstance();
+    }
+
+    String key(OpenJPACriteriaQuery<?> c) {
+        return CriteriaBuilderImpl.getStructuralKey(c);
+    }
+
+    OpenJPACriteriaQuery<Person> byFirstName() {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        OpenJPACriteriaQuery<Person> c = (OpenJPACriteriaQuery<Person>) cb.createQuery(Person.class);
+        Root<Person> p = c.from(Person.class);
+        ParameterExpression<String> name = cb.parameter(String.class, "name");
+        c.where(cb.equal(p.get("firstName"), name));
+        return c;
+    }
+
+    OpenJPACriteriaQuery<Person> byLastName(String pattern, Character escape) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        OpenJPACriteriaQuery<Person> c = (OpenJPACriteriaQuery<Person>) cb.createQuery(Person.class);
+        Root<Person> p = c.from(Person.class);
+        if (escape == null)
+            c.where(cb.like(p.<String>get("lastName"), pattern));
+        else
+            c.where(cb.like(p.<String>get("lastName"), pattern, escape));
+        return c;
+    }
+
+    public void testStructuralKeyIgnoresParameterValues() {
+        OpenJPACriteriaQuery<Person> c1 = byFirstName();
+        OpenJPACriteriaQuery<Person> c2 = byFirstName();
+        assertNotNull(key(c1));
+        assertEquals(key(c1), key(c2));
+
+        assertEquals(key(byLastName("T%", null)), key(byLastName("T%", null)));
+        assertFalse(key(byLastName("T%", null)).equals(key(byLastName("H%", null))));
+        assertFalse(key(byLastName("T%", null)).equals(key(byLastName("T%", '\\'))));
+    }
+
+    public void testStructuralKeyDistinguishesResultType() {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        OpenJPACriteriaQuery<Object> c1 = (OpenJPACriteriaQuery<Object>) cb.createQuery();
+        c1.select(c1.from(Person.class));
+        OpenJPACriteriaQuery<Person> c2 = (OpenJPACriteriaQuery<Person>) cb.createQuery(Person.class);
+        c2.select(c2.from(Person.class));
+        assertEquals(c1.toCQL(), c2.toCQL());
+        assertFalse(key(c1).equals(key(c2)));
+    }
+
+    public void testParameterizedInHasNoStructuralKey() {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        OpenJPACriteriaQuery<Person> c = (OpenJPACriteriaQuery<Person>) cb.createQuery(Person.class);
+        Root<Person> p = c.from(Person.class);
+        ParameterExpression<List> names = cb.parameter(List.class, "names");
+        c.where(p.get("firstName").in(names));
+        assertNull(key(c));
+    }
+
+    public void testCriteriaQueryReusesPreparedQuery() {
+        String[] names = {"Alan", "Grace", "Edsger", "Alan"};
+        String key = key(byFirstName());
+        for (int i = 0; i < names.length; i++) {
+            OpenJPACriteriaQuery<Person> c = byFirstName();
+            TypedQuery<Person> q = em.createQuery(c);
+            if (i > 0) {
+                assertEquals(QueryLanguages.LANG_PREPARED_SQL, ((OpenJPAQuery<?>) q).getLanguage());
+            }
+            q.setParameter("name", names[i]);
+            List<Person> result = q.getResultList();
+            assertEquals(1, result.size());
+            assertEquals(names[i], result.get(0).getFirstName());
+
+            PreparedQuery pq = getCache().get(key);
+            assertNotNull(pq);
+            assertTrue(pq.isInitialized());
+        }
+        assertEquals(names.length, getCache().getStatistics().getExecutionCount(key));
+        assertEquals(names.length - 1, getCache().getStatistics().getHitCount(key));
+    }
+
+    public void testLockedCriteriaQueryBypassesPreparedQuery() {
+        em.createQuery(byFirstName()).setParameter("name", "Alan").getResultList();
+        assertTrue(getCache().get(key(byFirstName())).isInitialized());
+
+        em.getTransaction().begin();
+        TypedQuery<Person> q = em.createQuery(byFirstName());
+        q.setLockMode(LockModeType.PESSIMISTIC_WRITE);
+        List<Person> result = q.setParameter("name", "Grace").getResultList();
+        assertEquals(1, result.size());
+        assertEquals("Grace", result.get(0).getFirstName());
+        em.getTransaction().rollback();
+    }
+
+    public void testLiteralValuesAreNotShared() {
+        List<String> lastNames = Arrays.asList("T%", "H%", "D%");
+        for (String pattern : lastNames) {
+            List<Person> result = em.createQuery(byLastName(pattern, null)).getResultList();
+            assertEquals(1, result.size());
+            assertEquals(pattern.charAt(0), result.get(0).getLastName().charAt(0));
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.persistence.jdbc.sqlcache;
+
+import javax.persistence.EntityManager;
+
+import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
+import org.apache.openjpa.jdbc.kernel.FinderCacheImpl;
+import org.apache.openjpa.persistence.test.SQLListenerTestCase;
+
+/**
+ * Tests that the finder cache remembers identities that were not found.
+ */
+public class TestFinderNotFoundCache extends SQLListenerTestCase {
+    private static final long ABSENT_ID = 4711;
+
+    public void setUp() {
+        super.setUp(CLEAR_TABLES,
+                "openjpa.RuntimeUnenhancedClasses", "unsupported",
+                "openjpa.DynamicEnhancementAgent", "false",
+                "openjpa.DataCache", "false",
+                "openjpa.jdbc.FinderCache",
+                "true(EnableStats=true,NotFoundTimeout=60000)",
+                Merchandise.class, Book.class, CD.class,
+            Author.class, Person.class, Singer.class, Address.class);
+    }
+
+    FinderCacheImpl getCache() {
+        return (FinderCacheImpl) ((JDBCConfiguration) emf.getConfiguration())
+            .getFinderCacheInstance();
+    }
+
+    Book find(long id) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.find(Book.class, id);
+        } finally {
+            em.close();
+        }
+    }
+
+    public void testAbsentInstanceIsNotQueriedAgain() {
+        assertNull(find(ABSENT_ID));
+        sql.clear();
+        assertNull(find(ABSENT_ID));
+        assertTrue(sql.toString(), sql.isEmpty());
+        assertEquals(1, getCache().getNotFoundStatistics().getHitCount());
+        assertEquals(2,
+            getCache().getNotFoundStatistics().getExecutionCount());
+    }
+
+    public void testInsertForgetsAbsentInstances() {
+        assertNull(find(ABSENT_ID));
+
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        Book book = new Book();
+        book.setId(ABSENT_ID);
+        book.setTitle("Found");
+        em.persist(book);
+        em.getTransaction().commit();
+        em.close();
+
+        Book found = find(ABSENT_ID);
+        assertNotNull(found);
+        assertEquals("Found", found.getTitle());
+    }
+
+    public void testAbsentInstancesExpire() throws Exception {
+        getCache().setNotFoundTimeout(1);
+        assertNull(find(ABSENT_ID));
+        Thread.sleep(10);
+        sql.clear();
+        assertNull(find(ABSENT_ID));
+        assertFalse(sql.isEmpty());
+        assertEquals(0, getCache().getNotFoundStatistics().getHitCount());
+    }
+
+    public void testFinderHitsAndMisses() {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        Address address = new Address("Main Street", "Springfield", "IL", 1);
+        em.persist(address);
+        em.getTransaction().commit();
+        long id = address.getId();
+        em.close();
+
+        for (int i = 0; i < 3; i++) {
+            em = emf.createEntityManager();
+            assertNotNull(em.find(Address.class, id));
+            em.close();
+        }
+        // the first find caches the finder for the others to use
+        assertEquals(3, getCache().getStatistics().getExecutionCount());
+        assertEquals(2, getCache().getStatistics().getHitCount());
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.persistence.jdbc.update;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
+import org.apache.openjpa.jdbc.kernel.BatchingConstraintUpdateManager;
+import org.apache.openjpa.jdbc.kernel.ConstraintUpdateManager;
+import org.apache.openjpa.instrumentation.InstrumentationManagerImpl;
+import org.apache.openjpa.lib.instrumentation.BatchStatistics;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Tests that flushed rows are grouped by table so that parent and child
+ * inserts, which alternate in persist order, are executed in one batch per
+ * table while the foreign keys between them are respected.
+ */
+public class TestGroupedFlush extends SingleEMFTestCase {
+    private static final int PARENTS = 10;
+    private static final int CHILDREN = 5;
+
+    public void setUp() {
+        super.setUp(DROP_TABLES, Parent.class, Child.class,
+            NumericVersionedEntity.class, TimestampedEntity.class,
+            "openjpa.jdbc.UpdateManager",
+            "batching-constraint(GroupStatements=true)",
+            "openjpa.jdbc.DBDictionary", "batchLimit=100",
+            "openjpa.Instrumentation", "jmx(Instrument='Batch')",
+            "openjpa.jdbc.SchemaFactory", "native(ForeignKeys=true)",
+            "openjpa.jdbc.MappingDefaults",
+            "ForeignKeyDeleteAction=restrict, "
+            + "JoinForeignKeyDeleteAction=restrict");
+    }
+
+    public void testGroupingConfigured() {
+        ConstraintUpdateManager updateMgr = (ConstraintUpdateManager)
+            ((JDBCConfiguration) emf.getConfiguration()).
+            getUpdateManagerInstance();
+        assertTrue(updateMgr.getGroupStatements());
+        assertFalse(new ConstraintUpdateManager().getGroupStatements());
+        assertFalse(new BatchingConstraintUpdateManager().
+            getGroupStatements());
+    }
+
+    public void testInsertsAreGroupedByTable() {
+        BatchStatistics stats = getStatistics(emf);
+        assertTrue(stats.isEnabled());
+        stats.reset();
+
+        List<Long> ids = persistFamilies(emf);
+        assertEquals(1, stats.getFlushCount());
+        assertEquals(PARENTS * (CHILDREN + 1), stats.getRowCount());
+        assertEquals(2, stats.getExecutionCount());
+        assertEquals(2, stats.getBatchCount());
+        assertEquals(PARENTS * CHILDREN, stats.getMaxBatchSize());
+        assertEquals((CHILDREN + 1) * PARENTS / 2.0,
+            stats.getLastFlushAverageBatchSize(), 0.001);
+
+        // deletes are ordered children first by the foreign keys, and are
+        // grouped the same way
+        stats.reset();
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (Long id : ids)
+            em.remove(em.find(Parent.class, id));
+        em.getTransaction().commit();
+        assertEquals(0, ((Number) em.createQuery("select count(c) from "
+            + "Child c").getSingleResult()).intValue());
+        em.close();
+        assertEquals(PARENTS * (CHILDREN + 1), stats.getRowCount());
+        assertEquals(2, stats.getExecutionCount());
+    }
+
+    public void testUnrelatedInsertsAreGroupedByTable() {
+        BatchStatistics stats = getStatistics(emf);
+        stats.reset();
+        persistAlternating(emf);
+        assertEquals(2 * PARENTS, stats.getRowCount());
+        assertEquals(2, stats.getExecutionCount());
+    }
+
+    public void testUngroupedInsertsKeepPersistOrder() {
+        OpenJPAEntityManagerFactorySPI ungrouped = createEMF(
+            NumericVersionedEntity.class, TimestampedEntity.class,
+            "openjpa.jdbc.UpdateManager", "batching-constraint",
+            "openjpa.jdbc.DBDictionary", "batchLimit=100",
+            "openjpa.Instrumentation", "jmx(Instrument='Batch')");
+        try {
+            BatchStatistics stats = getStatistics(ungrouped);
+            stats.reset();
+            persistAlternating(ungrouped);
+
+            // without grouping, the default, rows outside the foreign key
+            // graph are flushed in persist order, so rows of alternating
+            // tables cannot share a batch
+            assertEquals(2 * PARENTS, stats.getRowCount());
+            assertEquals(2 * PARENTS, stats.getExecutionCount());
+        } finally {
+            closeEMF(ungrouped);
+        }
+    }
+
+    /**
+     * Persist instances of two unrelated types in alternating order.
+     */
+    private void persistAlternating(OpenJPAEntityManagerFactorySPI emf) {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < PARENTS; i++) {
+            NumericVersionedEntity nve = new NumericVersionedEntity();
+            nve.setName("nve" + i);
+            em.persist(nve);
+            TimestampedEntity tse = new TimestampedEntity();
+            tse.setName("tse" + i);
+            em.persist(tse);
+        }
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    private List<Long> persistFamilies(OpenJPAEntityManagerFactorySPI emf) {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        List<Parent> parents = new ArrayList<Parent>();
+        for (int i = 0; i < PARENTS; i++) {
+            Parent parent = new Parent();
+            parent.setName("parent" + i);
+            for (int j = 0; j < CHILDREN; j++)
+                parent.newChild("child" + i + "-" + j);
+            em.persist(parent);
+            parents.add(parent);
+        }
+        em.getTransaction().commit();
+        em.close();
+
+        List<Long> ids = new ArrayList<Long>();
+        em = emf.createEntityManager();
+        for (Parent parent : parents) {
+            ids.add(parent.getId());
+            assertEquals(CHILDREN, em.find(Parent.class, parent.getId()).
+                getChildren().size());
+        }
+        em.close();
+        return ids;
+    }
+
+    private BatchStatistics getStatistics(OpenJPAEntityManagerFactorySPI emf) {
+        return InstrumentationManagerImpl.getStatistics(emf.getConfiguration().
+            getInstrumentationManagerInstance(), BatchStatistics.class);
+    }
+}
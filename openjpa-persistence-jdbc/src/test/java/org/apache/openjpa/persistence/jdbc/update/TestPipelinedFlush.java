@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.persistence.jdbc.update;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.apache.openjpa.jdbc.conf.JDBCConfiguration;
+import org.apache.openjpa.jdbc.kernel.BatchingConstraintUpdateManager;
+import org.apache.openjpa.jdbc.kernel.ConstraintUpdateManager;
+import org.apache.openjpa.jdbc.kernel.PreparedStatementManager;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Tests flushing with SQL generation pipelined on a background thread,
+ * against physical foreign keys so that the insert and delete order matters.
+ */
+public class TestPipelinedFlush extends SingleEMFTestCase {
+    private static final int PARENTS = 10;
+    private static final int CHILDREN = 20;
+
+    public void setUp() {
+        super.setUp(DROP_TABLES, Parent.class, Child.class,
+            "openjpa.jdbc.UpdateManager",
+            "batching-constraint(PipelineThreshold=2)",
+            "openjpa.jdbc.SchemaFactory", "native(ForeignKeys=true)",
+            "openjpa.jdbc.MappingDefaults",
+            "ForeignKeyDeleteAction=restrict, "
+            + "JoinForeignKeyDeleteAction=restrict");
+    }
+
+    public void testPipelineConfigured() {
+        ConstraintUpdateManager updateMgr = (ConstraintUpdateManager)
+            ((JDBCConfiguration) emf.getConfiguration()).
+            getUpdateManagerInstance();
+        assertEquals(2, updateMgr.getPipelineThreshold());
+    }
+
+    public void testInsertUpdateDelete() {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        List<Long> ids = new ArrayList<Long>();
+        List<Parent> parents = new ArrayList<Parent>();
+        for (int i = 0; i < PARENTS; i++) {
+            Parent parent = new Parent();
+            parent.setName("parent" + i);
+            for (int j = 0; j < CHILDREN; j++)
+                parent.newChild("child" + i + "-" + j);
+            em.persist(parent);
+            parents.add(parent);
+        }
+        em.getTransaction().commit();
+        for (Parent parent : parents)
+            ids.add(parent.getId());
+        em.close();
+
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (Long id : ids) {
+            Parent parent = em.find(Parent.class, id);
+            assertEquals(CHILDREN, parent.getChildren().size());
+            parent.setName("updated");
+            for (Child child : parent.getChildren())
+                child.setName("updated");
+        }
+        em.getTransaction().commit();
+        em.close();
+
+        em = emf.createEntityManager();
+        assertEquals(PARENTS * CHILDREN, ((Number) em.createQuery(
+            "select count(c) from Child c where c.name = 'updated'").
+            getSingleResult()).intValue());
+        em.getTransaction().begin();
+        for (Long id : ids)
+            em.remove(em.find(Parent.class, id));
+        em.getTransaction().commit();
+        assertEquals(0, ((Number) em.createQuery("select count(c) from "
+            + "Child c").getSingleResult()).intValue());
+        em.close();
+    }
+
+    public void testFlushHooksRunWhenPipelined() {
+        OpenJPAEntityManagerFactorySPI emf2 = createEMF(Parent.class,
+            Child.class, "openjpa.jdbc.UpdateManager",
+            HookUpdateManager.class.getName() + "(PipelineThreshold=2)",
+            "openjpa.jdbc.SchemaFactory", "native(ForeignKeys=true)",
+            "openjpa.jdbc.MappingDefaults",
+            "ForeignKeyDeleteAction=restrict, "
+            + "JoinForeignKeyDeleteAction=restrict");
+        try {
+            HookUpdateManager updateMgr = (HookUpdateManager)
+                ((JDBCConfiguration) emf2.getConfiguration()).
+                getUpdateManagerInstance();
+            EntityManager em = emf2.createEntityManager();
+            em.getTransaction().begin();
+            Parent parent = new Parent();
+            parent.setName("parent");
+            for (int j = 0; j < CHILDREN; j++)
+                parent.newChild("child" + j);
+            em.persist(parent);
+            em.getTransaction().commit();
+            em.close();
+
+            // the parent and its children are flushed through the foreign
+            // key graph hook
+            assertEquals(CHILDREN + 1, updateMgr.graphRows);
+        } finally {
+            closeEMF(emf2);
+        }
+    }
+
+    /**
+     * Counts the rows passed to the overridable graph flush hook.
+     */
+    public static class HookUpdateManager
+        extends BatchingConstraintUpdateManager {
+
+        private int graphRows = 0;
+
+        protected void flush(Collection deleteUpdates, Collection nodes,
+            PreparedStatementManager psMgr) {
+            graphRows += nodes.size();
+            super.flush(deleteUpdates, nodes, psMgr);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.persistence.kernel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceException;
+import javax.persistence.TypedQuery;
+
+import org.apache.openjpa.persistence.OpenJPAEntityManager;
+import org.apache.openjpa.persistence.OpenJPAPersistence;
+import org.apache.openjpa.persistence.OpenJPAQuery;
+import org.apache.openjpa.persistence.jdbc.JDBCFetchPlan;
+import org.apache.openjpa.persistence.test.SQLListenerTestCase;
+
+/**
+ * Tests that pessimistic locks which cannot be obtained by the select that
+ * loads the instances are obtained for several rows at once.
+ */
+public class TestBatchedPessimisticLocks extends SQLListenerTestCase {
+    private static final int COUNT = 5;
+
+    public void setUp() throws Exception {
+        super.setUp(CLEAR_TABLES, PessimisticLockEntity.class,
+            "openjpa.LockManager", "mixed(BatchLimit=2)",
+            "openjpa.jdbc.DBDictionary", "supportsLockingWithOrderClause=false");
+
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < COUNT; i++) {
+            PessimisticLockEntity pe = new PessimisticLockEntity();
+            pe.setId(i);
+            em.persist(pe);
+        }
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    public void testQueryLocksRowsInBatches() {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        try {
+            resetSQL();
+            List<PessimisticLockEntity> result = em.createQuery(
+                "select p from PessimisticLockEntity p order by p.id",
+                PessimisticLockEntity.class)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE).getResultList();
+            assertEquals(COUNT, result.size());
+            for (PessimisticLockEntity pe : result)
+                assertEquals(LockModeType.PESSIMISTIC_WRITE, em.getLockMode(pe));
+            // rows 0-1, 2-3 and 4 are locked by one statement each
+            assertEquals(3, getLockStatementCount());
+        } finally {
+            em.getTransaction().rollback();
+            em.close();
+        }
+    }
+
+    public void testLockAllLocksRowsInBatches() {
+        OpenJPAEntityManager em = OpenJPAPersistence.cast(
+            emf.createEntityManager());
+        em.getTransaction().begin();
+        try {
+            List<PessimisticLockEntity> result = new ArrayList<PessimisticLockEntity>();
+            for (int i = 0; i < COUNT; i++)
+                result.add(em.find(PessimisticLockEntity.class, i));
+            resetSQL();
+            em.lockAll(result, LockModeType.PESSIMISTIC_WRITE, -1);
+            for (PessimisticLockEntity pe : result)
+                assertEquals(LockModeType.PESSIMISTIC_WRITE, em.getLockMode(pe));
+            assertEquals(3, getLockStatementCount());
+        } finally {
+            em.getTransaction().rollback();
+            em.close();
+        }
+    }
+
+    public void testSkipLockedHint() {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        try {
+            TypedQuery<PessimisticLockEntity> q = em.createQuery(
+                "select p from PessimisticLockEntity p",
+                PessimisticLockEntity.class)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint("openjpa.FetchPlan.SkipLocked", "true");
+            JDBCFetchPlan plan = (JDBCFetchPlan) ((OpenJPAQuery<?>) q)
+                .getFetchPlan();
+            assertTrue(plan.getSkipLocked());
+
+            // the test dictionary has no skip locked clause
+            if (getDBDictionary().skipLockedClause == null) {
+                try {
+                    q.getResultList();
+                    fail("Expected unsupported skip locked");
+                } catch (PersistenceException pe) {
+                    // expected
+                }
+            } else
+                assertEquals(COUNT, q.getResultList().size());
+        } finally {
+            if (em.getTransaction().isActive())
+                em.getTransaction().rollback();
+            em.close();
+        }
+    }
+
+    private int getLockStatementCount() {
+        int count = 0;
+        for (String s : sql)
+            if (s.contains(" IN (") && s.contains("FOR UPDATE"))
+                count++;
+        return count;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.persistence.kernel;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.openjpa.persistence.OpenJPAEntityManager;
+import org.apache.openjpa.persistence.kernel.common.apps.ModRuntimeTest1;
+
+/**
+ * Runs the savepoint tests against lazy in-memory savepoints, which save
+ * fields only as they first change after the savepoint is set.
+ */
+public class TestLazySavepoints extends TestSavepoints {
+
+    public TestLazySavepoints(String name) {
+        super(name);
+    }
+
+    protected String getSavepointPlugin() {
+        return "in-mem(Lazy=true)";
+    }
+
+    public void testUnchangedInstancesAreRetained() {
+        OpenJPAEntityManager pm = getPM();
+        startTx(pm);
+        List<Object> oids = new ArrayList<Object>();
+        for (int i = 0; i < 10; i++) {
+            ModRuntimeTest1 pc = new ModRuntimeTest1("orig" + i, i);
+            pm.persist(pc);
+            oids.add(pm.getObjectId(pc));
+        }
+        endTx(pm);
+        endEm(pm);
+
+        // pessimistic, so that every found instance is transactional
+        pm = getPM();
+        pm.setOptimistic(false);
+        startTx(pm);
+        List<ModRuntimeTest1> pcs = new ArrayList<ModRuntimeTest1>();
+        for (Object oid : oids)
+            pcs.add(pm.find(ModRuntimeTest1.class, oid));
+        pcs.get(0).setStringField("before");
+        pm.setSavepoint("test");
+        pcs.get(0).setIntField(100);
+        pcs.get(1).setStringField("changed");
+        pm.remove(pcs.get(2));
+        pm.rollbackToSavepoint("test");
+
+        assertEquals("before", pcs.get(0).getStringField());
+        assertEquals(0, pcs.get(0).getIntField());
+        assertEquals("orig1", pcs.get(1).getStringField());
+        assertFalse(pm.isRemoved(pcs.get(2)));
+        for (int i = 0; i < pcs.size(); i++)
+            assertEquals(i, pcs.get(i).getIntField());
+        assertTrue(pm.isTransactional(pcs.get(9)));
+        endTx(pm);
+        endEm(pm);
+
+        pm = getPM();
+        ModRuntimeTest1 pc = pm.find(ModRuntimeTest1.class, oids.get(0));
+        assertEquals("before", pc.getStringField());
+        assertEquals(0, pc.getIntField());
+        assertEquals("orig1", pm.find(ModRuntimeTest1.class, oids.get(1))
+            .getStringField());
+        assertNotNull(pm.find(ModRuntimeTest1.class, oids.get(2)));
+        endEm(pm);
+    }
+
+    public void testNestedSavepointsSaveFirstChangeOnly() {
+        OpenJPAEntityManager pm = getPM();
+        startTx(pm);
+        ModRuntimeTest1 pc = new ModRuntimeTest1("orig", 1);
+        pm.persist(pc);
+        Object oid = pm.getObjectId(pc);
+        endTx(pm);
+        endEm(pm);
+
+        pm = getPM();
+        startTx(pm);
+        pc = pm.find(ModRuntimeTest1.class, oid);
+        pm.setSavepoint("s1");
+        pc.setStringField("s1");
+        pm.setSavepoint("s2");
+        pc.setStringField("s2");
+        pc.setIntField(2);
+        pc.setStringField("s2b");
+
+        pm.rollbackToSavepoint("s2");
+        assertEquals("s1", pc.getStringField());
+        assertEquals(1, pc.getIntField());
+
+        pc.setIntField(3);
+        pm.rollbackToSavepoint("s1");
+        assertEquals("orig", pc.getStringField());
+        assertEquals(1, pc.getIntField());
+        endTx(pm);
+        endEm(pm);
+    }
+}
@@ -19,9 +19,16 @@
 package org.apache.openjpa.persistence.meta;
 
 import java.util.Collection;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.openjpa.enhance.PCRegistry;
 import org.apache.openjpa.meta.ClassMetaData;
+import org.apache.openjpa.meta.MetaDataModes;
 import org.apache.openjpa.meta.MetaDataRepository;
 import org.apache.openjpa.meta.QueryMetaData;
 import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
@@ -107,4 +114,68 @@ public class TestMetaDataRepository extends AbstractPersistenceTestCase {
         assertTrue(MetaDataRepository.needsPreload(emf.getConfiguration()));
         emf.close();
     }
+
+    public void testParallelPreload() {
+        OpenJPAEntityManagerFactorySPI emf = null;
+        try {
+            emf = createNamedEMF("test", "openjpa.MetaDataRepository", "Preload=true,PreloadThreads=4",
+                Customer.class, Customer.CustomerKey.class, Order.class, EAddress.class);
+            MetaDataRepository mdr = emf.getConfiguration().getMetaDataRepositoryInstance();
+            assertEquals(4, mdr.getPreloadThreads());
+
+            for (Class<?> cls : new Class<?>[] { Customer.class, Order.class, EAddress.class }) {
+                ClassMetaData meta = mdr.getCachedMetaData(cls);
+                assertNotNull(cls.getName(), meta);
+                assertTrue(cls.getName(), (meta.getResolve() & MetaDataModes.MODE_META) != 0);
+            }
+            assertTrue(mdr.getAliasNames().contains("Customer"));
+            assertNotNull(mdr.getCachedXMLMetaData(Address.class));
+        } finally {
+            closeEMF(emf);
+        }
+    }
+
+    public void testConcurrentResolveDoesNotWaitForLock() throws Exception {
+        OpenJPAEntityManagerFactorySPI emf = null;
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            emf = createNamedEMF(PU_NAME, "openjpa.MetaDataRepository", "ConcurrentResolve=true");
+            final MetaDataRepository mdr = emf.getConfiguration().getMetaDataRepositoryInstance();
+            assertTrue(mdr.getConcurrentResolve());
+            final ClassMetaData meta = mdr.getMetaData(MdrTestEntity.class, null, true);
+
+            // hold the repository lock as a thread resolving another type would
+            final CountDownLatch locked = new CountDownLatch(1);
+            final CountDownLatch release = new CountDownLatch(1);
+            executor.submit(new Callable<Void>() {
+                public Void call() throws Exception {
+                    synchronized (mdr) {
+                        locked.countDown();
+                        release.await();
+                    }
+                    return null;
+                }
+            });
+            assertTrue(locked.await(10, TimeUnit.SECONDS));
+            Future<ClassMetaData> lookup = executor.submit(new Callable<ClassMetaData>() {
+                public ClassMetaData call() {
+                    return mdr.getMetaData(MdrTestEntity.class, null, true);
+                }
+            });
+            try {
+                assertSame(meta, lookup.get(10, TimeUnit.SECONDS));
+            } finally {
+                release.countDown();
+            }
+
+            // removed metadata is no longer returned without locking
+            assertTrue(mdr.removeMetaData(meta));
+            ClassMetaData reloaded = mdr.getMetaData(MdrTestEntity.class, null, true);
+            assertNotSame(meta, reloaded);
+            assertSame(reloaded, mdr.getMetaData(MdrTestEntity.class, null, true));
+        } finally {
+            executor.shutdownNow();
+            closeEMF(emf);
+        }
+    }
 }
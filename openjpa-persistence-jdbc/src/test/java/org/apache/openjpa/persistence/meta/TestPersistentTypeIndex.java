@@ -0,0 +1,169 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.persistence.meta;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.apache.openjpa.meta.AbstractCFMetaDataFactory;
+import org.apache.openjpa.meta.DelegatingMetaDataFactory;
+import org.apache.openjpa.meta.MetaDataFactory;
+import org.apache.openjpa.meta.PersistentTypeIndex;
+import org.apache.openjpa.persistence.OpenJPAEntityManagerFactorySPI;
+import org.apache.openjpa.persistence.jdbc.sqlcache.Address;
+import org.apache.openjpa.persistence.jdbc.sqlcache.Person;
+import org.apache.openjpa.persistence.test.PersistenceTestCase;
+
+/**
+ * Tests parallel scanning of persistent type locations and the persistent
+ * type index that can replace the scan.
+ */
+public class TestPersistentTypeIndex extends PersistenceTestCase {
+
+    private static final String INDEXED = "com.example.Indexed";
+
+    public void testParallelScanFindsSameTypes() throws Exception {
+        File jar1 = newJar(Address.class, TestPersistentTypeIndex.class);
+        File jar2 = newJar(Person.class);
+        String files = jar1.getAbsolutePath() + ";" + jar2.getAbsolutePath();
+
+        Collection<String> serial = getTypeNames("Files=" + files
+            + ",ScanThreads=1");
+        Collection<String> parallel = getTypeNames("Files=" + files
+            + ",ScanThreads=4");
+        assertTrue(serial.contains(Address.class.getName()));
+        assertTrue(serial.contains(Person.class.getName()));
+        assertFalse(serial.contains(TestPersistentTypeIndex.class.getName()));
+        assertEquals(serial, parallel);
+    }
+
+    public void testBuildScanIndex() throws Exception {
+        File jar = newJar(Address.class);
+        OpenJPAEntityManagerFactorySPI emf = createEMF(Person.class,
+            "openjpa.MetaDataFactory", "Files=" + jar.getAbsolutePath());
+        try {
+            PersistentTypeIndex index = getFactory(emf).buildScanIndex(
+                getClass().getClassLoader());
+            String[] names = index.get(jar, PersistentTypeIndex.checksum(jar));
+            assertNotNull(names);
+            assertEquals(1, names.length);
+            assertEquals(Address.class.getName(), names[0]);
+        } finally {
+            closeEMF(emf);
+        }
+    }
+
+    public void testIndexReplacesScan() throws Exception {
+        File jar = newJar(Address.class);
+        File idx = newIndex(jar, PersistentTypeIndex.checksum(jar));
+
+        Collection<String> names = getTypeNames("Files="
+            + jar.getAbsolutePath() + ",ScanIndex=" + idx.getAbsolutePath());
+        assertTrue(names.contains(INDEXED));
+        assertFalse(names.contains(Address.class.getName()));
+    }
+
+    public void testStaleIndexEntryIsIgnored() throws Exception {
+        File jar = newJar(Address.class);
+        File idx = newIndex(jar, PersistentTypeIndex.checksum(jar));
+        writeJar(jar, Address.class, TestPersistentTypeIndex.class);
+
+        Collection<String> names = getTypeNames("Files="
+            + jar.getAbsolutePath() + ",ScanIndex=" + idx.getAbsolutePath());
+        assertFalse(names.contains(INDEXED));
+        assertTrue(names.contains(Address.class.getName()));
+    }
+
+    public void testMissingIndexFallsBackToScan() throws Exception {
+        File jar = newJar(Address.class);
+        File idx = new File(jar.getParentFile(), jar.getName() + ".idx");
+
+        Collection<String> names = getTypeNames("Files="
+            + jar.getAbsolutePath() + ",ScanIndex=" + idx.getAbsolutePath());
+        assertTrue(names.contains(Address.class.getName()));
+    }
+
+    private Collection<String> getTypeNames(String factoryProps) {
+        OpenJPAEntityManagerFactorySPI emf = createEMF(Person.class,
+            "openjpa.MetaDataFactory", factoryProps);
+        try {
+            return emf.getConfiguration().getMetaDataRepositoryInstance()
+                .getPersistentTypeNames(false, null);
+        } finally {
+            closeEMF(emf);
+        }
+    }
+
+    private AbstractCFMetaDataFactory getFactory(
+        OpenJPAEntityManagerFactorySPI emf) {
+        MetaDataFactory mdf = emf.getConfiguration()
+            .getMetaDataRepositoryInstance().getMetaDataFactory();
+        if (mdf instanceof DelegatingMetaDataFactory)
+            mdf = ((DelegatingMetaDataFactory) mdf).getInnermostDelegate();
+        return (AbstractCFMetaDataFactory) mdf;
+    }
+
+    private File newIndex(File jar, String checksum) throws Exception {
+        PersistentTypeIndex index = new PersistentTypeIndex();
+        index.put(jar, checksum, new String[]{ INDEXED });
+        File idx = File.createTempFile("openjpa-types", ".idx");
+        idx.deleteOnExit();
+        OutputStream out = new FileOutputStream(idx);
+        try {
+            index.store(out);
+        } finally {
+            out.close();
+        }
+        return idx;
+    }
+
+    private File newJar(Class<?>... classes) throws Exception {
+        File jar = File.createTempFile("openjpa-types", ".jar");
+        jar.deleteOnExit();
+        writeJar(jar, classes);
+        return jar;
+    }
+
+    private void writeJar(File jar, Class<?>... classes) throws Exception {
+        JarOutputStream out = new JarOutputStream(new FileOutputStream(jar));
+        try {
+            for (Class<?> cls : classes) {
+                String name = cls.getName().replace('.', '/') + ".class";
+                out.putNextEntry(new JarEntry(name));
+                InputStream in = cls.getClassLoader().getResourceAsStream(
+                    name);
+                try {
+                    byte[] buf = new byte[4096];
+                    for (int r; (r = in.read(buf)) != -1;)
+                        out.write(buf, 0, r);
+                } finally {
+                    in.close();
+                }
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.persistence.query;
+
+import java.util.Iterator;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.apache.openjpa.kernel.QueryHints;
+import org.apache.openjpa.persistence.OpenJPAEntityManager;
+import org.apache.openjpa.persistence.OpenJPAPersistence;
+import org.apache.openjpa.persistence.test.SingleEMFTestCase;
+
+/**
+ * Tests streaming query results with {@link QueryHints#HINT_STREAM_RESULTS}.
+ */
+public class TestStreamingQuery extends SingleEMFTestCase {
+    private static final int COUNT = 200;
+
+    public void setUp() {
+        setUp(CLEAR_TABLES, SimpleEntity.class, Account.class, Customer.class,
+            Customer.CustomerKey.class, Order.class, OrderItem.class);
+
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < COUNT; i++)
+            em.persist(new SimpleEntity("name" + i, "value" + i));
+        em.getTransaction().commit();
+        em.close();
+    }
+
+    public void testInstancesAreDetachedAsIterationAdvances() {
+        OpenJPAEntityManager em = OpenJPAPersistence.cast(emf.createEntityManager());
+        List<?> result = em.createQuery("select s from simple s order by s.id")
+            .setHint(QueryHints.HINT_STREAM_RESULTS, true).getResultList();
+
+        int count = 0;
+        SimpleEntity previous = null;
+        for (Iterator<?> itr = result.iterator(); itr.hasNext();) {
+            SimpleEntity current = (SimpleEntity) itr.next();
+            assertTrue(em.contains(current));
+            if (previous != null) {
+                assertFalse(em.contains(previous));
+                assertTrue(em.isDetached(previous));
+                assertTrue(previous.getId() < current.getId());
+            }
+            assertTrue(em.getManagedObjects().size() <= 1);
+            previous = current;
+            count++;
+        }
+        assertEquals(COUNT, count);
+        assertFalse(em.contains(previous));
+        assertTrue(em.getManagedObjects().isEmpty());
+
+        // streamed results are traversed only once
+        try {
+            result.iterator().next();
+            fail("Expected streamed results to be exhausted");
+        } catch (IllegalStateException ise) {
+            // expected
+        }
+        em.close();
+    }
+
+    public void testModifiedInstancesRemainManaged() {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        List<?> result = em.createQuery("select s from simple s order by s.id")
+            .setHint(QueryHints.HINT_STREAM_RESULTS, "true").getResultList();
+        SimpleEntity modified = null;
+        int count = 0;
+        for (Object o : result) {
+            SimpleEntity e = (SimpleEntity) o;
+            if (count++ == 10) {
+                e.setValue("modified");
+                modified = e;
+            }
+        }
+        assertEquals(COUNT, count);
+        assertTrue(em.contains(modified));
+        em.getTransaction().commit();
+        em.close();
+
+        em = emf.createEntityManager();
+        assertEquals("modified", em.find(SimpleEntity.class, modified.getId()).getValue());
+        em.close();
+    }
+
+    public void testProjectionsAreStreamed() {
+        OpenJPAEntityManager em = OpenJPAPersistence.cast(emf.createEntityManager());
+        List<?> result = em.createQuery("select s, s.name from simple s")
+            .setHint(QueryHints.HINT_STREAM_RESULTS, true).getResultList();
+        int count = 0;
+        for (Object o : result) {
+            Object[] row = (Object[]) o;
+            assertEquals(((SimpleEntity) row[0]).getName(), row[1]);
+            assertTrue(em.getManagedObjects().size() <= 1);
+            count++;
+        }
+        assertEquals(COUNT, count);
+        em.close();
+    }
+
+    public void testEagerRelationsAreDetached() {
+        EntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        for (int i = 0; i < 20; i++) {
+            Customer c = new Customer(new Customer.CustomerKey("US", i),
+                "customer" + i, Customer.CreditRating.GOOD);
+            em.persist(c);
+            for (int j = 0; j < 5; j++) {
+                Account a = new Account();
+                a.setName("account" + i + "-" + j);
+                a.setCustomer(c);
+                em.persist(a);
+            }
+        }
+        em.getTransaction().commit();
+        em.close();
+
+        OpenJPAEntityManager oem = OpenJPAPersistence.cast(emf.createEntityManager());
+        Customer held = oem.find(Customer.class, new Customer.CustomerKey("US", 0));
+        List<?> result = oem.createQuery("select a from Account a order by a.aid")
+            .setHint(QueryHints.HINT_STREAM_RESULTS, true).getResultList();
+
+        // each account and its eagerly loaded customer are detached together;
+        // the customer managed before the query stays managed
+        int count = 0;
+        Account previous = null;
+        for (Object o : result) {
+            Account current = (Account) o;
+            assertNotNull(current.getCustomer());
+            if (previous != null && previous.getCustomer() != held)
+                assertTrue(oem.isDetached(previous.getCustomer()));
+            assertTrue(oem.getManagedObjects().size() <= 3);
+            previous = current;
+            count++;
+        }
+        assertEquals(100, count);
+        assertTrue(oem.contains(held));
+        assertEquals(1, oem.getManagedObjects().size());
+        oem.close();
+    }
+}
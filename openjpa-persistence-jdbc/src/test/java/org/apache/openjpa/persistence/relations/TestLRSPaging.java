@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.persistence.relations;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.openjpa.persistence.OpenJPAEntityManager;
+import org.apache.openjpa.persistence.OpenJPAPersistence;
+import org.apache.openjpa.persistence.jdbc.JDBCFetchPlan;
+import org.apache.openjpa.persistence.relations.entity.LrsEntityA;
+import org.apache.openjpa.persistence.relations.entity.LrsEntityB;
+import org.apache.openjpa.persistence.test.SQLListenerTestCase;
+
+/**
+ * Test reading LRS collections in pages and caching their size.
+ */
+public class TestLRSPaging
+    extends SQLListenerTestCase {
+
+    private int id;
+    private long lrsId;
+
+    public void setUp() {
+        setUp(LrsEntityA.class, LrsEntityB.class, LRSEntity.class,
+            BasicEntity.class, CLEAR_TABLES);
+
+        OpenJPAEntityManager em = emf.createEntityManager();
+        em.getTransaction().begin();
+        LrsEntityA a = new LrsEntityA("a");
+        for (int i = 0; i < 7; i++)
+            new LrsEntityB("b" + i, a);
+        em.persist(a);
+
+        LRSEntity lrs = new LRSEntity();
+        lrs.setName("lrs");
+        for (int i = 3; i > 0; i--) {
+            BasicEntity basic = new BasicEntity();
+            basic.setName("basic" + i);
+            em.persist(basic);
+            lrs.getLRSList().add(basic);
+        }
+        em.persist(lrs);
+        em.getTransaction().commit();
+        id = a.getId();
+        lrsId = lrs.getId();
+        em.close();
+    }
+
+    public void testPagedIteration() {
+        OpenJPAEntityManager em = emf.createEntityManager();
+        ((JDBCFetchPlan) em.getFetchPlan()).setLRSPageSize(3);
+        LrsEntityA a = em.find(LrsEntityA.class, id);
+
+        resetSQL();
+        List<Integer> ids = new ArrayList<Integer>();
+        Iterator<LrsEntityB> itr = a.getEntitybs().iterator();
+        while (itr.hasNext())
+            ids.add(itr.next().getId());
+        OpenJPAPersistence.close(itr);
+
+        assertEquals(7, ids.size());
+        for (int i = 1; i < ids.size(); i++)
+            assertTrue(ids.get(i - 1) < ids.get(i));
+        // two full pages and a last one with a single element
+        assertEquals(3, getSQLCount());
+        em.close();
+    }
+
+    public void testDeclaredOrderIsKept() {
+        OpenJPAEntityManager em = emf.createEntityManager();
+        ((JDBCFetchPlan) em.getFetchPlan()).setLRSPageSize(2);
+        LRSEntity lrs = em.find(LRSEntity.class, lrsId);
+        Iterator<BasicEntity> itr = lrs.getLRSList().iterator();
+        for (int i = 1; i <= 3; i++)
+            assertEquals("basic" + i, itr.next().getName());
+        assertFalse(itr.hasNext());
+        OpenJPAPersistence.close(itr);
+        em.close();
+    }
+
+    public void testSizeIsCachedAcrossCommits() {
+        OpenJPAEntityManager em = emf.createEntityManager();
+        ((JDBCFetchPlan) em.getFetchPlan()).setLRSPageSize(3);
+        LrsEntityA a = em.find(LrsEntityA.class, id);
+        Collection<LrsEntityB> bs = a.getEntitybs();
+        assertEquals(7, bs.size());
+
+        em.getTransaction().begin();
+        em.persist(new LrsEntityB("b7", a));
+        em.getTransaction().commit();
+
+        resetSQL();
+        assertEquals(8, bs.size());
+        assertNoneSQLAnyOrder(".*COUNT.*");
+        em.close();
+
+        em = emf.createEntityManager();
+        assertEquals(8, em.find(LrsEntityA.class, id).getEntitybs().size());
+        em.close();
+    }
+
+    public void testSizeIsCountedWithoutPaging() {
+        OpenJPAEntityManager em = emf.createEntityManager();
+        LrsEntityA a = em.find(LrsEntityA.class, id);
+        Collection<LrsEntityB> bs = a.getEntitybs();
+        assertEquals(7, bs.size());
+
+        em.getTransaction().begin();
+        em.persist(new LrsEntityB("b7", a));
+        em.getTransaction().commit();
+
+        resetSQL();
+        assertEquals(8, bs.size());
+        assertAnySQLAnyOrder(".*COUNT.*");
+        em.close();
+    }
+}
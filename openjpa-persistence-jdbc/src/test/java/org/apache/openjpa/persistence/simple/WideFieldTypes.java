@@ -0,0 +1,64 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.    
+ */
+package org.apache.openjpa.persistence.simple;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+/**
+ * Entity with more persistent fields than fit in a single long mask.
+ */
+@Entity
+public class WideFieldTypes {
+
+    @Id
+    private long id;
+
+    private int f00, f01, f02, f03, f04, f05, f06, f07, f08, f09;
+    private int f10, f11, f12, f13, f14, f15, f16, f17, f18, f19;
+    private int f20, f21, f22, f23, f24, f25, f26, f27, f28, f29;
+    private int f30, f31, f32, f33, f34, f35, f36, f37, f38, f39;
+    private int f40, f41, f42, f43, f44, f45, f46, f47, f48, f49;
+    private int f50, f51, f52, f53, f54, f55, f56, f57, f58, f59;
+    private int f60, f61, f62, f63, f64, f65, f66, f67, f68, f69;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public int getF00() {
+        return f00;
+    }
+
+    public void setF00(int f00) {
+        this.f00 = f00;
+    }
+
+    public int getF69() {
+        return f69;
+    }
+
+    public void setF69(int f69) {
+        this.f69 = f69;
+    }
+}
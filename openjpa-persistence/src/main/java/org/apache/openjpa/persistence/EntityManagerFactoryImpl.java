@@ -30,9 +30,11 @@ import javax.persistence.spi.LoadState;
 
 import org.apache.openjpa.lib.util.StringUtil;
 import org.apache.openjpa.conf.OpenJPAConfiguration;
+import org.apache.openjpa.kernel.AbstractBrokerFactory;
 import org.apache.openjpa.kernel.AutoDetach;
 import org.apache.openjpa.kernel.Broker;
 import org.apache.openjpa.kernel.BrokerFactory;
+import org.apache.openjpa.kernel.ConfigurationSnapshot;
 import org.apache.openjpa.kernel.DelegatingBrokerFactory;
 import org.apache.openjpa.kernel.DelegatingFetchConfiguration;
 import org.apache.openjpa.kernel.FetchConfiguration;
@@ -188,17 +190,20 @@ public class EntityManagerFactoryImpl
 
         OpenJPAConfiguration conf = getConfiguration();
         Log log = conf.getLog(OpenJPAConfiguration.LOG_RUNTIME);
+        BrokerFactory inner = _factory.getInnermostDelegate();
+        ConfigurationSnapshot snap = (inner instanceof AbstractBrokerFactory)
+            ? ((AbstractBrokerFactory) inner).getConfigurationSnapshot() : null;
         String user = (String) Configurations.removeProperty("ConnectionUserName", props);
         if (user == null)
-            user = conf.getConnectionUserName();
+            user = (snap != null) ? snap.getConnectionUserName() : conf.getConnectionUserName();
         String pass = (String) Configurations.removeProperty("ConnectionPassword", props);
         if (pass == null)
-            pass = conf.getConnectionPassword();
+            pass = (snap != null) ? snap.getConnectionPassword() : conf.getConnectionPassword();
 
         String str = (String) Configurations.removeProperty("TransactionMode", props);
         boolean managed;
         if (str == null)
-            managed = conf.isTransactionModeManaged();
+            managed = (snap != null) ? snap.isTransactionModeManaged() : conf.isTransactionModeManaged();
         else {
             Value val = conf.getValue("TransactionMode");
             managed = Boolean.parseBoolean(val.unalias(str));
@@ -209,7 +214,7 @@ public class EntityManagerFactoryImpl
         if (obj instanceof Number) {
             retainMode = ((Number) obj).intValue();
         } else if (obj == null) {
-            retainMode = conf.getConnectionRetainModeConstant();
+            retainMode = (snap != null) ? snap.getConnectionRetainMode() : conf.getConnectionRetainModeConstant();
         } else {
             Value val = conf.getValue("ConnectionRetainMode");
             try {
@@ -495,6 +495,12 @@ public class EntityManagerImpl
         return (T) _broker.find(oid, true, this);
     }
 
+    @SuppressWarnings("unchecked")
+    public <T> T findByLongId(Class<T> cls, long id) {
+        assertNotCloseInvoked();
+        return (T) _broker.find(cls, id, true, this);
+    }
+
     public <T> T find(Class<T> cls, Object oid, LockModeType mode) {
         return find(cls, oid, mode, null);
     }
@@ -1698,11 +1704,21 @@ public class EntityManagerImpl
      * Compile to register the parameters in this query.
      */
     public <T> TypedQuery<T> createQuery(CriteriaQuery<T> criteriaQuery) {
-        ((OpenJPACriteriaQuery<T>)criteriaQuery).compile(); 
+        OpenJPACriteriaQuery<T> criteria = (OpenJPACriteriaQuery<T>)criteriaQuery;
+        criteria.compile(); 
         
-        org.apache.openjpa.kernel.Query kernelQuery =_broker.newQuery(CriteriaBuilderImpl.LANG_CRITERIA, criteriaQuery);
+        // structurally identical criteria queries share a prepared query
+        String qid = CriteriaBuilderImpl.getStructuralKey(criteria);
+        PreparedQuery pq = qid == null ? null : getPreparedQuery(qid);
+        org.apache.openjpa.kernel.Query kernelQuery = (pq == null || !pq.isInitialized())
+            ? _broker.newQuery(CriteriaBuilderImpl.LANG_CRITERIA, criteriaQuery)
+            : _broker.newQuery(pq.getLanguage(), pq);
+        if (pq != null && pq.isInitialized()) {
+            pq.setInto(kernelQuery);
+        }
         
-        QueryImpl<T> facadeQuery = newQueryImpl(kernelQuery, null).setId(criteriaQuery.toString());
+        QueryImpl<T> facadeQuery = newQueryImpl(kernelQuery, null).setId(qid);
+        facadeQuery.setCriteria(criteria);
         Set<ParameterExpression<?>> params = criteriaQuery.getParameters();
         
         for (ParameterExpression<?> param : params) {
@@ -177,6 +177,8 @@ public class HintHandler  {
         } else if (QueryHints.HINT_USE_LITERAL_IN_SQL.equals(key)) {
             Boolean convertedValue = (Boolean)Filters.convert(value, Boolean.class);
             plan.setHint(key, convertedValue);
+        } else if (QueryHints.HINT_STREAM_RESULTS.equals(key)) {
+            plan.setHint(key, Filters.convert(value, Boolean.class));
         } else { // default 
             plan.setHint(key, value);
         }
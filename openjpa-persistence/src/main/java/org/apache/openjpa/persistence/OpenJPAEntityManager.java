@@ -312,6 +312,16 @@ public interface OpenJPAEntityManager
     // Lookups
     ///////////
 
+    /**
+     * Find the instance of the given class whose single numeric identity
+     * field or datastore id has the given value. Unlike
+     * {@link #find(Class,Object)}, this does not construct an object id
+     * when the instance is already managed under its exact class.
+     *
+     * @since 3.0.0
+     */
+    public <T> T findByLongId(Class<T> cls, long id);
+
     /**
      * Return the objects with the given oids.
      *
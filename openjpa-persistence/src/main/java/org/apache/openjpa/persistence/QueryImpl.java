@@ -23,6 +23,7 @@ import static org.apache.openjpa.kernel.QueryLanguages.LANG_PREPARED_SQL;
 import java.io.Serializable;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -57,6 +58,7 @@ import org.apache.openjpa.lib.util.Localizer;
 import org.apache.openjpa.lib.util.OrderedMap;
 import org.apache.openjpa.meta.QueryMetaData;
 import org.apache.openjpa.persistence.criteria.CriteriaBuilderImpl;
+import org.apache.openjpa.persistence.criteria.OpenJPACriteriaQuery;
 import org.apache.openjpa.util.ImplHelper;
 import org.apache.openjpa.util.RuntimeExceptionTranslator;
 import org.apache.openjpa.util.UserException;
@@ -75,6 +77,7 @@ public class QueryImpl<X> extends AbstractQuery<X> implements Serializable {
 	private transient FetchPlan _fetch;
 
 	private String _id;
+	private OpenJPACriteriaQuery<?> _criteria;
     private transient ReentrantLock _lock = null;
 	private HintHandler _hintHandler;
     private DelegatingQuery _query;
@@ -523,7 +526,7 @@ public class QueryImpl<X> extends AbstractQuery<X> implements Serializable {
     private boolean preExecute(Map params) {
 
         PreparedQueryCache cache = _em.getPreparedQueryCache();
-        if (cache == null) {
+        if (cache == null || _id == null) {
             return false;
         }
         FetchConfiguration fetch = _query.getFetchConfiguration();
@@ -551,7 +554,7 @@ public class QueryImpl<X> extends AbstractQuery<X> implements Serializable {
             PreparedQuery pq = _em.getPreparedQuery(_id);
             if (pq.isInitialized()) {
                 try {
-                    Map rep = pq.reparametrize(params, _em.getBroker());
+                    Map rep = pq.reparametrize(toKernelParameterKeys(params), _em.getBroker());
                     params.clear();
                     params.putAll(rep);
                 } catch (UserException ue) {
@@ -604,23 +607,49 @@ public class QueryImpl<X> extends AbstractQuery<X> implements Serializable {
         if (cached == null)
             return;
         Broker broker = _em.getBroker();
-        // Critical assumption: Only JPQL queries are cached and more 
-        // importantly, the identifier of the prepared query is the original
-        // JPQL String
-        String JPQL = JPQLParser.LANG_JPQL;
-        String jpql = _id;
-        
-        org.apache.openjpa.kernel.Query newQuery = broker.newQuery(JPQL, jpql);
+        org.apache.openjpa.kernel.Query newQuery;
+        if (_criteria != null) {
+            // the identifier of a criteria query is its structural key, so
+            // recreate the query from the criteria it was created for
+            if (!LANG_PREPARED_SQL.equals(_query.getLanguage()))
+                return;
+            newQuery = broker.newQuery(CriteriaBuilderImpl.LANG_CRITERIA, _criteria);
+        } else {
+            // Critical assumption: Only JPQL queries are cached and more 
+            // importantly, the identifier of the prepared query is the original
+            // JPQL String
+            newQuery = broker.newQuery(JPQLParser.LANG_JPQL, _id);
+        }
         newQuery.getFetchConfiguration().copy(_query.getFetchConfiguration());
         newQuery.compile();
         _query = new DelegatingQuery(newQuery, _em.getExceptionTranslator());
     }
     
+    /**
+     * Criteria parameters are declared by their expression but a prepared query
+     * identifies them by the key they carry in the kernel expression tree.
+     */
+    private Map toKernelParameterKeys(Map params) {
+        if (_criteria == null)
+            return params;
+        Map<Object, Object> result = new HashMap<Object, Object>();
+        for (Object e : params.entrySet()) {
+            Map.Entry<?,?> entry = (Map.Entry<?,?>)e;
+            result.put(CriteriaBuilderImpl.getParameterKey(entry.getKey()), entry.getValue());
+        }
+        return result;
+    }
+    
     // package protected
     QueryImpl setId(String id) {
         _id = id;
         return this;
     }
+    
+    QueryImpl setCriteria(OpenJPACriteriaQuery<?> criteria) {
+        _criteria = criteria;
+        return this;
+    }
     // ================ End of Prepared Query related methods =====================
     
     protected void lock() {
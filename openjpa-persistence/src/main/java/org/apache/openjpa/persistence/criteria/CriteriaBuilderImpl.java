@@ -32,6 +32,7 @@ import javax.persistence.Tuple;
 import javax.persistence.criteria.CollectionJoin;
 import javax.persistence.criteria.CompoundSelection;
 import javax.persistence.criteria.CriteriaDelete;
+import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.CriteriaUpdate;
 import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.From;
@@ -98,6 +99,34 @@ public class CriteriaBuilderImpl implements OpenJPACriteriaBuilder, ExpressionPa
     public String getLanguage() {
         return LANG_CRITERIA;
     }
+
+    /**
+     * Gets a canonical key for the structure of the given query. Queries that differ only in the
+     * values bound to their parameters have the same key and hence can share a single entry in
+     * the prepared query cache.
+     * 
+     * @return a key or null if the query was not created by this builder or if its structure can
+     * not be determined.
+     * 
+     * @since 3.0.0
+     */
+    public static String getStructuralKey(CriteriaQuery<?> query) {
+        if (query instanceof CriteriaQueryImpl)
+            return ((CriteriaQueryImpl<?>) query).getStructuralKey();
+        return null;
+    }
+
+    /**
+     * Gets the key that identifies the given parameter in the kernel expression tree, or the
+     * parameter itself if it was not created by this builder.
+     * 
+     * @since 3.0.0
+     */
+    public static Object getParameterKey(Object param) {
+        if (param instanceof ParameterExpressionImpl)
+            return ((ParameterExpressionImpl<?>) param).getParameterKey();
+        return param;
+    }
     
     /**
      *  Create a Criteria query object with the specified result type.
@@ -103,4 +103,48 @@ public interface CriteriaExpressionVisitor {
             }
         }
     }
+    
+    /**
+     * A visitor to render the shape of an expression tree as the nested kind and value type of
+     * its nodes. Used to complement the JPQL-like rendering of a query where that rendering
+     * does not distinguish between nodes of different kind or type.
+     * 
+     * @since 3.0.0
+     */
+    public static class StructureVisitor extends AbstractVisitor {
+        private final StringBuilder buffer;
+        private boolean valueDependent;
+        
+        public StructureVisitor(StringBuilder buffer) {
+            this.buffer = buffer;
+        }
+        
+        /**
+         * Affirms if any visited node translates differently depending on the value bound to a parameter.
+         */
+        public boolean isValueDependent() {
+            return valueDependent;
+        }
+        
+        public void enter(CriteriaExpression expr) {
+            if (expr instanceof Expressions.In && ((Expressions.In<?>)expr).isParameterized()) {
+                valueDependent = true;
+            }
+            buffer.append(expr.getClass().getSimpleName());
+            if (expr instanceof Expressions.Constant || expr instanceof ParameterExpressionImpl) {
+                Class<?> type = ((ExpressionImpl<?>)expr).getJavaType();
+                buffer.append('<').append(type == null ? null : type.getName()).append('>');
+            }
+            buffer.append('(');
+        }
+        
+        public void exit(CriteriaExpression expr) {
+            super.exit(expr);
+            buffer.append(')');
+        }
+        
+        public TraversalStyle getTraversalStyle(CriteriaExpression node) {
+            return TraversalStyle.FUNCTION;
+        }
+    }
 }
@@ -659,6 +659,60 @@ class CriteriaQueryImpl<T> implements OpenJPACriteriaQuery<T>, AliasContext {
         }
     }
     
+    /**
+     * Gets a canonical key for the structure of this query. The key combines the JPQL-like rendering
+     * of this query with its result type and the kind and value type of each node in its expression
+     * trees. Queries that differ only in the values bound to their parameters have the same key.
+     * Literal values are part of the key because they are bound as is to the generated SQL.
+     * 
+     * @return the key or null if this query can not be rendered or if its translation depends on
+     * the values bound to its parameters.
+     * 
+     * @since 3.0.0
+     */
+    public String getStructuralKey() {
+        StringBuilder buffer = new StringBuilder();
+        try {
+            compile();
+            render(buffer, _roots, null);
+            buffer.append(" [").append(_resultClass == null ? null : _resultClass.getName()).append("] ");
+            CriteriaExpressionVisitor.StructureVisitor visitor = new CriteriaExpressionVisitor.StructureVisitor(buffer);
+            visitStructure(visitor);
+            if (visitor.isValueDependent())
+                return null;
+        } catch (RuntimeException e) {
+            return null;
+        }
+        return buffer.toString().trim();
+    }
+    
+    private void visitStructure(CriteriaExpressionVisitor visitor) {
+        if (_selection != null) {
+            ((CriteriaExpression)_selection).acceptVisit(visitor);
+        }
+        if (_where != null) {
+            _where.acceptVisit(visitor);
+        }
+        if (_orders != null) {
+            for (Order o : _orders) {
+                ((CriteriaExpression)o).acceptVisit(visitor);
+            }
+        }
+        if (_groups != null) {
+            for (Expression<?> e : _groups) {
+                ((CriteriaExpression)e).acceptVisit(visitor);
+            }
+        }
+        if (_having != null) {
+            _having.acceptVisit(visitor);
+        }
+        if (_subqueries != null) {
+            for (Subquery<?> subq : _subqueries) {
+                ((SubqueryImpl<?>)subq).getDelegate().visitStructure(visitor);
+            }
+        }
+    }
+    
     /**
      * Gets the string representation of the query.
      */
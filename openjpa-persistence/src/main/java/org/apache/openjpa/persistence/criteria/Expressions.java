@@ -637,7 +637,8 @@ class Expressions {
         
         @Override
         public StringBuilder asValue(AliasContext q) {
-            return Expressions.asValue(q, "TRIM", OPEN_BRACE, e1, COMMA, e2, CLOSE_BRACE);
+            String spec = ts == null ? "" : ts + " ";
+            return Expressions.asValue(q, "TRIM", OPEN_BRACE, spec, e2, " FROM ", e1, CLOSE_BRACE);
         }        
     }
     
@@ -1083,7 +1084,7 @@ class Expressions {
                 return new StringBuilder(arg.toString());
             } else if (Boolean.class.isAssignableFrom(literalClass)) {
                 return new StringBuilder(arg.toString());
-            } else if (String.class.isAssignableFrom(literalClass)) {
+            } else if (String.class.isAssignableFrom(literalClass) || Character.class.isAssignableFrom(literalClass)) {
                 return new StringBuilder("'").append(arg.toString()).append("'");
             } else if (Enum.class.isAssignableFrom(literalClass)) {
                 return new StringBuilder(arg.toString());
@@ -1274,7 +1275,9 @@ class Expressions {
         
         @Override
         public StringBuilder asValue(AliasContext q) {
-            return Expressions.asValue(q, str, " LIKE ", pattern);
+            if (escapeChar == null)
+                return Expressions.asValue(q, str, " LIKE ", pattern);
+            return Expressions.asValue(q, str, " LIKE ", pattern, " ESCAPE ", escapeChar);
         }        
     }
     
@@ -1419,6 +1422,14 @@ class Expressions {
         public Expression<T> getExpression() {
             return e;
         }
+        
+        /**
+         * Affirms if the values of this predicate are given by a single parameter, in which case the
+         * shape of the kernel expression depends on the value bound to that parameter.
+         */
+        boolean isParameterized() {
+            return _exps.size() == 1 && ((Equal)_exps.get(0)).e2 instanceof BindableParameter;
+        }
 
         public In<T> value(T value) {
             add(new Expressions.Equal(e,value));
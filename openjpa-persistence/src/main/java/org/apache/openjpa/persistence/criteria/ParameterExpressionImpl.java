@@ -96,10 +96,19 @@ class ParameterExpressionImpl<T> extends ExpressionImpl<T>
         return value;
     }
 
+    /**
+     * Gets the key that identifies this parameter in the kernel expression tree.
+     * 
+     * @since 3.0.0
+     */
+    public Object getParameterKey() {
+        return _name == null ? _index : _name;
+    }
+
     @Override
     public Value toValue(ExpressionFactory factory, CriteriaQueryImpl<?> q) {
         Class<?> clzz = getJavaType();
-        Object paramKey = _name == null ? _index : _name;
+        Object paramKey = getParameterKey();
         boolean isCollectionValued  = Collection.class.isAssignableFrom(clzz);
         org.apache.openjpa.kernel.exps.Parameter param = isCollectionValued 
             ? factory.newCollectionValuedParameter(paramKey, clzz) 